@@ -0,0 +1,106 @@
+package com.can.data.structure.sds;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <pre>
+ * Sds 的比较和哈希 (memcmp, memeq, memhash) 和逐个字节的实现的对比
+ *
+ * java -jar redis-java-benchmark/target/benchmarks.jar SdsKernelBenchmark
+ *
+ * 2 段内容只有最后一个字节不同, 比较需要扫描全部内容, 在不同的 buf 的不同起始位置, 和字典查找时的键相同
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-19 16:20
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SdsKernelBenchmark {
+
+	@Param({"8", "64", "4096"})
+	private int size;
+
+	private byte[] a;
+
+	private byte[] b;
+
+	private final static int A_OFF = 3;
+
+	private final static int B_OFF = 5;
+
+	@Setup
+	public void setup() {
+		a = new byte[A_OFF + size];
+		b = new byte[B_OFF + size];
+		new Random(42).nextBytes(a);
+		System.arraycopy(a, A_OFF, b, B_OFF, size);
+		b[B_OFF + size - 1] ^= 1;
+	}
+
+	@Benchmark
+	public int memcmp() {
+		return Sds.memcmp(a, A_OFF, b, B_OFF, size);
+	}
+
+	@Benchmark
+	public boolean memeq() {
+		return Sds.memeq(a, A_OFF, b, B_OFF, size);
+	}
+
+	@Benchmark
+	public int memhash() {
+		return Sds.memhash(a, A_OFF, size);
+	}
+
+	@Benchmark
+	public int bytewiseMemcmp() {
+		for (int i = 0; i < size; i++) {
+			int x = a[A_OFF + i] & 0xff;
+			int y = b[B_OFF + i] & 0xff;
+			if (x != y) {
+				return x - y;
+			}
+		}
+		return 0;
+	}
+
+	@Benchmark
+	public boolean bytewiseMemeq() {
+		for (int i = 0; i < size; i++) {
+			if (a[A_OFF + i] != b[B_OFF + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 和 Arrays.hashCode 相同的 31 进制哈希
+	 */
+	@Benchmark
+	public int bytewiseHash() {
+		int h = 1;
+		for (int i = 0; i < size; i++) {
+			h = 31 * h + a[A_OFF + i];
+		}
+		return h;
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * redis-java-epoll 的 JNI 实现, 直接调用 Linux 的 epoll 系统调用
+ *
+ * 对应的 Java 类: com.can.module.ae.api.epoll.Native
+ */
+#include <jni.h>
+#include <errno.h>
+#include <stdint.h>
+#include <string.h>
+#include <unistd.h>
+#include <sys/epoll.h>
+#include <sys/eventfd.h>
+
+static jfieldID find_fd_val_field(JNIEnv *env, jclass clazz) {
+    /* SocketChannelImpl / ServerSocketChannelImpl 都有 private final int fdVal, 沿着父类向上找 */
+    while (clazz != NULL) {
+        jfieldID id = (*env)->GetFieldID(env, clazz, "fdVal", "I");
+        if (id != NULL) {
+            return id;
+        }
+        (*env)->ExceptionClear(env);
+        clazz = (*env)->GetSuperclass(env, clazz);
+    }
+    return NULL;
+}
+
+JNIEXPORT jint JNICALL
+Java_com_can_module_ae_api_epoll_Native_epollCreate(JNIEnv *env, jclass clazz) {
+    int epfd = epoll_create1(EPOLL_CLOEXEC);
+    return epfd < 0 ? -errno : epfd;
+}
+
+JNIEXPORT jint JNICALL
+Java_com_can_module_ae_api_epoll_Native_epollCtl(JNIEnv *env, jclass clazz, jint epfd, jint op, jint fd,
+                                                 jint events, jint data) {
+    struct epoll_event ee;
+    memset(&ee, 0, sizeof(ee));
+    ee.events = (uint32_t) events;
+    ee.data.u32 = (uint32_t) data;
+    return epoll_ctl(epfd, op, fd, &ee) < 0 ? -errno : 0;
+}
+
+JNIEXPORT jint JNICALL
+Java_com_can_module_ae_api_epoll_Native_epollWait(JNIEnv *env, jclass clazz, jint epfd, jobject buffer,
+                                                  jint maxEvents, jint timeout) {
+    /* 直接内存的地址按页对齐, 两种视图都满足对齐要求 */
+    void *addr = (*env)->GetDirectBufferAddress(env, buffer);
+    struct epoll_event *events = (struct epoll_event *) addr;
+    int32_t *out = (int32_t *) addr;
+    int n, i;
+
+    if (addr == NULL) {
+        return -EINVAL;
+    }
+
+    n = epoll_wait(epfd, events, maxEvents, timeout);
+    if (n < 0) {
+        return errno == EINTR ? 0 : -errno;
+    }
+
+    /* 原地压缩为 [data, events] 的 int 对, 每个 8 字节, 不超过 epoll_event 的大小, 从前往后写不会覆盖未读的数据 */
+    for (i = 0; i < n; i++) {
+        uint32_t data = events[i].data.u32;
+        uint32_t ev = events[i].events;
+        out[i * 2] = (int32_t) data;
+        out[i * 2 + 1] = (int32_t) ev;
+    }
+    return n;
+}
+
+JNIEXPORT jint JNICALL
+Java_com_can_module_ae_api_epoll_Native_eventSize(JNIEnv *env, jclass clazz) {
+    return (jint) sizeof(struct epoll_event);
+}
+
+JNIEXPORT jint JNICALL
+Java_com_can_module_ae_api_epoll_Native_channelFd(JNIEnv *env, jclass clazz, jobject channel) {
+    jfieldID id = find_fd_val_field(env, (*env)->GetObjectClass(env, channel));
+    if (id == NULL) {
+        return -EBADF;
+    }
+    return (*env)->GetIntField(env, channel, id);
+}
+
+JNIEXPORT jint JNICALL
+Java_com_can_module_ae_api_epoll_Native_close(JNIEnv *env, jclass clazz, jint fd) {
+    return close(fd) < 0 ? -errno : 0;
+}
+
+JNIEXPORT jint JNICALL
+Java_com_can_module_ae_api_epoll_Native_eventFd(JNIEnv *env, jclass clazz) {
+    int efd = eventfd(0, EFD_CLOEXEC | EFD_NONBLOCK);
+    return efd < 0 ? -errno : efd;
+}
+
+JNIEXPORT jint JNICALL
+Java_com_can_module_ae_api_epoll_Native_eventFdWrite(JNIEnv *env, jclass clazz, jint fd) {
+    uint64_t one = 1;
+    /* 计数器已经不为 0 时写入失败 (EAGAIN) 也没关系, 事件轮询一样会被唤醒 */
+    return write(fd, &one, sizeof(one)) < 0 ? -errno : 0;
+}
+
+JNIEXPORT jint JNICALL
+Java_com_can_module_ae_api_epoll_Native_eventFdRead(JNIEnv *env, jclass clazz, jint fd) {
+    uint64_t value;
+    return read(fd, &value, sizeof(value)) < 0 ? -errno : 0;
+}
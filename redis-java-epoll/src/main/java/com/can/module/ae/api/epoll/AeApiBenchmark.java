@@ -0,0 +1,130 @@
+package com.can.module.ae.api.epoll;
+
+import com.can.module.ae.Ae;
+import com.can.module.ae.AeConstants;
+import com.can.module.ae.AeEventLoop;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <pre>
+ * 不同 AeApi 实现的 ping-pong 压测, 分别执行后对比结果:
+ *
+ * java -Dredis.ae.api=epoll        -cp ... com.can.module.ae.api.epoll.AeApiBenchmark [连接数] [秒数]
+ * java -Dredis.ae.api=epoll-native -cp ... com.can.module.ae.api.epoll.AeApiBenchmark [连接数] [秒数]
+ *
+ * 事件轮询线程作为服务端, 原样返回读到的数据, 每个连接一个客户端线程, 阻塞的发送 64 字节, 再读取 64 字节
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-18 15:10
+ */
+public class AeApiBenchmark {
+
+	private final static int PAYLOAD = 64;
+
+	/**
+	 * 服务端只有事件轮询一个线程, 共用一个读缓冲区
+	 */
+	private final static ByteBuffer ECHO_BUFFER = ByteBuffer.allocateDirect(PAYLOAD);
+
+	public static void main(String[] args) throws Exception {
+
+		int connections = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+		int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+		AeEventLoop el = Ae.aeCreateEventLoop(connections + 32);
+
+		ServerSocketChannel server = ServerSocketChannel.open();
+		server.bind(new InetSocketAddress("127.0.0.1", 0));
+		int port = ((InetSocketAddress) server.getLocalAddress()).getPort();
+
+		int listenFd = Ae.aeRegisterChannel(el, server);
+		Ae.aeCreateFileEvent(el, listenFd, AeConstants.AE_READABLE, (eventLoop, fd, clientData, mask) -> {
+			try {
+				SocketChannel channel;
+				while ((channel = server.accept()) != null) {
+					channel.socket().setTcpNoDelay(true);
+					int cfd = Ae.aeRegisterChannel(eventLoop, channel);
+					Ae.aeCreateFileEvent(eventLoop, cfd, AeConstants.AE_READABLE, AeApiBenchmark::echo, channel);
+				}
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		}, null);
+
+		AtomicBoolean running = new AtomicBoolean(true);
+		LongAdder roundTrips = new LongAdder();
+
+		for (int i = 0; i < connections; i++) {
+			Thread client = new Thread(() -> pingPong(port, running, roundTrips), "bench-client-" + i);
+			client.setDaemon(true);
+			client.start();
+		}
+
+		long startNs = System.nanoTime();
+		Ae.aeCreateTimeEvent(el, seconds * 1000L, (eventLoop, id, clientData) -> {
+			running.set(false);
+			Ae.aeStop(eventLoop);
+			return AeConstants.AE_NOMORE;
+		}, null, null);
+
+		Ae.aeMain(el);
+
+		double elapsed = (System.nanoTime() - startNs) / 1e9;
+		System.out.printf("api=%s connections=%d seconds=%.1f round-trips/s=%.0f%n",
+				Ae.aeGetApiName(el), connections, elapsed, roundTrips.sum() / elapsed);
+		server.close();
+	}
+
+	private static void echo(AeEventLoop eventLoop, int fd, Object clientData, int mask) {
+
+		SocketChannel channel = (SocketChannel) clientData;
+		ByteBuffer buffer = ECHO_BUFFER;
+		buffer.clear();
+		try {
+			int n = channel.read(buffer);
+			if (n < 0) {
+				Ae.aeUnregisterChannel(eventLoop, fd);
+				channel.close();
+				return;
+			}
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		} catch (IOException e) {
+			Ae.aeUnregisterChannel(eventLoop, fd);
+		}
+	}
+
+	private static void pingPong(int port, AtomicBoolean running, LongAdder roundTrips) {
+
+		try (SocketChannel channel = SocketChannel.open(new InetSocketAddress("127.0.0.1", port))) {
+			channel.socket().setTcpNoDelay(true);
+			ByteBuffer ping = ByteBuffer.allocateDirect(PAYLOAD);
+			ByteBuffer pong = ByteBuffer.allocateDirect(PAYLOAD);
+			while (running.get()) {
+				ping.clear();
+				while (ping.hasRemaining()) {
+					channel.write(ping);
+				}
+				pong.clear();
+				while (pong.hasRemaining()) {
+					if (channel.read(pong) < 0) {
+						return;
+					}
+				}
+				roundTrips.increment();
+			}
+		} catch (IOException ignore) {
+			// 服务端关闭
+		}
+	}
+}
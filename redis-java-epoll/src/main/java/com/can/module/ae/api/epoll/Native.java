@@ -0,0 +1,154 @@
+package com.can.module.ae.api.epoll;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * <pre>
+ * epoll 的 JNI 绑定 (src/main/c/epoll.c)
+ *
+ * 加载顺序:
+ * 1. java.library.path 中的 libredis-java-epoll.so
+ * 2. jar 包中的 META-INF/native/libredis-java-epoll.so, 解压到临时文件后加载
+ * 都失败时 {@link #isAvailable()} 返回 false, 由调用方退回到 Selector 的实现
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-18 14:05
+ */
+public final class Native {
+
+	private final static String LIBRARY_NAME = "redis-java-epoll";
+
+	public final static int EPOLLIN = 0x001;
+
+	public final static int EPOLLOUT = 0x004;
+
+	public final static int EPOLLERR = 0x008;
+
+	public final static int EPOLLHUP = 0x010;
+
+	public final static int EPOLLRDHUP = 0x2000;
+
+	public final static int EPOLL_CTL_ADD = 1;
+
+	public final static int EPOLL_CTL_DEL = 2;
+
+	public final static int EPOLL_CTL_MOD = 3;
+
+	/**
+	 * epollWait 压缩后每个就绪事件占用的字节数: [int data, int events]
+	 */
+	public final static int EVENT_BYTES = 8;
+
+	/**
+	 * 本地库加载失败的原因, 加载成功为 null
+	 */
+	private final static Throwable UNAVAILABILITY_CAUSE;
+
+	static {
+		Throwable cause = null;
+		try {
+			load();
+		} catch (Throwable e) {
+			cause = e;
+		}
+		UNAVAILABILITY_CAUSE = cause;
+	}
+
+	private Native() {
+	}
+
+	public static boolean isAvailable() {
+		return UNAVAILABILITY_CAUSE == null;
+	}
+
+	public static Throwable unavailabilityCause() {
+		return UNAVAILABILITY_CAUSE;
+	}
+
+	/**
+	 * epoll_create1(EPOLL_CLOEXEC)
+	 *
+	 * @return epoll 的文件描述符, 失败返回 -errno
+	 */
+	public static native int epollCreate();
+
+	/**
+	 * epoll_ctl
+	 *
+	 * @param epfd   epoll 的文件描述符
+	 * @param op     EPOLL_CTL_ADD/EPOLL_CTL_MOD/EPOLL_CTL_DEL
+	 * @param fd     操作系统的文件描述符
+	 * @param events 监听的事件
+	 * @param data   就绪时原样返回的数据, 这里存放的是 AeEventLoop 中的 fd
+	 * @return 0: 成功, 失败返回 -errno
+	 */
+	public static native int epollCtl(int epfd, int op, int fd, int events, int data);
+
+	/**
+	 * epoll_wait, 就绪事件直接写入预先分配的堆外内存, 然后原地压缩为 [data, events] 的 int 对
+	 *
+	 * @param epfd      epoll 的文件描述符
+	 * @param events    直接内存, 容量至少为 maxEvents * eventSize()
+	 * @param maxEvents 最多返回多少个事件
+	 * @param timeout   超时时间, 单位毫秒, -1 表示一直阻塞
+	 * @return 就绪的事件数, 被信号中断返回 0, 失败返回 -errno
+	 */
+	public static native int epollWait(int epfd, ByteBuffer events, int maxEvents, int timeout);
+
+	/**
+	 * @return sizeof(struct epoll_event)
+	 */
+	public static native int eventSize();
+
+	/**
+	 * 获取 NIO 通道底层的文件描述符
+	 *
+	 * @param channel SocketChannel/ServerSocketChannel
+	 * @return 文件描述符, 失败返回 -errno
+	 */
+	public static native int channelFd(Object channel);
+
+	public static native int close(int fd);
+
+	/**
+	 * eventfd(0, EFD_CLOEXEC | EFD_NONBLOCK), 用于唤醒 epoll_wait
+	 *
+	 * @return eventfd 的文件描述符, 失败返回 -errno
+	 */
+	public static native int eventFd();
+
+	public static native int eventFdWrite(int fd);
+
+	public static native int eventFdRead(int fd);
+
+	private static void load() throws IOException {
+
+		if (!System.getProperty("os.name", "").toLowerCase().startsWith("linux")) {
+			throw new UnsupportedOperationException("epoll is only available on Linux");
+		}
+
+		try {
+			System.loadLibrary(LIBRARY_NAME);
+			return;
+		} catch (UnsatisfiedLinkError ignore) {
+			// 退回到 jar 包中的库
+		}
+
+		String resource = "/META-INF/native/lib" + LIBRARY_NAME + ".so";
+		try (InputStream in = Native.class.getResourceAsStream(resource)) {
+			if (in == null) {
+				throw new UnsatisfiedLinkError("no " + resource + " in classpath");
+			}
+			File tmp = File.createTempFile("lib" + LIBRARY_NAME, ".so");
+			tmp.deleteOnExit();
+			Files.copy(in, tmp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			System.load(tmp.getAbsolutePath());
+		}
+	}
+}
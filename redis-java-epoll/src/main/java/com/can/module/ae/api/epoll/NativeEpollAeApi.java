@@ -0,0 +1,239 @@
+package com.can.module.ae.api.epoll;
+
+import com.can.module.ae.AeConstants;
+import com.can.module.ae.AeEventLoop;
+import com.can.module.ae.api.AeApi;
+import com.can.module.ae.api.state.AeApiState;
+import com.can.module.time.TimeVal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SelectableChannel;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * <pre>
+ * 直接调用 epoll 的实现 (ae_epoll.c), 通过 AeApi.getAeApiInstance("epoll-native") 获取
+ *
+ * 和 {@link com.can.module.ae.api.EpollAeApi} 相比, 没有 Selector 的唤醒管道, 就绪集合的同步和每次轮询产生的对象
+ * epoll_wait 直接写入预先分配的堆外内存, epoll_event.data 中存放的就是 AeEventLoop 中的 fd, 不需要再做映射
+ *
+ * 和 ae_epoll.c 一样只使用水平触发, 文件事件的处理函数每次只读写一次, 不会一直读写到 EAGAIN, 边缘触发下剩下的数据不会再通知
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-18 14:30
+ */
+public class NativeEpollAeApi implements AeApi {
+
+	/**
+	 * 唤醒用的 eventfd 在 epoll_event.data 中的值, 不会和 AeEventLoop 中的 fd 冲突
+	 */
+	private final static int WAKEUP_DATA = -1;
+
+	public NativeEpollAeApi() {
+		if (!Native.isAvailable()) {
+			throw new UnsupportedOperationException("native epoll unavailable", Native.unavailabilityCause());
+		}
+	}
+
+	@Override
+	public int aeApiCreate(AeEventLoop aeEventLoop) throws IOException {
+
+		int epfd = Native.epollCreate();
+		if (epfd < 0) {
+			throw new IOException("epoll_create1 failed, errno: " + (-epfd));
+		}
+
+		int wakeupFd = Native.eventFd();
+		if (wakeupFd < 0) {
+			Native.close(epfd);
+			throw new IOException("eventfd failed, errno: " + (-wakeupFd));
+		}
+
+		int ret = Native.epollCtl(epfd, Native.EPOLL_CTL_ADD, wakeupFd, Native.EPOLLIN, WAKEUP_DATA);
+		if (ret < 0) {
+			Native.close(wakeupFd);
+			Native.close(epfd);
+			throw new IOException("epoll_ctl add eventfd failed, errno: " + (-ret));
+		}
+
+		int setSize = aeEventLoop.getCapacity();
+
+		AeApiState state = new AeApiState();
+		state.setEpfd(epfd);
+		state.setWakeupFd(wakeupFd);
+		state.setChannels(new SelectableChannel[setSize]);
+		int[] nativeFds = new int[setSize];
+		// 和 aeApiResize 一样, 没有绑定的位置为 -1
+		Arrays.fill(nativeFds, -1);
+		state.setNativeFds(nativeFds);
+		// 多预留一个给 eventfd
+		state.setNativeEvents(ByteBuffer.allocateDirect((setSize + 1) * Native.eventSize()).order(ByteOrder.nativeOrder()));
+
+		aeEventLoop.setApiData(state);
+		return 0;
+	}
+
+	@Override
+	public int aeApiResize(AeEventLoop aeEventLoop, int setSize) {
+
+		AeApiState apiData = aeEventLoop.getApiData();
+		int oldSize = apiData.getNativeFds().length;
+		apiData.setChannels(Arrays.copyOf(apiData.getChannels(), setSize));
+		apiData.setNativeFds(Arrays.copyOf(apiData.getNativeFds(), setSize));
+		if (setSize > oldSize) {
+			Arrays.fill(apiData.getNativeFds(), oldSize, setSize, -1);
+		}
+		// 就绪事件数组只在轮询时使用, 直接重新分配
+		apiData.setNativeEvents(ByteBuffer.allocateDirect((setSize + 1) * Native.eventSize()).order(ByteOrder.nativeOrder()));
+		return 0;
+	}
+
+	@Override
+	public void aeApiFree(AeEventLoop aeEventLoop) {
+
+		AeApiState apiData = aeEventLoop.getApiData();
+		if (Objects.nonNull(apiData)) {
+			Native.close(apiData.getWakeupFd());
+			Native.close(apiData.getEpfd());
+		}
+		aeEventLoop.setApiData(null);
+	}
+
+	@Override
+	public int aeApiAttach(AeEventLoop aeEventLoop, int fd, SelectableChannel channel) throws IOException {
+
+		AeApiState apiData = aeEventLoop.getApiData();
+
+		int nativeFd = Native.channelFd(channel);
+		if (nativeFd < 0) {
+			return -1;
+		}
+
+		channel.configureBlocking(false);
+		apiData.getChannels()[fd] = channel;
+		apiData.getNativeFds()[fd] = nativeFd;
+		return 0;
+	}
+
+	@Override
+	public void aeApiDetach(AeEventLoop aeEventLoop, int fd) {
+
+		AeApiState apiData = aeEventLoop.getApiData();
+		apiData.getChannels()[fd] = null;
+		apiData.getNativeFds()[fd] = -1;
+	}
+
+	@Override
+	public int aeApiAddEvent(AeEventLoop aeEventLoop, int fd, int mask) {
+
+		AeApiState apiData = aeEventLoop.getApiData();
+		if (Objects.isNull(apiData.getChannels()[fd])) {
+			return -1;
+		}
+
+		// 之前没有监听任何事件需要 ADD, 否则 MOD
+		int oldMask = aeEventLoop.getMasks()[fd];
+		int op = oldMask == AeConstants.AE_NONE ? Native.EPOLL_CTL_ADD : Native.EPOLL_CTL_MOD;
+
+		mask |= oldMask;
+		int ret = Native.epollCtl(apiData.getEpfd(), op, apiData.getNativeFds()[fd], mask2Events(mask), fd);
+		return ret < 0 ? -1 : 0;
+	}
+
+	@Override
+	public int aeApiDelEvent(AeEventLoop aeEventLoop, int fd, int delmask) {
+
+		AeApiState apiData = aeEventLoop.getApiData();
+		if (Objects.isNull(apiData.getChannels()[fd])) {
+			return 0;
+		}
+
+		int mask = aeEventLoop.getMasks()[fd] & (~delmask);
+		int nativeFd = apiData.getNativeFds()[fd];
+		if (mask != AeConstants.AE_NONE) {
+			Native.epollCtl(apiData.getEpfd(), Native.EPOLL_CTL_MOD, nativeFd, mask2Events(mask), fd);
+		} else {
+			Native.epollCtl(apiData.getEpfd(), Native.EPOLL_CTL_DEL, nativeFd, 0, fd);
+		}
+		return 0;
+	}
+
+	@Override
+	public int aeApiPoll(AeEventLoop aeEventLoop, TimeVal tv) throws IOException {
+
+		AeApiState apiData = aeEventLoop.getApiData();
+		ByteBuffer events = apiData.getNativeEvents();
+
+		int timeout = -1;
+		if (Objects.nonNull(tv)) {
+			long waitTimeUs = tv.getTvSec() * 1000000 + tv.getTvUsec();
+			timeout = (int) Math.min(Integer.MAX_VALUE, (waitTimeUs + 999) / 1000);
+		}
+
+		int retVal = Native.epollWait(apiData.getEpfd(), events, aeEventLoop.getCapacity() + 1, timeout);
+		if (retVal < 0) {
+			throw new IOException("epoll_wait failed, errno: " + (-retVal));
+		}
+
+		int[] firedFds = aeEventLoop.getFiredFds();
+		int[] firedMasks = aeEventLoop.getFiredMasks();
+		int numevents = 0;
+		for (int i = 0; i < retVal; i++) {
+
+			int offset = i * Native.EVENT_BYTES;
+			int fd = events.getInt(offset);
+			int e = events.getInt(offset + 4);
+
+			// 被其他线程唤醒, 清空 eventfd 的计数即可
+			if (fd == WAKEUP_DATA) {
+				Native.eventFdRead(apiData.getWakeupFd());
+				continue;
+			}
+
+			int mask = AeConstants.AE_NONE;
+			if ((e & (Native.EPOLLIN | Native.EPOLLRDHUP)) != 0) {
+				mask |= AeConstants.AE_READABLE;
+			}
+			if ((e & Native.EPOLLOUT) != 0) {
+				mask |= AeConstants.AE_WRITABLE;
+			}
+			// 出错或者挂断, 可读可写都触发, 由处理函数在读写时发现错误
+			if ((e & (Native.EPOLLERR | Native.EPOLLHUP)) != 0) {
+				mask |= AeConstants.AE_READABLE | AeConstants.AE_WRITABLE;
+			}
+
+			firedFds[numevents] = fd;
+			firedMasks[numevents] = mask;
+			numevents++;
+		}
+		return numevents;
+	}
+
+	@Override
+	public void aeApiWakeup(AeEventLoop aeEventLoop) {
+		AeApiState apiData = aeEventLoop.getApiData();
+		if (Objects.nonNull(apiData)) {
+			Native.eventFdWrite(apiData.getWakeupFd());
+		}
+	}
+
+	@Override
+	public String aeApiName() {
+		return "epoll-native";
+	}
+
+	private int mask2Events(int mask) {
+		int events = 0;
+		if ((mask & AeConstants.AE_READABLE) != 0) {
+			events |= Native.EPOLLIN;
+		}
+		if ((mask & AeConstants.AE_WRITABLE) != 0) {
+			events |= Native.EPOLLOUT;
+		}
+		return events;
+	}
+}
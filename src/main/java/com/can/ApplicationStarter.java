@@ -1,10 +1,26 @@
 package com.can;
 
+import com.can.module.ae.AeConstants;
+import com.can.module.ae.AeEventLoop;
+import com.can.module.ae.AeEventLoopGroup;
+import com.can.module.ae.watchdog.AeWatchdog;
+import com.can.module.command.RedisCommandTable;
+import com.can.module.db.RedisDb;
+import com.can.module.networking.ClientsCron;
+import com.can.module.networking.IoThreads;
+import com.can.module.networking.Networking;
+import com.can.module.networking.UnixDomainSockets;
+import com.can.module.object.SharedObjects;
 import com.can.module.server.RedisServer;
 import com.can.module.ae.Ae;
 import com.can.module.server.RedisServerConstants;
+import com.can.module.server.RedisServerThreadVars;
+import com.can.module.time.ServerClock;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ServerSocketChannel;
 import java.util.Objects;
 
 /**
@@ -28,43 +44,348 @@ public class ApplicationStarter {
 		// https://github.com/menwenjun/redis_source_annotation/blob/master/server.h
 
 		// 初始化配置
-		//initServerConfig();
-		// 加载并解析配置文件
-		//loadServerConfig();
+		initServerConfig();
+		// 加载并解析配置 (目前只支持命令行参数 --name value)
+		loadServerConfig(args);
 
 		// 初始化服务器内部变量
 		initServer();
+		// 初始化 IO 线程
+		IoThreads.initThreadedIO();
+		// 启动看门狗
+		enableWatchdog();
+
+		if (Objects.nonNull(REDIS_SERVER.getReactorGroup())) {
+			REDIS_SERVER.getReactorGroup().start();
+		}
 
 		Ae.aeMain(REDIS_SERVER.getEl());
+
+		if (Objects.nonNull(REDIS_SERVER.getReactorGroup())) {
+			REDIS_SERVER.getReactorGroup().stop();
+		}
+		if (Objects.nonNull(REDIS_SERVER.getSofd())) {
+			UnixDomainSockets.close(REDIS_SERVER.getSofd(), REDIS_SERVER.getUnixsocket());
+		}
 		Ae.aeDeleteEventLoop(REDIS_SERVER.getEl());
 	}
 
 
 	private static void initServerConfig() {
-		// TODO
+
+		// 初始化命令表
+		RedisCommandTable.populateCommandTable();
+
+		REDIS_SERVER.setPort(RedisServerConstants.CONFIG_DEFAULT_SERVER_PORT);
+		REDIS_SERVER.setUnixsocketperm(RedisServerConstants.CONFIG_DEFAULT_UNIX_SOCKET_PERM);
+		REDIS_SERVER.setTcpBacklog(RedisServerConstants.CONFIG_DEFAULT_TCP_BACKLOG);
+		REDIS_SERVER.setTcpKeepalive(RedisServerConstants.CONFIG_DEFAULT_TCP_KEEPALIVE);
+		REDIS_SERVER.setMaxClients(RedisServerConstants.CONFIG_DEFAULT_MAX_CLIENTS);
+		REDIS_SERVER.setReactors(RedisServerConstants.CONFIG_DEFAULT_REACTORS);
+		REDIS_SERVER.setReactorBalance(RedisServerConstants.CONFIG_DEFAULT_REACTOR_BALANCE);
+		REDIS_SERVER.setIoThreadsNum(RedisServerConstants.CONFIG_DEFAULT_IO_THREADS_NUM);
+		REDIS_SERVER.setIoThreadsDoReads(false);
+		REDIS_SERVER.setBusyPollUsec(RedisServerConstants.CONFIG_DEFAULT_BUSY_POLL_USEC);
+		REDIS_SERVER.setWatchdogPeriod(RedisServerConstants.CONFIG_DEFAULT_WATCHDOG_PERIOD);
+		REDIS_SERVER.setStalllogMaxLen(RedisServerConstants.CONFIG_DEFAULT_STALLLOG_MAX_LEN);
+		REDIS_SERVER.setHz(RedisServerConstants.CONFIG_DEFAULT_HZ);
+		REDIS_SERVER.setMaxidletime(RedisServerConstants.CONFIG_DEFAULT_CLIENT_TIMEOUT);
+		REDIS_SERVER.setReplyCacheMinHits(RedisServerConstants.CONFIG_DEFAULT_REPLY_CACHE_MIN_HITS);
+		REDIS_SERVER.setReplyCacheMaxMemory(RedisServerConstants.CONFIG_DEFAULT_REPLY_CACHE_MAX_MEMORY);
+		REDIS_SERVER.setSdsOffheapMinLen(RedisServerConstants.CONFIG_DEFAULT_SDS_OFFHEAP_MIN_LEN);
 	}
 
-	private static void loadServerConfig() {
-		// TODO
+	private static void loadServerConfig(String[] args) {
+
+		for (int i = 0; i + 1 < args.length; i += 2) {
+
+			if (!args[i].startsWith("--")) {
+				System.err.println("Bad directive or wrong number of arguments: " + args[i]);
+				System.exit(1);
+			}
+
+			String name = args[i].substring(2).toLowerCase();
+			String value = args[i + 1];
+
+			try {
+				switch (name) {
+					case "port":
+						REDIS_SERVER.setPort(Integer.parseInt(value));
+						break;
+					case "bind":
+						REDIS_SERVER.setBindAddr(value);
+						break;
+					case "unixsocket":
+						REDIS_SERVER.setUnixsocket(value);
+						break;
+					case "unixsocketperm":
+						REDIS_SERVER.setUnixsocketperm(Integer.parseInt(value, 8));
+						break;
+					case "tcp-backlog":
+						REDIS_SERVER.setTcpBacklog(Integer.parseInt(value));
+						break;
+					case "tcp-keepalive":
+						REDIS_SERVER.setTcpKeepalive(Integer.parseInt(value));
+						break;
+					case "maxclients":
+						REDIS_SERVER.setMaxClients(Integer.parseInt(value));
+						break;
+					case "reactors":
+						REDIS_SERVER.setReactors(Integer.parseInt(value));
+						break;
+					case "reactor-balance":
+						REDIS_SERVER.setReactorBalance(value);
+						break;
+					case "io-threads":
+						REDIS_SERVER.setIoThreadsNum(Integer.parseInt(value));
+						break;
+					case "io-threads-do-reads":
+						REDIS_SERVER.setIoThreadsDoReads(yesnotoi(name, value));
+						break;
+					case "busy-poll-usec":
+						REDIS_SERVER.setBusyPollUsec(Integer.parseInt(value));
+						break;
+					case "watchdog-period":
+						REDIS_SERVER.setWatchdogPeriod(Integer.parseInt(value));
+						break;
+					case "stalllog-max-len":
+						REDIS_SERVER.setStalllogMaxLen(Integer.parseInt(value));
+						break;
+					case "hz":
+						REDIS_SERVER.setHz(Integer.parseInt(value));
+						break;
+					case "timeout":
+						REDIS_SERVER.setMaxidletime(Integer.parseInt(value));
+						break;
+					case "reply-cache-min-hits":
+						REDIS_SERVER.setReplyCacheMinHits(Integer.parseInt(value));
+						break;
+					case "reply-cache-max-memory":
+						REDIS_SERVER.setReplyCacheMaxMemory(Long.parseLong(value));
+						break;
+					case "sds-offheap-min-len":
+						REDIS_SERVER.setSdsOffheapMinLen(Integer.parseInt(value));
+						break;
+					default:
+						System.err.println("Bad directive or wrong number of arguments: " + name);
+						System.exit(1);
+				}
+			} catch (NumberFormatException e) {
+				System.err.println("Invalid argument for '" + name + "': " + value);
+				System.exit(1);
+			}
+		}
+
+		if (REDIS_SERVER.getReactors() < 1 || REDIS_SERVER.getReactors() > RedisServerConstants.CONFIG_MAX_REACTORS) {
+			System.err.println("Invalid number of reactors: " + REDIS_SERVER.getReactors());
+			System.exit(1);
+		}
+
+		if (!AeEventLoopGroup.BALANCE_ROUND_ROBIN.equals(REDIS_SERVER.getReactorBalance())
+			&& !AeEventLoopGroup.BALANCE_LEAST_CONNECTIONS.equals(REDIS_SERVER.getReactorBalance())) {
+			System.err.println("Invalid reactor-balance: " + REDIS_SERVER.getReactorBalance());
+			System.exit(1);
+		}
+
+		if (REDIS_SERVER.getBusyPollUsec() < 0) {
+			System.err.println("Invalid busy-poll-usec: " + REDIS_SERVER.getBusyPollUsec());
+			System.exit(1);
+		}
+
+		if (REDIS_SERVER.getWatchdogPeriod() < 0 || REDIS_SERVER.getStalllogMaxLen() < 0) {
+			System.err.println("Invalid watchdog-period or stalllog-max-len");
+			System.exit(1);
+		}
+
+		if (REDIS_SERVER.getHz() < RedisServerConstants.CONFIG_MIN_HZ || REDIS_SERVER.getHz() > RedisServerConstants.CONFIG_MAX_HZ) {
+			System.err.println("Invalid hz: " + REDIS_SERVER.getHz());
+			System.exit(1);
+		}
+
+		if (REDIS_SERVER.getReplyCacheMinHits() < 0 || REDIS_SERVER.getReplyCacheMaxMemory() < 0) {
+			System.err.println("Invalid reply-cache-min-hits or reply-cache-max-memory");
+			System.exit(1);
+		}
+
+		if (REDIS_SERVER.getSdsOffheapMinLen() < 0) {
+			System.err.println("Invalid sds-offheap-min-len: " + REDIS_SERVER.getSdsOffheapMinLen());
+			System.exit(1);
+		}
+
+		if (REDIS_SERVER.getMaxidletime() < 0) {
+			System.err.println("Invalid timeout: " + REDIS_SERVER.getMaxidletime());
+			System.exit(1);
+		}
+
+		if (REDIS_SERVER.getIoThreadsNum() < 1 || REDIS_SERVER.getIoThreadsNum() > RedisServerConstants.IO_THREADS_MAX_NUM) {
+			System.err.println("Invalid number of io threads: " + REDIS_SERVER.getIoThreadsNum());
+			System.exit(1);
+		}
+
+		// 多 reactor 模式下读写已经分散到各个事件轮询中, 不再需要 IO 线程
+		if (REDIS_SERVER.getReactors() > 1 && REDIS_SERVER.getIoThreadsNum() > 1) {
+			System.err.println("WARNING: io-threads is ignored when reactors > 1");
+			REDIS_SERVER.setIoThreadsNum(1);
+		}
+	}
+
+	private static boolean yesnotoi(String name, String value) {
+		if ("yes".equalsIgnoreCase(value)) {
+			return true;
+		}
+		if ("no".equalsIgnoreCase(value)) {
+			return false;
+		}
+		System.err.println("Argument for '" + name + "' must be 'yes' or 'no': " + value);
+		System.exit(1);
+		return false;
 	}
 
 	private static void initServer() throws IOException {
 
+		int setSize = REDIS_SERVER.getMaxClients() + RedisServerConstants.CONFIG_FDSET_INCR;
+		REDIS_SERVER.setStatStarttime(ServerClock.getUnixtime());
+		REDIS_SERVER.setDb(new RedisDb(0));
+		// 创建共享对象, 常用的回复和小整数
+		SharedObjects.createSharedObjects();
+
 		// 创建 AeEventLoop, 同时保存到 redisServer 的 el 属性
-		REDIS_SERVER.setEl(Ae.aeCreateEventLoop(RedisServerConstants.CONFIG_DEFAULT_MAX_CLIENTS + RedisServerConstants.CONFIG_MIN_RESERVED_FDS));
+		REDIS_SERVER.setEl(Ae.aeCreateEventLoop(setSize));
 
 		if (Objects.isNull(REDIS_SERVER.getEl())) {
 			System.err.println("Failed creating event loop");
-			return;
+			System.exit(1);
+		}
+
+		if (Objects.nonNull(REDIS_SERVER.getEl().getStats())) {
+			REDIS_SERVER.getEl().getStats().register("main");
+		}
+
+		REDIS_SERVER.setMainThreadVars(new RedisServerThreadVars(REDIS_SERVER.getEl(), REDIS_SERVER.getClientsPendingWrite()));
+
+		// 多 reactor 模式, 主事件轮询只负责 accept, 客户端分配到事件轮询组中
+		if (REDIS_SERVER.getReactors() > 1) {
+			AeEventLoopGroup group = new AeEventLoopGroup(REDIS_SERVER.getReactors(), setSize, REDIS_SERVER.getReactorBalance());
+			RedisServerThreadVars[] reactorThreadVars = new RedisServerThreadVars[group.size()];
+			for (int i = 0; i < group.size(); i++) {
+				RedisServerThreadVars threadVars = new RedisServerThreadVars(group.getEventLoops()[i]);
+				reactorThreadVars[i] = threadVars;
+				// 每个 reactor 在进入等待前发送自己的客户端的回复
+				Ae.aeSetBeforeSleepProc(threadVars.getEl(), eventLoop -> Networking.handleClientsWithPendingWrites(threadVars.getClientsPendingWrite()));
+				// 每个 reactor 检查自己的客户端
+				Ae.aeCreateTimeEvent(threadVars.getEl(), 1, ClientsCron::clientsCron, threadVars, null);
+			}
+			REDIS_SERVER.setReactorGroup(group);
+			REDIS_SERVER.setReactorThreadVars(reactorThreadVars);
+		}
+
+		// 忙轮询
+		if (REDIS_SERVER.getBusyPollUsec() > 0) {
+			Ae.aeSetBusyPoll(REDIS_SERVER.getEl(), REDIS_SERVER.getBusyPollUsec());
+			if (Objects.nonNull(REDIS_SERVER.getReactorGroup())) {
+				for (AeEventLoop eventLoop : REDIS_SERVER.getReactorGroup().getEventLoops()) {
+					Ae.aeSetBusyPoll(eventLoop, REDIS_SERVER.getBusyPollUsec());
+				}
+			}
 		}
 
 		// 创建 socket 监听
+		listenToPort();
 
 		// 添加 定时事件到事件轮询中
+		Ae.aeCreateTimeEvent(REDIS_SERVER.getEl(), 1, ClientsCron::clientsCron, REDIS_SERVER.getMainThreadVars(), null);
+
+		Ae.aeSetBeforeSleepProc(REDIS_SERVER.getEl(), ApplicationStarter::beforeSleep);
 
 		// 添加 socket 文件事件到事件轮询中
+		AeEventLoop el = REDIS_SERVER.getEl();
+		int fd = Ae.aeRegisterChannel(el, REDIS_SERVER.getIpfd());
+		if (fd == AeConstants.AE_ERR
+			|| Ae.aeCreateFileEvent(el, fd, AeConstants.AE_READABLE, Networking::acceptTcpHandler, null) == AeConstants.AE_ERR) {
+			System.err.println("Unrecoverable error creating server.ipfd file event.");
+			System.exit(1);
+		}
+
+		// Unix domain socket 和 TCP 的监听在同一个事件轮询中
+		if (Objects.nonNull(REDIS_SERVER.getSofd())) {
+			fd = Ae.aeRegisterChannel(el, REDIS_SERVER.getSofd());
+			if (fd == AeConstants.AE_ERR
+				|| Ae.aeCreateFileEvent(el, fd, AeConstants.AE_READABLE, Networking::acceptUnixHandler, null) == AeConstants.AE_ERR) {
+				System.err.println("Unrecoverable error creating server.sofd file event.");
+				System.exit(1);
+			}
+		}
+	}
+
+	private static void listenToPort() {
+
+		InetSocketAddress address = Objects.isNull(REDIS_SERVER.getBindAddr())
+			? new InetSocketAddress(REDIS_SERVER.getPort())
+			: new InetSocketAddress(REDIS_SERVER.getBindAddr(), REDIS_SERVER.getPort());
+
+		try {
+			ServerSocketChannel serverChannel = ServerSocketChannel.open();
+			serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+			serverChannel.bind(address, REDIS_SERVER.getTcpBacklog());
+			REDIS_SERVER.setIpfd(serverChannel);
+		} catch (IOException e) {
+			System.err.println("Could not create server TCP listening socket " + address + ": " + e.getMessage());
+			System.exit(1);
+		}
+
+		if (Objects.isNull(REDIS_SERVER.getUnixsocket())) {
+			return;
+		}
+
+		// 运行时低于 JDK 16 时不支持, 只监听 TCP
+		if (!UnixDomainSockets.isSupported()) {
+			System.err.println("WARNING: unixsocket is ignored, Unix domain sockets require Java 16 or later");
+			return;
+		}
+
+		try {
+			REDIS_SERVER.setSofd(UnixDomainSockets.listen(REDIS_SERVER.getUnixsocket(), REDIS_SERVER.getUnixsocketperm(), REDIS_SERVER.getTcpBacklog()));
+		} catch (IOException e) {
+			System.err.println("Could not create server unix socket " + REDIS_SERVER.getUnixsocket() + ": " + e.getMessage());
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * 开启看门狗, 监控主事件轮询和所有的 reactor
+	 */
+	private static void enableWatchdog() {
+
+		if (REDIS_SERVER.getWatchdogPeriod() <= 0) {
+			return;
+		}
+
+		AeWatchdog watchdog = new AeWatchdog(REDIS_SERVER.getWatchdogPeriod(), REDIS_SERVER.getStalllogMaxLen());
+		watchdog.watch(REDIS_SERVER.getEl(), "main");
+
+		AeEventLoopGroup group = REDIS_SERVER.getReactorGroup();
+		if (Objects.nonNull(group)) {
+			for (int i = 0; i < group.size(); i++) {
+				watchdog.watch(group.getEventLoops()[i], "reactor-" + i);
+			}
+		}
+
+		watchdog.start();
+		REDIS_SERVER.setWatchdog(watchdog);
+	}
+
+	/**
+	 * 主事件轮询每次进入轮询前执行
+	 *
+	 * @param eventLoop 事件轮询
+	 */
+	private static void beforeSleep(AeEventLoop eventLoop) {
 
+		// IO 线程读取并解析等待读取的客户端, 然后执行命令
+		IoThreads.handleClientsWithPendingReadsUsingThreads();
 
+		// 发送客户端的回复
+		IoThreads.handleClientsWithPendingWritesUsingThreads();
 	}
 
 	public static RedisServer getRedisServer() {
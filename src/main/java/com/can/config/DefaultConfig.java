@@ -14,6 +14,11 @@ public class DefaultConfig {
 	// 时区
 	public final static String TIME_ZONE = "+8";
 
-	// 事件轮询底层的实现 select
-	public final static String AE_API_TYPE = "epoll";
+	// 事件轮询底层的实现 select, epoll, epoll-native (需要 redis-java-epoll 模块), 可以通过 -Dredis.ae.api 指定
+	// select/epoll 在 JDK 9+ 需要 --add-opens java.base/sun.nio.ch=ALL-UNNAMED 才能替换 Selector 的就绪集合 (SelectedSelectionKeySet),
+	// 否则退回 JDK 自带的集合, 每次轮询都会创建迭代器, java -jar 启动时 manifest 中的 Add-Opens 已经开启
+	public final static String AE_API_TYPE = System.getProperty("redis.ae.api", "epoll");
+
+	// 是否统计事件轮询各个阶段的耗时, 可以通过 -Dredis.ae.stats=false 关闭
+	public final static boolean AE_STATS_ENABLED = Boolean.parseBoolean(System.getProperty("redis.ae.stats", "true"));
 }
@@ -1,5 +1,10 @@
 package com.can.data.structure.sds;
 
+import com.can.data.structure.sds.enums.SdsTypeEnum;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Objects;
 
 /**
@@ -22,9 +27,515 @@ public abstract class Sds {
 	protected byte flags;
 
 	/**
-	 * 数据存储空间
+	 * 数据存储空间, 二进制安全
+	 */
+	protected byte[] buf;
+
+	/**
+	 * 扩容时预分配的上限, 小于 1MB 时按需要的长度翻倍, 否则每次多分配 1MB
+	 */
+	public final static int SDS_MAX_PREALLOC = 1024 * 1024;
+
+	/**
+	 * 字符串的最大长度, Java 数组的长度上限
+	 */
+	public final static int SDS_MAX_LEN = Integer.MAX_VALUE - 8;
+
+	/**
+	 * flags 中类型占用的位
+	 */
+	public final static int SDS_TYPE_MASK = 7;
+
+	/**
+	 * 各个类型的头部能记录的最大长度/空间, 长度按无符号保存
+	 */
+	public final static int SDS_TYPE_5_MAX = (1 << 5) - 1;
+
+	public final static int SDS_TYPE_8_MAX = 0xff;
+
+	public final static int SDS_TYPE_16_MAX = 0xffff;
+
+	/**
+	 * 哈希混合的乘数, 黄金分割比例的 64 位整数 (和 SplittableRandom 相同)
+	 */
+	private final static long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+	/**
+	 * 按 flags 中的类型值获取头部类型, values() 每次调用都会复制数组, 缓存一份
+	 */
+	private final static SdsTypeEnum[] SDS_TYPES = SdsTypeEnum.values();
+
+	/**
+	 * 获取能记录指定长度的最小的头部类型 (sds.c sdsReqType)
+	 * byte[] 的长度上限为 Integer.MAX_VALUE, SdsHdr32 已经能记录所有的长度, 所以不会返回 SDS_TYPE_64
+	 *
+	 * @param stringSize 长度或者空间大小
+	 * @return 头部类型
+	 */
+	public static SdsTypeEnum sdsReqType(long stringSize) {
+		if (stringSize <= SDS_TYPE_5_MAX) {
+			return SdsTypeEnum.SDS_TYPE_5;
+		}
+		if (stringSize <= SDS_TYPE_8_MAX) {
+			return SdsTypeEnum.SDS_TYPE_8;
+		}
+		if (stringSize <= SDS_TYPE_16_MAX) {
+			return SdsTypeEnum.SDS_TYPE_16;
+		}
+		return SdsTypeEnum.SDS_TYPE_32;
+	}
+
+	/**
+	 * 头部类型能记录的最大空间
+	 *
+	 * @param type 头部类型
+	 * @return 最大空间
+	 */
+	public static int sdsTypeMaxSize(SdsTypeEnum type) {
+		switch (type) {
+			case SDS_TYPE_5:
+				return SDS_TYPE_5_MAX;
+			case SDS_TYPE_8:
+				return SDS_TYPE_8_MAX;
+			case SDS_TYPE_16:
+				return SDS_TYPE_16_MAX;
+			default:
+				return SDS_MAX_LEN;
+		}
+	}
+
+	/**
+	 * 创建指定类型的字符串, 申请 alloc 的空间, 内容由调用方写入
+	 * sds5 记录不了空间, alloc 必须等于 len
+	 *
+	 * @param type  头部类型
+	 * @param len   长度
+	 * @param alloc 申请的空间
+	 * @return 字符串
+	 */
+	private static Sds sdsNewByType(SdsTypeEnum type, int len, int alloc) {
+
+		Sds s;
+		switch (type) {
+			case SDS_TYPE_5:
+				s = new SdsHdr5();
+				break;
+			case SDS_TYPE_8:
+				s = new SdsHdr8();
+				break;
+			case SDS_TYPE_16:
+				s = new SdsHdr16();
+				break;
+			default:
+				s = new SdsHdr32();
+				break;
+		}
+		s.buf = new byte[alloc];
+		s.sdsSetAlloc(alloc);
+		s.sdsSetLen(len);
+		return s;
+	}
+
+	/**
+	 * 创建指定长度的字符串, 内容全部为 0, 使用能记录这个长度的最小的头部类型
+	 * 空字符串一般是为了之后追加, 使用 SdsHdr8, sds5 每次追加都要换成新的头部
+	 *
+	 * @param len 长度
+	 * @return 字符串, 空间刚好等于长度, 内容可以由调用方直接写入 buf (如从 socket 读取的参数)
+	 */
+	public static Sds sdsnewlen(int len) {
+		SdsTypeEnum type = sdsReqType(len);
+		if (type == SdsTypeEnum.SDS_TYPE_5 && len == 0) {
+			type = SdsTypeEnum.SDS_TYPE_8;
+		}
+		return sdsNewByType(type, len, len);
+	}
+
+	/**
+	 * 创建字符串, 空间刚好等于长度, 使用能记录这个长度的最小的头部类型
+	 *
+	 * @param init 初始内容
+	 * @param off  内容的起始位置
+	 * @param len  内容的长度
+	 * @return 字符串
+	 */
+	public static Sds sdsnewlen(byte[] init, int off, int len) {
+		Sds s = sdsnewlen(len);
+		System.arraycopy(init, off, s.buf, 0, len);
+		return s;
+	}
+
+	/**
+	 * 创建空字符串
+	 *
+	 * @return 字符串
+	 */
+	public static Sds sdsempty() {
+		return sdsnewlen(0);
+	}
+
+	/**
+	 * 整数转为字符串
+	 *
+	 * @param value 整数
+	 * @return 字符串
+	 */
+	public static Sds sdsfromlonglong(long value) {
+		byte[] digits = Long.toString(value).getBytes(StandardCharsets.US_ASCII);
+		return sdsnewlen(digits, 0, digits.length);
+	}
+
+	/**
+	 * 获取申请的空间大小, 不包含头部
+	 *
+	 * @return 申请的空间大小
+	 */
+	public abstract int sdsAlloc();
+
+	/**
+	 * 设置字符串的长度, 不会检查空间
+	 *
+	 * @param newlen 新的长度
+	 */
+	protected abstract void sdsSetLen(int newlen);
+
+	/**
+	 * 设置申请的空间大小, 只修改头部的记录, 不会重新申请空间
+	 *
+	 * @param newalloc 新的空间大小
+	 */
+	protected abstract void sdsSetAlloc(int newalloc);
+
+	/**
+	 * 获取头部类型
+	 *
+	 * @return 头部类型
+	 */
+	public SdsTypeEnum sdsType() {
+		return SDS_TYPES[flags & SDS_TYPE_MASK];
+	}
+
+	/**
+	 * 内容在 buf 中的起始位置, 只有 SdsSlice 不为 0
+	 *
+	 * @return 起始位置
+	 */
+	public int sdsOffset() {
+		return 0;
+	}
+
+	/**
+	 * 复制字符串, 空间刚好等于长度, 使用能记录这个长度的最小的头部类型
+	 *
+	 * @return 新的字符串
+	 */
+	public Sds sdsdup() {
+		return sdsnewlen(buf, sdsOffset(), sdsLen());
+	}
+
+	/**
+	 * 创建 [start, start + len) 的只读视图, 和当前字符串共享 buf, 不拷贝内容
+	 * 当前字符串被修改后视图的内容也会变化, 需要保存时先 sdsdup
+	 *
+	 * @param start 起始位置
+	 * @param len   长度
+	 * @return 视图
+	 */
+	public Sds sdsslice(int start, int len) {
+		if (start < 0 || len < 0 || start + len > sdsLen()) {
+			throw new IndexOutOfBoundsException("sdsslice out of range: " + start + ", " + len);
+		}
+		return new SdsSlice(buf, sdsOffset() + start, len);
+	}
+
+	/**
+	 * 保存 (如作为键或者值) 时使用, 视图复制为独立的字符串, 其他的直接返回自己
+	 *
+	 * @return 独立的字符串
+	 */
+	public Sds sdsmaterialize() {
+		return this;
+	}
+
+	/**
+	 * 需要直接访问 buf 时使用, 堆外的字符串 (SdsOffHeap) 复制到堆内, 其他的直接返回自己
+	 *
+	 * @return 内容在 buf 中的字符串
+	 */
+	public Sds sdsOnHeap() {
+		return this;
+	}
+
+	/**
+	 * 释放字符串, 只有堆外的字符串 (SdsOffHeap) 需要显式释放, 释放后不能再使用
+	 */
+	public void sdsfree() {
+	}
+
+	/**
+	 * 内容写入 ByteBuffer 的当前位置
+	 *
+	 * @param dst 目标, 至少要有 sdsLen() 的剩余空间
+	 */
+	public void sdsCopyTo(ByteBuffer dst) {
+		dst.put(buf, sdsOffset(), sdsLen());
+	}
+
+	/**
+	 * 内容拷贝到字节数组的指定位置
+	 *
+	 * @param dst    目标数组
+	 * @param dstOff 写入的起始位置
+	 */
+	public void sdsCopyTo(byte[] dst, int dstOff) {
+		System.arraycopy(buf, sdsOffset(), dst, dstOff, sdsLen());
+	}
+
+	/**
+	 * 获取空闲的空间
+	 *
+	 * @return 空闲的空间
+	 */
+	public int sdsavail() {
+		return sdsAlloc() - sdsLen();
+	}
+
+	/**
+	 * 确保空闲空间至少为 addlen, 不够时扩容并预分配:
+	 * 需要的长度小于 SDS_MAX_PREALLOC 时翻倍, 否则多分配 SDS_MAX_PREALLOC, 连续追加的均摊复杂度为 O(1)
+	 * 头部类型按新的空间重新选择 (记录不了时换成更大的类型), 所以调用方必须使用返回的字符串
+	 *
+	 * @param addlen 需要的空闲空间
+	 * @return 扩容后的字符串, 可能是新的对象
+	 */
+	public Sds sdsMakeRoomFor(int addlen) {
+
+		if (sdsavail() >= addlen) {
+			return this;
+		}
+
+		long reqlen = (long) sdsLen() + addlen;
+		if (reqlen > SDS_MAX_LEN) {
+			throw new IllegalArgumentException("sds length overflow: " + reqlen);
+		}
+
+		long newlen = reqlen < SDS_MAX_PREALLOC ? reqlen * 2 : reqlen + SDS_MAX_PREALLOC;
+		return sdsResize((int) Math.min(newlen, SDS_MAX_LEN));
+	}
+
+	/**
+	 * 去掉所有的空闲空间, 空间刚好等于长度, 头部类型按长度换成能记录的最小类型
+	 *
+	 * @return 新的字符串, 可能是新的对象
+	 */
+	public Sds sdsRemoveFreeSpace() {
+		if (sdsavail() == 0) {
+			return this;
+		}
+		return sdsResize(sdsLen());
+	}
+
+	/**
+	 * 重新申请指定大小的空间, 内容保留 (sds.c sdsResize)
+	 * 头部换成能记录新空间的最小类型, 类型不变时只替换 buf, 否则创建新的头部
+	 * 还有空闲空间时不使用 sds5, 它记录不了空闲空间, 每次追加都要换成新的头部
+	 *
+	 * @param newalloc 新的空间大小, 不小于当前的长度
+	 * @return 新的字符串, 可能是新的对象
+	 */
+	private Sds sdsResize(int newalloc) {
+
+		int len = sdsLen();
+		SdsTypeEnum type = sdsReqType(newalloc);
+		if (type == SdsTypeEnum.SDS_TYPE_5 && newalloc != len) {
+			type = SdsTypeEnum.SDS_TYPE_8;
+		}
+
+		if (type == sdsType()) {
+			buf = Arrays.copyOf(buf, newalloc);
+			sdsSetAlloc(newalloc);
+			return this;
+		}
+
+		Sds s = sdsNewByType(type, len, newalloc);
+		System.arraycopy(buf, 0, s.buf, 0, len);
+		return s;
+	}
+
+	/**
+	 * 增加字符串的长度, 用于直接往 buf 的空闲空间中写入内容后 (如 sdsMakeRoomFor 后拷贝) 更新长度
+	 *
+	 * @param incr 增加的长度, 不能超过空闲的空间
+	 */
+	public void sdsIncrLen(int incr) {
+		if (incr < 0 || incr > sdsavail()) {
+			throw new IllegalArgumentException("sdsIncrLen out of range: " + incr);
+		}
+		sdsSetLen(sdsLen() + incr);
+	}
+
+	/**
+	 * 清空字符串, 空间保留, 可以直接重用
+	 */
+	public void sdsclear() {
+		sdsSetLen(0);
+	}
+
+	/**
+	 * 扩展到指定的长度, 新增的部分填充 0, 当前长度已经不小于 len 时不处理
+	 *
+	 * @param len 新的长度
+	 * @return 新的字符串, 可能是新的对象
+	 */
+	public Sds sdsgrowzero(int len) {
+
+		int curlen = sdsLen();
+		if (len <= curlen) {
+			return this;
+		}
+
+		Sds s = sdsMakeRoomFor(len - curlen);
+		// 空闲空间中可能有之前截断的内容
+		Arrays.fill(s.buf, curlen, len, (byte) 0);
+		s.sdsSetLen(len);
+		return s;
+	}
+
+	/**
+	 * 追加内容
+	 *
+	 * @param t   追加的内容
+	 * @param off 内容的起始位置
+	 * @param len 内容的长度
+	 * @return 新的字符串, 可能是新的对象
+	 */
+	public Sds sdscatlen(byte[] t, int off, int len) {
+
+		int curlen = sdsLen();
+		Sds s = sdsMakeRoomFor(len);
+		System.arraycopy(t, off, s.buf, curlen, len);
+		s.sdsSetLen(curlen + len);
+		return s;
+	}
+
+	public Sds sdscat(byte[] t) {
+		return sdscatlen(t, 0, t.length);
+	}
+
+	/**
+	 * 追加另一个字符串, 可以是自己
+	 *
+	 * @param t 追加的字符串
+	 * @return 新的字符串, 可能是新的对象
+	 */
+	public Sds sdscatsds(Sds t) {
+		t = t.sdsOnHeap();
+		int len = t.sdsLen();
+		Sds s = sdsMakeRoomFor(len);
+		// t 是自己时扩容后 t.buf 已经是新的空间, 内容不变
+		System.arraycopy(t.buf, t.sdsOffset(), s.buf, s.sdsLen(), len);
+		s.sdsSetLen(s.sdsLen() + len);
+		return s;
+	}
+
+	/**
+	 * 用新的内容覆盖字符串, 空间够时不重新申请
+	 *
+	 * @param t   新的内容
+	 * @param off 内容的起始位置
+	 * @param len 内容的长度
+	 * @return 新的字符串, 可能是新的对象
+	 */
+	public Sds sdscpylen(byte[] t, int off, int len) {
+
+		Sds s = this;
+		if (sdsAlloc() < len) {
+			s = sdsMakeRoomFor(len - sdsLen());
+		}
+		System.arraycopy(t, off, s.buf, 0, len);
+		s.sdsSetLen(len);
+		return s;
+	}
+
+	public Sds sdscpy(byte[] t) {
+		return sdscpylen(t, 0, t.length);
+	}
+
+	/**
+	 * 只保留 [start, end] 之间的内容 (包含 end), 在原来的空间中移动, 不重新申请
+	 * 和 Redis 相同, 下标可以为负数, -1 表示最后一个字符, 超出范围时截断
+	 *
+	 * @param start 起始位置
+	 * @param end   结束位置
+	 */
+	public void sdsrange(long start, long end) {
+
+		int len = sdsLen();
+		if (len == 0) {
+			return;
+		}
+		if (start < 0) {
+			start = Math.max(len + start, 0);
+		}
+		if (end < 0) {
+			end = Math.max(len + end, 0);
+		}
+
+		long newlen = start > end ? 0 : end - start + 1;
+		if (newlen != 0) {
+			if (start >= len) {
+				newlen = 0;
+			} else if (end >= len) {
+				end = len - 1;
+				newlen = end - start + 1;
+			}
+		}
+
+		sdsKeep(newlen == 0 ? 0 : (int) start, (int) newlen);
+	}
+
+	/**
+	 * 去掉两端在 cset 中出现的字符, 在原来的空间中移动, 不重新申请
+	 *
+	 * @param cset 需要去掉的字符
+	 */
+	public void sdstrim(byte[] cset) {
+
+		int sp = 0;
+		int ep = sdsLen() - 1;
+		while (sp <= ep && contains(cset, pos(sp))) {
+			sp++;
+		}
+		while (ep > sp && contains(cset, pos(ep))) {
+			ep--;
+		}
+
+		int len = sp > ep ? 0 : ep - sp + 1;
+		sdsKeep(len == 0 ? 0 : sp, len);
+	}
+
+	/**
+	 * 只保留 [start, start + len) 的内容, 移动到 buf 的开头
+	 * SdsSlice 不能修改共享的 buf, 只调整视图的范围
+	 *
+	 * @param start 起始位置
+	 * @param len   保留的长度
 	 */
-	protected char[] buf;
+	protected void sdsKeep(int start, int len) {
+		if (start != 0 && len != 0) {
+			System.arraycopy(buf, start, buf, 0, len);
+		}
+		sdsSetLen(len);
+	}
+
+	private static boolean contains(byte[] cset, byte b) {
+		for (byte c : cset) {
+			if (c == b) {
+				return true;
+			}
+		}
+		return false;
+	}
 
 
 	/**
@@ -42,17 +553,142 @@ public abstract class Sds {
 		if (this == anotherSds) {
 			return 0;
 		}
+		// 堆外的字符串按段比较, 不复制整个内容
+		if (anotherSds instanceof SdsOffHeap) {
+			return -anotherSds.sdscmp(this);
+		}
 
-		int minLen = Math.min(sdsLen(), anotherSds.sdsLen());
+		int len1 = sdsLen();
+		int len2 = anotherSds.sdsLen();
+		int cmp = memcmp(buf, sdsOffset(), anotherSds.buf, anotherSds.sdsOffset(), Math.min(len1, len2));
+		if (cmp != 0) {
+			return cmp;
+		}
+
+		// 比较那个当前的字符串的长度是否大于入参的字符串的长度
+		return Integer.compare(len1, len2);
+	}
 
-		for (int i = 0; i < minLen; i++) {
-			if (pos(i) != anotherSds.pos(i)) {
-				return pos(i) - anotherSds.pos(i);
+	/**
+	 * 按无符号字节比较 2 段内容, 和 C 的 memcmp 相同
+	 * 每次按大端读取 8 个字节, 大端的 long 按无符号比较的结果和逐个字节比较相同,
+	 * 不相同时用异或的前导 0 个数找到第一个不同的字节
+	 * 通过 ByteBuffer 的大端视图读取 (HeapByteBuffer.getLong 是 JIT 的内建实现), 不足 8 个字节时不创建视图
+	 *
+	 * @param a    内容 1
+	 * @param aoff 内容 1 的起始位置
+	 * @param b    内容 2
+	 * @param boff 内容 2 的起始位置
+	 * @param len  比较的长度
+	 * @return 第一个不同的字节的差值 (无符号), 全部相同时为 0
+	 */
+	static int memcmp(byte[] a, int aoff, byte[] b, int boff, int len) {
+
+		int i = 0;
+		if (len >= Long.BYTES) {
+			ByteBuffer wa = ByteBuffer.wrap(a);
+			ByteBuffer wb = ByteBuffer.wrap(b);
+			for (; i + Long.BYTES <= len; i += Long.BYTES) {
+				long x = wa.getLong(aoff + i);
+				long y = wb.getLong(boff + i);
+				if (x != y) {
+					int shift = 56 - (Long.numberOfLeadingZeros(x ^ y) & ~7);
+					return (int) ((x >>> shift) & 0xff) - (int) ((y >>> shift) & 0xff);
+				}
 			}
 		}
 
-		// 比较那个当前的字符串的长度是否大于入参的字符串的长度
-		return Integer.compare(sdsLen(), anotherSds.sdsLen());
+		for (; i < len; i++) {
+			int x = a[aoff + i] & 0xff;
+			int y = b[boff + i] & 0xff;
+			if (x != y) {
+				return x - y;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * 判断 2 段内容是否相同, 每次比较 8 个字节
+	 *
+	 * @param a    内容 1
+	 * @param aoff 内容 1 的起始位置
+	 * @param b    内容 2
+	 * @param boff 内容 2 的起始位置
+	 * @param len  比较的长度
+	 * @return true 相同
+	 */
+	static boolean memeq(byte[] a, int aoff, byte[] b, int boff, int len) {
+
+		int i = 0;
+		if (len >= Long.BYTES) {
+			ByteBuffer wa = ByteBuffer.wrap(a);
+			ByteBuffer wb = ByteBuffer.wrap(b);
+			for (; i + Long.BYTES <= len; i += Long.BYTES) {
+				if (wa.getLong(aoff + i) != wb.getLong(boff + i)) {
+					return false;
+				}
+			}
+		}
+		for (; i < len; i++) {
+			if (a[aoff + i] != b[boff + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 计算一段内容的哈希值, 每次读取 8 个字节混入, 剩下不足 8 个的字节逐个混入
+	 * 只和内容有关, 和起始位置无关, 相同的内容在任意的 buf 中哈希值都相同
+	 *
+	 * @param a   内容
+	 * @param off 起始位置
+	 * @param len 长度
+	 * @return 哈希值
+	 */
+	static int memhash(byte[] a, int off, int len) {
+		return memhashFinish(memhashMix(len, a, off, len));
+	}
+
+	/**
+	 * 把一段内容混入哈希值, 按 8 个字节读取, 剩下不足 8 个的字节逐个混入
+	 * 分段计算时除了最后一段, 每段的长度都要是 8 的倍数, 结果才和一次计算的相同
+	 *
+	 * @param h   哈希值, 初始为内容的总长度
+	 * @param a   内容
+	 * @param off 起始位置
+	 * @param len 长度
+	 * @return 混入后的哈希值
+	 */
+	static long memhashMix(long h, byte[] a, int off, int len) {
+
+		int i = 0;
+		if (len >= Long.BYTES) {
+			ByteBuffer wa = ByteBuffer.wrap(a);
+			for (; i + Long.BYTES <= len; i += Long.BYTES) {
+				h = (h ^ wa.getLong(off + i)) * HASH_MULTIPLIER;
+				h ^= h >>> 29;
+			}
+		}
+		for (; i < len; i++) {
+			h = (h ^ (a[off + i] & 0xff)) * HASH_MULTIPLIER;
+		}
+		return h;
+	}
+
+	/**
+	 * 计算最终的哈希值
+	 *
+	 * @param h memhashMix 的结果
+	 * @return 哈希值
+	 */
+	static int memhashFinish(long h) {
+
+		// 高位混入低位, HashMap 按低位选择桶
+		h ^= h >>> 32;
+		h *= HASH_MULTIPLIER;
+		return (int) (h ^ (h >>> 32));
 	}
 
 	/**
@@ -60,7 +696,7 @@ public abstract class Sds {
 	 *
 	 * @return 字符串的长度
 	 */
-	protected abstract int sdsLen();
+	public abstract int sdsLen();
 
 	/**
 	 * 获取指定位置的字符
@@ -68,8 +704,42 @@ public abstract class Sds {
 	 * @param index 查询的位置
 	 * @return 返回指定位置的字符
 	 */
-	public char pos(int index) {
-		return buf[index];
+	public byte pos(int index) {
+		return buf[sdsOffset() + index];
+	}
+
+	/**
+	 * 获取数据存储空间, 可以直接读写, 有效的内容为 [sdsOffset(), sdsOffset() + sdsLen())
+	 * SdsSlice 的 buf 是共享的, 只能读取
+	 *
+	 * @return 数据存储空间
+	 */
+	public byte[] getBuf() {
+		return buf;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof Sds)) {
+			return false;
+		}
+
+		if (o instanceof SdsOffHeap) {
+			return o.equals(this);
+		}
+
+		Sds another = (Sds) o;
+		int len = sdsLen();
+		return len == another.sdsLen() && memeq(buf, sdsOffset(), another.buf, another.sdsOffset(), len);
+	}
+
+	@Override
+	public int hashCode() {
+		return memhash(buf, sdsOffset(), sdsLen());
 	}
 
 }
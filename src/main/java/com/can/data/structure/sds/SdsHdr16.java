@@ -1,8 +1,10 @@
 package com.can.data.structure.sds;
 
+import com.can.data.structure.sds.enums.SdsTypeEnum;
+
 /**
  * <pre>
- *
+ * 空间不超过 65535 的字符串, 长度和空间按无符号保存在 short 中
  * </pre>
  *
  * @author
@@ -11,17 +13,36 @@ package com.can.data.structure.sds;
 public class SdsHdr16 extends Sds {
 
 	/**
-	 * 已经使用的长度
+	 * 已经使用的长度, 无符号
 	 */
 	private short len;
 
 	/**
-	 * 申请的字符长度，不包含 Header 结构和最后的空终止字符
+	 * 申请的字符长度，不包含 Header 结构和最后的空终止字符, 无符号
 	 */
 	private short alloc;
 
+	SdsHdr16() {
+		this.flags = SdsTypeEnum.SDS_TYPE_16.getType();
+	}
+
+	@Override
+	public int sdsLen() {
+		return len & SDS_TYPE_16_MAX;
+	}
+
+	@Override
+	public int sdsAlloc() {
+		return alloc & SDS_TYPE_16_MAX;
+	}
+
+	@Override
+	protected void sdsSetLen(int newlen) {
+		this.len = (short) newlen;
+	}
+
 	@Override
-	protected int sdsLen() {
-		return len;
+	protected void sdsSetAlloc(int newalloc) {
+		this.alloc = (short) newalloc;
 	}
 }
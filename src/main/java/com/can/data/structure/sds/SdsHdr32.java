@@ -1,8 +1,10 @@
 package com.can.data.structure.sds;
 
+import com.can.data.structure.sds.enums.SdsTypeEnum;
+
 /**
  * <pre>
- *
+ * 空间超过 65535 的字符串, byte[] 的长度上限为 Integer.MAX_VALUE, int 就能记录所有的长度
  * </pre>
  *
  * @author
@@ -20,8 +22,27 @@ public class SdsHdr32 extends Sds {
 	 */
 	private int alloc;
 
+	SdsHdr32() {
+		this.flags = SdsTypeEnum.SDS_TYPE_32.getType();
+	}
+
 	@Override
-	protected int sdsLen() {
+	public int sdsLen() {
 		return len;
 	}
+
+	@Override
+	public int sdsAlloc() {
+		return alloc;
+	}
+
+	@Override
+	protected void sdsSetLen(int newlen) {
+		this.len = newlen;
+	}
+
+	@Override
+	protected void sdsSetAlloc(int newalloc) {
+		this.alloc = newalloc;
+	}
 }
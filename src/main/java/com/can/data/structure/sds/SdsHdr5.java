@@ -1,8 +1,11 @@
 package com.can.data.structure.sds;
 
+import com.can.data.structure.sds.enums.SdsTypeEnum;
+
 /**
  * <pre>
- *
+ * 长度小于 32 并且没有空闲空间的字符串, 长度保存在 flags 的高 5 位, 没有单独的长度字段
+ * 只由 Sds 的工厂方法创建 (sdsRemoveFreeSpace 去掉空闲空间后的短字符串)
  * </pre>
  *
  * @author lcn29
@@ -12,9 +15,34 @@ public class SdsHdr5 extends Sds {
 
 	private final static int LEN_MARK = 3;
 
+	SdsHdr5() {
+		this.flags = SdsTypeEnum.SDS_TYPE_5.getType();
+	}
+
+	@Override
+	public int sdsLen() {
+		return (flags & 0xff) >> LEN_MARK;
+	}
+
+	/**
+	 * sds5 没有记录申请的空间, 空间总是等于长度
+	 */
+	@Override
+	public int sdsAlloc() {
+		return sdsLen();
+	}
+
+	@Override
+	protected void sdsSetLen(int newlen) {
+		if (newlen > SDS_TYPE_5_MAX) {
+			throw new IllegalArgumentException("sds5 length out of range: " + newlen);
+		}
+		flags = (byte) (SdsTypeEnum.SDS_TYPE_5.getType() | (newlen << LEN_MARK));
+	}
+
 	@Override
-	protected int sdsLen() {
-		return flags >> LEN_MARK;
+	protected void sdsSetAlloc(int newalloc) {
+		// 没有记录申请的空间
 	}
 
 }
@@ -2,6 +2,8 @@ package com.can.data.structure.sds;
 
 /**
  * <pre>
+ * 	Sds.sdsReqType 不会选择这个类型, SdsHdr32 已经能记录 byte[] 的所有长度
+ *
  * 	Java 中数组的最大容量为 Integer.MAX_VALUE
  * 	所以 没法声明出 char[] buf = new char[long] 的数组
  * 	拆分为二维数组, char[][] buf = new char[long][Integer.MAX>VALUE]
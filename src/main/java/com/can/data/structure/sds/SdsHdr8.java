@@ -4,7 +4,7 @@ import com.can.data.structure.sds.enums.SdsTypeEnum;
 
 /**
  * <pre>
- *
+ * 空间不超过 255 的字符串, 长度和空间按无符号保存在 byte 中
  * </pre>
  *
  * @author
@@ -13,28 +13,37 @@ import com.can.data.structure.sds.enums.SdsTypeEnum;
 public class SdsHdr8 extends Sds {
 
 	/**
-	 * 已经使用的长度
+	 * 已经使用的长度, 无符号
 	 */
 	private byte len;
 
 	/**
-	 * 申请的字符长度，不包含 Header 结构和最后的空终止字符
+	 * 申请的字符长度，不包含 Header 结构和最后的空终止字符, 无符号
 	 */
 	private byte alloc;
 
-	public SdsHdr8(char[] content) {
-
+	SdsHdr8() {
 		this.flags = SdsTypeEnum.SDS_TYPE_8.getType();
-		this.len = (byte) content.length;
-		// TODO 提前分配
-		this.alloc = this.len;
-		this.buf = new char[this.alloc];
-		System.arraycopy(content, 0, buf, 0, content.length);
 	}
 
 	@Override
-	protected int sdsLen() {
-		return len;
+	public int sdsLen() {
+		return len & SDS_TYPE_8_MAX;
+	}
+
+	@Override
+	public int sdsAlloc() {
+		return alloc & SDS_TYPE_8_MAX;
+	}
+
+	@Override
+	protected void sdsSetLen(int newlen) {
+		this.len = (byte) newlen;
+	}
+
+	@Override
+	protected void sdsSetAlloc(int newalloc) {
+		this.alloc = (byte) newalloc;
 	}
 
 }
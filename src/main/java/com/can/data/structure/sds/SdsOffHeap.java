@@ -0,0 +1,280 @@
+package com.can.data.structure.sds;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * <pre>
+ * 内容保存在堆外 (SlabAllocator) 的字符串, 堆内只有句柄和长度, 没有 buf
+ *
+ * 用于保存很大的数据集时的值, 值的内容不在堆内, GC 的时间不再随着数据量增长:
+ * 1. 堆外的内容只读, 和 SdsSlice 相同, 缩短内容 (sdsrange, sdstrim, sdsclear) 只调整范围,
+ *    扩展或者覆盖内容的方法 (sdsMakeRoomFor, sdscatlen, sdscpylen 等) 先复制到堆内, 返回堆内的字符串
+ * 2. 回复时通过 sdsCopyTo 直接从堆外拷贝到客户端的缓冲区, 切片只复制需要的部分
+ * 3. 比较和哈希按段复制到线程的临时缓冲区中计算, 不复制整个内容, 结果和内容相同的堆内字符串相同
+ * 4. 不再使用时 (值被覆盖或者删除) 必须调用 sdsfree 释放堆外空间, 释放后不能再使用
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-19 02:40
+ */
+public class SdsOffHeap extends Sds {
+
+	/**
+	 * 比较和哈希时每段的长度, 8 的倍数, 每段都按 8 个字节读取, 哈希值和一次计算的相同
+	 */
+	private final static int SCRATCH_LEN = 256;
+
+	/**
+	 * 比较和哈希的临时缓冲区, 2 段, 和另一个堆外的字符串比较时各用一段
+	 */
+	private final static ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[SCRATCH_LEN * 2]);
+
+	/**
+	 * SlabAllocator 的句柄, 释放后为 -1
+	 */
+	private long handle;
+
+	/**
+	 * 申请的堆外空间的大小, 释放时使用
+	 */
+	private final int size;
+
+	/**
+	 * 内容在堆外空间中的起始位置
+	 */
+	private int offset;
+
+	private int len;
+
+	private SdsOffHeap(long handle, int len) {
+		// 只用于展示, 没有对应的头部类型
+		this.flags = sdsReqType(len).getType();
+		this.handle = handle;
+		this.size = len;
+		this.len = len;
+	}
+
+	/**
+	 * 把字符串的内容复制到堆外
+	 *
+	 * @param s 字符串
+	 * @return 堆外的字符串, 堆外空间不够时返回 s
+	 */
+	public static Sds sdsnewoffheap(Sds s) {
+
+		int len = s.sdsLen();
+		long handle = SlabAllocator.allocate(len);
+		if (handle == -1) {
+			return s;
+		}
+
+		Sds src = s.sdsOnHeap();
+		SlabAllocator.write(handle, src.buf, src.sdsOffset(), len);
+		return new SdsOffHeap(handle, len);
+	}
+
+	/**
+	 * 检查堆外空间没有被释放, 返回句柄
+	 */
+	private long handle() {
+		if (handle == -1) {
+			throw new IllegalStateException("off-heap sds already freed");
+		}
+		return handle;
+	}
+
+	@Override
+	public int sdsLen() {
+		return len;
+	}
+
+	/**
+	 * 堆外的字符串没有空闲空间
+	 */
+	@Override
+	public int sdsAlloc() {
+		return len;
+	}
+
+	/**
+	 * 只能缩短 (sdsclear, sdsKeep), 其他的写入都先复制到堆内
+	 */
+	@Override
+	protected void sdsSetLen(int newlen) {
+		if (newlen > this.len) {
+			throw new UnsupportedOperationException("off-heap sds is read only");
+		}
+		this.len = newlen;
+	}
+
+	@Override
+	protected void sdsSetAlloc(int newalloc) {
+		// 堆外的空间不变, 释放时按申请的大小
+	}
+
+	/**
+	 * 只调整范围, 不移动堆外的内容
+	 */
+	@Override
+	protected void sdsKeep(int start, int len) {
+		this.offset += start;
+		this.len = len;
+	}
+
+	@Override
+	public byte pos(int index) {
+		return SlabAllocator.get(handle(), offset + index);
+	}
+
+	@Override
+	public void sdsCopyTo(ByteBuffer dst) {
+		SlabAllocator.copyTo(handle(), offset, dst, len);
+	}
+
+	@Override
+	public void sdsCopyTo(byte[] dst, int dstOff) {
+		SlabAllocator.copyTo(handle(), offset, dst, dstOff, len);
+	}
+
+	@Override
+	public Sds sdsdup() {
+		Sds s = sdsnewlen(len);
+		sdsCopyTo(s.buf, 0);
+		return s;
+	}
+
+	@Override
+	public Sds sdsOnHeap() {
+		return sdsdup();
+	}
+
+	/**
+	 * 只复制需要的部分到堆内
+	 */
+	@Override
+	public Sds sdsslice(int start, int len) {
+		if (start < 0 || len < 0 || start + len > this.len) {
+			throw new IndexOutOfBoundsException("sdsslice out of range: " + start + ", " + len);
+		}
+		Sds s = sdsnewlen(len);
+		SlabAllocator.copyTo(handle(), offset + start, s.buf, 0, len);
+		return s;
+	}
+
+	/**
+	 * 堆外的内容不能扩展, 复制到堆内, 调用方使用返回的字符串写入
+	 */
+	@Override
+	public Sds sdsMakeRoomFor(int addlen) {
+		if (addlen <= 0) {
+			return this;
+		}
+		return sdsdup().sdsMakeRoomFor(addlen);
+	}
+
+	@Override
+	public Sds sdscpylen(byte[] t, int off, int len) {
+		return sdsnewlen(t, off, len);
+	}
+
+	@Override
+	public void sdsfree() {
+		if (handle != -1) {
+			SlabAllocator.free(handle, size);
+			handle = -1;
+		}
+	}
+
+	@Override
+	public int sdscmp(Sds anotherSds) {
+
+		if (Objects.isNull(anotherSds)) {
+			return 1;
+		}
+		if (this == anotherSds) {
+			return 0;
+		}
+
+		int len2 = anotherSds.sdsLen();
+		int cmp = compareRange(anotherSds, Math.min(len, len2), false);
+		if (cmp != 0) {
+			return cmp;
+		}
+		return Integer.compare(len, len2);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof Sds)) {
+			return false;
+		}
+
+		Sds another = (Sds) o;
+		return len == another.sdsLen() && compareRange(another, len, true) == 0;
+	}
+
+	@Override
+	public int hashCode() {
+
+		long handle = handle();
+		byte[] scratch = SCRATCH.get();
+
+		// 每段都是 8 的倍数, 只有最后一段有不足 8 个的字节, 和 memhash 一次计算的结果相同
+		long h = len;
+		for (int start = 0; start < len; start += SCRATCH_LEN) {
+			int n = Math.min(SCRATCH_LEN, len - start);
+			SlabAllocator.copyTo(handle, offset + start, scratch, 0, n);
+			h = memhashMix(h, scratch, 0, n);
+		}
+		return memhashFinish(h);
+	}
+
+	/**
+	 * 按段把前 n 个字节复制到临时缓冲区, 和另一个字符串的前 n 个字节比较
+	 * 另一个字符串也在堆外时, 复制到临时缓冲区的后一段
+	 *
+	 * @param another 另一个字符串
+	 * @param n       比较的长度, 不超过 2 个字符串的长度
+	 * @param eqOnly  只判断是否相同, 不同时返回 1
+	 * @return 和 memcmp 相同
+	 */
+	private int compareRange(Sds another, int n, boolean eqOnly) {
+
+		long handle = handle();
+		byte[] scratch = SCRATCH.get();
+		SdsOffHeap offHeap = another instanceof SdsOffHeap ? (SdsOffHeap) another : null;
+
+		for (int start = 0; start < n; start += SCRATCH_LEN) {
+			int chunk = Math.min(SCRATCH_LEN, n - start);
+			SlabAllocator.copyTo(handle, offset + start, scratch, 0, chunk);
+
+			byte[] b;
+			int boff;
+			if (Objects.nonNull(offHeap)) {
+				SlabAllocator.copyTo(offHeap.handle(), offHeap.offset + start, scratch, SCRATCH_LEN, chunk);
+				b = scratch;
+				boff = SCRATCH_LEN;
+			} else {
+				b = another.buf;
+				boff = another.sdsOffset() + start;
+			}
+
+			if (eqOnly) {
+				if (!memeq(scratch, 0, b, boff, chunk)) {
+					return 1;
+				}
+			} else {
+				int cmp = memcmp(scratch, 0, b, boff, chunk);
+				if (cmp != 0) {
+					return cmp;
+				}
+			}
+		}
+		return 0;
+	}
+}
@@ -0,0 +1,117 @@
+package com.can.data.structure.sds;
+
+/**
+ * <pre>
+ * 只读的字符串视图, 引用另一个字符串 buf 中的 [offset, offset + len), 不拷贝内容
+ *
+ * 用于读取的路径 (GETRANGE 的回复, 比较, 哈希), 不需要创建中间的字符串:
+ * 1. sdscmp, equals, hashCode 和内容相同的普通字符串的结果相同
+ * 2. 缩短内容 (sdsrange, sdstrim, sdsclear) 只调整视图的范围, 不修改共享的 buf
+ * 3. 需要扩展或者覆盖内容时 (sdsMakeRoomFor, sdscatlen, sdscpylen 等) 先复制为普通的字符串, 返回复制后的字符串
+ * 4. 保存为键或者值时调用 sdsmaterialize 复制, 避免引用的字符串修改或者释放后内容变化
+ *
+ * 引用的字符串修改后视图的内容也会变化, 所以视图只在一次命令的执行中使用
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-19 02:10
+ */
+public class SdsSlice extends Sds {
+
+	/**
+	 * 内容在 buf 中的起始位置
+	 */
+	private int offset;
+
+	/**
+	 * 视图的长度
+	 */
+	private int len;
+
+	SdsSlice(byte[] buf, int offset, int len) {
+		// 视图没有自己的头部类型, 按长度记录, 只用于展示
+		this.flags = sdsReqType(len).getType();
+		this.buf = buf;
+		this.offset = offset;
+		this.len = len;
+	}
+
+	/**
+	 * 创建字节数组的只读视图
+	 *
+	 * @param buf    字节数组
+	 * @param offset 起始位置
+	 * @param len    长度
+	 * @return 视图
+	 */
+	public static Sds sdsview(byte[] buf, int offset, int len) {
+		if (offset < 0 || len < 0 || offset + len > buf.length) {
+			throw new IndexOutOfBoundsException("sdsview out of range: " + offset + ", " + len);
+		}
+		return new SdsSlice(buf, offset, len);
+	}
+
+	@Override
+	public int sdsLen() {
+		return len;
+	}
+
+	/**
+	 * 视图没有空闲空间
+	 */
+	@Override
+	public int sdsAlloc() {
+		return len;
+	}
+
+	@Override
+	public int sdsOffset() {
+		return offset;
+	}
+
+	@Override
+	public Sds sdsmaterialize() {
+		return sdsdup();
+	}
+
+	/**
+	 * 视图不能扩展, 空间不够时复制为普通的字符串, 调用方使用返回的字符串写入
+	 */
+	@Override
+	public Sds sdsMakeRoomFor(int addlen) {
+		if (addlen <= 0) {
+			return this;
+		}
+		return sdsdup().sdsMakeRoomFor(addlen);
+	}
+
+	/**
+	 * 覆盖内容不能写入共享的 buf, 直接创建新的字符串
+	 */
+	@Override
+	public Sds sdscpylen(byte[] t, int off, int len) {
+		return sdsnewlen(t, off, len);
+	}
+
+	@Override
+	protected void sdsKeep(int start, int len) {
+		this.offset += start;
+		this.len = len;
+	}
+
+	/**
+	 * 只能缩短 (sdsclear, sdsKeep), 其他的写入都先复制
+	 */
+	@Override
+	protected void sdsSetLen(int newlen) {
+		if (newlen > this.len) {
+			throw new UnsupportedOperationException("sds slice is read only");
+		}
+		this.len = newlen;
+	}
+
+	@Override
+	protected void sdsSetAlloc(int newalloc) {
+		// 视图没有自己的空间
+	}
+}
@@ -0,0 +1,478 @@
+package com.can.data.structure.sds;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <pre>
+ * 堆外字符串 (SdsOffHeap) 的 slab 分配器
+ *
+ * 数据集很大时, 所有的值都是堆内的 byte[], GC 标记的时间随数据量增长, 把值的内容放到堆外,
+ * 堆内只保留一个很小的对象 (句柄 + 长度):
+ * 1. 堆外空间按页 (SLAB_PAGE_SIZE) 申请, 每一页只属于一个分级, 切分为固定大小的块
+ * 2. 块的大小从 SLAB_MIN_CHUNK 开始每级乘以 SLAB_GROWTH_FACTOR (memcached 的 slab), 按 8 字节对齐, 最大为一页
+ * 3. 释放的块放入所在分级的空闲列表, 直接给下一次申请使用
+ * 4. 超过一页的内容使用连续编号的多个整页 (不要求内存连续), 释放后整页放入空闲页列表, 分级和大块都可以重用
+ *
+ * 所有的页都由分配器持有, 释放是确定的, 不依赖 GC 回收 DirectByteBuffer, 但是页不会还给操作系统:
+ * 堆外内存的占用是历史的峰值 (INFO 的 slab_direct_bytes), 上限为 -XX:MaxDirectMemorySize,
+ * 分级的页分配出去后只属于这个分级, 只有大块释放的页会进入空闲页列表 (slab_free_pages)
+ *
+ * 句柄为 页号 << 32 | 页内偏移, 大块的页内偏移为 0, 申请失败 (超过 -XX:MaxDirectMemorySize) 返回 -1, 调用方继续使用堆内的字符串
+ * 只在执行命令时使用 (多 reactor 模式下持有 server.executionLock), 不需要额外的同步
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-19 02:40
+ */
+public class SlabAllocator {
+
+	/**
+	 * 每一页的大小
+	 */
+	public final static int SLAB_PAGE_SIZE = 1024 * 1024;
+
+	/**
+	 * 最小的块
+	 */
+	private final static int SLAB_MIN_CHUNK = 32;
+
+	/**
+	 * 相邻分级的块大小的比例
+	 */
+	private final static double SLAB_GROWTH_FACTOR = 1.25;
+
+	private final static int SLAB_CHUNK_ALIGN = 8;
+
+	/**
+	 * 属于大块的页
+	 */
+	private final static int HUGE_CLASS = -1;
+
+	/**
+	 * 空闲的页
+	 */
+	private final static int FREE_CLASS = -2;
+
+	/**
+	 * 各个分级的块大小, 从小到大
+	 */
+	private final static int[] CHUNK_SIZES;
+
+	private final static SlabClass[] CLASSES;
+
+	/**
+	 * 所有的页, 下标为页号
+	 */
+	private static ByteBuffer[] pages = new ByteBuffer[64];
+
+	/**
+	 * 每一页所属的分级, 大块为 HUGE_CLASS, 空闲为 FREE_CLASS
+	 */
+	private static int[] pageClasses = new int[64];
+
+	/**
+	 * 大块使用的页, 下标为第一页的页号
+	 */
+	private static int[][] hugeRuns = new int[64][];
+
+	private static int pageCount;
+
+	/**
+	 * 空闲的页号
+	 */
+	private final static IntStack FREE_PAGES = new IntStack();
+
+	/**
+	 * 字符串实际使用的字节数
+	 */
+	private static long usedBytes;
+
+	private static long hugeAllocations;
+
+	private static long hugePages;
+
+	private static long totalAllocs;
+
+	private static long totalFrees;
+
+	/**
+	 * 堆外空间不够, 申请失败的次数
+	 */
+	private static long failedAllocs;
+
+	static {
+		List<Integer> sizes = new ArrayList<>();
+		double size = SLAB_MIN_CHUNK;
+		while (size < SLAB_PAGE_SIZE / SLAB_GROWTH_FACTOR) {
+			int chunk = ((int) size + SLAB_CHUNK_ALIGN - 1) & ~(SLAB_CHUNK_ALIGN - 1);
+			if (sizes.isEmpty() || sizes.get(sizes.size() - 1) != chunk) {
+				sizes.add(chunk);
+			}
+			size = chunk * SLAB_GROWTH_FACTOR;
+		}
+		sizes.add(SLAB_PAGE_SIZE);
+
+		CHUNK_SIZES = new int[sizes.size()];
+		CLASSES = new SlabClass[sizes.size()];
+		for (int i = 0; i < CHUNK_SIZES.length; i++) {
+			CHUNK_SIZES[i] = sizes.get(i);
+			CLASSES[i] = new SlabClass(CHUNK_SIZES[i]);
+		}
+	}
+
+	/**
+	 * 申请能放下 size 个字节的堆外空间
+	 *
+	 * @param size 字节数
+	 * @return 句柄, 申请失败返回 -1
+	 */
+	public static long allocate(int size) {
+
+		int index = Arrays.binarySearch(CHUNK_SIZES, size);
+		if (index < 0) {
+			index = -index - 1;
+		}
+
+		long handle = index == CHUNK_SIZES.length ? allocateHuge(size) : CLASSES[index].allocate(index);
+		if (handle == -1) {
+			failedAllocs++;
+			return -1;
+		}
+		usedBytes += size;
+		totalAllocs++;
+		return handle;
+	}
+
+	/**
+	 * 释放堆外空间, 释放后句柄不能再使用
+	 *
+	 * @param handle 句柄
+	 * @param size   申请时的字节数
+	 */
+	public static void free(long handle, int size) {
+
+		int pageId = pageId(handle);
+		int classIndex = pageClasses[pageId];
+		if (classIndex == HUGE_CLASS) {
+			int[] run = hugeRuns[pageId];
+			hugeRuns[pageId] = null;
+			for (int id : run) {
+				pageClasses[id] = FREE_CLASS;
+				FREE_PAGES.push(id);
+			}
+			hugeAllocations--;
+			hugePages -= run.length;
+		} else {
+			CLASSES[classIndex].free(handle);
+		}
+		usedBytes -= size;
+		totalFrees++;
+	}
+
+	/**
+	 * 读取一个字节
+	 *
+	 * @param handle 句柄
+	 * @param index  在内容中的位置
+	 * @return 字节
+	 */
+	public static byte get(long handle, int index) {
+		int pageId = pageId(handle);
+		if (pageClasses[pageId] == HUGE_CLASS) {
+			return pages[hugeRuns[pageId][index / SLAB_PAGE_SIZE]].get(index % SLAB_PAGE_SIZE);
+		}
+		return pages[pageId].get(offset(handle) + index);
+	}
+
+	/**
+	 * 内容 [start, start + len) 写入 ByteBuffer 的当前位置
+	 *
+	 * @param handle 句柄
+	 * @param start  在内容中的起始位置
+	 * @param dst    目标
+	 * @param len    长度
+	 */
+	public static void copyTo(long handle, int start, ByteBuffer dst, int len) {
+		while (len > 0) {
+			ByteBuffer src = segment(handle, start, len);
+			int n = src.remaining();
+			dst.put(src);
+			start += n;
+			len -= n;
+		}
+	}
+
+	/**
+	 * 内容 [start, start + len) 拷贝到字节数组
+	 *
+	 * @param handle 句柄
+	 * @param start  在内容中的起始位置
+	 * @param dst    目标数组
+	 * @param dstOff 写入的起始位置
+	 * @param len    长度
+	 */
+	public static void copyTo(long handle, int start, byte[] dst, int dstOff, int len) {
+		while (len > 0) {
+			ByteBuffer src = segment(handle, start, len);
+			int n = src.remaining();
+			src.get(dst, dstOff, n);
+			start += n;
+			dstOff += n;
+			len -= n;
+		}
+	}
+
+	/**
+	 * 字节数组写入内容的开头
+	 *
+	 * @param handle 句柄
+	 * @param src    内容
+	 * @param off    内容的起始位置
+	 * @param len    长度
+	 */
+	public static void write(long handle, byte[] src, int off, int len) {
+		int start = 0;
+		while (len > 0) {
+			ByteBuffer dst = segment(handle, start, len);
+			int n = dst.remaining();
+			dst.put(src, off, n);
+			start += n;
+			off += n;
+			len -= n;
+		}
+	}
+
+	/**
+	 * 内容从 start 开始, 在同一页内的部分, 最多 len 个字节
+	 *
+	 * @return 页的视图, position 和 limit 为这一段的范围
+	 */
+	private static ByteBuffer segment(long handle, int start, int len) {
+
+		int pageId = pageId(handle);
+		ByteBuffer page;
+		int from;
+		int count;
+		if (pageClasses[pageId] == HUGE_CLASS) {
+			page = pages[hugeRuns[pageId][start / SLAB_PAGE_SIZE]];
+			from = start % SLAB_PAGE_SIZE;
+			count = Math.min(len, SLAB_PAGE_SIZE - from);
+		} else {
+			page = pages[pageId];
+			from = offset(handle) + start;
+			count = len;
+		}
+
+		ByteBuffer segment = page.duplicate();
+		segment.limit(from + count);
+		segment.position(from);
+		return segment;
+	}
+
+	private static int pageId(long handle) {
+		return (int) (handle >>> 32);
+	}
+
+	private static int offset(long handle) {
+		return (int) handle;
+	}
+
+	private static long handle(int pageId, int offset) {
+		return ((long) pageId << 32) | offset;
+	}
+
+	/**
+	 * 获取一页, 先使用空闲的页, 没有时申请新的一页
+	 *
+	 * @param classIndex 所属的分级
+	 * @return 页号, 申请失败返回 -1
+	 */
+	private static int newPage(int classIndex) {
+
+		if (FREE_PAGES.size() > 0) {
+			int pageId = FREE_PAGES.pop();
+			pageClasses[pageId] = classIndex;
+			return pageId;
+		}
+
+		ByteBuffer page;
+		try {
+			page = ByteBuffer.allocateDirect(SLAB_PAGE_SIZE);
+		} catch (OutOfMemoryError e) {
+			return -1;
+		}
+
+		if (pageCount == pages.length) {
+			pages = Arrays.copyOf(pages, pageCount * 2);
+			pageClasses = Arrays.copyOf(pageClasses, pageCount * 2);
+			hugeRuns = Arrays.copyOf(hugeRuns, pageCount * 2);
+		}
+		int pageId = pageCount++;
+		pages[pageId] = page;
+		pageClasses[pageId] = classIndex;
+		return pageId;
+	}
+
+	/**
+	 * 大块使用多个整页, 句柄指向第一页, 其他页通过 hugeRuns 找到
+	 */
+	private static long allocateHuge(int size) {
+
+		int[] run = new int[(size + SLAB_PAGE_SIZE - 1) / SLAB_PAGE_SIZE];
+		for (int i = 0; i < run.length; i++) {
+			run[i] = newPage(HUGE_CLASS);
+			if (run[i] == -1) {
+				// 已经拿到的页放回空闲页列表
+				for (int j = 0; j < i; j++) {
+					pageClasses[run[j]] = FREE_CLASS;
+					FREE_PAGES.push(run[j]);
+				}
+				return -1;
+			}
+		}
+
+		hugeRuns[run[0]] = run;
+		hugeAllocations++;
+		hugePages += run.length;
+		return handle(run[0], 0);
+	}
+
+	/**
+	 * 追加 INFO 格式的统计信息
+	 *
+	 * @param info 追加到的 StringBuilder
+	 * @return info
+	 */
+	public static StringBuilder genInfoString(StringBuilder info) {
+
+		for (SlabClass slabClass : CLASSES) {
+			if (slabClass.pages == 0) {
+				continue;
+			}
+			info.append("slab_class_").append(slabClass.chunkSize).append(":")
+				.append("pages=").append(slabClass.pages)
+				.append(",used_chunks=").append(slabClass.usedChunks)
+				.append(",free_chunks=").append(slabClass.freeChunks.size()).append("\r\n");
+		}
+
+		info.append("slab_used_bytes:").append(usedBytes).append("\r\n");
+		// 所有申请过的页, 不会还给操作系统, 上限为 -XX:MaxDirectMemorySize
+		info.append("slab_direct_bytes:").append((long) pageCount * SLAB_PAGE_SIZE).append("\r\n");
+		info.append("slab_free_pages:").append(FREE_PAGES.size()).append("\r\n");
+		info.append("slab_huge_allocations:").append(hugeAllocations).append("\r\n");
+		info.append("slab_huge_pages:").append(hugePages).append("\r\n");
+		info.append("slab_total_allocs:").append(totalAllocs).append("\r\n");
+		info.append("slab_total_frees:").append(totalFrees).append("\r\n");
+		info.append("slab_failed_allocs:").append(failedAllocs).append("\r\n");
+		return info;
+	}
+
+	/**
+	 * 一个分级, 先使用空闲列表中的块, 再从最后一页中切分, 最后一页用完后获取新的一页
+	 */
+	private static class SlabClass {
+
+		private final int chunkSize;
+
+		private final LongStack freeChunks = new LongStack();
+
+		/**
+		 * 正在切分的页, 没有时为 -1
+		 */
+		private int currentPage = -1;
+
+		/**
+		 * 正在切分的页中下一个块的偏移
+		 */
+		private int nextOffset;
+
+		private int pages;
+
+		private long usedChunks;
+
+		private SlabClass(int chunkSize) {
+			this.chunkSize = chunkSize;
+		}
+
+		private long allocate(int classIndex) {
+
+			if (freeChunks.size() > 0) {
+				usedChunks++;
+				return freeChunks.pop();
+			}
+
+			if (currentPage == -1 || nextOffset + chunkSize > SLAB_PAGE_SIZE) {
+				int pageId = newPage(classIndex);
+				if (pageId == -1) {
+					return -1;
+				}
+				currentPage = pageId;
+				nextOffset = 0;
+				pages++;
+			}
+
+			long handle = handle(currentPage, nextOffset);
+			nextOffset += chunkSize;
+			usedChunks++;
+			return handle;
+		}
+
+		private void free(long handle) {
+			usedChunks--;
+			freeChunks.push(handle);
+		}
+	}
+
+	/**
+	 * long 的栈, 空闲列表中的句柄不需要装箱
+	 */
+	private static class LongStack {
+
+		private long[] elements = new long[16];
+
+		private int size;
+
+		private void push(long value) {
+			if (size == elements.length) {
+				elements = Arrays.copyOf(elements, size * 2);
+			}
+			elements[size++] = value;
+		}
+
+		private long pop() {
+			return elements[--size];
+		}
+
+		private int size() {
+			return size;
+		}
+	}
+
+	/**
+	 * int 的栈, 用于空闲的页号
+	 */
+	private static class IntStack {
+
+		private int[] elements = new int[16];
+
+		private int size;
+
+		private void push(int value) {
+			if (size == elements.length) {
+				elements = Arrays.copyOf(elements, size * 2);
+			}
+			elements[size++] = value;
+		}
+
+		private int pop() {
+			return elements[--size];
+		}
+
+		private int size() {
+			return size;
+		}
+	}
+}
@@ -24,7 +24,12 @@ public enum ObjEncodingType {
 	OBJ_ENCODING_EMBSTR(8),
 	OBJ_ENCODING_QUICKLIST(9),
 	OBJ_ENCODING_STREAM(10),
-	OBJ_ENCODING_LISTPACK(11);
+	OBJ_ENCODING_LISTPACK(11),
+
+	/**
+	 * 字符串的内容保存在堆外 (SdsOffHeap), Redis 中没有, 只读, 修改前换成 OBJ_ENCODING_RAW
+	 */
+	OBJ_ENCODING_OFFHEAP(12);
 
 	private final int type;
 
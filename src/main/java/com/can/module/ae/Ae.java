@@ -3,19 +3,22 @@ package com.can.module.ae;
 import com.can.ApplicationStarter;
 import com.can.config.DefaultConfig;
 import com.can.module.ae.api.AeApi;
-import com.can.module.ae.event.AeFileEvent;
-import com.can.module.ae.event.AeFiredEvent;
 import com.can.module.ae.event.AeTimeEvent;
+import com.can.module.ae.event.AeTimeEventHeap;
 import com.can.module.ae.process.AeBeforeSleepProc;
 import com.can.module.ae.process.AeEventFinalizerProc;
 import com.can.module.ae.process.AeFileProc;
 import com.can.module.ae.process.AeTimeProc;
+import com.can.module.ae.stats.AeStats;
+import com.can.module.ae.watchdog.AeWatchdog;
+import com.can.module.time.ServerClock;
 import com.can.module.time.TimeVal;
-import com.can.util.TimeUtils;
 
 import java.io.IOException;
-import java.time.LocalDateTime;
+import java.nio.channels.SelectableChannel;
+import java.util.Arrays;
 import java.util.Objects;
+import java.util.Queue;
 
 /**
  * <pre>
@@ -27,33 +30,44 @@ import java.util.Objects;
  */
 public class Ae {
 
-	// ae 底层 api 实现
-	private final static AeApi AE_API = AeApi.getAeApiInstance(DefaultConfig.AE_API_TYPE);
-
 	/**
 	 * 创建 AeEventLoop
 	 *
-	 * @param setSize 初始大小
+	 * @param setSize 文件描述符的上限, 数组按需扩容, 不会预先分配
 	 * @return
 	 */
 	public static AeEventLoop aeCreateEventLoop(int setSize) throws IOException {
 
 		AeEventLoop aeEventLoop = new AeEventLoop();
 
+		// 数组按需扩容, 只预先分配一小部分
+		int capacity = Math.min(setSize, AeConstants.AE_INITIAL_CAPACITY);
+
 		aeEventLoop.setSetSize(setSize);
-		aeEventLoop.setEvents(new AeFileEvent[setSize]);
-		aeEventLoop.setFired(new AeFiredEvent[setSize]);
-		aeEventLoop.setLastTime(LocalDateTime.now());
+		aeEventLoop.setCapacity(capacity);
+		aeEventLoop.setFileEventCount(0);
+		aeEventLoop.setMasks(new int[capacity]);
+		aeEventLoop.setRfileProcs(new AeFileProc[capacity]);
+		aeEventLoop.setWfileProcs(new AeFileProc[capacity]);
+		aeEventLoop.setClientData(new Object[capacity]);
+		aeEventLoop.setFiredFds(new int[capacity]);
+		aeEventLoop.setFiredMasks(new int[capacity]);
+		aeEventLoop.setFreeFds(new int[capacity]);
+		aeEventLoop.setFreeFdCount(0);
+		aeEventLoop.setNextFd(0);
+		aeEventLoop.setTimeVal(new TimeVal());
+		aeEventLoop.setTimeEventHeap(new AeTimeEventHeap());
 
 		aeEventLoop.setTimeEventNextId(0);
 		aeEventLoop.setStop(0);
 		aeEventLoop.setMaxFd(-1);
 
-		// TODO 待完成
-		AE_API.aeApiCreate(aeEventLoop);
+		// 每个事件轮询独立的底层实现, 多个事件轮询可以在各自的线程中运行
+		aeEventLoop.setApi(AeApi.getAeApiInstance(DefaultConfig.AE_API_TYPE));
+		aeEventLoop.getApi().aeApiCreate(aeEventLoop);
 
-		for (int i = 0; i < setSize; i++) {
-			aeEventLoop.getEvents()[i].setMask(AeConstants.AE_NONE);
+		if (DefaultConfig.AE_STATS_ENABLED) {
+			aeEventLoop.setStats(new AeStats(aeEventLoop.getApi().aeApiName()));
 		}
 		return aeEventLoop;
 	}
@@ -65,13 +79,26 @@ public class Ae {
 	 */
 	public static void aeDeleteEventLoop(AeEventLoop eventLoop) {
 
-		// TODO 待完成
-		AE_API.aeApiFree(eventLoop);
+		eventLoop.getApi().aeApiFree(eventLoop);
+
+		eventLoop.setMasks(null);
+		eventLoop.setRfileProcs(null);
+		eventLoop.setWfileProcs(null);
+		eventLoop.setClientData(null);
+		eventLoop.setFiredFds(null);
+		eventLoop.setFiredMasks(null);
+		eventLoop.getTimeEventHeap().clear();
+		eventLoop.setTimeEventHeap(null);
+		eventLoop.getPendingTasks().clear();
+
+		if (Objects.nonNull(eventLoop.getStats())) {
+			eventLoop.getStats().unregister();
+		}
 
-		eventLoop.setEvents(null);
-		eventLoop.setFired(null);
-		eventLoop.setTimeEventHead(null);
-		ApplicationStarter.getRedisServer().setEl(null);
+		// 只有主事件轮询才保存在 redisServer 中
+		if (ApplicationStarter.getRedisServer().getEl() == eventLoop) {
+			ApplicationStarter.getRedisServer().setEl(null);
+		}
 	}
 
 	/**
@@ -86,34 +113,30 @@ public class Ae {
 	 */
 	public static int aeCreateFileEvent(AeEventLoop eventLoop, int fd, int mask, AeFileProc proc, Object clientData) {
 
-		// 超过了最大的文件描述符
-		if (fd >= eventLoop.getSetSize()) {
+		// 不是通过 aeRegisterChannel 分配的文件描述符
+		if (fd < 0 || fd >= eventLoop.getCapacity()) {
 			return AeConstants.AE_ERR;
 		}
 
-		// 获取指定文件的事件
-		AeFileEvent fe = eventLoop.getEvents()[fd];
-
-		// TODO 待完成
-		if (AE_API.aeApiAddEvent(eventLoop, fd, mask) == -1) {
+		if (eventLoop.getApi().aeApiAddEvent(eventLoop, fd, mask) == -1) {
 			return AeConstants.AE_ERR;
 		}
 
-		fe.setMask(fe.getMask() | mask);
+		int[] masks = eventLoop.getMasks();
+		if (masks[fd] == AeConstants.AE_NONE) {
+			eventLoop.setFileEventCount(eventLoop.getFileEventCount() + 1);
+		}
+		masks[fd] |= mask;
 
 		if ((mask & AeConstants.AE_READABLE) != 0) {
-			fe.setRFileProc(proc);
+			eventLoop.getRfileProcs()[fd] = proc;
 		}
 
 		if ((mask & AeConstants.AE_WRITABLE) != 0) {
-			fe.setWFileProc(proc);
+			eventLoop.getWfileProcs()[fd] = proc;
 		}
 
-		fe.setClientData(clientData);
-
-		if (fd > eventLoop.getMaxFd()) {
-			eventLoop.setMaxFd(fd);
-		}
+		eventLoop.getClientData()[fd] = clientData;
 		return AeConstants.AE_OK;
 	}
 
@@ -127,14 +150,12 @@ public class Ae {
 	public static void aeDeleteFileEvent(AeEventLoop eventLoop, int fd, int mask) {
 
 		// 超过了最大的文件描述符
-		if (fd >= eventLoop.getSetSize()) {
+		if (fd < 0 || fd >= eventLoop.getCapacity()) {
 			return;
 		}
 
-		// 获取指定文件的事件
-		AeFileEvent fe = eventLoop.getEvents()[fd];
-
-		if (fe.getMask() == AeConstants.AE_NONE) {
+		int[] masks = eventLoop.getMasks();
+		if (masks[fd] == AeConstants.AE_NONE) {
 			return;
 		}
 
@@ -143,20 +164,21 @@ public class Ae {
 			mask |= AeConstants.AE_BARRIER;
 		}
 
-		// TODO 待完成
-		AE_API.aeApiDelEvent(eventLoop, fd, mask);
+		eventLoop.getApi().aeApiDelEvent(eventLoop, fd, mask);
 
-		fe.setMask(fe.getMask() & (~mask));
+		masks[fd] &= ~mask;
 
-		// 需要删除的事件刚好是当前事件轮询记录的最大的文件描述符, 同时文件的标识为 AE_NONE
-		if (fd == eventLoop.getMaxFd() && fe.getMask() == AeConstants.AE_NONE) {
+		if ((masks[fd] & AeConstants.AE_READABLE) == 0) {
+			eventLoop.getRfileProcs()[fd] = null;
+		}
+		if ((masks[fd] & AeConstants.AE_WRITABLE) == 0) {
+			eventLoop.getWfileProcs()[fd] = null;
+		}
 
-			for (int j = eventLoop.getMaxFd() - 1; j >= 0; j--) {
-				if (eventLoop.getEvents()[j].getMask() != AeConstants.AE_NONE) {
-					break;
-				}
-				eventLoop.setMaxFd(j);
-			}
+		// 不再有任何事件, 释放对客户数据的引用
+		if (masks[fd] == AeConstants.AE_NONE) {
+			eventLoop.getClientData()[fd] = null;
+			eventLoop.setFileEventCount(eventLoop.getFileEventCount() - 1);
 		}
 	}
 
@@ -167,14 +189,157 @@ public class Ae {
 	 * @param fd        文件描述符
 	 * @return
 	 */
-	public static int aeCreateFileEvent(AeEventLoop eventLoop, int fd) {
+	public static int aeGetFileEvents(AeEventLoop eventLoop, int fd) {
 
-		if (fd >= eventLoop.getSetSize()) {
+		if (fd < 0 || fd >= eventLoop.getCapacity()) {
 			return 0;
 		}
+		return eventLoop.getMasks()[fd];
+	}
+
+	/**
+	 * 为通道分配一个文件描述符, 并绑定到事件轮询的底层实现上
+	 * Java 中拿不到通道真正的文件描述符, 这里的 fd 就是 masks 等数组的下标, 优先复用已经释放的
+	 *
+	 * @param eventLoop 事件轮询
+	 * @param channel   通道
+	 * @return 分配到的文件描述符, 失败返回 AE_ERR
+	 */
+	public static int aeRegisterChannel(AeEventLoop eventLoop, SelectableChannel channel) throws IOException {
+
+		int fd;
+		if (eventLoop.getFreeFdCount() > 0) {
+			eventLoop.setFreeFdCount(eventLoop.getFreeFdCount() - 1);
+			fd = eventLoop.getFreeFds()[eventLoop.getFreeFdCount()];
+		} else if (eventLoop.getNextFd() < eventLoop.getSetSize()) {
+			fd = eventLoop.getNextFd();
+			// 数组放不下了, 扩容
+			if (fd >= eventLoop.getCapacity() && aeGrowCapacity(eventLoop, fd + 1) == AeConstants.AE_ERR) {
+				return AeConstants.AE_ERR;
+			}
+			eventLoop.setNextFd(fd + 1);
+			eventLoop.setMaxFd(fd);
+		} else {
+			// 文件描述符用完了
+			return AeConstants.AE_ERR;
+		}
+
+		if (eventLoop.getApi().aeApiAttach(eventLoop, fd, channel) == AeConstants.AE_ERR) {
+			aeReleaseFd(eventLoop, fd);
+			return AeConstants.AE_ERR;
+		}
+		return fd;
+	}
+
+	/**
+	 * 获取文件描述符的上限
+	 *
+	 * @param eventLoop 事件轮询
+	 * @return 文件描述符的上限
+	 */
+	public static int aeGetSetSize(AeEventLoop eventLoop) {
+		return eventLoop.getSetSize();
+	}
+
+	/**
+	 * 调整文件描述符的上限
+	 * 调大时只修改上限, 数组在需要时再扩容; 调小时, 已经分配的文件描述符不能超过新的上限
+	 *
+	 * @param eventLoop 事件轮询
+	 * @param setSize   新的上限
+	 * @return AE_OK 成功, AE_ERR 还有超过新的上限的文件描述符或者底层实现不支持
+	 */
+	public static int aeResizeSetSize(AeEventLoop eventLoop, int setSize) {
+
+		if (setSize == eventLoop.getSetSize()) {
+			return AeConstants.AE_OK;
+		}
+
+		if (eventLoop.getMaxFd() >= setSize) {
+			return AeConstants.AE_ERR;
+		}
 
-		AeFileEvent fe = eventLoop.getEvents()[fd];
-		return fe.getMask();
+		// 数组比新的上限还大, 缩小数组
+		if (eventLoop.getCapacity() > setSize) {
+			if (eventLoop.getApi().aeApiResize(eventLoop, setSize) == -1) {
+				return AeConstants.AE_ERR;
+			}
+			aeResizeArrays(eventLoop, setSize);
+
+			// 已经释放的文件描述符中可能有超过新的上限的, 直接丢弃
+			int count = 0;
+			int[] freeFds = eventLoop.getFreeFds();
+			for (int i = 0; i < eventLoop.getFreeFdCount(); i++) {
+				if (freeFds[i] < setSize) {
+					freeFds[count++] = freeFds[i];
+				}
+			}
+			eventLoop.setFreeFdCount(count);
+		}
+
+		eventLoop.setSetSize(setSize);
+		return AeConstants.AE_OK;
+	}
+
+	/**
+	 * 扩容, 每次至少扩大一倍, 最大为 setSize
+	 *
+	 * @param eventLoop   事件轮询
+	 * @param minCapacity 最小需要的容量
+	 * @return AE_OK 成功, AE_ERR 底层实现扩容失败
+	 */
+	private static int aeGrowCapacity(AeEventLoop eventLoop, int minCapacity) {
+
+		int capacity = Math.min(eventLoop.getSetSize(), Math.max(minCapacity, eventLoop.getCapacity() << 1));
+
+		if (eventLoop.getApi().aeApiResize(eventLoop, capacity) == -1) {
+			return AeConstants.AE_ERR;
+		}
+		aeResizeArrays(eventLoop, capacity);
+		return AeConstants.AE_OK;
+	}
+
+	private static void aeResizeArrays(AeEventLoop eventLoop, int capacity) {
+		eventLoop.setMasks(Arrays.copyOf(eventLoop.getMasks(), capacity));
+		eventLoop.setRfileProcs(Arrays.copyOf(eventLoop.getRfileProcs(), capacity));
+		eventLoop.setWfileProcs(Arrays.copyOf(eventLoop.getWfileProcs(), capacity));
+		eventLoop.setClientData(Arrays.copyOf(eventLoop.getClientData(), capacity));
+		eventLoop.setFiredFds(Arrays.copyOf(eventLoop.getFiredFds(), capacity));
+		eventLoop.setFiredMasks(Arrays.copyOf(eventLoop.getFiredMasks(), capacity));
+		eventLoop.setFreeFds(Arrays.copyOf(eventLoop.getFreeFds(), capacity));
+		eventLoop.setCapacity(capacity);
+	}
+
+	/**
+	 * 删除文件描述符上的所有事件, 解除和通道的绑定, 同时回收这个文件描述符
+	 * 通道本身需要调用方自己关闭
+	 *
+	 * @param eventLoop 事件轮询
+	 * @param fd        文件描述符
+	 */
+	public static void aeUnregisterChannel(AeEventLoop eventLoop, int fd) {
+
+		if (fd < 0 || fd >= eventLoop.getCapacity()) {
+			return;
+		}
+
+		aeDeleteFileEvent(eventLoop, fd, AeConstants.AE_READABLE | AeConstants.AE_WRITABLE);
+		eventLoop.getApi().aeApiDetach(eventLoop, fd);
+		aeReleaseFd(eventLoop, fd);
+	}
+
+	/**
+	 * 获取文件描述符绑定的通道
+	 *
+	 * @param eventLoop 事件轮询
+	 * @param fd        文件描述符
+	 * @return 绑定的通道, 没有返回 null
+	 */
+	public static SelectableChannel aeGetChannel(AeEventLoop eventLoop, int fd) {
+		if (fd < 0 || fd >= eventLoop.getCapacity() || Objects.isNull(eventLoop.getApiData())) {
+			return null;
+		}
+		return eventLoop.getApiData().getChannels()[fd];
 	}
 
 	/**
@@ -199,13 +364,7 @@ public class Ae {
 		te.setTimeProc(proc);
 		te.setFinalizerProc(finalizerProc);
 		te.setClientData(clientData);
-		// 头插法
-		te.setPrev(null);
-		te.setNext(eventLoop.getTimeEventHead());
-		if (Objects.nonNull(te.getNext())) {
-			te.getNext().setPrev(te);
-		}
-		eventLoop.setTimeEventHead(te);
+		eventLoop.getTimeEventHeap().add(te);
 		return id;
 	}
 
@@ -218,18 +377,25 @@ public class Ae {
 	 */
 	public static int aeDeleteTimeEvent(AeEventLoop eventLoop, long id) {
 
-		AeTimeEvent te = eventLoop.getTimeEventHead();
+		AeTimeEventHeap heap = eventLoop.getTimeEventHeap();
+		AeTimeEvent te = heap.unindex(id);
 
-		while (Objects.nonNull(te)) {
-			if (te.getId() == id) {
-				// 将 id 设置为删除标识, 在下次执行时, 进行删除
-				te.setId(AeConstants.AE_DELETED_EVENT_ID);
-				return AeConstants.AE_OK;
-			}
-			te = te.getNext();
+		if (Objects.isNull(te)) {
+			return AeConstants.AE_ERR;
 		}
 
-		return AeConstants.AE_ERR;
+		// 将 id 设置为删除标识, 在下次执行时, 进行删除
+		te.setId(AeConstants.AE_DELETED_EVENT_ID);
+		// 执行时间提前到当前时间, 让其浮到未到期的事件之前, 下次处理时间事件时被清理
+		// 不能使用 Long.MIN_VALUE 这类哨兵值, 在下次处理前计算阻塞时间时会溢出
+		te.setWhen(ServerClock.getMonotonicUs());
+		if (heap.isInPass()) {
+			// 正在处理时间事件 (在时间事件的执行函数中删除), 本次处理不清理, 和 Redis 一样留到下次处理
+			heap.defer(te);
+		} else {
+			heap.update(te);
+		}
+		return AeConstants.AE_OK;
 	}
 
 	/**
@@ -260,17 +426,56 @@ public class Ae {
 	public static void aeMain(AeEventLoop eventLoop) throws IOException {
 
 		eventLoop.setStop(0);
+		// 记录运行事件轮询的线程, 其他线程需要通过 aeRunInEventLoop 操作这个事件轮询
+		eventLoop.setThread(Thread.currentThread());
 
 		// 进入死循环, 除非等于 1
 		while (eventLoop.getStop() == 0) {
 			if (Objects.nonNull(eventLoop.getBeforeSleep())) {
+				AeStats stats = eventLoop.getStats();
+				long start = Objects.isNull(stats) ? 0L : System.nanoTime();
+				aeWatchdogEnter(eventLoop, AeWatchdog.RUNNING_BEFORE_SLEEP, -1, -1L);
 				eventLoop.getBeforeSleep().aeBeforeSleepProc(eventLoop);
+				aeWatchdogExit(eventLoop);
+				if (Objects.nonNull(stats)) {
+					stats.recordBeforeSleep(System.nanoTime() - start);
+				}
 			}
 			// 执行事件处理
 			aeProcessEvents(eventLoop, AeConstants.AE_ALL_EVENTS | AeConstants.AE_CALL_AFTER_SLEEP);
 		}
 	}
 
+	/**
+	 * 在事件轮询的线程中执行任务
+	 * 事件轮询的所有数据都不是线程安全的, 其他线程 (如多 reactor 模式下 accept 的线程) 需要通过这里把操作交给事件轮询的线程执行
+	 * 当前就是事件轮询的线程时, 直接执行
+	 *
+	 * @param eventLoop 事件轮询
+	 * @param task      任务
+	 */
+	public static void aeRunInEventLoop(AeEventLoop eventLoop, Runnable task) {
+
+		if (eventLoop.getThread() == Thread.currentThread()) {
+			task.run();
+			return;
+		}
+
+		eventLoop.getPendingTasks().offer(task);
+		// 唤醒可能阻塞在轮询上的事件轮询线程
+		eventLoop.getApi().aeApiWakeup(eventLoop);
+	}
+
+	/**
+	 * 获取事件轮询底层实现的名称
+	 *
+	 * @param eventLoop 事件轮询
+	 * @return 底层实现的名称
+	 */
+	public static String aeGetApiName(AeEventLoop eventLoop) {
+		return eventLoop.getApi().aeApiName();
+	}
+
 	/**
 	 * 停止事件轮询
 	 *
@@ -330,15 +535,22 @@ public class Ae {
 			return 0;
 		}
 
-		// 最大文件描述符不等于 - 1, 表示有文件事件
+		AeStats stats = eventLoop.getStats();
+		long statsNs = 0L;
+		if (Objects.nonNull(stats)) {
+			statsNs = System.nanoTime();
+			stats.recordIteration(statsNs);
+		}
+
+		// 有文件事件
 		// flags 标识符表明要处理时间事件 同时不需要阻塞等待
-		if (eventLoop.getMaxFd() != -1 || ((flags & AeConstants.AE_TIME_EVENTS) != 0 && (flags & AeConstants.AE_DONT_WAIT) == 0)) {
+		if (eventLoop.getFileEventCount() > 0 || ((flags & AeConstants.AE_TIME_EVENTS) != 0 && (flags & AeConstants.AE_DONT_WAIT) == 0)) {
 
 			int j;
 			AeTimeEvent shortest = null;
 
-			// 隔多长时间执行时间时间
-			TimeVal tv = new TimeVal();
+			// 隔多长时间执行时间时间, 复用事件轮询上的对象
+			TimeVal tv = eventLoop.getTimeVal();
 
 			// flags 标识符表明要处理时间事件 同时不需要阻塞等待
 			if ((flags & AeConstants.AE_TIME_EVENTS) != 0 && (flags & AeConstants.AE_DONT_WAIT) == 0) {
@@ -347,18 +559,16 @@ public class Ae {
 
 			if (Objects.nonNull(shortest)) {
 
-				// 当前的时间 多少秒又多少毫秒
-				long nowSec = aeGetTime(0);
-				long nowMs = aeGetTime(1) - nowSec * 1000;
-
-				// 获取当前时间触发还需要多少毫秒
-				long ms = (shortest.getWhenSec() - nowSec) * 1000 + shortest.getWhenMs() - nowMs;
-				// 需要秒数小于等于 0, 则设置为 0, 表示立即执行
-				tv.setTvSec(ms <= 0 ? 0 : ms / 1000);
-				tv.setTvUsec(ms <= 0 ? 0 : (ms % 1000) * 1000);
+				// 获取当前时间触发还需要多少微秒, 堆顶是已经删除的事件时不阻塞, 尽快清理
+				long us = shortest.getId() == AeConstants.AE_DELETED_EVENT_ID
+					? 0 : shortest.getWhen() - ServerClock.getMonotonicUs();
+				// 需要的时间小于等于 0, 则设置为 0, 表示立即执行
+				tv.setTvSec(us <= 0 ? 0 : us / 1000000);
+				tv.setTvUsec(us <= 0 ? 0 : us % 1000000);
 			} else {
 
-				if ((flags & AeConstants.AE_DONT_WAIT) != 0) {
+				// 有其他线程提交的任务时, 也不能阻塞
+				if ((flags & AeConstants.AE_DONT_WAIT) != 0 || !eventLoop.getPendingTasks().isEmpty()) {
 					tv.setTvSec(0L);
 					tv.setTvUsec(0L);
 				} else {
@@ -366,46 +576,89 @@ public class Ae {
 				}
 			}
 
-			// TODO 待完成
-			int numevents = AE_API.aeApiPoll(eventLoop, tv);
+			int numevents = Objects.isNull(eventLoop.getBusyPoll())
+				? eventLoop.getApi().aeApiPoll(eventLoop, tv)
+				: aeApiBusyPoll(eventLoop, eventLoop.getBusyPoll(), tv);
+
+			if (Objects.nonNull(stats)) {
+				long now = System.nanoTime();
+				stats.recordPoll(now - statsNs, numevents);
+				statsNs = now;
+			}
+
+			// 每次轮询只刷新一次缓存的时间
+			ServerClock.updateCachedTime();
 
 			if (eventLoop.getAfterSleep() != null && (flags & AeConstants.AE_CALL_AFTER_SLEEP) != 0) {
+				aeWatchdogEnter(eventLoop, AeWatchdog.RUNNING_AFTER_SLEEP, -1, -1L);
 				eventLoop.getAfterSleep().aeBeforeSleepProc(eventLoop);
+				aeWatchdogExit(eventLoop);
+				if (Objects.nonNull(stats)) {
+					statsNs = System.nanoTime();
+				}
 			}
 
 			for (j = 0; j < numevents; j++) {
 
-				int mask = eventLoop.getFired()[j].getMask();
-				int fd = eventLoop.getFired()[j].getFd();
-				AeFileEvent fe = eventLoop.getEvents()[fd];
+				int mask = eventLoop.getFiredMasks()[j];
+				int fd = eventLoop.getFiredFds()[j];
 
 				int fired = 0;
 
-				// 事件的标识是否包含 AeConstants.AE_BARRIER
-				int invert = fe.getMask() & AeConstants.AE_BARRIER;
+				aeWatchdogEnter(eventLoop, AeWatchdog.RUNNING_FILE_PROC, fd, -1L);
 
-				if (invert != 0 && (fe.getMask() & mask & AeConstants.AE_READABLE) != 0) {
-					fe.getRFileProc().aeFileProc(eventLoop, fd, fe.getClientData(), mask);
+				// 事件的标识是否包含 AeConstants.AE_BARRIER, 包含的话需要先写后读
+				int invert = eventLoop.getMasks()[fd] & AeConstants.AE_BARRIER;
+
+				// 正常情况下先执行可读事件
+				// 每次都重新读取 masks 和执行函数, 前一个执行函数可能删除了事件或者扩容了数组
+				if (invert == 0 && (eventLoop.getMasks()[fd] & mask & AeConstants.AE_READABLE) != 0) {
+					eventLoop.getRfileProcs()[fd].aeFileProc(eventLoop, fd, eventLoop.getClientData()[fd], mask);
 					fired++;
 				}
 
-				if ((fe.getMask() & mask & AeConstants.AE_WRITABLE) != 0) {
-					if (fired != 0 || fe.getWFileProc() != fe.getRFileProc()) {
-						fe.getWFileProc().aeFileProc(eventLoop, fd, fe.getClientData(), mask);
+				// 可读和可写是同一个函数时, 只执行一次
+				if ((eventLoop.getMasks()[fd] & mask & AeConstants.AE_WRITABLE) != 0) {
+					AeFileProc wfileProc = eventLoop.getWfileProcs()[fd];
+					if (fired == 0 || wfileProc != eventLoop.getRfileProcs()[fd]) {
+						wfileProc.aeFileProc(eventLoop, fd, eventLoop.getClientData()[fd], mask);
 						fired++;
 					}
 				}
 
-				if (invert != 0 && (fe.getMask() & mask & AeConstants.AE_READABLE) != 0) {
-					if (fired != 0 || fe.getWFileProc() != fe.getRFileProc()) {
-						fe.getRFileProc().aeFileProc(eventLoop, fd, fe.getClientData(), mask);
+				// 设置了 AE_BARRIER, 可读事件在可写事件之后执行
+				if (invert != 0 && (eventLoop.getMasks()[fd] & mask & AeConstants.AE_READABLE) != 0) {
+					AeFileProc rfileProc = eventLoop.getRfileProcs()[fd];
+					if (fired == 0 || eventLoop.getWfileProcs()[fd] != rfileProc) {
+						rfileProc.aeFileProc(eventLoop, fd, eventLoop.getClientData()[fd], mask);
 						fired++;
 					}
 				}
+
+				aeWatchdogExit(eventLoop);
 				processed++;
+
+				// 上一个事件结束的时间就是这个事件开始的时间, 每个事件只需要获取一次时间
+				if (Objects.nonNull(stats)) {
+					long now = System.nanoTime();
+					stats.recordFileProc(now - statsNs);
+					statsNs = now;
+				}
 			}
 		}
 
+		// 其他线程提交的任务
+		int tasks = 0;
+		if (!eventLoop.getPendingTasks().isEmpty()) {
+			aeWatchdogEnter(eventLoop, AeWatchdog.RUNNING_PENDING_TASKS, -1, -1L);
+			tasks = processPendingTasks(eventLoop);
+			aeWatchdogExit(eventLoop);
+		}
+		if (tasks > 0 && Objects.nonNull(stats)) {
+			stats.recordPendingTasks(tasks);
+		}
+		processed += tasks;
+
 		if ((flags & AeConstants.AE_TIME_EVENTS) != 0) {
 			processed += processTimeEvents(eventLoop);
 		}
@@ -414,129 +667,239 @@ public class Ae {
 	}
 
 	/**
-	 * 获取执行时间最近的事件时间
+	 * 先在预算内自旋进行非阻塞的轮询, 没有等到事件再进行阻塞的轮询
 	 *
-	 * @param eventLoop
-	 * @return
+	 * @param eventLoop 事件轮询
+	 * @param busyPoll  忙轮询的状态
+	 * @param tv        最多等待的时间, null 表示一直等待
+	 * @return 就绪的事件数
 	 */
-	private static AeTimeEvent aeSearchNearestTimer(AeEventLoop eventLoop) {
-
-		AeTimeEvent timeEventHead = eventLoop.getTimeEventHead();
+	private static int aeApiBusyPoll(AeEventLoop eventLoop, AeBusyPoll busyPoll, TimeVal tv) throws IOException {
 
-		AeTimeEvent nearest = null;
+		AeApi api = eventLoop.getApi();
+		long waitUs = Objects.isNull(tv) ? Long.MAX_VALUE : tv.getTvSec() * 1000000 + tv.getTvUsec();
 
-		while (Objects.nonNull(timeEventHead)) {
+		// 本来就不需要等待
+		if (waitUs <= 0) {
+			return api.aeApiPoll(eventLoop, tv);
+		}
 
-			if (Objects.isNull(nearest)) {
-				nearest = timeEventHead;
-				timeEventHead = timeEventHead.getNext();
-				continue;
+		long start = System.nanoTime();
+		int numevents = 0;
+
+		// 自旋的时间不超过最近的时间事件的执行时间
+		long spinUs = Math.min(busyPoll.getBudgetUs(), waitUs);
+		if (spinUs > 0) {
+			long deadline = start + spinUs * 1000;
+			long now;
+			do {
+				numevents = api.aeApiPoll(eventLoop, busyPoll.getZero());
+				now = System.nanoTime();
+			} while (numevents == 0 && eventLoop.getPendingTasks().isEmpty() && now < deadline);
+
+			// 其他线程提交的任务也算等到了事件
+			boolean hit = numevents > 0 || !eventLoop.getPendingTasks().isEmpty();
+			busyPoll.recordSpin(now - start, hit);
+
+			if (hit) {
+				busyPoll.recordWait(now - start);
+				return numevents;
 			}
 
-			if (timeEventHead.getWhenSec() < nearest.getWhenSec()
-					|| (timeEventHead.getWhenSec() == nearest.getWhenSec() && timeEventHead.getWhenMs() < nearest.getWhenMs())) {
-				nearest = timeEventHead;
+			// 扣除自旋的时间
+			if (Objects.nonNull(tv)) {
+				long remainUs = Math.max(0L, waitUs - (now - start) / 1000);
+				tv.setTvSec(remainUs / 1000000);
+				tv.setTvUsec(remainUs % 1000000);
 			}
-			timeEventHead = timeEventHead.getNext();
 		}
 
-		return nearest;
+		numevents = api.aeApiPoll(eventLoop, tv);
+		busyPoll.recordWait(System.nanoTime() - start);
+		return numevents;
+	}
+
+	/**
+	 * 开启忙轮询, 需要在事件轮询启动前调用
+	 *
+	 * @param eventLoop   事件轮询
+	 * @param maxBudgetUs 每次自旋的最长时间, 单位微秒, 小于等于 0 表示关闭
+	 */
+	public static void aeSetBusyPoll(AeEventLoop eventLoop, long maxBudgetUs) {
+
+		AeBusyPoll busyPoll = maxBudgetUs > 0 ? new AeBusyPoll(maxBudgetUs) : null;
+		eventLoop.setBusyPoll(busyPoll);
+		if (Objects.nonNull(eventLoop.getStats())) {
+			eventLoop.getStats().setBusyPoll(busyPoll);
+		}
+	}
+
+	/**
+	 * 开始执行一个执行函数, 通知看门狗
+	 * 先写入正在执行的内容, 再写入 volatile 的 heartbeat, 看门狗读取到 heartbeat 后一定能看到对应的内容
+	 *
+	 * @param eventLoop   事件轮询
+	 * @param runningType 执行的类型
+	 * @param fd          文件描述符
+	 * @param timeEventId 时间事件的 id
+	 */
+	private static void aeWatchdogEnter(AeEventLoop eventLoop, int runningType, int fd, long timeEventId) {
+		if (!eventLoop.isWatchdogEnabled()) {
+			return;
+		}
+		eventLoop.setRunningType(runningType);
+		eventLoop.setRunningFd(fd);
+		eventLoop.setRunningTimeEventId(timeEventId);
+		eventLoop.setHeartbeat(eventLoop.getHeartbeat() + 1);
+	}
+
+	/**
+	 * 执行函数结束, 通知看门狗
+	 *
+	 * @param eventLoop 事件轮询
+	 */
+	private static void aeWatchdogExit(AeEventLoop eventLoop) {
+		if (eventLoop.isWatchdogEnabled()) {
+			eventLoop.setHeartbeat(eventLoop.getHeartbeat() + 1);
+		}
+	}
+
+	/**
+	 * 获取执行时间最近的事件时间
+	 *
+	 * @param eventLoop
+	 * @return
+	 */
+	private static AeTimeEvent aeSearchNearestTimer(AeEventLoop eventLoop) {
+		// 堆顶就是执行时间最近的时间事件
+		return eventLoop.getTimeEventHeap().peek();
 	}
 
 	/**
-	 * 获取当前的时间
+	 * 执行其他线程提交的任务, 只执行本次开始前已经提交的, 避免任务中继续提交任务导致一直无法返回
 	 *
-	 * @param type 0: 以秒的方式表示, 1: 以毫秒的方式表示
-	 * @return 当前的时间
+	 * @param eventLoop 事件轮询
+	 * @return 执行的任务数
 	 */
-	private static long aeGetTime(int type) {
-		return type == 0 ? TimeUtils.getCurrentTimeWithSec() : TimeUtils.getCurrentTimeWithMs();
+	private static int processPendingTasks(AeEventLoop eventLoop) {
+
+		Queue<Runnable> pendingTasks = eventLoop.getPendingTasks();
+		int count = pendingTasks.size();
+		int processed = 0;
+
+		Runnable task;
+		while (processed < count && Objects.nonNull(task = pendingTasks.poll())) {
+			task.run();
+			processed++;
+		}
+		return processed;
 	}
 
 	/**
 	 * 处理事件事件
+	 * 上次处理后删除的时间事件在这里清理, 执行结束函数, 本次处理中新增的, 删除的, 重新调度后仍然到期的时间事件都留到下次处理
 	 *
 	 * @param eventLoop 事件轮询
 	 * @return 处理的事件数
 	 */
-	private static int processTimeEvents(AeEventLoop eventLoop) {
+	static int processTimeEvents(AeEventLoop eventLoop) {
 
 		int processed = 0;
 		AeTimeEvent te;
 		long maxId;
-		LocalDateTime now = LocalDateTime.now();
-
-		// 防止时间回调
-		if (now.isBefore(eventLoop.getLastTime())) {
+		AeTimeEventHeap heap = eventLoop.getTimeEventHeap();
 
-			te = eventLoop.getTimeEventHead();
-			while (Objects.nonNull(te)) {
-				// 设置执行时间为 0, 保证能执行
-				te.setWhenSec(0L);
-				te = te.getNext();
-			}
-		}
-
-		eventLoop.setLastTime(now);
-		// 重试赋值为时间事件链表的头部
-		te = eventLoop.getTimeEventHead();
+		// 执行时间基于单调时钟, 不会受到系统时间回调的影响
 		maxId = eventLoop.getTimeEventNextId() - 1;
+		long now = ServerClock.getMonotonicUs();
+
+		heap.beginPass();
 
-		// 遍历整个时间时间链表
-		while (Objects.nonNull(te)) {
+		// 只处理堆顶已经到期的时间事件, 遇到第一个未到期的就可以结束了
+		while (Objects.nonNull(te = heap.peek())) {
 
 			// 删除所有不需要的时间时间
 			if (te.getId() == AeConstants.AE_DELETED_EVENT_ID) {
 
-				AeTimeEvent next = te.getNext();
-
-				if (Objects.nonNull(te.getPrev())) {
-					te.getPrev().setNext(next);
-				} else {
-					eventLoop.setTimeEventHead(next);
-				}
-
-				if (Objects.nonNull(next)) {
-					next.setPrev(te.getPrev());
-				}
+				heap.poll();
 
 				if (Objects.nonNull(te.getFinalizerProc())) {
 					te.getFinalizerProc().aeEventFinalizerProc(eventLoop, te.getClientData());
 				}
-
-				te = next;
 				continue;
 			}
 
-			// 事件的 id 大于当前的时间事件的最大 id, 跳过
+			// 时间事件的执行时间在当前时间之后, 后面的都不需要执行
+			if (te.getWhen() > now) {
+				break;
+			}
+
+			// 事件的 id 大于当前的时间事件的最大 id, 是本次处理中新增的, 延后到下次处理
 			if (te.getId() > maxId) {
-				te = te.getNext();
+				heap.defer(te);
 				continue;
 			}
 
-			long nowSec = aeGetTime(0);
-			long nowMs = aeGetTime(1) - nowSec * 1000;
-
-			// 时间事件的执行时间在当前时间之前, 执行
-			if (nowSec > te.getWhenSec() || (nowSec == te.getWhenSec() && nowMs >= te.getWhenMs())) {
+			long id = te.getId();
+			AeStats stats = eventLoop.getStats();
+			long start = Objects.isNull(stats) ? 0L : System.nanoTime();
+			aeWatchdogEnter(eventLoop, AeWatchdog.RUNNING_TIME_PROC, -1, id);
+			int retval = te.getTimeProc().aeTimeProc(eventLoop, id, te.getClientData());
+			aeWatchdogExit(eventLoop);
+			if (Objects.nonNull(stats)) {
+				stats.recordTimeProc(System.nanoTime() - start);
+			}
 
-				long id = te.getId();
-				int retval = te.getTimeProc().aeTimeProc(eventLoop, id, te.getClientData());
+			processed++;
 
-				processed++;
+			// 在执行函数中被删除了, 已经移出堆, 下次处理时清理
+			if (te.getId() == AeConstants.AE_DELETED_EVENT_ID) {
+				continue;
+			}
 
-				if (retval == AeConstants.AE_NOMORE) {
-					te.setId(AeConstants.AE_DELETED_EVENT_ID);
+			if (retval == AeConstants.AE_NOMORE) {
+				aeDeleteTimeEvent(eventLoop, id);
+			} else {
+				aeAddMillisecondsToNow(retval, te);
+				if (te.getWhen() <= now) {
+					// 重新调度后仍然到期, 本次不再执行
+					heap.defer(te);
 				} else {
-					aeAddMillisecondsToNow(retval, te);
+					heap.update(te);
 				}
 			}
-			te = te.getNext();
-
 		}
+
+		// 重新放回延后的时间事件
+		heap.endPass();
 		return processed;
 	}
 
+	/**
+	 * 回收文件描述符
+	 *
+	 * @param eventLoop 事件轮询
+	 * @param fd        文件描述符
+	 */
+	private static void aeReleaseFd(AeEventLoop eventLoop, int fd) {
+
+		// 释放的是最后分配的, 直接回退, 让 maxFd 尽量贴近实际使用的上限
+		if (fd == eventLoop.getNextFd() - 1) {
+			eventLoop.setNextFd(fd);
+			eventLoop.setMaxFd(fd - 1);
+			return;
+		}
+		eventLoop.getFreeFds()[eventLoop.getFreeFdCount()] = fd;
+		eventLoop.setFreeFdCount(eventLoop.getFreeFdCount() + 1);
+
+		// 所有的文件描述符都释放了, 从头开始分配
+		if (eventLoop.getFreeFdCount() == eventLoop.getNextFd()) {
+			eventLoop.setFreeFdCount(0);
+			eventLoop.setNextFd(0);
+			eventLoop.setMaxFd(-1);
+		}
+	}
+
 	/**
 	 * 根据入参的毫秒数重算时间事件执行的时间
 	 *
@@ -544,20 +907,7 @@ public class Ae {
 	 * @param aeTimeEvent  时间事件
 	 */
 	private static void aeAddMillisecondsToNow(long milliseconds, AeTimeEvent aeTimeEvent) {
-
-		long curSec = aeGetTime(0);
-		long curMs = aeGetTime(1) - curSec * 1000;
-
-		long whenSec = curSec + milliseconds / 1000;
-		long whenMs = curMs + milliseconds % 1000;
-
-		if (whenMs >= 1000) {
-			whenSec++;
-			whenMs -= 1000;
-		}
-
-		aeTimeEvent.setWhenSec(whenSec);
-		aeTimeEvent.setWhenMs(whenMs);
+		aeTimeEvent.setWhen(ServerClock.getMonotonicUs() + milliseconds * 1000);
 	}
 
 }
@@ -0,0 +1,115 @@
+package com.can.module.ae;
+
+import com.can.module.time.TimeVal;
+
+/**
+ * <pre>
+ * 事件轮询的忙轮询状态
+ *
+ * 开启后, 阻塞的 aeApiPoll 之前, 先在一段时间 (预算) 内不停的进行非阻塞的轮询, 用 CPU 换取更低的延迟
+ * 预算根据最近的事件到达情况自动调整: 记录每次轮询等到事件的时间的移动平均值,
+ * 事件来得越快, 自旋越有可能等到事件, 预算为平均等待时间的 2 倍, 平均等待时间超过上限时不再自旋
+ * 自旋的时间不会超过最近的时间事件的执行时间
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-18 19:40
+ */
+public class AeBusyPoll {
+
+	/**
+	 * 自旋的预算上限, 单位微秒
+	 */
+	private final long maxBudgetUs;
+
+	/**
+	 * 当前的预算, 单位微秒
+	 */
+	private volatile long budgetUs;
+
+	/**
+	 * 每次轮询等到事件的时间的移动平均值, 单位纳秒
+	 */
+	private long avgWaitNs;
+
+	/**
+	 * 自旋时使用的不等待的 TimeVal
+	 */
+	private final TimeVal zero = new TimeVal();
+
+	/**
+	 * 自旋的次数
+	 */
+	private volatile long spins;
+
+	/**
+	 * 自旋时等到事件的次数
+	 */
+	private volatile long spinHits;
+
+	/**
+	 * 自旋的总时间, 单位纳秒
+	 */
+	private volatile long spinTimeNs;
+
+	public AeBusyPoll(long maxBudgetUs) {
+		this.maxBudgetUs = maxBudgetUs;
+		this.budgetUs = maxBudgetUs;
+		this.avgWaitNs = maxBudgetUs * 1000 / 2;
+		this.zero.setTvSec(0L);
+		this.zero.setTvUsec(0L);
+	}
+
+	/**
+	 * 记录一次自旋
+	 *
+	 * @param spinNs 自旋的时间
+	 * @param hit    是否等到了事件
+	 */
+	void recordSpin(long spinNs, boolean hit) {
+		spins++;
+		spinTimeNs += spinNs;
+		if (hit) {
+			spinHits++;
+		}
+	}
+
+	/**
+	 * 记录一次轮询的等待时间 (包括自旋和阻塞的时间), 并调整预算
+	 *
+	 * 超时返回的也一样记录, 说明事件的间隔至少是这么长
+	 *
+	 * @param waitNs 等待的时间
+	 */
+	void recordWait(long waitNs) {
+
+		avgWaitNs = avgWaitNs - (avgWaitNs >> 3) + (waitNs >> 3);
+
+		long avgWaitUs = avgWaitNs / 1000;
+		budgetUs = avgWaitUs > maxBudgetUs ? 0L : Math.min(maxBudgetUs, Math.max(1L, avgWaitUs << 1));
+	}
+
+	TimeVal getZero() {
+		return zero;
+	}
+
+	public long getMaxBudgetUs() {
+		return maxBudgetUs;
+	}
+
+	public long getBudgetUs() {
+		return budgetUs;
+	}
+
+	public long getSpins() {
+		return spins;
+	}
+
+	public long getSpinHits() {
+		return spinHits;
+	}
+
+	public long getSpinTimeNs() {
+		return spinTimeNs;
+	}
+}
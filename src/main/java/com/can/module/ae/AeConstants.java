@@ -20,6 +20,11 @@ public class AeConstants {
 	 */
 	public final static int AE_ERR = -1;
 
+	/**
+	 * 文件事件数组的初始容量, 之后按需扩容到 setSize
+	 */
+	public final static int AE_INITIAL_CAPACITY = 128;
+
 	/**
 	 * 未注册任何事件
 	 */
@@ -39,7 +44,7 @@ public class AeConstants {
 	 * 如果同时设置了一个事件为可读和可写, 如果可读事件已在同一事件循环迭代中触发，则永远不要再触发该事件
 	 * 但是配置为这个，可以以先写后读的方式执行
 	 */
-	public final static int AE_BARRIER = 3;
+	public final static int AE_BARRIER = 4;
 
 
 	/**
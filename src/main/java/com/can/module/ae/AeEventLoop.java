@@ -1,13 +1,16 @@
 package com.can.module.ae;
 
+import com.can.module.ae.api.AeApi;
 import com.can.module.ae.api.state.AeApiState;
-import com.can.module.ae.event.AeFileEvent;
-import com.can.module.ae.event.AeFiredEvent;
-import com.can.module.ae.event.AeTimeEvent;
+import com.can.module.ae.event.AeTimeEventHeap;
 import com.can.module.ae.process.AeBeforeSleepProc;
+import com.can.module.ae.process.AeFileProc;
+import com.can.module.ae.stats.AeStats;
+import com.can.module.time.TimeVal;
 import lombok.Data;
 
-import java.time.LocalDateTime;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * <pre>
@@ -21,28 +24,101 @@ import java.time.LocalDateTime;
 @Data
 public class AeEventLoop {
 
+	// 分配过的文件描述符的上限 (不一定还有事件), O(1) 维护, -1 表示没有
 	private int maxFd;
 
+	// 文件描述符的上限
 	private int setSize;
 
+	// 下面数组的当前长度, 按需扩容, 最大为 setSize
+	private int capacity;
+
+	// 有监听事件的文件描述符的个数
+	private int fileEventCount;
+
 	// 时间事件的下一个 id
 	private long timeEventNextId;
 
-	private LocalDateTime lastTime;
+	// 轮询等待时间, 每次轮询复用
+	private TimeVal timeVal;
+
+	// 文件描述符 -> 事件标识
+	private int[] masks;
+
+	// 文件描述符 -> 可读的执行函数
+	private AeFileProc[] rfileProcs;
+
+	// 文件描述符 -> 可写的执行函数
+	private AeFileProc[] wfileProcs;
+
+	// 文件描述符 -> 客户数据
+	private Object[] clientData;
+
+	// 触发的事件, 轮询时由底层实现填充, firedFds[i] 的文件描述符触发了 firedMasks[i] 的事件
+	private int[] firedFds;
+
+	private int[] firedMasks;
+
+	// 时间事件堆, 堆顶为最近需要执行的时间事件
+	private AeTimeEventHeap timeEventHeap;
+
+	// 已经释放, 可以复用的文件描述符
+	private int[] freeFds;
 
-	// 事件数组
-	private AeFileEvent[] events;
+	private int freeFdCount;
 
-	// 触发的事件数组, 在轮询中, 会检查上面 events 符合条件的事件, 拷贝对应的事件放到这里, 表示这里面的事件是可以触发
-	private AeFiredEvent[] fired;
+	// 下一个从未分配过的文件描述符
+	private int nextFd;
 
-	private AeTimeEvent timeEventHead;
+	private volatile int stop;
 
-	private int stop;
+	// 事件轮询底层实现
+	private AeApi api;
 
 	// 事件轮询底层实现 Api 对象
 	private AeApiState apiData;
 
+	// 运行当前事件轮询的线程
+	private volatile Thread thread;
+
+	// 其他线程提交的, 需要在事件轮询线程中执行的任务
+	private final Queue<Runnable> pendingTasks = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * 忙轮询的状态, 没有开启时为 null
+	 */
+	private AeBusyPoll busyPoll;
+
+	/**
+	 * 事件轮询的统计, 关闭统计时为 null
+	 */
+	private AeStats stats;
+
+	/**
+	 * 是否被看门狗监控
+	 */
+	private boolean watchdogEnabled;
+
+	/**
+	 * 看门狗的心跳, 每个执行函数开始和结束时各 + 1, 执行中为奇数
+	 */
+	private volatile long heartbeat;
+
+	/**
+	 * 正在执行的类型, AeWatchdog.RUNNING_*, 在 heartbeat 之前写入
+	 */
+	private int runningType;
+
+	/**
+	 * 正在执行的文件事件的文件描述符
+	 */
+	private int runningFd;
+
+	/**
+	 * 正在执行的时间事件的 id
+	 */
+	private long runningTimeEventId;
+
 	private AeBeforeSleepProc beforeSleep;
 
 	private AeBeforeSleepProc afterSleep;
@@ -0,0 +1,149 @@
+package com.can.module.ae;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * <pre>
+ * 多 reactor 模式下的一组事件轮询
+ *
+ * 每个事件轮询运行在自己的线程中, 负责分配给它的客户端的读取, 解析和回复
+ * 新的连接由主事件轮询 accept 后, 通过 {@link #next()} 选择一个事件轮询, 再通过 Ae.aeRunInEventLoop 交给它注册
+ * 一个客户端从创建到释放都只属于一个事件轮询, 客户端的数据只会在这个事件轮询的线程中被访问
+ * 命令的执行在所有事件轮询之间是串行的 (RedisServer.executionLock), 执行语义和单线程时一致
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-18 16:20
+ */
+public class AeEventLoopGroup {
+
+	/**
+	 * 轮询分配
+	 */
+	public final static String BALANCE_ROUND_ROBIN = "round-robin";
+
+	/**
+	 * 分配给当前连接数最少的事件轮询
+	 */
+	public final static String BALANCE_LEAST_CONNECTIONS = "least-connections";
+
+	private final AeEventLoop[] eventLoops;
+
+	private final Thread[] threads;
+
+	/**
+	 * 每个事件轮询当前的连接数
+	 */
+	private final AtomicIntegerArray connections;
+
+	private final boolean leastConnections;
+
+	/**
+	 * 轮询分配的下标, 只在 accept 的线程中使用
+	 */
+	private int nextIndex;
+
+	public AeEventLoopGroup(int size, int setSize, String balance) throws IOException {
+
+		this.eventLoops = new AeEventLoop[size];
+		this.threads = new Thread[size];
+		this.connections = new AtomicIntegerArray(size);
+		this.leastConnections = BALANCE_LEAST_CONNECTIONS.equals(balance);
+
+		for (int i = 0; i < size; i++) {
+			eventLoops[i] = Ae.aeCreateEventLoop(setSize);
+			if (Objects.nonNull(eventLoops[i].getStats())) {
+				eventLoops[i].getStats().register("reactor-" + i);
+			}
+		}
+	}
+
+	/**
+	 * 启动所有的事件轮询线程
+	 */
+	public void start() {
+
+		for (int i = 0; i < eventLoops.length; i++) {
+			AeEventLoop eventLoop = eventLoops[i];
+			Thread thread = new Thread(() -> {
+				try {
+					Ae.aeMain(eventLoop);
+				} catch (IOException e) {
+					System.err.println("Reactor event loop exit: " + e);
+				}
+			}, "redis-reactor-" + i);
+			// 先设置线程, 保证 start 之前提交的任务也会进入队列, 由事件轮询线程执行
+			eventLoop.setThread(thread);
+			thread.setDaemon(true);
+			threads[i] = thread;
+			thread.start();
+		}
+	}
+
+	/**
+	 * 选择一个事件轮询处理新的连接, 同时将它的连接数 + 1
+	 *
+	 * @return 选中的事件轮询
+	 */
+	public AeEventLoop next() {
+		return eventLoops[choose()];
+	}
+
+	/**
+	 * 选择一个事件轮询处理新的连接, 同时将它的连接数 + 1
+	 *
+	 * @return 选中的事件轮询的下标
+	 */
+	public int choose() {
+
+		int index;
+		if (leastConnections) {
+			index = 0;
+			for (int i = 1; i < eventLoops.length; i++) {
+				if (connections.get(i) < connections.get(index)) {
+					index = i;
+				}
+			}
+		} else {
+			index = nextIndex;
+			nextIndex = (nextIndex + 1) % eventLoops.length;
+		}
+
+		connections.incrementAndGet(index);
+		return index;
+	}
+
+	/**
+	 * 连接关闭, 对应的事件轮询的连接数 - 1
+	 *
+	 * @param eventLoop 连接所在的事件轮询
+	 */
+	public void connectionClosed(AeEventLoop eventLoop) {
+		for (int i = 0; i < eventLoops.length; i++) {
+			if (eventLoops[i] == eventLoop) {
+				connections.decrementAndGet(i);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * 停止所有的事件轮询
+	 */
+	public void stop() {
+		for (AeEventLoop eventLoop : eventLoops) {
+			Ae.aeStop(eventLoop);
+			eventLoop.getApi().aeApiWakeup(eventLoop);
+		}
+	}
+
+	public AeEventLoop[] getEventLoops() {
+		return eventLoops;
+	}
+
+	public int size() {
+		return eventLoops.length;
+	}
+}
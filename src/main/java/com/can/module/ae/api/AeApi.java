@@ -4,6 +4,7 @@ import com.can.module.ae.AeEventLoop;
 import com.can.module.time.TimeVal;
 
 import java.io.IOException;
+import java.nio.channels.SelectableChannel;
 
 /**
  * <pre>
@@ -15,6 +16,11 @@ import java.io.IOException;
  */
 public interface AeApi {
 
+	/**
+	 * redis-java-epoll 模块中直接调用 epoll 的实现
+	 */
+	String NATIVE_EPOLL_AE_API_CLASS = "com.can.module.ae.api.epoll.NativeEpollAeApi";
+
 	/**
 	 * aeApi 的创建
 	 *
@@ -23,16 +29,48 @@ public interface AeApi {
 	 */
 	int aeApiCreate(AeEventLoop aeEventLoop) throws IOException;
 
+	/**
+	 * 事件轮询的数组扩容或者缩小时调用, 调整按文件描述符保存的数据
+	 *
+	 * @param aeEventLoop 事件轮询
+	 * @param setSize     新的容量, 文件描述符都小于这个值
+	 * @return 0 成功, -1 不支持
+	 */
 	int aeApiResize(AeEventLoop aeEventLoop, int setSize);
 
 	void aeApiFree(AeEventLoop aeEventLoop);
 
+	/**
+	 * 将通道绑定到指定的文件描述符, 后续对这个文件描述符的事件操作都作用在这个通道上
+	 *
+	 * @param aeEventLoop 事件轮询
+	 * @param fd          文件描述符
+	 * @param channel     通道
+	 * @return 0: 成功, -1: 失败
+	 */
+	int aeApiAttach(AeEventLoop aeEventLoop, int fd, SelectableChannel channel) throws IOException;
+
+	/**
+	 * 解除文件描述符和通道的绑定
+	 *
+	 * @param aeEventLoop 事件轮询
+	 * @param fd          文件描述符
+	 */
+	void aeApiDetach(AeEventLoop aeEventLoop, int fd);
+
 	int aeApiAddEvent(AeEventLoop aeEventLoop, int fd, int mask);
 
 	int aeApiDelEvent(AeEventLoop aeEventLoop, int fd, int mask);
 
 	int aeApiPoll(AeEventLoop aeEventLoop, TimeVal tv) throws IOException;
 
+	/**
+	 * 唤醒阻塞在 aeApiPoll 上的事件轮询线程, 可以在任意线程调用
+	 *
+	 * @param aeEventLoop 事件轮询
+	 */
+	void aeApiWakeup(AeEventLoop aeEventLoop);
+
 	String aeApiName();
 
 	static AeApi getAeApiInstance(String type) {
@@ -45,6 +83,16 @@ public interface AeApi {
 			return new EpollAeApi();
 		}
 
+		if ("epoll-native".equals(type)) {
+			// 本地实现在单独的 redis-java-epoll 模块中, 类或者本地库不存在时退回到 Selector 的实现
+			try {
+				return (AeApi) Class.forName(NATIVE_EPOLL_AE_API_CLASS).getDeclaredConstructor().newInstance();
+			} catch (Throwable e) {
+				System.err.println("Native epoll unavailable, fallback to selector: " + e);
+				return new EpollAeApi();
+			}
+		}
+
 		if ("kqueue".equals(type)) {
 			return new KqueueAeApi();
 		}
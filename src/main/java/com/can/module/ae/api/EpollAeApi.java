@@ -3,18 +3,23 @@ package com.can.module.ae.api;
 import com.can.module.ae.AeConstants;
 import com.can.module.ae.AeEventLoop;
 import com.can.module.ae.api.state.AeApiState;
-import com.can.module.ae.event.AeFileEvent;
+import com.can.module.ae.api.state.SelectedSelectionKeySet;
 import com.can.module.time.TimeVal;
 
 import java.io.IOException;
+import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
+import java.util.Arrays;
 import java.util.Objects;
 import java.util.Set;
 
 /**
  * <pre>
+ * 基于 java.nio.channels.Selector 的实现 (Linux 下 JDK 的 Selector 底层就是 epoll)
  *
+ * 文件描述符 fd 只是 AeEventLoop.masks 等数组的下标, 每个 fd 绑定一个 SelectableChannel,
+ * 绑定时注册到 selector 上, 得到的 SelectionKey 按 fd 保存, 增删事件时直接修改 interestOps
  * </pre>
  *
  * @author
@@ -22,8 +27,6 @@ import java.util.Set;
  */
 public class EpollAeApi implements AeApi {
 
-	private final static int FD_SETSIZE = 1024;
-
 	@Override
 	public int aeApiCreate(AeEventLoop aeEventLoop) throws IOException {
 
@@ -32,6 +35,10 @@ public class EpollAeApi implements AeApi {
 		// 开启 selector
 		Selector selector = Selector.open();
 		state.setSelector(selector);
+		state.setChannels(new SelectableChannel[aeEventLoop.getCapacity()]);
+		state.setKeys(new SelectionKey[aeEventLoop.getCapacity()]);
+		// 尝试替换 selector 的就绪集合, 避免每次轮询都创建迭代器
+		state.setSelectedKeys(SelectedSelectionKeySet.install(selector, aeEventLoop.getCapacity()));
 
 		aeEventLoop.setApiData(state);
 		return 0;
@@ -40,51 +47,81 @@ public class EpollAeApi implements AeApi {
 	@Override
 	public int aeApiResize(AeEventLoop aeEventLoop, int setSize) {
 
-		if (setSize > FD_SETSIZE) {
-			return -1;
-		}
+		// selector 本身没有数量限制, 只需要调整按文件描述符保存的数组
+		AeApiState apiData = aeEventLoop.getApiData();
+		apiData.setChannels(Arrays.copyOf(apiData.getChannels(), setSize));
+		apiData.setKeys(Arrays.copyOf(apiData.getKeys(), setSize));
 		return 0;
 	}
 
 	@Override
 	public void aeApiFree(AeEventLoop aeEventLoop) {
+
+		AeApiState apiData = aeEventLoop.getApiData();
+		if (Objects.nonNull(apiData)) {
+			try {
+				apiData.getSelector().close();
+			} catch (IOException ignore) {
+			}
+		}
 		aeEventLoop.setApiData(null);
 	}
 
 	@Override
-	public int aeApiAddEvent(AeEventLoop aeEventLoop, int fd, int mask) {
+	public int aeApiAttach(AeEventLoop aeEventLoop, int fd, SelectableChannel channel) throws IOException {
 
 		AeApiState apiData = aeEventLoop.getApiData();
 
-		AeFileEvent event = aeEventLoop.getEvents()[fd];
+		// 只支持非阻塞的通道, 先不监听任何事件, 通过 aeApiAddEvent 修改
+		channel.configureBlocking(false);
+		SelectionKey key = channel.register(apiData.getSelector(), 0, fd);
 
-		// TODO
-		int op = event.getMask() == AeConstants.AE_NONE ? -1 : 0;
+		apiData.getChannels()[fd] = channel;
+		apiData.getKeys()[fd] = key;
+		return 0;
+	}
 
-		mask |= aeEventLoop.getEvents()[fd].getMask();
+	@Override
+	public void aeApiDetach(AeEventLoop aeEventLoop, int fd) {
 
-		if ((mask & AeConstants.AE_READABLE) != 0) {
-			// ee.events |= EPOLLIN;
-		}
+		AeApiState apiData = aeEventLoop.getApiData();
 
-		if ((mask & AeConstants.AE_WRITABLE) != 0) {
-			// ee.events |= EPOLLOUT;
+		SelectionKey key = apiData.getKeys()[fd];
+		if (Objects.nonNull(key)) {
+			key.cancel();
 		}
-		return 0;
+		apiData.getChannels()[fd] = null;
+		apiData.getKeys()[fd] = null;
 	}
 
 	@Override
-	public int aeApiDelEvent(AeEventLoop aeEventLoop, int fd, int delmask) {
+	public int aeApiAddEvent(AeEventLoop aeEventLoop, int fd, int mask) {
 
-		AeApiState apiData = aeEventLoop.getApiData();
+		SelectionKey key = aeEventLoop.getApiData().getKeys()[fd];
+
+		// 文件描述符没有绑定通道
+		if (Objects.isNull(key) || !key.isValid()) {
+			return -1;
+		}
 
-		int mask = aeEventLoop.getEvents()[fd].getMask() & (~delmask);
+		// 合并已经存在的事件
+		mask |= aeEventLoop.getMasks()[fd];
+		key.interestOps(mask2InterestOps(mask, key.channel().validOps()));
+		return 0;
+	}
 
-		if (mask != AeConstants.AE_NONE) {
+	@Override
+	public int aeApiDelEvent(AeEventLoop aeEventLoop, int fd, int delmask) {
 
-		} else {
+		SelectionKey key = aeEventLoop.getApiData().getKeys()[fd];
 
+		if (Objects.isNull(key) || !key.isValid()) {
+			return 0;
 		}
+
+		// 剩余的事件为 AE_NONE 时, 保留注册关系, 只是不再监听任何事件
+		int mask = aeEventLoop.getMasks()[fd] & (~delmask);
+		key.interestOps(mask2InterestOps(mask, key.channel().validOps()));
 		return 0;
 	}
 
@@ -92,48 +129,52 @@ public class EpollAeApi implements AeApi {
 	public int aeApiPoll(AeEventLoop aeEventLoop, TimeVal tv) throws IOException {
 
 		AeApiState apiData = aeEventLoop.getApiData();
+		Selector selector = apiData.getSelector();
 
-		int retVal = 0;
-		if (Objects.nonNull(tv)) {
-			long waitTimeMs = tv.getTvSec() * 1000 + tv.getTvUsec() / 1000;
-			retVal = apiData.getSelector().select(waitTimeMs);
+		int retVal;
+		if (Objects.isNull(tv)) {
+			retVal = selector.select();
 		} else {
-			retVal = apiData.getSelector().select();
+			long waitTimeUs = tv.getTvSec() * 1000000 + tv.getTvUsec();
+			// select(0) 表示一直阻塞, 所以等待时间为 0 时用 selectNow, 不足 1 毫秒的向上取整
+			retVal = waitTimeUs <= 0 ? selector.selectNow() : selector.select((waitTimeUs + 999) / 1000);
 		}
 
-		// 有准备就绪的事件
-		if (retVal > 0) {
-
-			// 准备就绪的事件
-			Set<SelectionKey> selectionKeys = aeEventLoop.getApiData().getSelector().selectedKeys();
-
-			int index = 0;
-			for (SelectionKey selectionKey : selectionKeys) {
-				int mask = 0;
-				index++;
-
-				if (selectionKey.isAcceptable()) {
-					// TODO
-					mask |= AeConstants.AE_READABLE;
-				}
+		// 没有准备就绪的事件
+		if (retVal <= 0) {
+			return 0;
+		}
 
-				if (selectionKey.isReadable()) {
-					mask |= AeConstants.AE_WRITABLE;
-				}
+		int[] firedFds = aeEventLoop.getFiredFds();
+		int[] firedMasks = aeEventLoop.getFiredMasks();
+		int numevents = 0;
 
-				if (selectionKey.isWritable()) {
-					mask |= AeConstants.AE_WRITABLE;
-				}
-				aeEventLoop.getFired()[index - 1].setMask(mask);
-				// TODO
-				// aeEventLoop.getFired()[index - 1].setFd(selectionKey.);
+		SelectedSelectionKeySet selectedKeys = apiData.getSelectedKeys();
+		if (Objects.nonNull(selectedKeys)) {
+			// 数组遍历, 没有迭代器
+			for (int i = 0; i < selectedKeys.size(); i++) {
+				numevents = fillFired(selectedKeys.get(i), firedFds, firedMasks, numevents);
 			}
+			selectedKeys.reset();
+			return numevents;
+		}
 
-			// 清除已经获取到的事件
-			selectionKeys.clear();
+		// 准备就绪的事件
+		Set<SelectionKey> selectionKeys = selector.selectedKeys();
+		for (SelectionKey selectionKey : selectionKeys) {
+			numevents = fillFired(selectionKey, firedFds, firedMasks, numevents);
+		}
+		// 清除已经获取到的事件
+		selectionKeys.clear();
+		return numevents;
+	}
 
+	@Override
+	public void aeApiWakeup(AeEventLoop aeEventLoop) {
+		AeApiState apiData = aeEventLoop.getApiData();
+		if (Objects.nonNull(apiData)) {
+			apiData.getSelector().wakeup();
 		}
-		return retVal;
 	}
 
 	@Override
@@ -141,4 +182,62 @@ public class EpollAeApi implements AeApi {
 		return "epoll";
 	}
 
+	/**
+	 * 将就绪的 SelectionKey 转换为触发的事件
+	 *
+	 * @param selectionKey 就绪的 SelectionKey
+	 * @param firedFds     触发的文件描述符数组
+	 * @param firedMasks   触发的事件数组
+	 * @param numevents    当前已经触发的事件数
+	 * @return 新的触发的事件数
+	 */
+	private int fillFired(SelectionKey selectionKey, int[] firedFds, int[] firedMasks, int numevents) {
+
+		// 在这次轮询前被取消了
+		if (!selectionKey.isValid()) {
+			return numevents;
+		}
+
+		int readyOps = selectionKey.readyOps();
+		int mask = AeConstants.AE_NONE;
+
+		// 新连接和可读都当做可读事件
+		if ((readyOps & (SelectionKey.OP_READ | SelectionKey.OP_ACCEPT)) != 0) {
+			mask |= AeConstants.AE_READABLE;
+		}
+
+		// 连接完成和 epoll 一样当做可写事件
+		if ((readyOps & (SelectionKey.OP_WRITE | SelectionKey.OP_CONNECT)) != 0) {
+			mask |= AeConstants.AE_WRITABLE;
+		}
+
+		if (mask == AeConstants.AE_NONE) {
+			return numevents;
+		}
+
+		firedFds[numevents] = (Integer) selectionKey.attachment();
+		firedMasks[numevents] = mask;
+		return numevents + 1;
+	}
+
+	/**
+	 * 事件标识转换为 SelectionKey 的 interestOps
+	 *
+	 * @param mask     事件标识
+	 * @param validOps 通道支持的操作
+	 * @return interestOps
+	 */
+	private int mask2InterestOps(int mask, int validOps) {
+
+		int ops = 0;
+		if ((mask & AeConstants.AE_READABLE) != 0) {
+			// 服务端的通道是 OP_ACCEPT, 客户端的是 OP_READ
+			ops |= validOps & (SelectionKey.OP_READ | SelectionKey.OP_ACCEPT);
+		}
+		if ((mask & AeConstants.AE_WRITABLE) != 0) {
+			ops |= validOps & SelectionKey.OP_WRITE;
+		}
+		return ops;
+	}
+
 }
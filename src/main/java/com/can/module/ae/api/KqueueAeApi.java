@@ -3,6 +3,8 @@ package com.can.module.ae.api;
 import com.can.module.ae.AeEventLoop;
 import com.can.module.time.TimeVal;
 
+import java.nio.channels.SelectableChannel;
+
 /**
  * <pre>
  *
@@ -28,6 +30,16 @@ public class KqueueAeApi implements AeApi {
 
 	}
 
+	@Override
+	public int aeApiAttach(AeEventLoop aeEventLoop, int fd, SelectableChannel channel) {
+		return 0;
+	}
+
+	@Override
+	public void aeApiDetach(AeEventLoop aeEventLoop, int fd) {
+
+	}
+
 	@Override
 	public int aeApiAddEvent(AeEventLoop aeEventLoop, int fd, int mask) {
 		return 0;
@@ -43,6 +55,11 @@ public class KqueueAeApi implements AeApi {
 		return 0;
 	}
 
+	@Override
+	public void aeApiWakeup(AeEventLoop aeEventLoop) {
+
+	}
+
 	@Override
 	public String aeApiName() {
 		return null;
@@ -3,6 +3,8 @@ package com.can.module.ae.api;
 import com.can.module.ae.AeEventLoop;
 import com.can.module.time.TimeVal;
 
+import java.nio.channels.SelectableChannel;
+
 /**
  * <pre>
  *
@@ -27,6 +29,16 @@ public class SelectAeApi implements AeApi {
 	public void aeApiFree(AeEventLoop aeEventLoop) {
 	}
 
+	@Override
+	public int aeApiAttach(AeEventLoop aeEventLoop, int fd, SelectableChannel channel) {
+		return 0;
+	}
+
+	@Override
+	public void aeApiDetach(AeEventLoop aeEventLoop, int fd) {
+
+	}
+
 	@Override
 	public int aeApiAddEvent(AeEventLoop aeEventLoop, int fd, int mask) {
 		return 0;
@@ -42,6 +54,11 @@ public class SelectAeApi implements AeApi {
 		return 0;
 	}
 
+	@Override
+	public void aeApiWakeup(AeEventLoop aeEventLoop) {
+
+	}
+
 	@Override
 	public String aeApiName() {
 		return null;
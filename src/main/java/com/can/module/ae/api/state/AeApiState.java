@@ -2,6 +2,9 @@ package com.can.module.ae.api.state;
 
 import lombok.Data;
 
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 
 /**
@@ -16,4 +19,39 @@ import java.nio.channels.Selector;
 public class AeApiState {
 
 	private Selector selector;
+
+	/**
+	 * 文件描述符 -> 注册到 selector 上的通道
+	 */
+	private SelectableChannel[] channels;
+
+	/**
+	 * 文件描述符 -> 通道注册到 selector 后的 SelectionKey, 修改监听的事件直接修改这里的 interestOps
+	 */
+	private SelectionKey[] keys;
+
+	/**
+	 * 替换到 selector 中的就绪事件集合, 为 null 表示替换失败, 使用的是 selector 自带的集合
+	 */
+	private SelectedSelectionKeySet selectedKeys;
+
+	/**
+	 * epoll 实例的文件描述符 (epoll-native)
+	 */
+	private int epfd;
+
+	/**
+	 * epoll_wait 的就绪事件数组, 预先分配的堆外内存 (epoll-native)
+	 */
+	private ByteBuffer nativeEvents;
+
+	/**
+	 * 文件描述符 -> 操作系统真实的文件描述符 (epoll-native)
+	 */
+	private int[] nativeFds;
+
+	/**
+	 * 用于唤醒 epoll_wait 的 eventfd (epoll-native)
+	 */
+	private int wakeupFd;
 }
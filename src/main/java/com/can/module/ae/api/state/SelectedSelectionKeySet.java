@@ -0,0 +1,148 @@
+package com.can.module.ae.api.state;
+
+import java.lang.reflect.Field;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <pre>
+ * 基于数组的就绪事件集合
+ *
+ * JDK 的 Selector 内部用 HashSet 保存就绪的 SelectionKey, 每次轮询都需要创建迭代器, 新增/删除也有额外的开销
+ * 通过反射将 sun.nio.ch.SelectorImpl 中的 selectedKeys/publicSelectedKeys 替换为当前的集合
+ * 轮询后直接按下标遍历数组, 然后重置下标即可, 整个过程没有对象的创建
+ *
+ * 替换失败时 (非 SelectorImpl 的实现, JDK 9+ 没有 --add-opens java.base/sun.nio.ch=ALL-UNNAMED), 退回使用 JDK 自带的集合,
+ * 只在第一次失败时打印一次原因
+ * JDK 9+ 需要在启动参数中加上 --add-opens java.base/sun.nio.ch=ALL-UNNAMED, 通过 java -jar 启动时 jar 的 manifest 中已经有 Add-Opens
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-18 13:20
+ */
+public class SelectedSelectionKeySet extends AbstractSet<SelectionKey> {
+
+	/**
+	 * 是否已经打印过替换失败的原因, 每个事件轮询都会尝试替换, 只打印一次
+	 */
+	private final static AtomicBoolean FALLBACK_LOGGED = new AtomicBoolean();
+
+	/**
+	 * 就绪的 SelectionKey
+	 */
+	private SelectionKey[] keys;
+
+	/**
+	 * 就绪的个数
+	 */
+	private int size;
+
+	public SelectedSelectionKeySet(int initCapacity) {
+		keys = new SelectionKey[Math.max(initCapacity, 16)];
+	}
+
+	@Override
+	public boolean add(SelectionKey key) {
+		if (key == null) {
+			return false;
+		}
+		if (size == keys.length) {
+			keys = Arrays.copyOf(keys, size << 1);
+		}
+		keys[size++] = key;
+		return true;
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		return false;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return false;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public Iterator<SelectionKey> iterator() {
+		return new Iterator<SelectionKey>() {
+
+			private int index;
+
+			@Override
+			public boolean hasNext() {
+				return index < size;
+			}
+
+			@Override
+			public SelectionKey next() {
+				return keys[index++];
+			}
+		};
+	}
+
+	/**
+	 * 获取指定位置的就绪 SelectionKey
+	 *
+	 * @param index 位置
+	 * @return SelectionKey
+	 */
+	public SelectionKey get(int index) {
+		return keys[index];
+	}
+
+	/**
+	 * 清空, 同时释放对 SelectionKey 的引用
+	 */
+	public void reset() {
+		Arrays.fill(keys, 0, size, null);
+		size = 0;
+	}
+
+	/**
+	 * 将当前的集合替换到 selector 中
+	 *
+	 * @param selector 选择器
+	 * @param initCapacity 初始容量
+	 * @return 替换成功返回替换后的集合, 失败返回 null
+	 */
+	public static SelectedSelectionKeySet install(Selector selector, int initCapacity) {
+
+		try {
+			Class<?> selectorImplClass = Class.forName("sun.nio.ch.SelectorImpl", false, ClassLoader.getSystemClassLoader());
+			if (!selectorImplClass.isAssignableFrom(selector.getClass())) {
+				logFallback(selector.getClass().getName() + " is not a sun.nio.ch.SelectorImpl");
+				return null;
+			}
+
+			Field selectedKeysField = selectorImplClass.getDeclaredField("selectedKeys");
+			Field publicSelectedKeysField = selectorImplClass.getDeclaredField("publicSelectedKeys");
+			selectedKeysField.setAccessible(true);
+			publicSelectedKeysField.setAccessible(true);
+
+			SelectedSelectionKeySet keySet = new SelectedSelectionKeySet(initCapacity);
+			selectedKeysField.set(selector, keySet);
+			publicSelectedKeysField.set(selector, keySet);
+			return keySet;
+		} catch (Throwable e) {
+			// 没有权限或者 JDK 的实现变了, 使用 JDK 自带的集合
+			logFallback(e.toString() + ", add --add-opens java.base/sun.nio.ch=ALL-UNNAMED to the JVM options");
+			return null;
+		}
+	}
+
+	private static void logFallback(String reason) {
+		if (FALLBACK_LOGGED.compareAndSet(false, true)) {
+			System.err.println("Optimized selected key set unavailable, fallback to the JDK set: " + reason);
+		}
+	}
+}
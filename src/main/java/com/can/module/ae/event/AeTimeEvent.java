@@ -6,7 +6,7 @@ import lombok.Data;
 
 /**
  * <pre>
- * 时间时间链表
+ * 时间事件, 由 {@link AeTimeEventHeap} 按照执行时间组织
  * </pre>
  *
  * @author
@@ -18,11 +18,8 @@ public class AeTimeEvent {
 	// 事件 id, 不断递增的
 	private long id;
 
-	// 事件执行的时间, 当前时间的时间戳: 单位秒数
-	private long whenSec;
-
-	// 事件执行的时间, 多少秒后, 还要多少毫秒数
-	private long whenMs;
+	// 事件执行的时间, 单调时钟的值, 单位微秒 (ServerClock.getMonotonicUs())
+	private long when;
 
 	// 执行的函数
 	private AeTimeProc timeProc;
@@ -33,9 +30,6 @@ public class AeTimeEvent {
 	// 客户端数据
 	private Object clientData;
 
-	// 上一个时间事件
-	private AeTimeEvent prev;
-
-	// 下一个时间事件
-	private AeTimeEvent next;
+	// 在时间事件堆中的位置, 不在堆中时为 -1
+	private int heapIndex = -1;
 }
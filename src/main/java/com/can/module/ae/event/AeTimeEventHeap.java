@@ -0,0 +1,363 @@
+package com.can.module.ae.event;
+
+import com.can.module.ae.AeConstants;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <pre>
+ * 时间事件的最小堆
+ *
+ * 按照执行时间排序, 堆顶就是最近需要执行的时间事件
+ * 获取最近的时间事件 O(1), 新增/删除/调整执行时间 O(log n)
+ * 同时维护一个 id -> 时间事件的索引, 根据 id 删除时间事件不需要遍历, 索引的 key 是基本类型的 long, 新增和删除时不会装箱
+ *
+ * 处理时间事件的过程中 (beginPass 到 endPass), 不能在本次处理中执行的时间事件 (本次新增的, 本次删除的, 重新调度后仍然到期的)
+ * 通过 defer 移出堆, 在 endPass 时放回, 每个时间事件在一次处理中最多执行一次, 本次删除的时间事件在下次处理时才被清理
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-18 10:12
+ */
+public class AeTimeEventHeap {
+
+	/**
+	 * 堆的初始容量
+	 */
+	private final static int INIT_CAPACITY = 16;
+
+	/**
+	 * 堆数组, 下标 0 为堆顶
+	 */
+	private AeTimeEvent[] heap = new AeTimeEvent[INIT_CAPACITY];
+
+	/**
+	 * 堆中元素的个数
+	 */
+	private int size;
+
+	/**
+	 * id -> 时间事件, 只保存未被删除的时间事件
+	 */
+	private final LongEventMap idIndex = new LongEventMap();
+
+	/**
+	 * 一次处理中被延后的时间事件, 复用, 避免每次处理都创建
+	 */
+	private final List<AeTimeEvent> deferred = new ArrayList<>();
+
+	/**
+	 * 是否正在处理时间事件
+	 */
+	private boolean inPass;
+
+	/**
+	 * 新增时间事件
+	 *
+	 * @param te 时间事件
+	 */
+	public void add(AeTimeEvent te) {
+		if (size == heap.length) {
+			heap = Arrays.copyOf(heap, size << 1);
+		}
+		heap[size] = te;
+		te.setHeapIndex(size);
+		size++;
+		siftUp(te.getHeapIndex());
+		// 已经被标记删除的时间事件不再进入索引
+		if (te.getId() != AeConstants.AE_DELETED_EVENT_ID) {
+			idIndex.put(te.getId(), te);
+		}
+	}
+
+	/**
+	 * 获取执行时间最近的时间事件, 不会从堆中移除
+	 *
+	 * @return 堆顶的时间事件, 堆为空时返回 null
+	 */
+	public AeTimeEvent peek() {
+		return size == 0 ? null : heap[0];
+	}
+
+	/**
+	 * 移除堆顶的时间事件
+	 *
+	 * @return 堆顶的时间事件, 堆为空时返回 null
+	 */
+	public AeTimeEvent poll() {
+		if (size == 0) {
+			return null;
+		}
+		AeTimeEvent top = heap[0];
+		removeAt(0);
+		return top;
+	}
+
+	/**
+	 * 根据 id 获取时间事件
+	 *
+	 * @param id 时间事件 id
+	 * @return 时间事件, 不存在或者已经被标记删除返回 null
+	 */
+	public AeTimeEvent get(long id) {
+		return idIndex.get(id);
+	}
+
+	/**
+	 * 将时间事件从 id 索引中移除, 事件本身还在堆中, 等待后续统一删除
+	 *
+	 * @param id 时间事件 id
+	 * @return 被移除的时间事件, 不存在返回 null
+	 */
+	public AeTimeEvent unindex(long id) {
+		return idIndex.remove(id);
+	}
+
+	/**
+	 * 时间事件的执行时间变更后, 重新调整其在堆中的位置
+	 *
+	 * @param te 时间事件
+	 */
+	public void update(AeTimeEvent te) {
+		int index = te.getHeapIndex();
+		if (index < 0 || index >= size || heap[index] != te) {
+			return;
+		}
+		if (!siftUp(index)) {
+			siftDown(index);
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * 开始处理时间事件
+	 */
+	public void beginPass() {
+		inPass = true;
+	}
+
+	/**
+	 * 是否正在处理时间事件
+	 *
+	 * @return true 正在处理
+	 */
+	public boolean isInPass() {
+		return inPass;
+	}
+
+	/**
+	 * 本次处理中不再执行的时间事件移出堆, 在 endPass 时放回
+	 * 已经不在堆中的 (已经延后了) 不重复处理
+	 *
+	 * @param te 时间事件
+	 */
+	public void defer(AeTimeEvent te) {
+		int index = te.getHeapIndex();
+		if (index < 0 || index >= size || heap[index] != te) {
+			return;
+		}
+		removeAt(index);
+		deferred.add(te);
+	}
+
+	/**
+	 * 结束处理时间事件, 延后的时间事件放回堆中
+	 */
+	public void endPass() {
+		for (int i = 0; i < deferred.size(); i++) {
+			AeTimeEvent te = deferred.get(i);
+			if (size == heap.length) {
+				heap = Arrays.copyOf(heap, size << 1);
+			}
+			heap[size] = te;
+			size++;
+			siftUp(size - 1);
+		}
+		deferred.clear();
+		inPass = false;
+	}
+
+	/**
+	 * 清空堆
+	 */
+	public void clear() {
+		Arrays.fill(heap, 0, size, null);
+		size = 0;
+		idIndex.clear();
+		deferred.clear();
+		inPass = false;
+	}
+
+	private void removeAt(int index) {
+		AeTimeEvent removed = heap[index];
+		size--;
+		AeTimeEvent last = heap[size];
+		heap[size] = null;
+		removed.setHeapIndex(-1);
+		if (index == size) {
+			return;
+		}
+		heap[index] = last;
+		last.setHeapIndex(index);
+		if (!siftUp(index)) {
+			siftDown(index);
+		}
+	}
+
+	/**
+	 * 上浮
+	 *
+	 * @param index 开始的位置
+	 * @return true: 位置发生了变动
+	 */
+	private boolean siftUp(int index) {
+		AeTimeEvent te = heap[index];
+		int start = index;
+		while (index > 0) {
+			int parent = (index - 1) >>> 1;
+			AeTimeEvent p = heap[parent];
+			if (compare(te, p) >= 0) {
+				break;
+			}
+			heap[index] = p;
+			p.setHeapIndex(index);
+			index = parent;
+		}
+		heap[index] = te;
+		te.setHeapIndex(index);
+		return index != start;
+	}
+
+	/**
+	 * 下沉
+	 *
+	 * @param index 开始的位置
+	 */
+	private void siftDown(int index) {
+		AeTimeEvent te = heap[index];
+		int half = size >>> 1;
+		while (index < half) {
+			int child = (index << 1) + 1;
+			int right = child + 1;
+			if (right < size && compare(heap[right], heap[child]) < 0) {
+				child = right;
+			}
+			if (compare(te, heap[child]) <= 0) {
+				break;
+			}
+			heap[index] = heap[child];
+			heap[index].setHeapIndex(index);
+			index = child;
+		}
+		heap[index] = te;
+		te.setHeapIndex(index);
+	}
+
+	/**
+	 * 比较 2 个时间事件的执行时间
+	 */
+	private static int compare(AeTimeEvent a, AeTimeEvent b) {
+		return Long.compare(a.getWhen(), b.getWhen());
+	}
+
+	/**
+	 * id -> 时间事件, 开放寻址 (线性探测), 删除时把后面的元素往前移, 不需要删除标记
+	 */
+	private static class LongEventMap {
+
+		private final static int INIT_CAPACITY = 16;
+
+		private long[] keys = new long[INIT_CAPACITY];
+
+		/**
+		 * null 表示空的位置
+		 */
+		private AeTimeEvent[] values = new AeTimeEvent[INIT_CAPACITY];
+
+		private int size;
+
+		private AeTimeEvent get(long key) {
+			int mask = keys.length - 1;
+			for (int i = slot(key, mask); values[i] != null; i = (i + 1) & mask) {
+				if (keys[i] == key) {
+					return values[i];
+				}
+			}
+			return null;
+		}
+
+		private void put(long key, AeTimeEvent value) {
+			// 负载因子不超过 0.5
+			if ((size + 1) << 1 > keys.length) {
+				resize(keys.length << 1);
+			}
+			int mask = keys.length - 1;
+			int i = slot(key, mask);
+			for (; values[i] != null; i = (i + 1) & mask) {
+				if (keys[i] == key) {
+					values[i] = value;
+					return;
+				}
+			}
+			keys[i] = key;
+			values[i] = value;
+			size++;
+		}
+
+		private AeTimeEvent remove(long key) {
+			int mask = keys.length - 1;
+			int i = slot(key, mask);
+			for (; values[i] != null; i = (i + 1) & mask) {
+				if (keys[i] == key) {
+					break;
+				}
+			}
+			AeTimeEvent removed = values[i];
+			if (removed == null) {
+				return null;
+			}
+
+			// 后面同一段连续的元素, 探测的起点不在 (hole, j] 之间的, 移到空出来的位置
+			int hole = i;
+			for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+				int home = slot(keys[j], mask);
+				if (((j - home) & mask) >= ((j - hole) & mask)) {
+					keys[hole] = keys[j];
+					values[hole] = values[j];
+					hole = j;
+				}
+			}
+			values[hole] = null;
+			size--;
+			return removed;
+		}
+
+		private void clear() {
+			Arrays.fill(values, null);
+			size = 0;
+		}
+
+		private void resize(int capacity) {
+			long[] oldKeys = keys;
+			AeTimeEvent[] oldValues = values;
+			keys = new long[capacity];
+			values = new AeTimeEvent[capacity];
+			size = 0;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldValues[i] != null) {
+					put(oldKeys[i], oldValues[i]);
+				}
+			}
+		}
+
+		private static int slot(long key, int mask) {
+			long h = key * 0x9E3779B97F4A7C15L;
+			return (int) (h ^ (h >>> 32)) & mask;
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package com.can.module.ae.stats;
+
+/**
+ * <pre>
+ * 以 2 的幂次分桶的直方图, 只有固定大小的数组, 记录时不会创建任何对象
+ *
+ * 第 i 个桶记录 [2^(i-1), 2^i) 范围的值, 第 0 个桶记录 0
+ * 只在事件轮询的线程中写入, 其他线程读取到的是近似值
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-18 18:10
+ */
+public class AeHistogram {
+
+	private final static int BUCKET_NUM = 40;
+
+	private final long[] buckets = new long[BUCKET_NUM];
+
+	private long count;
+
+	private long sum;
+
+	private long max;
+
+	/**
+	 * 记录一个值
+	 *
+	 * @param value 值, 小于 0 的按 0 处理
+	 */
+	public void record(long value) {
+
+		if (value < 0) {
+			value = 0;
+		}
+
+		int index = 64 - Long.numberOfLeadingZeros(value);
+		if (index >= BUCKET_NUM) {
+			index = BUCKET_NUM - 1;
+		}
+
+		buckets[index]++;
+		count++;
+		sum += value;
+		if (value > max) {
+			max = value;
+		}
+	}
+
+	/**
+	 * 获取指定百分位的近似值 (所在桶的上限)
+	 *
+	 * @param percentile 百分位, 如 99.9
+	 * @return 近似值, 没有记录时返回 0
+	 */
+	public long percentile(double percentile) {
+
+		long total = count;
+		if (total == 0) {
+			return 0;
+		}
+
+		long threshold = (long) Math.ceil(total * percentile / 100);
+		long seen = 0;
+		for (int i = 0; i < BUCKET_NUM; i++) {
+			seen += buckets[i];
+			if (seen >= threshold) {
+				return Math.min(i == 0 ? 0 : (1L << i) - 1, max);
+			}
+		}
+		return max;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public long getSum() {
+		return sum;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	public long getMean() {
+		long total = count;
+		return total == 0 ? 0 : sum / total;
+	}
+
+	/**
+	 * 清空所有的记录
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKET_NUM; i++) {
+			buckets[i] = 0;
+		}
+		count = 0;
+		sum = 0;
+		max = 0;
+	}
+}
@@ -0,0 +1,360 @@
+package com.can.module.ae.stats;
+
+import com.can.module.ae.AeBusyPoll;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * <pre>
+ * 事件轮询的统计
+ *
+ * 记录每次轮询各个阶段的耗时: 等待 (aeApiPoll), 文件事件的执行函数, 时间事件的执行函数, beforeSleep
+ * 所有的数据都是预先分配的计数器和直方图, 记录时不会创建对象
+ * 只在事件轮询的线程中写入, INFO 和 JMX 在其他线程中读取, 读取到的是近似值
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-18 18:10
+ */
+public class AeStats implements AeStatsMXBean {
+
+	private final static long NS_PER_SEC = 1000000000L;
+
+	private final static String OBJECT_NAME_PREFIX = "com.can.redis:type=AeEventLoop,name=";
+
+	private final String apiName;
+
+	/**
+	 * 轮询的次数
+	 */
+	private long iterations;
+
+	/**
+	 * 最近一秒的轮询次数
+	 */
+	private volatile long iterationsPerSec;
+
+	/**
+	 * 计算每秒轮询次数的采样起点
+	 */
+	private long sampleStartNs;
+
+	private long sampleStartIterations;
+
+	/**
+	 * aeApiPoll 的耗时, 单位纳秒
+	 */
+	private final AeHistogram pollLatency = new AeHistogram();
+
+	/**
+	 * 每次 aeApiPoll 返回的就绪事件数
+	 */
+	private final AeHistogram eventsPerPoll = new AeHistogram();
+
+	/**
+	 * 每个就绪的文件描述符上执行函数的耗时, 单位纳秒
+	 */
+	private final AeHistogram fileProcLatency = new AeHistogram();
+
+	/**
+	 * 每个时间事件执行函数的耗时, 单位纳秒
+	 */
+	private final AeHistogram timeProcLatency = new AeHistogram();
+
+	/**
+	 * beforeSleep 的耗时, 单位纳秒
+	 */
+	private final AeHistogram beforeSleepLatency = new AeHistogram();
+
+	/**
+	 * 执行的其他线程提交的任务数
+	 */
+	private long pendingTasks;
+
+	/**
+	 * 忙轮询的状态, 没有开启时为 null
+	 */
+	private volatile AeBusyPoll busyPoll;
+
+	private ObjectName objectName;
+
+	public AeStats(String apiName) {
+		this.apiName = apiName;
+		this.sampleStartNs = System.nanoTime();
+	}
+
+	/**
+	 * 记录一次轮询, 每秒计算一次每秒轮询次数
+	 *
+	 * @param nowNs 当前的单调时间, 单位纳秒
+	 */
+	public void recordIteration(long nowNs) {
+
+		iterations++;
+
+		long elapsed = nowNs - sampleStartNs;
+		if (elapsed >= NS_PER_SEC) {
+			iterationsPerSec = (iterations - sampleStartIterations) * NS_PER_SEC / elapsed;
+			sampleStartNs = nowNs;
+			sampleStartIterations = iterations;
+		}
+	}
+
+	public void recordPoll(long ns, int numevents) {
+		pollLatency.record(ns);
+		eventsPerPoll.record(numevents);
+	}
+
+	public void recordFileProc(long ns) {
+		fileProcLatency.record(ns);
+	}
+
+	public void recordTimeProc(long ns) {
+		timeProcLatency.record(ns);
+	}
+
+	public void recordBeforeSleep(long ns) {
+		beforeSleepLatency.record(ns);
+	}
+
+	public void recordPendingTasks(int count) {
+		pendingTasks += count;
+	}
+
+	public void setBusyPoll(AeBusyPoll busyPoll) {
+		this.busyPoll = busyPoll;
+	}
+
+	/**
+	 * 注册到 JMX
+	 *
+	 * @param name 事件轮询的名称
+	 */
+	public void register(String name) {
+		try {
+			ObjectName objectName = new ObjectName(OBJECT_NAME_PREFIX + ObjectName.quote(name));
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+			this.objectName = objectName;
+		} catch (Exception e) {
+			System.err.println("Registering event loop MBean " + name + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * 从 JMX 中取消注册
+	 */
+	public void unregister() {
+		if (objectName == null) {
+			return;
+		}
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+		} catch (Exception ignore) {
+		}
+		objectName = null;
+	}
+
+	/**
+	 * 追加 INFO 格式的统计信息
+	 *
+	 * @param info 追加到的 StringBuilder
+	 * @return info
+	 */
+	public StringBuilder genInfoString(StringBuilder info) {
+
+		info.append("ae_api:").append(apiName).append("\r\n");
+		info.append("ae_iterations:").append(iterations).append("\r\n");
+		info.append("ae_iterations_per_sec:").append(iterationsPerSec).append("\r\n");
+		info.append("ae_events_fired:").append(eventsPerPoll.getSum()).append("\r\n");
+		info.append("ae_pending_tasks:").append(pendingTasks).append("\r\n");
+		appendCount(info, "ae_events_per_poll", eventsPerPoll);
+		appendLatency(info, "ae_poll", pollLatency);
+		appendLatency(info, "ae_file_proc", fileProcLatency);
+		appendLatency(info, "ae_time_proc", timeProcLatency);
+		appendLatency(info, "ae_before_sleep", beforeSleepLatency);
+
+		AeBusyPoll busyPoll = this.busyPoll;
+		if (busyPoll != null) {
+			info.append("ae_busy_poll:max_budget_usec=").append(busyPoll.getMaxBudgetUs())
+				.append(",budget_usec=").append(busyPoll.getBudgetUs())
+				.append(",spins=").append(busyPoll.getSpins())
+				.append(",hits=").append(busyPoll.getSpinHits())
+				.append(",hit_ratio_percent=").append(getBusyPollHitRatioPercent())
+				.append(",spin_usec=").append(busyPoll.getSpinTimeNs() / 1000).append("\r\n");
+		}
+		return info;
+	}
+
+	private static void appendCount(StringBuilder info, String name, AeHistogram histogram) {
+		info.append(name).append(":mean=").append(histogram.getMean())
+			.append(",p50=").append(histogram.percentile(50))
+			.append(",p99=").append(histogram.percentile(99))
+			.append(",max=").append(histogram.getMax()).append("\r\n");
+	}
+
+	private static void appendLatency(StringBuilder info, String name, AeHistogram histogram) {
+		info.append(name).append(":calls=").append(histogram.getCount())
+			.append(",usec=").append(histogram.getSum() / 1000)
+			.append(",usec_per_call=").append(histogram.getMean() / 1000)
+			.append(",p50_usec=").append(histogram.percentile(50) / 1000)
+			.append(",p99_usec=").append(histogram.percentile(99) / 1000)
+			.append(",p999_usec=").append(histogram.percentile(99.9) / 1000)
+			.append(",max_usec=").append(histogram.getMax() / 1000).append("\r\n");
+	}
+
+	@Override
+	public String getApiName() {
+		return apiName;
+	}
+
+	@Override
+	public long getIterations() {
+		return iterations;
+	}
+
+	@Override
+	public long getIterationsPerSec() {
+		return iterationsPerSec;
+	}
+
+	@Override
+	public long getPollCalls() {
+		return pollLatency.getCount();
+	}
+
+	@Override
+	public long getPollTimeUs() {
+		return pollLatency.getSum() / 1000;
+	}
+
+	@Override
+	public long getPollLatencyP99Us() {
+		return pollLatency.percentile(99) / 1000;
+	}
+
+	@Override
+	public long getPollLatencyMaxUs() {
+		return pollLatency.getMax() / 1000;
+	}
+
+	@Override
+	public long getEventsFired() {
+		return eventsPerPoll.getSum();
+	}
+
+	@Override
+	public long getEventsPerPollP99() {
+		return eventsPerPoll.percentile(99);
+	}
+
+	@Override
+	public long getEventsPerPollMax() {
+		return eventsPerPoll.getMax();
+	}
+
+	@Override
+	public long getFileProcCalls() {
+		return fileProcLatency.getCount();
+	}
+
+	@Override
+	public long getFileProcTimeUs() {
+		return fileProcLatency.getSum() / 1000;
+	}
+
+	@Override
+	public long getFileProcLatencyP99Us() {
+		return fileProcLatency.percentile(99) / 1000;
+	}
+
+	@Override
+	public long getFileProcLatencyMaxUs() {
+		return fileProcLatency.getMax() / 1000;
+	}
+
+	@Override
+	public long getTimeProcCalls() {
+		return timeProcLatency.getCount();
+	}
+
+	@Override
+	public long getTimeProcTimeUs() {
+		return timeProcLatency.getSum() / 1000;
+	}
+
+	@Override
+	public long getTimeProcLatencyP99Us() {
+		return timeProcLatency.percentile(99) / 1000;
+	}
+
+	@Override
+	public long getTimeProcLatencyMaxUs() {
+		return timeProcLatency.getMax() / 1000;
+	}
+
+	@Override
+	public long getBeforeSleepCalls() {
+		return beforeSleepLatency.getCount();
+	}
+
+	@Override
+	public long getBeforeSleepTimeUs() {
+		return beforeSleepLatency.getSum() / 1000;
+	}
+
+	@Override
+	public long getBeforeSleepLatencyMaxUs() {
+		return beforeSleepLatency.getMax() / 1000;
+	}
+
+	@Override
+	public long getBusyPollBudgetUs() {
+		AeBusyPoll busyPoll = this.busyPoll;
+		return busyPoll == null ? 0L : busyPoll.getBudgetUs();
+	}
+
+	@Override
+	public long getBusyPollSpins() {
+		AeBusyPoll busyPoll = this.busyPoll;
+		return busyPoll == null ? 0L : busyPoll.getSpins();
+	}
+
+	@Override
+	public long getBusyPollHits() {
+		AeBusyPoll busyPoll = this.busyPoll;
+		return busyPoll == null ? 0L : busyPoll.getSpinHits();
+	}
+
+	@Override
+	public long getBusyPollHitRatioPercent() {
+		AeBusyPoll busyPoll = this.busyPoll;
+		if (busyPoll == null || busyPoll.getSpins() == 0) {
+			return 0L;
+		}
+		return busyPoll.getSpinHits() * 100 / busyPoll.getSpins();
+	}
+
+	@Override
+	public long getPendingTasks() {
+		return pendingTasks;
+	}
+
+	@Override
+	public String getInfo() {
+		return genInfoString(new StringBuilder(1024)).toString();
+	}
+
+	@Override
+	public void reset() {
+		// 重置在其他线程中执行, 和事件轮询线程的写入存在竞争, 只是统计数据, 可以接受
+		iterations = 0;
+		sampleStartIterations = 0;
+		pendingTasks = 0;
+		pollLatency.reset();
+		eventsPerPoll.reset();
+		fileProcLatency.reset();
+		timeProcLatency.reset();
+		beforeSleepLatency.reset();
+	}
+}
@@ -0,0 +1,76 @@
+package com.can.module.ae.stats;
+
+/**
+ * <pre>
+ * 事件轮询统计的 JMX 接口, 时间的单位都是微秒
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-18 18:10
+ */
+public interface AeStatsMXBean {
+
+	String getApiName();
+
+	long getIterations();
+
+	long getIterationsPerSec();
+
+	long getPollCalls();
+
+	long getPollTimeUs();
+
+	long getPollLatencyP99Us();
+
+	long getPollLatencyMaxUs();
+
+	long getEventsFired();
+
+	long getEventsPerPollP99();
+
+	long getEventsPerPollMax();
+
+	long getFileProcCalls();
+
+	long getFileProcTimeUs();
+
+	long getFileProcLatencyP99Us();
+
+	long getFileProcLatencyMaxUs();
+
+	long getTimeProcCalls();
+
+	long getTimeProcTimeUs();
+
+	long getTimeProcLatencyP99Us();
+
+	long getTimeProcLatencyMaxUs();
+
+	long getBeforeSleepCalls();
+
+	long getBeforeSleepTimeUs();
+
+	long getBeforeSleepLatencyMaxUs();
+
+	long getBusyPollBudgetUs();
+
+	long getBusyPollSpins();
+
+	long getBusyPollHits();
+
+	long getBusyPollHitRatioPercent();
+
+	long getPendingTasks();
+
+	/**
+	 * INFO 格式的统计信息
+	 *
+	 * @return 统计信息
+	 */
+	String getInfo();
+
+	/**
+	 * 清空统计, 对应 CONFIG RESETSTAT
+	 */
+	void reset();
+}
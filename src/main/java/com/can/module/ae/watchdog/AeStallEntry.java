@@ -0,0 +1,55 @@
+package com.can.module.ae.watchdog;
+
+import lombok.Data;
+
+/**
+ * <pre>
+ * 一次事件轮询卡顿的记录
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-18 19:00
+ */
+@Data
+public class AeStallEntry {
+
+	/**
+	 * 唯一递增的 id
+	 */
+	private long id;
+
+	/**
+	 * 发现卡顿的时间, 单位毫秒
+	 */
+	private long timestamp;
+
+	/**
+	 * 已经观察到的卡顿时长, 单位毫秒, 卡顿结束前会一直更新
+	 */
+	private volatile long durationMs;
+
+	/**
+	 * 事件轮询的名称
+	 */
+	private String loopName;
+
+	/**
+	 * 正在执行的类型, AeWatchdog.RUNNING_*
+	 */
+	private String runningType;
+
+	/**
+	 * 正在执行的文件事件的文件描述符, 不是文件事件时为 -1
+	 */
+	private int fd;
+
+	/**
+	 * 正在执行的时间事件的 id, 不是时间事件时为 -1
+	 */
+	private long timeEventId;
+
+	/**
+	 * 发现卡顿时事件轮询线程的调用栈
+	 */
+	private StackTraceElement[] stackTrace;
+}
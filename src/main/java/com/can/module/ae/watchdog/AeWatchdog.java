@@ -0,0 +1,242 @@
+package com.can.module.ae.watchdog;
+
+import com.can.module.ae.AeEventLoop;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * <pre>
+ * 事件轮询的看门狗 (对应 Redis 的 watchdog-period, 用线程代替 SIGALRM)
+ *
+ * 事件轮询在执行每个执行函数 (文件事件, 时间事件, beforeSleep 等) 前后各将 heartbeat + 1, 执行中 heartbeat 为奇数
+ * 看门狗线程定期采样, 同一个奇数的 heartbeat 持续超过 period 毫秒, 说明有一个执行函数阻塞了事件轮询,
+ * 记录事件轮询线程的调用栈和正在执行的内容到有界的卡顿日志中
+ *
+ * 事件轮询线程只需要两次 volatile 写, 获取时间和调用栈都在看门狗线程中
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-18 19:00
+ */
+public class AeWatchdog {
+
+	public final static int RUNNING_FILE_PROC = 1;
+
+	public final static int RUNNING_TIME_PROC = 2;
+
+	public final static int RUNNING_BEFORE_SLEEP = 3;
+
+	public final static int RUNNING_AFTER_SLEEP = 4;
+
+	public final static int RUNNING_PENDING_TASKS = 5;
+
+	private final static String[] RUNNING_TYPE_NAMES = {"none", "file-proc", "time-proc", "before-sleep", "after-sleep", "pending-tasks"};
+
+	/**
+	 * 卡顿的阈值, 单位毫秒
+	 */
+	private final long periodMs;
+
+	/**
+	 * 卡顿日志的最大条数
+	 */
+	private final int maxLen;
+
+	private final List<AeEventLoop> eventLoops = new ArrayList<>();
+
+	private final List<String> names = new ArrayList<>();
+
+	/**
+	 * 卡顿日志, 最新的在最前面
+	 */
+	private final ArrayDeque<AeStallEntry> stallLog = new ArrayDeque<>();
+
+	private long nextEntryId;
+
+	private volatile boolean stop;
+
+	private Thread thread;
+
+	public AeWatchdog(long periodMs, int maxLen) {
+		this.periodMs = periodMs;
+		this.maxLen = maxLen;
+	}
+
+	/**
+	 * 添加需要监控的事件轮询, 需要在事件轮询启动前调用
+	 *
+	 * @param eventLoop 事件轮询
+	 * @param name      事件轮询的名称
+	 */
+	public void watch(AeEventLoop eventLoop, String name) {
+		eventLoop.setWatchdogEnabled(true);
+		eventLoops.add(eventLoop);
+		names.add(name);
+	}
+
+	/**
+	 * 启动看门狗线程
+	 */
+	public void start() {
+		thread = new Thread(this::run, "redis-watchdog");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	public void stop() {
+		stop = true;
+		if (thread != null) {
+			thread.interrupt();
+		}
+	}
+
+	private void run() {
+
+		int size = eventLoops.size();
+		// 每个事件轮询上次采样到的 heartbeat, 第一次采样到的时间, 以及对应的卡顿记录
+		long[] lastHeartbeat = new long[size];
+		long[] sinceNs = new long[size];
+		AeStallEntry[] entries = new AeStallEntry[size];
+
+		// 采样间隔越小, 卡顿时长越准确, 最小 1 毫秒
+		long intervalMs = Math.max(1L, periodMs / 4);
+
+		while (!stop) {
+
+			try {
+				Thread.sleep(intervalMs);
+			} catch (InterruptedException e) {
+				return;
+			}
+
+			long now = System.nanoTime();
+			for (int i = 0; i < size; i++) {
+
+				AeEventLoop eventLoop = eventLoops.get(i);
+				long heartbeat = eventLoop.getHeartbeat();
+
+				// 没有在执行函数
+				if ((heartbeat & 1) == 0) {
+					entries[i] = null;
+					lastHeartbeat[i] = heartbeat;
+					continue;
+				}
+
+				// 开始执行了新的函数
+				if (heartbeat != lastHeartbeat[i]) {
+					entries[i] = null;
+					lastHeartbeat[i] = heartbeat;
+					sinceNs[i] = now;
+					continue;
+				}
+
+				long elapsedMs = (now - sinceNs[i]) / 1000000;
+				if (elapsedMs < periodMs) {
+					continue;
+				}
+
+				if (entries[i] != null) {
+					entries[i].setDurationMs(elapsedMs);
+					continue;
+				}
+
+				entries[i] = capture(eventLoop, names.get(i), heartbeat, elapsedMs);
+			}
+		}
+	}
+
+	/**
+	 * 记录卡顿
+	 *
+	 * @param eventLoop 卡顿的事件轮询
+	 * @param name      事件轮询的名称
+	 * @param heartbeat 采样到的 heartbeat
+	 * @param elapsedMs 已经卡顿的时长
+	 * @return 卡顿记录, 获取调用栈时卡顿已经结束返回 null
+	 */
+	private AeStallEntry capture(AeEventLoop eventLoop, String name, long heartbeat, long elapsedMs) {
+
+		// 先读取 volatile 的 heartbeat, 再读取正在执行的内容, 保证看到的是这次执行的
+		int runningType = eventLoop.getRunningType();
+		int fd = eventLoop.getRunningFd();
+		long timeEventId = eventLoop.getRunningTimeEventId();
+
+		Thread loopThread = eventLoop.getThread();
+		StackTraceElement[] stackTrace = loopThread == null ? new StackTraceElement[0] : loopThread.getStackTrace();
+
+		// 获取调用栈期间执行已经结束了, 调用栈是不准确的
+		if (eventLoop.getHeartbeat() != heartbeat) {
+			return null;
+		}
+
+		AeStallEntry entry = new AeStallEntry();
+		entry.setTimestamp(System.currentTimeMillis());
+		entry.setDurationMs(elapsedMs);
+		entry.setLoopName(name);
+		entry.setRunningType(runningType < RUNNING_TYPE_NAMES.length ? RUNNING_TYPE_NAMES[runningType] : RUNNING_TYPE_NAMES[0]);
+		entry.setFd(fd);
+		entry.setTimeEventId(timeEventId);
+		entry.setStackTrace(stackTrace);
+
+		synchronized (stallLog) {
+			entry.setId(nextEntryId++);
+			stallLog.addFirst(entry);
+			while (stallLog.size() > maxLen) {
+				stallLog.removeLast();
+			}
+		}
+
+		logStall(entry);
+		return entry;
+	}
+
+	private void logStall(AeStallEntry entry) {
+
+		StringBuilder log = new StringBuilder(1024);
+		log.append("--- WATCHDOG TIMER EXPIRED (").append(entry.getLoopName()).append(", ")
+			.append(entry.getRunningType()).append(", fd=").append(entry.getFd())
+			.append(", time-event=").append(entry.getTimeEventId()).append(", ")
+			.append(entry.getDurationMs()).append("ms) ---\n");
+		for (StackTraceElement element : entry.getStackTrace()) {
+			log.append("\tat ").append(element).append('\n');
+		}
+		log.append("--------");
+		System.err.println(log);
+	}
+
+	/**
+	 * 获取最近的卡顿记录
+	 *
+	 * @param count 最多获取的条数
+	 * @return 卡顿记录, 最新的在最前面
+	 */
+	public List<AeStallEntry> getStallLog(int count) {
+		synchronized (stallLog) {
+			List<AeStallEntry> result = new ArrayList<>(Math.min(count, stallLog.size()));
+			Iterator<AeStallEntry> iterator = stallLog.iterator();
+			while (iterator.hasNext() && result.size() < count) {
+				result.add(iterator.next());
+			}
+			return result;
+		}
+	}
+
+	public int getStallLogLen() {
+		synchronized (stallLog) {
+			return stallLog.size();
+		}
+	}
+
+	public void resetStallLog() {
+		synchronized (stallLog) {
+			stallLog.clear();
+		}
+	}
+
+	public long getPeriodMs() {
+		return periodMs;
+	}
+}
@@ -0,0 +1,268 @@
+package com.can.module.buffer;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <pre>
+ * 按大小分级的堆外缓冲区池, 用于客户端的查询缓冲区, 回复缓冲区和回复块
+ *
+ * 1. 堆内的 ByteBuffer 读写 socket 时, JDK 内部会先拷贝到临时的堆外缓冲区, 直接使用堆外缓冲区可以省掉这次拷贝
+ * 2. 堆外缓冲区的申请和释放都很慢, 所以按大小分级缓存起来重复使用, 客户端空闲时 (缓冲区中没有数据) 就还给缓存池
+ * 3. 每个线程 (事件轮询, IO 线程) 有自己的缓存, 获取和释放都不需要同步, 线程的缓存满了再放入全局的缓存
+ * 4. 超过最大分级的缓冲区 (单个很大的回复) 按实际大小在堆内申请, 不缓存
+ *
+ * 全局和线程的缓存都有上限, 超过上限的缓冲区直接丢弃, 由 GC 回收
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-18 23:10
+ */
+public class BufferPool {
+
+	/**
+	 * 缓冲区的分级大小
+	 */
+	private final static int[] SIZE_CLASSES = {4 * 1024, 16 * 1024, 64 * 1024, 256 * 1024, 1024 * 1024};
+
+	/**
+	 * 每个线程的每一级最多缓存的字节数
+	 */
+	private final static int THREAD_CACHE_BYTES = 1024 * 1024;
+
+	/**
+	 * 全局的每一级最多缓存的字节数
+	 */
+	private final static int GLOBAL_CACHE_BYTES = 16 * 1024 * 1024;
+
+	private final static SizeClass[] CLASSES = new SizeClass[SIZE_CLASSES.length];
+
+	/**
+	 * 所有线程的缓存, 用于统计
+	 */
+	private final static CopyOnWriteArrayList<ThreadCache> THREAD_CACHES = new CopyOnWriteArrayList<>();
+
+	private final static ThreadLocal<ThreadCache> THREAD_CACHE = ThreadLocal.withInitial(() -> {
+		ThreadCache cache = new ThreadCache();
+		THREAD_CACHES.add(cache);
+		return cache;
+	});
+
+	/**
+	 * 超过最大分级, 在堆内申请的次数
+	 */
+	private final static AtomicLong OVERSIZE = new AtomicLong();
+
+	static {
+		for (int i = 0; i < SIZE_CLASSES.length; i++) {
+			CLASSES[i] = new SizeClass(SIZE_CLASSES[i]);
+		}
+	}
+
+	/**
+	 * 获取至少指定大小的缓冲区, 写模式, 内容是未定义的
+	 *
+	 * @param minSize 至少需要的大小
+	 * @return 缓冲区, 大小为对应的分级大小
+	 */
+	public static ByteBuffer acquire(int minSize) {
+
+		int index = sizeClassIndex(minSize);
+		if (index == -1) {
+			OVERSIZE.incrementAndGet();
+			return ByteBuffer.allocate(minSize);
+		}
+
+		// 先从线程的缓存获取, 再从全局的缓存获取
+		ThreadCache cache = THREAD_CACHE.get();
+		ByteBuffer buffer = cache.pop(index);
+		if (buffer != null) {
+			return buffer;
+		}
+
+		SizeClass sizeClass = CLASSES[index];
+		buffer = sizeClass.global.poll();
+		if (buffer != null) {
+			sizeClass.globalFree.decrementAndGet();
+			return buffer;
+		}
+
+		return sizeClass.allocate();
+	}
+
+	/**
+	 * 释放缓冲区, 堆内的缓冲区直接丢弃
+	 *
+	 * @param buffer 缓冲区, 释放后不能再使用
+	 */
+	public static void release(ByteBuffer buffer) {
+
+		if (!buffer.isDirect()) {
+			return;
+		}
+
+		int index = sizeClassIndex(buffer.capacity());
+		if (index == -1 || SIZE_CLASSES[index] != buffer.capacity()) {
+			return;
+		}
+
+		buffer.clear();
+		if (THREAD_CACHE.get().push(index, buffer)) {
+			return;
+		}
+
+		// 线程的缓存满了, 放入全局的缓存, 全局的也满了直接丢弃
+		SizeClass sizeClass = CLASSES[index];
+		if (sizeClass.globalFree.incrementAndGet() > sizeClass.globalLimit) {
+			sizeClass.globalFree.decrementAndGet();
+			sizeClass.dropped.incrementAndGet();
+			return;
+		}
+		sizeClass.global.offer(buffer);
+	}
+
+	/**
+	 * 获取能放下指定大小的分级
+	 *
+	 * @param size 大小
+	 * @return 分级的下标, 超过最大的分级返回 -1
+	 */
+	private static int sizeClassIndex(int size) {
+		for (int i = 0; i < SIZE_CLASSES.length; i++) {
+			if (size <= SIZE_CLASSES[i]) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * 追加 INFO 格式的统计信息
+	 *
+	 * @param info 追加到的 StringBuilder
+	 * @return info
+	 */
+	public static StringBuilder genInfoString(StringBuilder info) {
+
+		long totalDirect = 0;
+		long totalFree = 0;
+
+		for (int i = 0; i < CLASSES.length; i++) {
+			SizeClass sizeClass = CLASSES[i];
+
+			long free = sizeClass.globalFree.get();
+			for (ThreadCache cache : THREAD_CACHES) {
+				free += cache.counts[i];
+			}
+			long allocated = sizeClass.allocated.get();
+			long dropped = sizeClass.dropped.get();
+
+			info.append("buffer_pool_").append(sizeClass.size / 1024).append("k:")
+				.append("in_use=").append(Math.max(0, allocated - dropped - free))
+				.append(",free=").append(free)
+				.append(",peak=").append(sizeClass.peak.get())
+				.append(",misses=").append(allocated)
+				.append(",dropped=").append(dropped).append("\r\n");
+
+			totalDirect += (allocated - dropped) * sizeClass.size;
+			totalFree += free * sizeClass.size;
+		}
+
+		info.append("buffer_pool_direct_bytes:").append(totalDirect).append("\r\n");
+		info.append("buffer_pool_free_bytes:").append(totalFree).append("\r\n");
+		info.append("buffer_pool_oversize_allocations:").append(OVERSIZE.get()).append("\r\n");
+		return info;
+	}
+
+	/**
+	 * 一个分级的全局缓存和统计
+	 */
+	private static class SizeClass {
+
+		private final int size;
+
+		/**
+		 * 全局缓存的上限
+		 */
+		private final int globalLimit;
+
+		private final ConcurrentLinkedQueue<ByteBuffer> global = new ConcurrentLinkedQueue<>();
+
+		/**
+		 * 全局缓存的个数, ConcurrentLinkedQueue.size() 需要遍历, 单独计数
+		 */
+		private final AtomicInteger globalFree = new AtomicInteger();
+
+		/**
+		 * 缓存中没有, 新申请的个数
+		 */
+		private final AtomicLong allocated = new AtomicLong();
+
+		/**
+		 * 缓存满了丢弃的个数
+		 */
+		private final AtomicLong dropped = new AtomicLong();
+
+		/**
+		 * 同时使用的最大个数, 只有缓存中没有时才会新申请, 所以在新申请时更新
+		 */
+		private final AtomicLong peak = new AtomicLong();
+
+		private SizeClass(int size) {
+			this.size = size;
+			this.globalLimit = Math.max(1, GLOBAL_CACHE_BYTES / size);
+		}
+
+		private ByteBuffer allocate() {
+			long live = allocated.incrementAndGet() - dropped.get();
+			long current;
+			while (live > (current = peak.get()) && !peak.compareAndSet(current, live)) {
+				// 重试
+			}
+			return ByteBuffer.allocateDirect(size);
+		}
+	}
+
+	/**
+	 * 线程的缓存, 每一级一个栈, 只在所属的线程中修改
+	 */
+	private static class ThreadCache {
+
+		private final ByteBuffer[][] stacks = new ByteBuffer[SIZE_CLASSES.length][];
+
+		/**
+		 * 每一级缓存的个数, 统计时其他线程会读取, 不需要精确
+		 */
+		private final int[] counts = new int[SIZE_CLASSES.length];
+
+		private ThreadCache() {
+			for (int i = 0; i < SIZE_CLASSES.length; i++) {
+				stacks[i] = new ByteBuffer[Math.max(1, THREAD_CACHE_BYTES / SIZE_CLASSES[i])];
+			}
+		}
+
+		private ByteBuffer pop(int index) {
+			int count = counts[index];
+			if (count == 0) {
+				return null;
+			}
+			ByteBuffer buffer = stacks[index][--count];
+			stacks[index][count] = null;
+			counts[index] = count;
+			return buffer;
+		}
+
+		private boolean push(int index, ByteBuffer buffer) {
+			int count = counts[index];
+			if (count == stacks[index].length) {
+				return false;
+			}
+			stacks[index][count] = buffer;
+			counts[index] = count + 1;
+			return true;
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package com.can.module.command;
+
+import com.can.ApplicationStarter;
+import com.can.module.db.RedisDb;
+import com.can.module.networking.ClientArgv;
+import com.can.module.networking.Networking;
+import com.can.module.networking.RedisClient;
+
+/**
+ * <pre>
+ * 键空间相关的命令 (db.c)
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-19 03:00
+ */
+public class KeyspaceCommands {
+
+	/**
+	 * DEL key [key ...], 值的堆外空间 (SdsOffHeap) 在删除时立即释放
+	 *
+	 * @param client 客户端
+	 */
+	public static void delCommand(RedisClient client) {
+
+		RedisDb db = ApplicationStarter.getRedisServer().getDb();
+		long deleted = 0;
+		for (int j = 1; j < client.getArgc(); j++) {
+			if (db.dbDelete(ClientArgv.argLookupSds(client, j))) {
+				deleted++;
+			}
+		}
+		Networking.addReplyLongLong(client, deleted);
+	}
+}
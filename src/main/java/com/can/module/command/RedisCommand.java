@@ -0,0 +1,56 @@
+package com.can.module.command;
+
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <pre>
+ * 命令 (server.h redisCommand)
+ *
+ * arity 为正数时参数个数必须等于 arity, 为负数时参数个数至少为 -arity, 参数个数包括命令名本身
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-18 20:40
+ */
+@Data
+public class RedisCommand {
+
+	/**
+	 * 命令名, 小写
+	 */
+	private final String name;
+
+	/**
+	 * 命令名的字节数组, 小写, 用于直接和查询缓冲区中的参数比较
+	 */
+	private final byte[] nameBytes;
+
+	/**
+	 * 执行函数
+	 */
+	private final RedisCommandProc proc;
+
+	/**
+	 * 参数个数
+	 */
+	private final int arity;
+
+	/**
+	 * 执行的次数
+	 */
+	private long calls;
+
+	/**
+	 * 执行的总时间, 单位微秒
+	 */
+	private long microseconds;
+
+	public RedisCommand(String name, RedisCommandProc proc, int arity) {
+		this.name = name;
+		this.nameBytes = name.getBytes(StandardCharsets.US_ASCII);
+		this.proc = proc;
+		this.arity = arity;
+	}
+}
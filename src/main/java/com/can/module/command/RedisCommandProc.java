@@ -0,0 +1,22 @@
+package com.can.module.command;
+
+import com.can.module.networking.RedisClient;
+
+/**
+ * <pre>
+ * 命令的执行函数
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-18 20:40
+ */
+@FunctionalInterface
+public interface RedisCommandProc {
+
+	/**
+	 * 执行命令, 参数通过 ClientArgv 从客户端中获取, 回复通过 Networking.addReply* 追加
+	 *
+	 * @param client 客户端
+	 */
+	void proc(RedisClient client);
+}
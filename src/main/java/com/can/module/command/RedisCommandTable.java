@@ -0,0 +1,160 @@
+package com.can.module.command;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <pre>
+ * 命令表 (server.c redisCommandTable + lookupCommand)
+ *
+ * 命令名直接在查询缓冲区中查找, 不需要先转成 String:
+ * 开放寻址的哈希表, 哈希和比较时按 ASCII 忽略大小写, 整个查找过程没有对象的创建
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-18 20:45
+ */
+public class RedisCommandTable {
+
+	/**
+	 * 所有的命令
+	 */
+	private final static List<RedisCommand> COMMANDS = new ArrayList<>();
+
+	/**
+	 * 哈希表, 长度为 2 的 n 次方, 至少是命令数的 2 倍
+	 */
+	private static RedisCommand[] table = new RedisCommand[0];
+
+	/**
+	 * 初始化命令表, 启动时调用一次
+	 */
+	public static void populateCommandTable() {
+
+		COMMANDS.clear();
+
+		addCommand(new RedisCommand("ping", ServerCommands::pingCommand, -1));
+		addCommand(new RedisCommand("echo", ServerCommands::echoCommand, 2));
+		addCommand(new RedisCommand("quit", ServerCommands::quitCommand, -1));
+		addCommand(new RedisCommand("info", ServerCommands::infoCommand, -1));
+		addCommand(new RedisCommand("stalllog", ServerCommands::stalllogCommand, -2));
+		addCommand(new RedisCommand("get", StringCommands::getCommand, 2));
+		addCommand(new RedisCommand("set", StringCommands::setCommand, -3));
+		addCommand(new RedisCommand("append", StringCommands::appendCommand, 3));
+		addCommand(new RedisCommand("setrange", StringCommands::setrangeCommand, 4));
+		addCommand(new RedisCommand("strlen", StringCommands::strlenCommand, 2));
+		addCommand(new RedisCommand("getrange", StringCommands::getrangeCommand, 4));
+		addCommand(new RedisCommand("del", KeyspaceCommands::delCommand, -2));
+		addCommand(new RedisCommand("substr", StringCommands::getrangeCommand, 4));
+
+		rehash();
+	}
+
+	/**
+	 * 添加命令, 需要在 rehash 前调用
+	 *
+	 * @param command 命令
+	 */
+	private static void addCommand(RedisCommand command) {
+		COMMANDS.add(command);
+	}
+
+	private static void rehash() {
+
+		int size = 16;
+		while (size < COMMANDS.size() * 2) {
+			size <<= 1;
+		}
+
+		RedisCommand[] newTable = new RedisCommand[size];
+		for (RedisCommand command : COMMANDS) {
+			byte[] name = command.getNameBytes();
+			int idx = hash(name, 0, name.length) & (size - 1);
+			while (newTable[idx] != null) {
+				idx = (idx + 1) & (size - 1);
+			}
+			newTable[idx] = command;
+		}
+		table = newTable;
+	}
+
+	/**
+	 * 查找命令
+	 *
+	 * @param buf    命令名所在的缓冲区
+	 * @param offset 命令名的起始位置
+	 * @param len    命令名的长度
+	 * @return 找不到返回 null
+	 */
+	public static RedisCommand lookupCommand(ByteBuffer buf, int offset, int len) {
+
+		RedisCommand[] t = table;
+		int mask = t.length - 1;
+		if (mask < 0) {
+			return null;
+		}
+
+		int idx = hash(buf, offset, len) & mask;
+		RedisCommand command;
+		while ((command = t[idx]) != null) {
+			if (equalsIgnoreCase(command.getNameBytes(), buf, offset, len)) {
+				return command;
+			}
+			idx = (idx + 1) & mask;
+		}
+		return null;
+	}
+
+	/**
+	 * 获取所有的命令
+	 *
+	 * @return 命令列表, 只读
+	 */
+	public static List<RedisCommand> getCommands() {
+		return Collections.unmodifiableList(COMMANDS);
+	}
+
+	private static int hash(byte[] name, int offset, int len) {
+		int h = 0x811c9dc5;
+		for (int i = offset; i < offset + len; i++) {
+			h = (h ^ toLower(name[i])) * 0x01000193;
+		}
+		return h ^ (h >>> 16);
+	}
+
+	private static int hash(ByteBuffer buf, int offset, int len) {
+		int h = 0x811c9dc5;
+		for (int i = offset; i < offset + len; i++) {
+			h = (h ^ toLower(buf.get(i))) * 0x01000193;
+		}
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * 按 ASCII 忽略大小写比较
+	 *
+	 * @param lower  小写的字节数组
+	 * @param buf    缓冲区
+	 * @param offset 起始位置
+	 * @param len    长度
+	 * @return true 相等
+	 */
+	public static boolean equalsIgnoreCase(byte[] lower, ByteBuffer buf, int offset, int len) {
+
+		if (lower.length != len) {
+			return false;
+		}
+		for (int i = 0; i < len; i++) {
+			if (lower[i] != toLower(buf.get(offset + i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int toLower(byte b) {
+		return b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b;
+	}
+}
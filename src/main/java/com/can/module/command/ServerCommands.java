@@ -0,0 +1,245 @@
+package com.can.module.command;
+
+import com.can.ApplicationStarter;
+import com.can.data.structure.sds.SlabAllocator;
+import com.can.module.ae.AeEventLoop;
+import com.can.module.ae.AeEventLoopGroup;
+import com.can.module.ae.watchdog.AeStallEntry;
+import com.can.module.ae.watchdog.AeWatchdog;
+import com.can.module.buffer.BufferPool;
+import com.can.module.db.RedisDb;
+import com.can.module.networking.ClientArgv;
+import com.can.module.networking.IoThreads;
+import com.can.module.networking.Networking;
+import com.can.module.networking.RedisClient;
+import com.can.module.object.ReplyCache;
+import com.can.module.object.SharedObjects;
+import com.can.module.server.RedisServer;
+import com.can.module.server.RedisServerConstants;
+import com.can.module.time.ServerClock;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * <pre>
+ * 服务端相关的命令 (server.c pingCommand/echoCommand/infoCommand, latency.c)
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-18 20:55
+ */
+public class ServerCommands {
+
+	private final static byte[] GET = "get".getBytes(StandardCharsets.US_ASCII);
+
+	private final static byte[] LEN = "len".getBytes(StandardCharsets.US_ASCII);
+
+	private final static byte[] RESET = "reset".getBytes(StandardCharsets.US_ASCII);
+
+	/**
+	 * 默认返回的卡顿记录条数
+	 */
+	private final static int STALLLOG_DEFAULT_COUNT = 10;
+
+	/**
+	 * PING [message]
+	 *
+	 * @param client 客户端
+	 */
+	public static void pingCommand(RedisClient client) {
+
+		if (client.getArgc() > 2) {
+			Networking.addReplyErrorArity(client);
+			return;
+		}
+
+		if (client.getArgc() == 1) {
+			Networking.addReply(client, SharedObjects.pong);
+		} else {
+			Networking.addReplyBulkArg(client, 1);
+		}
+	}
+
+	/**
+	 * ECHO message
+	 *
+	 * @param client 客户端
+	 */
+	public static void echoCommand(RedisClient client) {
+		Networking.addReplyBulkArg(client, 1);
+	}
+
+	/**
+	 * QUIT, 回复 OK 后关闭连接
+	 *
+	 * @param client 客户端
+	 */
+	public static void quitCommand(RedisClient client) {
+		Networking.addReply(client, SharedObjects.ok);
+		client.setFlags(client.getFlags() | RedisServerConstants.CLIENT_CLOSE_AFTER_REPLY);
+	}
+
+	/**
+	 * INFO [section]
+	 *
+	 * @param client 客户端
+	 */
+	public static void infoCommand(RedisClient client) {
+
+		if (client.getArgc() > 2) {
+			Networking.addReplyErrorArity(client);
+			return;
+		}
+
+		String section = client.getArgc() == 2 ? ClientArgv.argToString(client, 1).toLowerCase() : "default";
+		boolean all = "all".equals(section) || "default".equals(section) || "everything".equals(section);
+
+		RedisServer server = ApplicationStarter.getRedisServer();
+		StringBuilder info = new StringBuilder(2048);
+
+		if (all || "server".equals(section)) {
+			info.append("# Server\r\n");
+			info.append("redis_version:").append(RedisServerConstants.REDIS_VERSION).append("\r\n");
+			info.append("tcp_port:").append(server.getPort()).append("\r\n");
+			info.append("uptime_in_seconds:").append(ServerClock.getUnixtime() - server.getStatStarttime()).append("\r\n");
+			info.append("reactors:").append(server.getReactors()).append("\r\n");
+			info.append("io_threads_active:").append(IoThreads.isIoThreadsActive() ? 1 : 0).append("\r\n");
+		}
+
+		if (all || "clients".equals(section)) {
+			if (info.length() > 0) {
+				info.append("\r\n");
+			}
+			info.append("# Clients\r\n");
+			info.append("connected_clients:").append(server.getConnectedClients().get()).append("\r\n");
+			info.append("maxclients:").append(server.getMaxClients()).append("\r\n");
+		}
+
+		if (all || "stats".equals(section)) {
+			if (info.length() > 0) {
+				info.append("\r\n");
+			}
+			info.append("# Stats\r\n");
+			info.append("total_connections_received:").append(server.getStatNumConnections().get()).append("\r\n");
+			info.append("rejected_connections:").append(server.getStatRejectedConn().get()).append("\r\n");
+			ReplyCache.genInfoString(info);
+			info.append("total_commands_processed:").append(server.getStatNumCommands().get()).append("\r\n");
+		}
+
+		if (all || "eventloop".equals(section)) {
+			if (info.length() > 0) {
+				info.append("\r\n");
+			}
+			info.append("# EventLoop\r\n");
+			genEventLoopInfoString(info, "main", server.getEl());
+			AeEventLoopGroup group = server.getReactorGroup();
+			if (Objects.nonNull(group)) {
+				AeEventLoop[] eventLoops = group.getEventLoops();
+				for (int i = 0; i < eventLoops.length; i++) {
+					genEventLoopInfoString(info, "reactor-" + i, eventLoops[i]);
+				}
+			}
+		}
+
+		if (all || "bufferpool".equals(section)) {
+			if (info.length() > 0) {
+				info.append("\r\n");
+			}
+			info.append("# BufferPool\r\n");
+			BufferPool.genInfoString(info);
+		}
+
+		if (all || "slab".equals(section)) {
+			if (info.length() > 0) {
+				info.append("\r\n");
+			}
+			info.append("# Slab\r\n");
+			SlabAllocator.genInfoString(info);
+		}
+
+		if (all || "keyspace".equals(section)) {
+			if (info.length() > 0) {
+				info.append("\r\n");
+			}
+			info.append("# Keyspace\r\n");
+			RedisDb db = server.getDb();
+			if (db.dbSize() > 0) {
+				info.append("db").append(db.getId()).append(":keys=").append(db.dbSize()).append("\r\n");
+			}
+		}
+
+		Networking.addReplyBulkString(client, info.toString());
+	}
+
+	private static void genEventLoopInfoString(StringBuilder info, String name, AeEventLoop eventLoop) {
+		info.append("ae_loop:").append(name).append("\r\n");
+		if (Objects.nonNull(eventLoop.getStats())) {
+			eventLoop.getStats().genInfoString(info);
+		}
+	}
+
+	/**
+	 * STALLLOG GET [count] | LEN | RESET, 看门狗记录的事件轮询卡顿 (类似 SLOWLOG)
+	 *
+	 * @param client 客户端
+	 */
+	public static void stalllogCommand(RedisClient client) {
+
+		AeWatchdog watchdog = ApplicationStarter.getRedisServer().getWatchdog();
+
+		if (client.getArgc() == 2 && ClientArgv.argEqualsIgnoreCase(client, 1, RESET)) {
+			if (Objects.nonNull(watchdog)) {
+				watchdog.resetStallLog();
+			}
+			Networking.addReply(client, SharedObjects.ok);
+			return;
+		}
+
+		if (client.getArgc() == 2 && ClientArgv.argEqualsIgnoreCase(client, 1, LEN)) {
+			Networking.addReplyLongLong(client, Objects.isNull(watchdog) ? 0 : watchdog.getStallLogLen());
+			return;
+		}
+
+		if ((client.getArgc() == 2 || client.getArgc() == 3) && ClientArgv.argEqualsIgnoreCase(client, 1, GET)) {
+
+			long count = STALLLOG_DEFAULT_COUNT;
+			if (client.getArgc() == 3) {
+				try {
+					count = ClientArgv.argToLong(client, 2);
+				} catch (NumberFormatException e) {
+					count = -1;
+				}
+				if (count < 0) {
+					Networking.addReplyError(client, "value is out of range, must be positive");
+					return;
+				}
+			}
+
+			if (Objects.isNull(watchdog)) {
+				Networking.addReplyArrayLen(client, 0);
+				return;
+			}
+
+			List<AeStallEntry> entries = watchdog.getStallLog((int) Math.min(count, Integer.MAX_VALUE));
+			Networking.addReplyArrayLen(client, entries.size());
+			for (AeStallEntry entry : entries) {
+				Networking.addReplyArrayLen(client, 6);
+				Networking.addReplyLongLong(client, entry.getId());
+				Networking.addReplyLongLong(client, entry.getTimestamp() / 1000);
+				Networking.addReplyLongLong(client, entry.getDurationMs());
+				Networking.addReplyBulkString(client, entry.getLoopName());
+				Networking.addReplyBulkString(client, entry.getRunningType() + " fd=" + entry.getFd() + " time-event=" + entry.getTimeEventId());
+				Networking.addReplyArrayLen(client, entry.getStackTrace().length);
+				for (StackTraceElement element : entry.getStackTrace()) {
+					Networking.addReplyBulkString(client, element.toString());
+				}
+			}
+			return;
+		}
+
+		Networking.addReplyErrorFormat(client, "Unknown subcommand or wrong number of arguments for '%s'. Try STALLLOG GET [count] | LEN | RESET",
+			ClientArgv.argToString(client, 1));
+	}
+}
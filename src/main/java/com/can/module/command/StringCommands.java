@@ -0,0 +1,276 @@
+package com.can.module.command;
+
+import com.can.ApplicationStarter;
+import com.can.data.structure.sds.Sds;
+import com.can.encoding.enums.ObjEncodingType;
+import com.can.module.db.RedisDb;
+import com.can.module.networking.ClientArgv;
+import com.can.module.networking.Networking;
+import com.can.module.networking.RedisClient;
+import com.can.module.object.RedisObject;
+import com.can.module.object.ReplyCache;
+import com.can.module.object.SharedObjects;
+import com.can.module.server.RedisServer;
+import com.can.module.server.RedisServerConstants;
+
+import java.util.Objects;
+
+/**
+ * <pre>
+ * 字符串相关的命令 (t_string.c)
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-18 21:40
+ */
+public class StringCommands {
+
+	/**
+	 * SET key value, 暂时不支持 EX/PX/NX/XX 等选项
+	 * 值为大参数时, 读取时的 sds 直接作为值保存, 不会再拷贝
+	 * 值为 [0, OBJ_SHARED_INTEGERS) 之间的整数时, 直接使用共享的整数对象
+	 * 值的长度达到 sds-offheap-min-len 时, 内容保存到堆外
+	 *
+	 * @param client 客户端
+	 */
+	public static void setCommand(RedisClient client) {
+
+		if (client.getArgc() > 3) {
+			Networking.addReply(client, SharedObjects.syntaxerr);
+			return;
+		}
+
+		Sds key = ClientArgv.argToSds(client, 1);
+		int shared = ClientArgv.argToSmallInt(client, 2, SharedObjects.OBJ_SHARED_INTEGERS);
+		RedisServer server = ApplicationStarter.getRedisServer();
+		RedisObject val = shared != -1 ? SharedObjects.integers[shared]
+			: RedisObject.tryObjectEncoding(RedisObject.createStringObject(ClientArgv.argToSds(client, 2)), server.getSdsOffheapMinLen());
+		server.getDb().setKey(key, val);
+		Networking.addReply(client, SharedObjects.ok);
+	}
+
+	/**
+	 * GET key
+	 * 访问频繁的键直接使用缓存的回复 (ReplyCache)
+	 *
+	 * @param client 客户端
+	 */
+	public static void getCommand(RedisClient client) {
+
+		RedisObject val = ApplicationStarter.getRedisServer().getDb().lookupKey(ClientArgv.argLookupSds(client, 1));
+		if (Objects.isNull(val)) {
+			Networking.addReplyNull(client);
+			return;
+		}
+
+		if (val.getType() != RedisObject.OBJ_STRING) {
+			Networking.addReply(client, SharedObjects.wrongtypeerr);
+			return;
+		}
+
+		RedisServer server = ApplicationStarter.getRedisServer();
+		byte[] cached = ReplyCache.lookup(val, server.getReplyCacheMinHits(), server.getReplyCacheMaxMemory());
+		if (Objects.nonNull(cached)) {
+			Networking.addReply(client, cached);
+			return;
+		}
+		Networking.addReplyBulkObject(client, val);
+	}
+
+	/**
+	 * GETRANGE key start end (SUBSTR 相同), 下标可以为负数, 包含 end
+	 * 回复直接使用值的只读视图 (sdsslice), 不创建中间的字符串
+	 *
+	 * @param client 客户端
+	 */
+	public static void getrangeCommand(RedisClient client) {
+
+		long start;
+		long end;
+		try {
+			start = ClientArgv.argToLong(client, 2);
+			end = ClientArgv.argToLong(client, 3);
+		} catch (NumberFormatException e) {
+			Networking.addReplyError(client, "value is not an integer or out of range");
+			return;
+		}
+
+		RedisObject o = ApplicationStarter.getRedisServer().getDb().lookupKey(ClientArgv.argLookupSds(client, 1));
+		if (Objects.isNull(o)) {
+			Networking.addReply(client, SharedObjects.emptybulk);
+			return;
+		}
+		if (o.getType() != RedisObject.OBJ_STRING) {
+			Networking.addReply(client, SharedObjects.wrongtypeerr);
+			return;
+		}
+
+		if (start < 0 && end < 0 && start > end) {
+			Networking.addReply(client, SharedObjects.emptybulk);
+			return;
+		}
+
+		Sds s = o.getEncoding() == ObjEncodingType.OBJ_ENCODING_INT ? Sds.sdsfromlonglong((Long) o.getPtr()) : (Sds) o.getPtr();
+		long strlen = s.sdsLen();
+		if (start < 0) {
+			start = Math.max(strlen + start, 0);
+		}
+		if (end < 0) {
+			end = Math.max(strlen + end, 0);
+		}
+		end = Math.min(end, strlen - 1);
+
+		if (start > end || strlen == 0) {
+			Networking.addReply(client, SharedObjects.emptybulk);
+			return;
+		}
+		Networking.addReplyBulkSds(client, s.sdsslice((int) start, (int) (end - start + 1)));
+	}
+
+	/**
+	 * APPEND key value, 在原来的 sds 上追加, sdsMakeRoomFor 预分配, 连续追加的均摊复杂度为 O(1)
+	 *
+	 * @param client 客户端
+	 */
+	public static void appendCommand(RedisClient client) {
+
+		RedisDb db = ApplicationStarter.getRedisServer().getDb();
+		Sds key = ClientArgv.argLookupSds(client, 1);
+		RedisObject o = db.lookupKey(key);
+
+		if (Objects.isNull(o)) {
+			o = RedisObject.createStringObject(ClientArgv.argToSds(client, 2));
+			db.setKey(ClientArgv.argToSds(client, 1), o);
+			Networking.addReplyLongLong(client, ((Sds) o.getPtr()).sdsLen());
+			return;
+		}
+
+		if (o.getType() != RedisObject.OBJ_STRING) {
+			Networking.addReply(client, SharedObjects.wrongtypeerr);
+			return;
+		}
+
+		int len = ClientArgv.argLen(client, 2);
+		if (checkStringLength(client, stringObjectLen(o) + len)) {
+			return;
+		}
+
+		o = db.dbUnshareStringValue(key, o);
+		Sds s = (Sds) o.getPtr();
+		int curlen = s.sdsLen();
+		s = s.sdsMakeRoomFor(len);
+		ClientArgv.argCopyTo(client, 2, s.getBuf(), curlen);
+		s.sdsIncrLen(len);
+		o.setPtr(s);
+		ReplyCache.invalidate(o);
+		Networking.addReplyLongLong(client, s.sdsLen());
+	}
+
+	/**
+	 * SETRANGE key offset value, 从 offset 开始覆盖, 超过原来的长度时扩展, 中间填充 0
+	 *
+	 * @param client 客户端
+	 */
+	public static void setrangeCommand(RedisClient client) {
+
+		long offset;
+		try {
+			offset = ClientArgv.argToLong(client, 2);
+		} catch (NumberFormatException e) {
+			Networking.addReplyError(client, "value is not an integer or out of range");
+			return;
+		}
+		if (offset < 0) {
+			Networking.addReplyError(client, "offset is out of range");
+			return;
+		}
+
+		RedisDb db = ApplicationStarter.getRedisServer().getDb();
+		Sds key = ClientArgv.argLookupSds(client, 1);
+		RedisObject o = db.lookupKey(key);
+		int len = ClientArgv.argLen(client, 3);
+
+		if (Objects.isNull(o)) {
+			// 值为空时不创建键
+			if (len == 0) {
+				Networking.addReply(client, SharedObjects.czero);
+				return;
+			}
+			if (checkStringLength(client, offset + len)) {
+				return;
+			}
+			o = RedisObject.createStringObject(Sds.sdsempty());
+			db.setKey(ClientArgv.argToSds(client, 1), o);
+		} else {
+			if (o.getType() != RedisObject.OBJ_STRING) {
+				Networking.addReply(client, SharedObjects.wrongtypeerr);
+				return;
+			}
+			if (len == 0) {
+				Networking.addReplyLongLong(client, stringObjectLen(o));
+				return;
+			}
+			if (checkStringLength(client, offset + len)) {
+				return;
+			}
+			o = db.dbUnshareStringValue(key, o);
+		}
+
+		Sds s = ((Sds) o.getPtr()).sdsgrowzero((int) (offset + len));
+		ClientArgv.argCopyTo(client, 3, s.getBuf(), (int) offset);
+		o.setPtr(s);
+		ReplyCache.invalidate(o);
+		Networking.addReplyLongLong(client, s.sdsLen());
+	}
+
+	/**
+	 * STRLEN key
+	 *
+	 * @param client 客户端
+	 */
+	public static void strlenCommand(RedisClient client) {
+
+		RedisObject o = ApplicationStarter.getRedisServer().getDb().lookupKey(ClientArgv.argLookupSds(client, 1));
+		if (Objects.isNull(o)) {
+			Networking.addReply(client, SharedObjects.czero);
+			return;
+		}
+		if (o.getType() != RedisObject.OBJ_STRING) {
+			Networking.addReply(client, SharedObjects.wrongtypeerr);
+			return;
+		}
+		Networking.addReplyLongLong(client, stringObjectLen(o));
+	}
+
+	/**
+	 * 字符串超过 proto-max-bulk-len 时回复错误
+	 *
+	 * @param client 客户端
+	 * @param size   修改后的长度
+	 * @return true 超过了
+	 */
+	private static boolean checkStringLength(RedisClient client, long size) {
+		if (size > RedisServerConstants.CONFIG_DEFAULT_PROTO_MAX_BULK_LEN) {
+			Networking.addReplyError(client, "string exceeds maximum allowed size (proto-max-bulk-len)");
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * 字符串对象的长度, 整数编码的为十进制的位数
+	 */
+	private static long stringObjectLen(RedisObject o) {
+
+		if (o.getEncoding() != ObjEncodingType.OBJ_ENCODING_INT) {
+			return ((Sds) o.getPtr()).sdsLen();
+		}
+
+		long value = (Long) o.getPtr();
+		int digits = value < 0 ? 2 : 1;
+		for (long v = value / 10; v != 0; v /= 10) {
+			digits++;
+		}
+		return digits;
+	}
+}
@@ -0,0 +1,123 @@
+package com.can.module.db;
+
+import com.can.data.structure.sds.Sds;
+import com.can.encoding.enums.ObjEncodingType;
+import com.can.module.object.RedisObject;
+import com.can.module.object.ReplyCache;
+import com.can.module.time.ServerClock;
+import lombok.Data;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <pre>
+ * 数据库 (server.h redisDb, db.c)
+ *
+ * 多 reactor 模式下只能在持有 server.executionLock 时访问
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-18 21:30
+ */
+@Data
+public class RedisDb {
+
+	/**
+	 * 数据库的编号
+	 */
+	private final int id;
+
+	/**
+	 * 键空间
+	 */
+	private final Map<Sds, RedisObject> dict = new HashMap<>();
+
+	/**
+	 * 查找键, 同时更新访问时间
+	 *
+	 * @param key 键
+	 * @return 不存在返回 null
+	 */
+	public RedisObject lookupKey(Sds key) {
+		RedisObject val = dict.get(key);
+		if (val != null) {
+			val.setLru(ServerClock.getUnixtime());
+		}
+		return val;
+	}
+
+	/**
+	 * 设置键的值, 已经存在时覆盖, 旧值的回复缓存和堆外空间同时释放
+	 *
+	 * @param key 键, 只读视图 (SdsSlice) 会复制为独立的字符串
+	 * @param val 值
+	 */
+	public void setKey(Sds key, RedisObject val) {
+		val.setLru(ServerClock.getUnixtime());
+		RedisObject old = dict.put(key.sdsmaterialize(), val);
+		if (old != null && old != val) {
+			freeValue(old);
+		}
+	}
+
+	/**
+	 * 删除键, 值的回复缓存和堆外空间同时释放 (db.c dbDelete)
+	 *
+	 * @param key 键
+	 * @return true 键存在
+	 */
+	public boolean dbDelete(Sds key) {
+		RedisObject old = dict.remove(key);
+		if (old == null) {
+			return false;
+		}
+		freeValue(old);
+		return true;
+	}
+
+	/**
+	 * 值不再使用时释放, 之后不能再访问
+	 */
+	private void freeValue(RedisObject o) {
+		ReplyCache.invalidate(o);
+		if (o.getEncoding() == ObjEncodingType.OBJ_ENCODING_OFFHEAP) {
+			((Sds) o.getPtr()).sdsfree();
+		}
+	}
+
+	/**
+	 * 修改字符串的值前调用, 共享的整数对象不能直接修改, 换成新的字符串对象 (db.c dbUnshareStringValue)
+	 * 堆外的值是只读的, 同样复制到堆内, 修改过的值之后留在堆内
+	 * 键已经存在, 只替换值, 保留字典中原来的键, 所以 key 可以是查找用的视图 (ClientArgv.argLookupSds)
+	 *
+	 * @param key 键
+	 * @param o   键当前的值
+	 * @return 可以直接修改的字符串对象
+	 */
+	public RedisObject dbUnshareStringValue(Sds key, RedisObject o) {
+
+		if (o.getEncoding() == ObjEncodingType.OBJ_ENCODING_RAW) {
+			return o;
+		}
+
+		Sds value = o.getEncoding() == ObjEncodingType.OBJ_ENCODING_OFFHEAP
+			? ((Sds) o.getPtr()).sdsdup() : Sds.sdsfromlonglong((Long) o.getPtr());
+		RedisObject raw = RedisObject.createStringObject(value);
+		raw.setLru(ServerClock.getUnixtime());
+		RedisObject old = dict.replace(key, raw);
+		if (old != null && old != raw) {
+			freeValue(old);
+		}
+		return raw;
+	}
+
+	/**
+	 * 键的个数
+	 *
+	 * @return 键的个数
+	 */
+	public int dbSize() {
+		return dict.size();
+	}
+}
@@ -0,0 +1,281 @@
+package com.can.module.networking;
+
+import com.can.data.structure.sds.Sds;
+import com.can.data.structure.sds.SdsSlice;
+import com.can.module.command.RedisCommand;
+import com.can.module.command.RedisCommandTable;
+import com.can.module.server.RedisServerConstants;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * <pre>
+ * 客户端参数的读取
+ *
+ * 解析出来的参数只是查询缓冲区的视图 (argvOffsets/argvLens), 只在命令执行期间有效,
+ * 需要保存的参数通过 argToSds 拷贝出去, 只用于查找的参数 (读取的键) 通过 argLookupSds 获取视图, 不创建新的字符串
+ * 大参数 (argvSds) 是单独读取的 sds, argToSds 直接交出, 不需要拷贝
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-18 20:50
+ */
+public class ClientArgv {
+
+	/**
+	 * 参数的长度
+	 *
+	 * @param client 客户端
+	 * @param index  参数的下标
+	 * @return 长度
+	 */
+	public static int argLen(RedisClient client, int index) {
+		return client.getArgvLens()[index];
+	}
+
+	/**
+	 * 参数是否等于指定的值, 按 ASCII 忽略大小写
+	 *
+	 * @param client 客户端
+	 * @param index  参数的下标
+	 * @param lower  小写的值
+	 * @return true 相等
+	 */
+	public static boolean argEqualsIgnoreCase(RedisClient client, int index, byte[] lower) {
+		return RedisCommandTable.equalsIgnoreCase(lower, argBuffer(client, index), argOffset(client, index), argLen(client, index));
+	}
+
+	/**
+	 * 参数转为 long
+	 *
+	 * @param client 客户端
+	 * @param index  参数的下标
+	 * @return 参数的值
+	 * @throws NumberFormatException 参数不是合法的整数
+	 */
+	public static long argToLong(RedisClient client, int index) {
+		return parseLong(argBuffer(client, index), argOffset(client, index), argLen(client, index));
+	}
+
+	/**
+	 * 参数是否是 [0, limit) 之间的整数, 格式要求和 argToLong 相同, 用于共享整数对象
+	 * 不是整数时只返回 -1, 不会创建异常对象
+	 *
+	 * @param client 客户端
+	 * @param index  参数的下标
+	 * @param limit  上限 (不包含)
+	 * @return 整数的值, 不是 [0, limit) 之间的整数时返回 -1
+	 */
+	public static int argToSmallInt(RedisClient client, int index, int limit) {
+
+		int len = argLen(client, index);
+		if (len == 0 || len > 9) {
+			return -1;
+		}
+
+		ByteBuffer buf = argBuffer(client, index);
+		int offset = argOffset(client, index);
+		if (len > 1 && buf.get(offset) == '0') {
+			return -1;
+		}
+
+		int value = 0;
+		for (int i = offset; i < offset + len; i++) {
+			int digit = buf.get(i) - '0';
+			if (digit < 0 || digit > 9) {
+				return -1;
+			}
+			value = value * 10 + digit;
+		}
+		return value < limit ? value : -1;
+	}
+
+	/**
+	 * 参数转为 sds, 用于需要保存的参数 (键, 值)
+	 * 大参数直接交出, 之后客户端不再持有, 其他参数拷贝一份
+	 *
+	 * @param client 客户端
+	 * @param index  参数的下标
+	 * @return sds
+	 */
+	public static Sds argToSds(RedisClient client, int index) {
+
+		Sds arg = client.getArgvSds()[index];
+		if (Objects.nonNull(arg)) {
+			client.getArgvSds()[index] = null;
+			client.getArgvLens()[index] = 0;
+			return arg;
+		}
+
+		Sds sds = Sds.sdsnewlen(client.getArgvLens()[index]);
+		argCopyTo(client, index, sds.getBuf(), 0);
+		return sds;
+	}
+
+	/**
+	 * 参数的只读视图, 用于只查找不保存的参数 (GET, STRLEN, DEL 等的键), 不创建新的字符串
+	 * 查询缓冲区在堆内时直接引用, 在堆外时拷贝到客户端复用的 argLookupBuf, 大参数直接返回, 客户端仍然持有
+	 * 视图只在下一次调用 argLookupSds 之前有效, 不能保存 (setKey 会复制, 需要保存的键使用 argToSds)
+	 *
+	 * @param client 客户端
+	 * @param index  参数的下标
+	 * @return 视图
+	 */
+	public static Sds argLookupSds(RedisClient client, int index) {
+
+		Sds arg = client.getArgvSds()[index];
+		if (Objects.nonNull(arg)) {
+			return arg;
+		}
+
+		int len = argLen(client, index);
+		ByteBuffer querybuf = client.getQuerybuf();
+		if (querybuf.hasArray()) {
+			return SdsSlice.sdsview(querybuf.array(), querybuf.arrayOffset() + client.getArgvOffsets()[index], len);
+		}
+
+		byte[] lookupBuf = client.getArgLookupBuf();
+		if (lookupBuf.length < len) {
+			lookupBuf = new byte[Math.max(len, lookupBuf.length * 2)];
+			if (lookupBuf.length <= RedisServerConstants.PROTO_IOBUF_LEN) {
+				client.setArgLookupBuf(lookupBuf);
+			}
+		}
+		argCopyTo(client, index, lookupBuf, 0);
+		return SdsSlice.sdsview(lookupBuf, 0, len);
+	}
+
+	/**
+	 * 参数拷贝为字节数组
+	 *
+	 * @param client 客户端
+	 * @param index  参数的下标
+	 * @return 参数的值
+	 */
+	public static byte[] argToBytes(RedisClient client, int index) {
+		byte[] bytes = new byte[argLen(client, index)];
+		argCopyTo(client, index, bytes, 0);
+		return bytes;
+	}
+
+	/**
+	 * 用第一个参数查找命令
+	 *
+	 * @param client 客户端
+	 * @return 找不到返回 null
+	 */
+	static RedisCommand lookupCommand(RedisClient client) {
+		return RedisCommandTable.lookupCommand(argBuffer(client, 0), argOffset(client, 0), argLen(client, 0));
+	}
+
+	/**
+	 * 参数拷贝到字节数组的指定位置, 用于直接写入 sds 的空间 (APPEND, SETRANGE)
+	 *
+	 * @param client 客户端
+	 * @param index  参数的下标
+	 * @param dst    目标数组, 从 dstOff 开始至少要有参数长度的空间
+	 * @param dstOff 写入的起始位置
+	 */
+	public static void argCopyTo(RedisClient client, int index, byte[] dst, int dstOff) {
+
+		int len = argLen(client, index);
+		Sds arg = client.getArgvSds()[index];
+		if (Objects.nonNull(arg)) {
+			System.arraycopy(arg.getBuf(), 0, dst, dstOff, len);
+			return;
+		}
+
+		ByteBuffer querybuf = client.getQuerybuf();
+		int offset = client.getArgvOffsets()[index];
+		if (querybuf.hasArray()) {
+			System.arraycopy(querybuf.array(), querybuf.arrayOffset() + offset, dst, dstOff, len);
+			return;
+		}
+		ByteBuffer slice = querybuf.duplicate();
+		slice.limit(offset + len);
+		slice.position(offset);
+		slice.get(dst, dstOff, len);
+	}
+
+	/**
+	 * 参数所在的缓冲区, 大参数会包装一个新的 ByteBuffer
+	 */
+	private static ByteBuffer argBuffer(RedisClient client, int index) {
+		Sds arg = client.getArgvSds()[index];
+		return Objects.isNull(arg) ? client.getQuerybuf() : ByteBuffer.wrap(arg.getBuf());
+	}
+
+	private static int argOffset(RedisClient client, int index) {
+		return Objects.isNull(client.getArgvSds()[index]) ? client.getArgvOffsets()[index] : 0;
+	}
+
+	/**
+	 * 参数转为字符串, 会创建对象, 只用于错误提示等不频繁的地方
+	 *
+	 * @param client 客户端
+	 * @param index  参数的下标
+	 * @return 参数的值
+	 */
+	public static String argToString(RedisClient client, int index) {
+		return new String(argToBytes(client, index), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * 解析缓冲区中的整数, 不允许前导 0, 正号和空格
+	 *
+	 * @param buf    缓冲区
+	 * @param offset 起始位置
+	 * @param len    长度
+	 * @return 整数
+	 * @throws NumberFormatException 不是合法的整数或者溢出
+	 */
+	static long parseLong(ByteBuffer buf, int offset, int len) {
+
+		if (len <= 0 || len > 20) {
+			throw new NumberFormatException();
+		}
+
+		int pos = offset;
+		int end = offset + len;
+		boolean negative = buf.get(pos) == '-';
+		if (negative) {
+			pos++;
+		}
+
+		if (pos == end) {
+			throw new NumberFormatException();
+		}
+
+		// 0 只能单独出现
+		if (buf.get(pos) == '0') {
+			if (len == 1) {
+				return 0;
+			}
+			throw new NumberFormatException();
+		}
+
+		// 按负数累加, 负数的范围比正数大 1, 可以直接表示 Long.MIN_VALUE
+		long value = 0;
+		for (; pos < end; pos++) {
+			int digit = buf.get(pos) - '0';
+			if (digit < 0 || digit > 9 || value < Long.MIN_VALUE / 10) {
+				throw new NumberFormatException();
+			}
+			value *= 10;
+			if (value < Long.MIN_VALUE + digit) {
+				throw new NumberFormatException();
+			}
+			value -= digit;
+		}
+
+		if (negative) {
+			return value;
+		}
+		if (value == Long.MIN_VALUE) {
+			throw new NumberFormatException();
+		}
+		return -value;
+	}
+}
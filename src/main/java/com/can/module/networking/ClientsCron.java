@@ -0,0 +1,170 @@
+package com.can.module.networking;
+
+import com.can.ApplicationStarter;
+import com.can.module.ae.AeEventLoop;
+import com.can.module.buffer.BufferPool;
+import com.can.module.server.RedisServer;
+import com.can.module.server.RedisServerConstants;
+import com.can.module.server.RedisServerThreadVars;
+import com.can.module.time.ServerClock;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Objects;
+
+/**
+ * <pre>
+ * 客户端的定时检查 (server.c clientsCron)
+ *
+ * 每个事件轮询注册一个时间事件, 每秒执行 hz 次, 每次只检查自己的一部分客户端 (客户端数 / hz, 有上下限),
+ * 大约每秒把所有客户端检查一遍, 客户端很多时每次执行的时间也有上限, 不会卡住事件轮询:
+ * 1. 空闲超过 timeout 的客户端直接关闭
+ * 2. 查询缓冲区中只有少量数据时, 换成刚好够用的缓冲区, 没有数据时直接还给缓冲区池
+ * 3. 最后一个回复块 (发送很慢的客户端) 只有少量数据时, 换成刚好够用的回复块
+ *
+ * 在事件轮询的线程中执行, 这时 IO 线程不会处理这个事件轮询的客户端, 不需要加锁
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-18 23:40
+ */
+public class ClientsCron {
+
+	/**
+	 * 时间事件的执行函数
+	 *
+	 * @param eventLoop  事件轮询
+	 * @param id         时间事件 id
+	 * @param clientData 事件轮询对应的 RedisServerThreadVars
+	 * @return 下次执行的间隔, 单位毫秒
+	 */
+	public static int clientsCron(AeEventLoop eventLoop, long id, Object clientData) {
+
+		RedisServer server = ApplicationStarter.getRedisServer();
+		ArrayDeque<RedisClient> clients = ((RedisServerThreadVars) clientData).getClients();
+
+		int numclients = clients.size();
+		int iterations = numclients / server.getHz();
+		if (iterations < RedisServerConstants.CLIENTS_CRON_MIN_ITERATIONS) {
+			iterations = Math.min(numclients, RedisServerConstants.CLIENTS_CRON_MIN_ITERATIONS);
+		}
+		iterations = Math.min(iterations, RedisServerConstants.CLIENTS_CRON_MAX_ITERATIONS);
+
+		long now = ServerClock.getUnixtime();
+		while (iterations-- > 0) {
+
+			// 从头部取出, 检查后放回尾部, 已经释放的客户端直接丢弃
+			RedisClient client = clients.pollFirst();
+			if (client.getFd() == -1) {
+				continue;
+			}
+
+			if (clientsCronHandleTimeout(client, now, server.getMaxidletime())) {
+				continue;
+			}
+			clientsCronResizeQueryBuffer(client);
+			clientsCronResizeReplyBlock(client);
+			clients.addLast(client);
+		}
+
+		return 1000 / server.getHz();
+	}
+
+	/**
+	 * 关闭空闲超时和已经标记需要关闭的客户端
+	 *
+	 * @param client      客户端
+	 * @param now         当前时间, 单位秒
+	 * @param maxidletime 最大空闲时间, 单位秒, 0 表示不关闭
+	 * @return true 客户端已经关闭
+	 */
+	private static boolean clientsCronHandleTimeout(RedisClient client, long now, int maxidletime) {
+
+		if ((client.getFlags() & RedisServerConstants.CLIENT_CLOSE_ASAP) != 0) {
+			Networking.freeClient(client);
+			return true;
+		}
+
+		if (maxidletime > 0 && now - client.getLastinteraction() > maxidletime) {
+			Networking.freeClient(client);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * 查询缓冲区的大小超过需要的 2 倍时 (读取过大的请求, 剩下少量没有处理完的数据), 换成刚好够用的缓冲区
+	 * 已经处理过的数据一起丢弃, 没有需要保留的数据时直接还给缓冲区池
+	 *
+	 * @param client 客户端
+	 */
+	private static void clientsCronResizeQueryBuffer(RedisClient client) {
+
+		ByteBuffer querybuf = client.getQuerybuf();
+		if (Objects.isNull(querybuf)) {
+			return;
+		}
+
+		int keep = Networking.queryBufferKeepOffset(client);
+		int pending = querybuf.position() - keep;
+		if (pending == 0) {
+			BufferPool.release(querybuf);
+			client.setQuerybuf(null);
+			Networking.shiftQueryBufferOffsets(client, keep);
+			return;
+		}
+
+		// 正在读取的参数已经知道长度时, 至少保留能放下整个参数的空间, 避免下次读取时又扩容
+		long needed = Math.max(pending, RedisServerConstants.PROTO_IOBUF_LEN);
+		if (client.getReqtype() == RedisServerConstants.PROTO_REQ_MULTIBULK && client.getBulklen() != -1
+			&& client.getBulklen() < RedisServerConstants.PROTO_MBULK_BIG_ARG) {
+			needed = Math.max(needed, client.getQbPos() - keep + client.getBulklen() + 2);
+		}
+		if (needed * 2 > querybuf.capacity()) {
+			return;
+		}
+
+		ByteBuffer newQuerybuf = BufferPool.acquire((int) needed);
+		Networking.putBytes(newQuerybuf, querybuf, keep, pending);
+		BufferPool.release(querybuf);
+		client.setQuerybuf(newQuerybuf);
+		Networking.shiftQueryBufferOffsets(client, keep);
+	}
+
+	/**
+	 * 最后一个回复块的大小超过需要的 2 倍时, 换成刚好够用的回复块 (至少是标准大小)
+	 * 回复块链表中只有这一个回复块时, 已经发送的部分一起丢弃
+	 * 只检查最后一个回复块, 中间的回复块都是写满的
+	 *
+	 * @param client 客户端
+	 */
+	private static void clientsCronResizeReplyBlock(RedisClient client) {
+
+		ArrayDeque<ByteBuffer> reply = client.getReply();
+		ByteBuffer tail = reply.peekLast();
+		if (Objects.isNull(tail) || tail.capacity() <= RedisServerConstants.PROTO_REPLY_CHUNK_BYTES) {
+			return;
+		}
+
+		// sentlen 属于固定的回复缓冲区还是第一个回复块
+		ByteBuffer buf = client.getBuf();
+		boolean head = reply.size() == 1 && (Objects.isNull(buf) || buf.position() == 0);
+		int from = head ? client.getSentlen() : 0;
+		int used = tail.position() - from;
+
+		int needed = Math.max(used, RedisServerConstants.PROTO_REPLY_CHUNK_BYTES);
+		if ((long) needed * 2 > tail.capacity()) {
+			return;
+		}
+
+		ByteBuffer block = BufferPool.acquire(needed);
+		Networking.putBytes(block, tail, from, used);
+		reply.pollLast();
+		reply.addLast(block);
+		client.setReplyBytes(client.getReplyBytes() - tail.capacity() + block.capacity());
+		BufferPool.release(tail);
+		if (head) {
+			client.setSentlen(0);
+		}
+	}
+}
@@ -0,0 +1,328 @@
+package com.can.module.networking;
+
+import com.can.ApplicationStarter;
+import com.can.module.server.RedisServer;
+import com.can.module.server.RedisServerConstants;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <pre>
+ * IO 线程 (networking.c Threaded I/O)
+ *
+ * 命令的执行依旧只在主事件轮询的线程中, 只有 socket 的读取/协议解析和回复的发送交给 IO 线程并行处理:
+ * 1. 可读事件触发时, 客户端先放入 server.clientsPendingRead, beforeSleep 中分配给所有 IO 线程读取并解析,
+ *    主线程等待全部完成后, 再按顺序执行解析出来的命令
+ * 2. 追加了回复的客户端放入 server.clientsPendingWrite, beforeSleep 中分配给所有 IO 线程发送,
+ *    还没有发送完的客户端再注册可写事件
+ *
+ * 下标 0 的 IO 线程就是主线程, 其他线程在没有任务时先自旋, 之后阻塞在各自的锁上
+ * 主线程持有所有的锁时, IO 线程都处于停止状态, 等待发送的客户端较少时自动停止, 避免空转
+ * 只用于单 reactor 模式, 多 reactor 模式下读写已经分散到各个事件轮询中
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-18 17:10
+ */
+public class IoThreads {
+
+	private final static int IO_THREADS_OP_READ = 0;
+
+	private final static int IO_THREADS_OP_WRITE = 1;
+
+	/**
+	 * 没有任务时自旋的次数, 超过后阻塞在锁上
+	 */
+	private final static int IO_THREADS_SPIN_COUNT = 1000000;
+
+	/**
+	 * IO 线程是否在运行
+	 */
+	private static volatile boolean ioThreadsActive;
+
+	/**
+	 * 当前分配给 IO 线程的操作, 读或者写
+	 */
+	private static volatile int ioThreadsOp;
+
+	/**
+	 * 每个 IO 线程等待处理的客户端数, 主线程设置, IO 线程处理完后置为 0
+	 */
+	private static AtomicIntegerArray ioThreadsPending;
+
+	/**
+	 * 每个 IO 线程需要处理的客户端
+	 */
+	private static List<List<RedisClient>> ioThreadsList;
+
+	/**
+	 * 每个 IO 线程的锁, 主线程持有时 IO 线程停止
+	 */
+	private static ReentrantLock[] ioThreadsMutex;
+
+	/**
+	 * 初始化 IO 线程, 需要在主事件轮询的线程中调用
+	 */
+	public static void initThreadedIO() {
+
+		RedisServer server = ApplicationStarter.getRedisServer();
+		ioThreadsActive = false;
+
+		// 只有主线程
+		if (server.getIoThreadsNum() == 1) {
+			return;
+		}
+
+		int num = server.getIoThreadsNum();
+		ioThreadsPending = new AtomicIntegerArray(num);
+		ioThreadsList = new ArrayList<>(num);
+		ioThreadsMutex = new ReentrantLock[num];
+
+		for (int i = 0; i < num; i++) {
+			ioThreadsList.add(new ArrayList<>());
+
+			// 下标 0 是主线程
+			if (i == 0) {
+				continue;
+			}
+
+			// 初始时由主线程持有锁, IO 线程处于停止状态
+			ioThreadsMutex[i] = new ReentrantLock();
+			ioThreadsMutex[i].lock();
+
+			int id = i;
+			Thread thread = new Thread(() -> ioThreadMain(id), "redis-io-thread-" + i);
+			thread.setDaemon(true);
+			thread.start();
+		}
+	}
+
+	/**
+	 * IO 线程的主循环
+	 *
+	 * @param id IO 线程的下标
+	 */
+	private static void ioThreadMain(int id) {
+
+		List<RedisClient> clients = ioThreadsList.get(id);
+
+		while (true) {
+
+			// 先自旋等待任务, 自旋时让出 CPU, 避免 CPU 核数较少时和主线程抢占
+			for (int i = 0; i < IO_THREADS_SPIN_COUNT; i++) {
+				if (ioThreadsPending.get(id) != 0) {
+					break;
+				}
+				Thread.yield();
+			}
+
+			// 还是没有任务, 通过锁等待主线程的唤醒
+			if (ioThreadsPending.get(id) == 0) {
+				ioThreadsMutex[id].lock();
+				ioThreadsMutex[id].unlock();
+				continue;
+			}
+
+			processClients(clients, ioThreadsOp);
+			clients.clear();
+			ioThreadsPending.set(id, 0);
+		}
+	}
+
+	/**
+	 * 启动 IO 线程
+	 */
+	private static void startThreadedIO() {
+		for (int i = 1; i < ioThreadsMutex.length; i++) {
+			ioThreadsMutex[i].unlock();
+		}
+		ioThreadsActive = true;
+	}
+
+	/**
+	 * 停止 IO 线程, 停止前先处理掉还在等待读取的客户端
+	 */
+	private static void stopThreadedIO() {
+		handleClientsWithPendingReadsUsingThreads();
+		for (int i = 1; i < ioThreadsMutex.length; i++) {
+			ioThreadsMutex[i].lock();
+		}
+		ioThreadsActive = false;
+	}
+
+	/**
+	 * 等待发送的客户端较少时, 停止 IO 线程, 由主线程自己处理
+	 *
+	 * @return true IO 线程处于停止状态
+	 */
+	private static boolean stopThreadedIOIfNeeded() {
+
+		RedisServer server = ApplicationStarter.getRedisServer();
+		if (server.getIoThreadsNum() == 1) {
+			return true;
+		}
+
+		if (server.getClientsPendingWrite().size() < server.getIoThreadsNum() * 2) {
+			if (ioThreadsActive) {
+				stopThreadedIO();
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * 可读事件触发时调用, 开启了 IO 线程读取时, 将客户端放入等待队列, 延迟到 beforeSleep 中读取
+	 *
+	 * @param client 客户端
+	 * @return true 已经放入等待队列
+	 */
+	public static boolean postponeClientRead(RedisClient client) {
+
+		RedisServer server = ApplicationStarter.getRedisServer();
+		if (!ioThreadsActive || !server.isIoThreadsDoReads() || client.getEl() != server.getEl()) {
+			return false;
+		}
+
+		if ((client.getFlags() & (RedisServerConstants.CLIENT_PENDING_READ | RedisServerConstants.CLIENT_CLOSE_ASAP)) != 0) {
+			return false;
+		}
+
+		client.setFlags(client.getFlags() | RedisServerConstants.CLIENT_PENDING_READ);
+		server.getClientsPendingRead().add(client);
+		return true;
+	}
+
+	/**
+	 * 将 server.clientsPendingRead 中的客户端分配给 IO 线程读取并解析, 等待全部完成后在主线程中执行命令
+	 *
+	 * @return 处理的客户端数
+	 */
+	public static int handleClientsWithPendingReadsUsingThreads() {
+
+		RedisServer server = ApplicationStarter.getRedisServer();
+		List<RedisClient> clients = server.getClientsPendingRead();
+
+		if (!ioThreadsActive || !server.isIoThreadsDoReads() || clients.isEmpty()) {
+			return 0;
+		}
+
+		int processed = clients.size();
+		fanOut(clients, IO_THREADS_OP_READ);
+
+		// 所有的 IO 线程都完成了, 在主线程中执行解析出来的命令
+		for (int i = 0; i < processed; i++) {
+			RedisClient client = clients.get(i);
+			client.setFlags(client.getFlags() & ~RedisServerConstants.CLIENT_PENDING_READ);
+
+			if ((client.getFlags() & RedisServerConstants.CLIENT_CLOSE_ASAP) != 0) {
+				Networking.freeClient(client);
+				continue;
+			}
+
+			// IO 线程中产生的回复 (如协议错误) 没有安排发送, 在执行命令前安排, 之后的回复不会再安排
+			if (Networking.clientHasPendingReplies(client)) {
+				Networking.clientInstallWriteHandler(client);
+			}
+			Networking.processPendingCommandAndInputBuffer(client);
+		}
+		clients.clear();
+		return processed;
+	}
+
+	/**
+	 * 将 server.clientsPendingWrite 中的客户端分配给 IO 线程发送回复
+	 * 没有开启 IO 线程或者客户端较少时, 退回到单线程的处理
+	 *
+	 * @return 处理的客户端数
+	 */
+	public static int handleClientsWithPendingWritesUsingThreads() {
+
+		RedisServer server = ApplicationStarter.getRedisServer();
+		List<RedisClient> clients = server.getClientsPendingWrite();
+
+		int processed = clients.size();
+		if (processed == 0) {
+			return 0;
+		}
+
+		if (stopThreadedIOIfNeeded()) {
+			return Networking.handleClientsWithPendingWrites(clients);
+		}
+
+		if (!ioThreadsActive) {
+			startThreadedIO();
+		}
+
+		fanOut(clients, IO_THREADS_OP_WRITE);
+
+		// 还没有发送完的客户端, 注册可写事件
+		for (int i = 0; i < processed; i++) {
+			RedisClient client = clients.get(i);
+			client.setFlags(client.getFlags() & ~RedisServerConstants.CLIENT_PENDING_WRITE);
+
+			if ((client.getFlags() & RedisServerConstants.CLIENT_CLOSE_ASAP) != 0) {
+				Networking.freeClient(client);
+				continue;
+			}
+			Networking.installWriteHandlerIfNeeded(client);
+		}
+		clients.clear();
+		return processed;
+	}
+
+	/**
+	 * 将客户端平均分配给所有的 IO 线程 (包括主线程) 处理, 返回时所有的 IO 线程都已经处理完成
+	 *
+	 * @param clients 需要处理的客户端
+	 * @param op      IO_THREADS_OP_READ / IO_THREADS_OP_WRITE
+	 */
+	private static void fanOut(List<RedisClient> clients, int op) {
+
+		int num = ioThreadsList.size();
+		for (int i = 0; i < clients.size(); i++) {
+			ioThreadsList.get(i % num).add(clients.get(i));
+		}
+
+		// 先设置操作类型, 再设置等待数, IO 线程看到等待数时一定能看到操作类型和分配的客户端
+		ioThreadsOp = op;
+		for (int i = 1; i < num; i++) {
+			ioThreadsPending.set(i, ioThreadsList.get(i).size());
+		}
+
+		// 主线程处理自己的那部分
+		processClients(ioThreadsList.get(0), op);
+		ioThreadsList.get(0).clear();
+
+		// 等待所有的 IO 线程完成
+		while (true) {
+			int pending = 0;
+			for (int i = 1; i < num; i++) {
+				pending += ioThreadsPending.get(i);
+			}
+			if (pending == 0) {
+				break;
+			}
+			Thread.yield();
+		}
+	}
+
+	private static void processClients(List<RedisClient> clients, int op) {
+
+		for (int i = 0; i < clients.size(); i++) {
+			RedisClient client = clients.get(i);
+			if (op == IO_THREADS_OP_WRITE) {
+				Networking.writeToClient(client, false);
+			} else {
+				Networking.readQueryFromClient(client);
+			}
+		}
+	}
+
+	public static boolean isIoThreadsActive() {
+		return ioThreadsActive;
+	}
+}
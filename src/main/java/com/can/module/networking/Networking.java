@@ -0,0 +1,1427 @@
+package com.can.module.networking;
+
+import com.can.ApplicationStarter;
+import com.can.data.structure.sds.Sds;
+import com.can.encoding.enums.ObjEncodingType;
+import com.can.module.ae.Ae;
+import com.can.module.ae.AeConstants;
+import com.can.module.ae.AeEventLoop;
+import com.can.module.ae.AeEventLoopGroup;
+import com.can.module.buffer.BufferPool;
+import com.can.module.command.RedisCommand;
+import com.can.module.object.RedisObject;
+import com.can.module.object.SharedObjects;
+import com.can.module.server.RedisServer;
+import com.can.module.server.RedisServerConstants;
+import com.can.module.server.RedisServerThreadVars;
+import com.can.module.time.ServerClock;
+
+import java.io.IOException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <pre>
+ * 网络处理 (networking.c)
+ *
+ * 单 reactor 模式下, 监听和所有客户端都在主事件轮询中
+ * 多 reactor 模式下, 主事件轮询只负责 accept, 新的连接通过 AeEventLoopGroup 分配给其中一个事件轮询,
+ * 客户端的创建, 读取, 解析和回复都在分配到的事件轮询的线程中执行
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-18 16:30
+ */
+public class Networking {
+
+	private final static byte[] CRLF = {'\r', '\n'};
+
+	private final static byte[] ERR_PREFIX = "-ERR ".getBytes(StandardCharsets.US_ASCII);
+
+	/**
+	 * 聚集写的缓冲区数组, 每个线程 (事件轮询, IO 线程) 一个
+	 */
+	private final static ThreadLocal<ByteBuffer[]> WRITE_IOV = ThreadLocal.withInitial(() -> new ByteBuffer[RedisServerConstants.NET_MAX_WRITE_IOV]);
+
+	private final static ByteBuffer MAX_CLIENTS_REACHED = ByteBuffer.wrap("-ERR max number of clients reached\r\n".getBytes(StandardCharsets.US_ASCII)).asReadOnlyBuffer();
+
+	private final static byte[] LONG_MIN_VALUE = String.valueOf(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+
+	/**
+	 * 监听的 socket 可读时 (有新的连接) 的处理函数
+	 *
+	 * @param eventLoop  事件轮询
+	 * @param fd         监听 socket 的文件描述符
+	 * @param clientData 客户数据
+	 * @param mask       文件标识
+	 */
+	public static void acceptTcpHandler(AeEventLoop eventLoop, int fd, Object clientData, int mask) {
+		acceptConnections(eventLoop, fd, 0);
+	}
+
+	/**
+	 * 监听的 Unix domain socket 可读时 (有新的连接) 的处理函数
+	 *
+	 * @param eventLoop  事件轮询
+	 * @param fd         监听 socket 的文件描述符
+	 * @param clientData 客户数据
+	 * @param mask       文件标识
+	 */
+	public static void acceptUnixHandler(AeEventLoop eventLoop, int fd, Object clientData, int mask) {
+		acceptConnections(eventLoop, fd, RedisServerConstants.CLIENT_UNIX_SOCKET);
+	}
+
+	/**
+	 * 一次可读事件最多 accept MAX_ACCEPTS_PER_CALL 个连接, 减少连接很多时的事件轮询次数,
+	 * 同时有上限, 大量重连时不会一直 accept, 已经连接的客户端也能及时处理, 剩下的连接下次轮询再 accept
+	 *
+	 * @param eventLoop 事件轮询
+	 * @param fd        监听 socket 的文件描述符
+	 * @param flags     客户端的初始标识
+	 */
+	private static void acceptConnections(AeEventLoop eventLoop, int fd, int flags) {
+
+		ServerSocketChannel serverChannel = (ServerSocketChannel) Ae.aeGetChannel(eventLoop, fd);
+
+		int max = RedisServerConstants.MAX_ACCEPTS_PER_CALL;
+		while (max-- > 0) {
+
+			SocketChannel channel;
+			try {
+				channel = serverChannel.accept();
+			} catch (IOException e) {
+				System.err.println("Accepting client connection: " + e.getMessage());
+				return;
+			}
+
+			// 非阻塞模式下, 没有等待 accept 的连接了
+			if (Objects.isNull(channel)) {
+				return;
+			}
+
+			acceptCommonHandler(channel, flags);
+		}
+	}
+
+	/**
+	 * 为新的连接选择事件轮询, 并在这个事件轮询的线程中创建客户端
+	 * 客户端数已经达到 maxclients 时, 回复错误后直接关闭连接
+	 *
+	 * @param channel 新的连接
+	 * @param flags   客户端的初始标识, 如 CLIENT_UNIX_SOCKET
+	 */
+	private static void acceptCommonHandler(SocketChannel channel, int flags) {
+
+		RedisServer server = ApplicationStarter.getRedisServer();
+
+		if (server.getConnectedClients().get() >= server.getMaxClients()) {
+			rejectConnection(channel, MAX_CLIENTS_REACHED);
+			server.getStatRejectedConn().incrementAndGet();
+			return;
+		}
+		server.getStatNumConnections().incrementAndGet();
+
+		AeEventLoopGroup group = server.getReactorGroup();
+
+		if (Objects.isNull(group)) {
+			createClient(server.getMainThreadVars(), channel, flags);
+			return;
+		}
+
+		int index = group.choose();
+		RedisServerThreadVars threadVars = server.getReactorThreadVars()[index];
+		Ae.aeRunInEventLoop(threadVars.getEl(), () -> {
+			if (Objects.isNull(createClient(threadVars, channel, flags))) {
+				group.connectionClosed(threadVars.getEl());
+			}
+		});
+	}
+
+	/**
+	 * 创建客户端, 并注册到事件轮询中监听可读事件
+	 * 必须在事件轮询的线程中调用
+	 *
+	 * @param threadVars 所在事件轮询的线程数据
+	 * @param channel    客户端连接
+	 * @param flags      客户端的初始标识, Unix domain socket 的连接 (CLIENT_UNIX_SOCKET) 没有 TCP 的选项
+	 * @return 创建失败返回 null
+	 */
+	public static RedisClient createClient(RedisServerThreadVars threadVars, SocketChannel channel, int flags) {
+
+		RedisServer server = ApplicationStarter.getRedisServer();
+		AeEventLoop eventLoop = threadVars.getEl();
+
+		int fd;
+		try {
+			if ((flags & RedisServerConstants.CLIENT_UNIX_SOCKET) == 0) {
+				channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+				if (server.getTcpKeepalive() > 0) {
+					channel.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+				}
+			}
+			fd = Ae.aeRegisterChannel(eventLoop, channel);
+		} catch (IOException e) {
+			System.err.println("Registering client connection: " + e.getMessage());
+			closeQuietly(channel);
+			return null;
+		}
+
+		if (fd == AeConstants.AE_ERR) {
+			// 事件轮询的文件描述符用完了
+			closeQuietly(channel);
+			return null;
+		}
+
+		RedisClient client = new RedisClient();
+		client.setId(server.getNextClientId().incrementAndGet());
+		client.setFd(fd);
+		client.setChannel(channel);
+		client.setEl(eventLoop);
+		client.setThreadVars(threadVars);
+		client.setFlags(flags);
+		client.setCtime(ServerClock.getUnixtime());
+		client.setLastinteraction(ServerClock.getUnixtime());
+
+		if (Ae.aeCreateFileEvent(eventLoop, fd, AeConstants.AE_READABLE, Networking::readQueryFromClient, client) == AeConstants.AE_ERR) {
+			Ae.aeUnregisterChannel(eventLoop, fd);
+			closeQuietly(channel);
+			return null;
+		}
+
+		threadVars.getClients().addLast(client);
+		server.getConnectedClients().incrementAndGet();
+		return client;
+	}
+
+	/**
+	 * 客户端连接可读时的处理函数
+	 *
+	 * @param eventLoop  事件轮询
+	 * @param fd         客户端的文件描述符
+	 * @param clientData 客户端
+	 * @param mask       文件标识
+	 */
+	public static void readQueryFromClient(AeEventLoop eventLoop, int fd, Object clientData, int mask) {
+
+		RedisClient client = (RedisClient) clientData;
+
+		// 开启了 IO 线程读取, 先放入等待队列, 在 beforeSleep 中统一交给 IO 线程读取
+		if (IoThreads.postponeClientRead(client)) {
+			return;
+		}
+
+		readQueryFromClient(client);
+		if ((client.getFlags() & RedisServerConstants.CLIENT_CLOSE_ASAP) != 0) {
+			freeClient(client);
+		}
+	}
+
+	/**
+	 * 读取客户端的数据并解析, 可能在 IO 线程中执行, 所以出错时只标记 CLIENT_CLOSE_ASAP, 不直接释放客户端
+	 *
+	 * @param client 客户端
+	 */
+	public static void readQueryFromClient(RedisClient client) {
+
+		ByteBuffer querybuf = prepareQueryBuffer(client);
+		if (Objects.isNull(querybuf)) {
+			System.err.println("Closing client that reached max query buffer length, id=" + client.getId());
+			freeClientAsync(client);
+			return;
+		}
+
+		long nread;
+		try {
+			ByteBuffer bigArgBuf = client.getBigArgBuf();
+			if (Objects.nonNull(bigArgBuf) && bigArgBuf.hasRemaining()) {
+				nread = readBigArg(client, bigArgBuf, querybuf);
+			} else {
+				nread = client.getChannel().read(querybuf);
+			}
+		} catch (IOException e) {
+			freeClientAsync(client);
+			return;
+		}
+
+		if (nread == -1) {
+			// 客户端关闭了连接
+			freeClientAsync(client);
+			return;
+		}
+
+		if (nread == 0) {
+			return;
+		}
+
+		client.setLastinteraction(ServerClock.getUnixtime());
+		processInputBuffer(client);
+	}
+
+	/**
+	 * 正在读取大参数, 参数的内容直接读取到 sds 中, 结尾的 \r\n 和后面的命令读取到查询缓冲区
+	 * sds 是堆内的, NIO 会先读取到和本次读取同样大小的临时堆外缓冲区再拷贝, 并且按线程缓存这个缓冲区,
+	 * 所以每次最多读取 PROTO_BIG_ARG_READ_WINDOW, 避免一个很大的参数让每个线程都缓存同样大小的堆外缓冲区
+	 *
+	 * @param client    客户端
+	 * @param bigArgBuf 大参数的缓冲区
+	 * @param querybuf  查询缓冲区
+	 * @return 读取的字节数, 连接关闭返回 -1
+	 * @throws IOException 读取失败
+	 */
+	private static long readBigArg(RedisClient client, ByteBuffer bigArgBuf, ByteBuffer querybuf) throws IOException {
+
+		// 临时缩小 limit 作为读取的窗口, 读取后恢复, position 就是已经读取的长度
+		int limit = bigArgBuf.limit();
+		bigArgBuf.limit(Math.min(limit, bigArgBuf.position() + RedisServerConstants.PROTO_BIG_ARG_READ_WINDOW));
+
+		ByteBuffer[] bufs = client.getBigArgReadBufs();
+		bufs[0] = bigArgBuf;
+		bufs[1] = querybuf;
+		try {
+			// 窗口没有覆盖到参数的结尾时, 不能读取到查询缓冲区, 否则后面的数据会跑到参数的前面
+			return bigArgBuf.limit() == limit ? client.getChannel().read(bufs) : client.getChannel().read(bigArgBuf);
+		} finally {
+			bufs[0] = null;
+			bufs[1] = null;
+			bigArgBuf.limit(limit);
+		}
+	}
+
+	/**
+	 * 读取前确保查询缓冲区有足够的空间:
+	 * 1. 正在读取的参数已经知道长度时, 至少能放下整个参数, 避免大参数被分成多次扩容
+	 * 2. 空间不够时先把已经处理过的数据移走 (还在使用的参数视图会一起调整), 还不够再扩容
+	 * 3. 空闲的客户端没有查询缓冲区, 从缓冲区池中获取
+	 *
+	 * @param client 客户端
+	 * @return 查询缓冲区, 超过最大长度时返回 null
+	 */
+	static ByteBuffer prepareQueryBuffer(RedisClient client) {
+
+		ByteBuffer querybuf = client.getQuerybuf();
+		if (Objects.isNull(querybuf)) {
+			querybuf = BufferPool.acquire(RedisServerConstants.PROTO_IOBUF_LEN);
+			client.setQuerybuf(querybuf);
+		}
+
+		int needed = RedisServerConstants.PROTO_IOBUF_LEN / 2;
+		if (client.getReqtype() == RedisServerConstants.PROTO_REQ_MULTIBULK && client.getBulklen() != -1
+			&& client.getBulklen() < RedisServerConstants.PROTO_MBULK_BIG_ARG) {
+			long missing = client.getBulklen() + 2 - (querybuf.position() - client.getQbPos());
+			needed = (int) Math.max(needed, missing);
+		}
+
+		if (querybuf.remaining() >= needed) {
+			return querybuf;
+		}
+
+		int discard = queryBufferKeepOffset(client);
+		if (discard > 0) {
+			querybuf.flip();
+			querybuf.position(discard);
+			querybuf.compact();
+			shiftQueryBufferOffsets(client, discard);
+			if (querybuf.remaining() >= needed) {
+				return querybuf;
+			}
+		}
+
+		long required = (long) querybuf.position() + needed;
+		if (required > RedisServerConstants.CONFIG_DEFAULT_CLIENT_MAX_QUERYBUF_LEN) {
+			return null;
+		}
+
+		int newCapacity = (int) Math.min(Math.max((long) querybuf.capacity() << 1, required), RedisServerConstants.CONFIG_DEFAULT_CLIENT_MAX_QUERYBUF_LEN);
+		ByteBuffer newQuerybuf = BufferPool.acquire(newCapacity);
+		querybuf.flip();
+		newQuerybuf.put(querybuf);
+		BufferPool.release(querybuf);
+		client.setQuerybuf(newQuerybuf);
+		return newQuerybuf;
+	}
+
+	/**
+	 * 查询缓冲区中需要保留的数据的起始位置, 之前的数据都已经处理过了, 可以移走
+	 * 参数视图指向的数据不能移走, 从当前命令的第一个参数视图开始保留
+	 *
+	 * @param client 客户端
+	 * @return 起始位置
+	 */
+	static int queryBufferKeepOffset(RedisClient client) {
+
+		int[] argvOffsets = client.getArgvOffsets();
+		Sds[] argvSds = client.getArgvSds();
+		int keep = client.getQbPos();
+		for (int i = 0; i < client.getArgc(); i++) {
+			if (Objects.isNull(argvSds[i])) {
+				keep = Math.min(keep, argvOffsets[i]);
+				break;
+			}
+		}
+		return keep;
+	}
+
+	/**
+	 * 查询缓冲区前面的数据移走后, 调整解析位置和参数视图
+	 *
+	 * @param client  客户端
+	 * @param discard 移走的字节数
+	 */
+	static void shiftQueryBufferOffsets(RedisClient client, int discard) {
+
+		int[] argvOffsets = client.getArgvOffsets();
+		client.setQbPos(client.getQbPos() - discard);
+		for (int i = 0; i < client.getArgc(); i++) {
+			argvOffsets[i] -= discard;
+		}
+	}
+
+	/**
+	 * 处理查询缓冲区中的数据, 一次把缓冲区中所有完整的命令都解析并执行 (pipeline), 不完整的命令保留解析状态, 下次读取后继续
+	 * 在 IO 线程中 (CLIENT_PENDING_READ) 只解析出一条命令, 标记 CLIENT_PENDING_COMMAND, 由主线程在 IO 线程全部结束后执行
+	 * <p>
+	 * RESP2 和 RESP3 的请求格式相同, 都是多条批量请求或者单行请求, 协议版本只影响回复
+	 *
+	 * @param client 客户端
+	 */
+	public static void processInputBuffer(RedisClient client) {
+
+		ByteBuffer querybuf = client.getQuerybuf();
+		if (Objects.isNull(querybuf)) {
+			return;
+		}
+
+		while (client.getQbPos() < querybuf.position()) {
+
+			// IO 线程已经解析出了一条命令, 等待主线程执行
+			if ((client.getFlags() & RedisServerConstants.CLIENT_PENDING_COMMAND) != 0) {
+				break;
+			}
+
+			// 客户端要关闭了, 后面的数据直接丢弃
+			if ((client.getFlags() & (RedisServerConstants.CLIENT_CLOSE_AFTER_REPLY | RedisServerConstants.CLIENT_CLOSE_ASAP)) != 0) {
+				resetClient(client);
+				client.setQbPos(querybuf.position());
+				break;
+			}
+
+			// 新的请求, 根据第一个字节确定请求的类型
+			if (client.getReqtype() == 0) {
+				client.setReqtype(querybuf.get(client.getQbPos()) == '*' ? RedisServerConstants.PROTO_REQ_MULTIBULK : RedisServerConstants.PROTO_REQ_INLINE);
+			}
+
+			int ret = client.getReqtype() == RedisServerConstants.PROTO_REQ_INLINE ? processInlineBuffer(client) : processMultibulkBuffer(client);
+
+			// 数据还不完整或者协议错误
+			if (ret != RedisServerConstants.C_OK) {
+				break;
+			}
+
+			// 空行, *0 或者 *-1
+			if (client.getArgc() == 0) {
+				resetClient(client);
+				continue;
+			}
+
+			if ((client.getFlags() & RedisServerConstants.CLIENT_PENDING_READ) != 0) {
+				client.setFlags(client.getFlags() | RedisServerConstants.CLIENT_PENDING_COMMAND);
+				break;
+			}
+
+			processCommandAndResetClient(client);
+		}
+
+		// 全部处理完了, 客户端空闲, 查询缓冲区还给缓冲区池, 下次读取时再获取
+		if (client.getArgc() == 0 && client.getQbPos() == querybuf.position()) {
+			BufferPool.release(querybuf);
+			client.setQuerybuf(null);
+			client.setQbPos(0);
+		}
+	}
+
+	/**
+	 * IO 线程读取完成后, 在主线程中执行 IO 线程解析出来的命令, 再处理缓冲区中剩下的数据
+	 *
+	 * @param client 客户端
+	 */
+	static void processPendingCommandAndInputBuffer(RedisClient client) {
+
+		if ((client.getFlags() & RedisServerConstants.CLIENT_PENDING_COMMAND) != 0) {
+			client.setFlags(client.getFlags() & ~RedisServerConstants.CLIENT_PENDING_COMMAND);
+			processCommandAndResetClient(client);
+		}
+		processInputBuffer(client);
+	}
+
+	/**
+	 * 解析单行请求, 参数之间用空格分隔 (不支持引号), 用于 telnet 等手动输入的场景
+	 *
+	 * @param client 客户端
+	 * @return C_OK 解析出了一条完整的命令, C_ERR 数据不完整或者协议错误
+	 */
+	private static int processInlineBuffer(RedisClient client) {
+
+		ByteBuffer querybuf = client.getQuerybuf();
+		int start = client.getQbPos();
+		int newline = indexOf(querybuf, start, querybuf.position(), (byte) '\n');
+
+		if (newline == -1) {
+			if (querybuf.position() - start > RedisServerConstants.PROTO_INLINE_MAX_SIZE) {
+				setProtocolError(client, "too big inline request");
+			}
+			return RedisServerConstants.C_ERR;
+		}
+
+		int lineEnd = newline;
+		if (lineEnd > start && querybuf.get(lineEnd - 1) == '\r') {
+			lineEnd--;
+		}
+
+		client.setArgc(0);
+		int pos = start;
+		while (pos < lineEnd) {
+			while (pos < lineEnd && isSpace(querybuf.get(pos))) {
+				pos++;
+			}
+			if (pos == lineEnd) {
+				break;
+			}
+			int argStart = pos;
+			while (pos < lineEnd && !isSpace(querybuf.get(pos))) {
+				pos++;
+			}
+			addArgv(client, argStart, pos - argStart);
+		}
+
+		client.setQbPos(newline + 1);
+		return RedisServerConstants.C_OK;
+	}
+
+	/**
+	 * 解析多条批量请求 *<argc>\r\n$<len>\r\n<arg>\r\n..., 数据不完整时保留 multibulklen/bulklen, 下次从中断的地方继续
+	 *
+	 * @param client 客户端
+	 * @return C_OK 解析出了一条完整的命令, C_ERR 数据不完整或者协议错误
+	 */
+	private static int processMultibulkBuffer(RedisClient client) {
+
+		ByteBuffer querybuf = client.getQuerybuf();
+		int end = querybuf.position();
+
+		if (client.getMultibulklen() == 0) {
+
+			// 参数个数
+			int newline = indexOf(querybuf, client.getQbPos(), end, (byte) '\r');
+			if (newline == -1) {
+				if (end - client.getQbPos() > RedisServerConstants.PROTO_INLINE_MAX_SIZE) {
+					setProtocolError(client, "too big mbulk count string");
+				}
+				return RedisServerConstants.C_ERR;
+			}
+
+			// 还没有 \n
+			if (newline + 1 >= end) {
+				return RedisServerConstants.C_ERR;
+			}
+
+			long ll = parseProtoLong(querybuf, client.getQbPos() + 1, newline);
+			if (ll == Long.MIN_VALUE || ll > RedisServerConstants.PROTO_MBULK_MAX_LEN) {
+				setProtocolError(client, "invalid multibulk length");
+				return RedisServerConstants.C_ERR;
+			}
+
+			client.setQbPos(newline + 2);
+			client.setArgc(0);
+
+			// *0 或者 *-1, 空的请求
+			if (ll <= 0) {
+				return RedisServerConstants.C_OK;
+			}
+
+			client.setMultibulklen((int) ll);
+			ensureArgvCapacity(client, (int) Math.min(ll, 1024));
+		}
+
+		while (client.getMultibulklen() > 0) {
+
+			// 参数的长度
+			if (client.getBulklen() == -1) {
+
+				int newline = indexOf(querybuf, client.getQbPos(), end, (byte) '\r');
+				if (newline == -1) {
+					if (end - client.getQbPos() > RedisServerConstants.PROTO_INLINE_MAX_SIZE) {
+						setProtocolError(client, "too big bulk count string");
+						return RedisServerConstants.C_ERR;
+					}
+					break;
+				}
+
+				if (newline + 1 >= end) {
+					break;
+				}
+
+				byte first = querybuf.get(client.getQbPos());
+				if (first != '$') {
+					setProtocolError(client, "expected '$', got '" + (char) first + "'");
+					return RedisServerConstants.C_ERR;
+				}
+
+				long ll = parseProtoLong(querybuf, client.getQbPos() + 1, newline);
+				if (ll < 0 || ll > RedisServerConstants.CONFIG_DEFAULT_PROTO_MAX_BULK_LEN) {
+					setProtocolError(client, "invalid bulk length");
+					return RedisServerConstants.C_ERR;
+				}
+
+				client.setQbPos(newline + 2);
+				client.setBulklen(ll);
+			}
+
+			// 大参数, 直接读取到 sds 中
+			if (client.getBulklen() >= RedisServerConstants.PROTO_MBULK_BIG_ARG) {
+				if (processBigArg(client) != RedisServerConstants.C_OK) {
+					break;
+				}
+				continue;
+			}
+
+			// 参数的内容还不完整
+			if (end - client.getQbPos() < client.getBulklen() + 2) {
+				break;
+			}
+
+			addArgv(client, client.getQbPos(), (int) client.getBulklen());
+			client.setQbPos(client.getQbPos() + (int) client.getBulklen() + 2);
+			client.setBulklen(-1);
+			client.setMultibulklen(client.getMultibulklen() - 1);
+		}
+
+		return client.getMultibulklen() == 0 ? RedisServerConstants.C_OK : RedisServerConstants.C_ERR;
+	}
+
+	/**
+	 * 读取大参数: 分配刚好大小的 sds, 已经在查询缓冲区中的部分拷贝过去, 剩下的由 readQueryFromClient 直接读取到 sds 中,
+	 * 读取完成后 sds 就是参数本身, 命令可以直接拿来作为值保存, 不需要再拷贝
+	 *
+	 * @param client 客户端
+	 * @return C_OK 参数读取完成, C_ERR 数据还不完整
+	 */
+	private static int processBigArg(RedisClient client) {
+
+		ByteBuffer querybuf = client.getQuerybuf();
+
+		if (Objects.isNull(client.getBigArg())) {
+			Sds bigArg = Sds.sdsnewlen((int) client.getBulklen());
+			client.setBigArg(bigArg);
+			client.setBigArgBuf(ByteBuffer.wrap(bigArg.getBuf()));
+		}
+
+		ByteBuffer bigArgBuf = client.getBigArgBuf();
+		int avail = Math.min(querybuf.position() - client.getQbPos(), bigArgBuf.remaining());
+		if (avail > 0) {
+			putBytes(bigArgBuf, querybuf, client.getQbPos(), avail);
+			client.setQbPos(client.getQbPos() + avail);
+		}
+
+		// 参数的内容或者结尾的 \r\n 还不完整
+		if (bigArgBuf.hasRemaining() || querybuf.position() - client.getQbPos() < 2) {
+			return RedisServerConstants.C_ERR;
+		}
+
+		addArgvSds(client, client.getBigArg());
+		client.setQbPos(client.getQbPos() + 2);
+		client.setBigArg(null);
+		client.setBigArgBuf(null);
+		client.setBulklen(-1);
+		client.setMultibulklen(client.getMultibulklen() - 1);
+		return RedisServerConstants.C_OK;
+	}
+
+	/**
+	 * 协议错误, 回复错误信息后关闭连接, 缓冲区中剩下的数据全部丢弃
+	 *
+	 * @param client 客户端
+	 * @param error  错误信息
+	 */
+	private static void setProtocolError(RedisClient client, String error) {
+		addReplyError(client, "Protocol error: " + error);
+		client.setFlags(client.getFlags() | RedisServerConstants.CLIENT_CLOSE_AFTER_REPLY);
+		resetClient(client);
+		client.setQbPos(client.getQuerybuf().position());
+	}
+
+	private static void addArgv(RedisClient client, int offset, int len) {
+
+		int argc = client.getArgc();
+		if (argc == client.getArgvOffsets().length) {
+			ensureArgvCapacity(client, argc << 1);
+		}
+		client.getArgvOffsets()[argc] = offset;
+		client.getArgvLens()[argc] = len;
+		client.setArgc(argc + 1);
+	}
+
+	private static void addArgvSds(RedisClient client, Sds arg) {
+
+		int argc = client.getArgc();
+		if (argc == client.getArgvOffsets().length) {
+			ensureArgvCapacity(client, argc << 1);
+		}
+		client.getArgvSds()[argc] = arg;
+		client.getArgvLens()[argc] = arg.sdsLen();
+		client.setArgc(argc + 1);
+	}
+
+	private static void ensureArgvCapacity(RedisClient client, int capacity) {
+		if (client.getArgvOffsets().length < capacity) {
+			client.setArgvOffsets(Arrays.copyOf(client.getArgvOffsets(), capacity));
+			client.setArgvLens(Arrays.copyOf(client.getArgvLens(), capacity));
+			client.setArgvSds(Arrays.copyOf(client.getArgvSds(), capacity));
+		}
+	}
+
+	/**
+	 * 解析协议中的长度
+	 *
+	 * @return 不是合法的整数时返回 Long.MIN_VALUE
+	 */
+	private static long parseProtoLong(ByteBuffer buf, int start, int end) {
+		try {
+			return ClientArgv.parseLong(buf, start, end - start);
+		} catch (NumberFormatException e) {
+			return Long.MIN_VALUE;
+		}
+	}
+
+	private static int indexOf(ByteBuffer buf, int start, int end, byte b) {
+		for (int i = start; i < end; i++) {
+			if (buf.get(i) == b) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static boolean isSpace(byte b) {
+		return b == ' ' || b == '\t' || b == '\r';
+	}
+
+	/**
+	 * 重置客户端的解析状态, 准备解析下一条命令
+	 *
+	 * @param client 客户端
+	 */
+	static void resetClient(RedisClient client) {
+
+		// 释放大参数的引用, 命令需要保存的已经自己取走了
+		Sds[] argvSds = client.getArgvSds();
+		for (int i = 0; i < client.getArgc(); i++) {
+			argvSds[i] = null;
+		}
+
+		client.setReqtype(0);
+		client.setMultibulklen(0);
+		client.setBulklen(-1);
+		client.setArgc(0);
+		client.setBigArg(null);
+		client.setBigArgBuf(null);
+	}
+
+	private static void processCommandAndResetClient(RedisClient client) {
+		processCommand(client);
+		resetClient(client);
+	}
+
+	/**
+	 * 查找并执行命令
+	 *
+	 * @param client 客户端
+	 */
+	private static void processCommand(RedisClient client) {
+
+		RedisCommand cmd = ClientArgv.lookupCommand(client);
+		client.setCmd(cmd);
+
+		if (Objects.isNull(cmd)) {
+			StringBuilder args = new StringBuilder();
+			for (int i = 1; i < client.getArgc() && args.length() < 128; i++) {
+				args.append('\'').append(ClientArgv.argToString(client, i)).append("' ");
+			}
+			addReplyErrorFormat(client, "unknown command `%s`, with args beginning with: %s", ClientArgv.argToString(client, 0), args);
+			return;
+		}
+
+		if ((cmd.getArity() > 0 && cmd.getArity() != client.getArgc()) || client.getArgc() < -cmd.getArity()) {
+			addReplyErrorArity(client);
+			return;
+		}
+
+		call(client, cmd);
+	}
+
+	/**
+	 * 执行命令, 多 reactor 模式下命令在多个线程中执行, 需要持有 server.executionLock
+	 *
+	 * @param client 客户端
+	 * @param cmd    命令
+	 */
+	private static void call(RedisClient client, RedisCommand cmd) {
+
+		RedisServer server = ApplicationStarter.getRedisServer();
+		ReentrantLock lock = Objects.isNull(server.getReactorGroup()) ? null : server.getExecutionLock();
+
+		if (Objects.nonNull(lock)) {
+			lock.lock();
+		}
+		try {
+			long start = ServerClock.getMonotonicUs();
+			cmd.getProc().proc(client);
+			cmd.setMicroseconds(cmd.getMicroseconds() + ServerClock.getMonotonicUs() - start);
+			cmd.setCalls(cmd.getCalls() + 1);
+		} finally {
+			if (Objects.nonNull(lock)) {
+				lock.unlock();
+			}
+		}
+		server.getStatNumCommands().incrementAndGet();
+	}
+
+	/**
+	 * 追加回复到客户端的回复缓冲区
+	 *
+	 * @param client 客户端
+	 * @param reply  回复的内容
+	 */
+	public static void addReply(RedisClient client, byte[] reply) {
+
+		ByteBuffer buf = replyBuffer(client, reply.length);
+		if (Objects.nonNull(buf)) {
+			buf.put(reply);
+		}
+	}
+
+	/**
+	 * 追加状态回复 +status\r\n
+	 *
+	 * @param client 客户端
+	 * @param status 状态, 不能包含 \r\n
+	 */
+	public static void addReplyStatus(RedisClient client, byte[] status) {
+
+		ByteBuffer buf = replyBuffer(client, status.length + 3);
+		if (Objects.nonNull(buf)) {
+			buf.put((byte) '+').put(status).put(CRLF);
+		}
+	}
+
+	/**
+	 * 追加错误回复, 没有以 - 开头时加上 -ERR 前缀
+	 *
+	 * @param client 客户端
+	 * @param error  错误信息
+	 */
+	public static void addReplyError(RedisClient client, String error) {
+
+		boolean prefix = error.isEmpty() || error.charAt(0) != '-';
+		ByteBuffer buf = replyBuffer(client, error.length() + (prefix ? 5 : 0) + 2);
+		if (Objects.isNull(buf)) {
+			return;
+		}
+
+		if (prefix) {
+			buf.put(ERR_PREFIX);
+		}
+		// 错误信息中不能有换行, 非 ASCII 的字符替换为 ?
+		for (int i = 0; i < error.length(); i++) {
+			char ch = error.charAt(i);
+			buf.put(ch == '\r' || ch == '\n' ? (byte) ' ' : ch > 127 ? (byte) '?' : (byte) ch);
+		}
+		buf.put(CRLF);
+	}
+
+	public static void addReplyErrorFormat(RedisClient client, String format, Object... args) {
+		addReplyError(client, String.format(format, args));
+	}
+
+	/**
+	 * 追加参数个数错误的回复
+	 *
+	 * @param client 客户端
+	 */
+	public static void addReplyErrorArity(RedisClient client) {
+		addReplyErrorFormat(client, "wrong number of arguments for '%s' command", client.getCmd().getName());
+	}
+
+	/**
+	 * 追加整数回复 :value\r\n
+	 *
+	 * @param client 客户端
+	 * @param value  整数
+	 */
+	public static void addReplyLongLong(RedisClient client, long value) {
+
+		if (value >= 0 && value < SharedObjects.OBJ_SHARED_INTEGERS) {
+			addReply(client, SharedObjects.integerReplies[(int) value]);
+			return;
+		}
+		addReplyLongLongWithPrefix(client, value, (byte) ':');
+	}
+
+	/**
+	 * 追加数组回复的长度 *len\r\n, 后面需要再追加 len 个元素
+	 *
+	 * @param client 客户端
+	 * @param len    元素个数
+	 */
+	public static void addReplyArrayLen(RedisClient client, long len) {
+
+		if (len >= 0 && len < SharedObjects.OBJ_SHARED_BULKHDR_LEN) {
+			addReply(client, SharedObjects.mbulkhdr[(int) len]);
+			return;
+		}
+		addReplyLongLongWithPrefix(client, len, (byte) '*');
+	}
+
+	/**
+	 * 追加空回复, RESP2 为 $-1\r\n, RESP3 为 _\r\n
+	 *
+	 * @param client 客户端
+	 */
+	public static void addReplyNull(RedisClient client) {
+		addReply(client, SharedObjects.nullReply[client.getResp()]);
+	}
+
+	/**
+	 * 追加批量回复, 内容为客户端的第 index 个参数, 直接从查询缓冲区拷贝
+	 *
+	 * @param client 客户端
+	 * @param index  参数的下标
+	 */
+	public static void addReplyBulkArg(RedisClient client, int index) {
+
+		Sds arg = client.getArgvSds()[index];
+		if (Objects.nonNull(arg)) {
+			addReplyBulkSds(client, arg);
+			return;
+		}
+
+		int len = client.getArgvLens()[index];
+		ByteBuffer buf = replyBuffer(client, len + 25);
+		if (Objects.isNull(buf)) {
+			return;
+		}
+
+		putBulkLen(buf, len);
+		putBytes(buf, client.getQuerybuf(), client.getArgvOffsets()[index], len);
+		buf.put(CRLF);
+	}
+
+	/**
+	 * 追加批量回复, 内容为 sds
+	 *
+	 * @param client 客户端
+	 * @param value  内容
+	 */
+	public static void addReplyBulkSds(RedisClient client, Sds value) {
+
+		int len = value.sdsLen();
+		ByteBuffer buf = replyBuffer(client, len + 25);
+		if (Objects.isNull(buf)) {
+			return;
+		}
+
+		putBulkLen(buf, len);
+		value.sdsCopyTo(buf);
+		buf.put(CRLF);
+	}
+
+	/**
+	 * 追加批量回复 $len\r\nvalue\r\n
+	 *
+	 * @param client 客户端
+	 * @param value  内容
+	 */
+	public static void addReplyBulk(RedisClient client, byte[] value) {
+
+		ByteBuffer buf = replyBuffer(client, value.length + 25);
+		if (Objects.isNull(buf)) {
+			return;
+		}
+
+		putBulkLen(buf, value.length);
+		buf.put(value).put(CRLF);
+	}
+
+	/**
+	 * 追加批量回复, 内容为字符串对象的值, 共享的整数对象直接使用预先编码好的回复
+	 *
+	 * @param client 客户端
+	 * @param o      字符串对象
+	 */
+	public static void addReplyBulkObject(RedisClient client, RedisObject o) {
+
+		if (o.getEncoding() != ObjEncodingType.OBJ_ENCODING_INT) {
+			addReplyBulkSds(client, (Sds) o.getPtr());
+			return;
+		}
+
+		long value = (Long) o.getPtr();
+		if (value >= 0 && value < SharedObjects.OBJ_SHARED_INTEGERS) {
+			addReply(client, SharedObjects.bulkIntegers[(int) value]);
+			return;
+		}
+
+		ByteBuffer buf = replyBuffer(client, 50);
+		if (Objects.isNull(buf)) {
+			return;
+		}
+		int start = buf.position();
+		putLongLong(buf, value);
+		int len = buf.position() - start;
+		buf.position(start);
+		putBulkLen(buf, len);
+		putLongLong(buf, value);
+		buf.put(CRLF);
+	}
+
+	public static void addReplyBulkString(RedisClient client, String value) {
+		addReplyBulk(client, value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static void addReplyLongLongWithPrefix(RedisClient client, long value, byte prefix) {
+
+		ByteBuffer buf = replyBuffer(client, 23);
+		if (Objects.nonNull(buf)) {
+			buf.put(prefix);
+			putLongLong(buf, value);
+			buf.put(CRLF);
+		}
+	}
+
+	/**
+	 * 写入批量回复的长度 $len\r\n, 较短的长度直接使用预先编码好的
+	 *
+	 * @param buf 缓冲区, 至少需要 23 个字节的空间
+	 * @param len 长度
+	 */
+	private static void putBulkLen(ByteBuffer buf, int len) {
+
+		if (len < SharedObjects.OBJ_SHARED_BULKHDR_LEN) {
+			buf.put(SharedObjects.bulkhdr[len]);
+			return;
+		}
+		buf.put((byte) '$');
+		putLongLong(buf, len);
+		buf.put(CRLF);
+	}
+
+	/**
+	 * 获取能连续放下指定长度回复的缓冲区:
+	 * 1. 回复块链表为空时, 优先使用固定的回复缓冲区, 空闲的客户端没有固定的回复缓冲区, 从缓冲区池中获取
+	 * 2. 否则使用最后一个回复块, 还是放不下时从缓冲区池中获取新的回复块 (至少是标准大小)
+	 *
+	 * @param client 客户端
+	 * @param len    回复的长度
+	 * @return 客户端不能接收回复时返回 null
+	 */
+	private static ByteBuffer replyBuffer(RedisClient client, int len) {
+
+		if (prepareClientToWrite(client) != RedisServerConstants.C_OK) {
+			return null;
+		}
+
+		ArrayDeque<ByteBuffer> reply = client.getReply();
+		if (reply.isEmpty()) {
+			ByteBuffer buf = client.getBuf();
+			if (Objects.isNull(buf) && len <= RedisServerConstants.PROTO_REPLY_CHUNK_BYTES) {
+				buf = BufferPool.acquire(RedisServerConstants.PROTO_REPLY_CHUNK_BYTES);
+				client.setBuf(buf);
+			}
+			if (Objects.nonNull(buf) && buf.remaining() >= len) {
+				return buf;
+			}
+		}
+
+		ByteBuffer tail = reply.peekLast();
+		if (Objects.nonNull(tail) && tail.remaining() >= len) {
+			return tail;
+		}
+
+		ByteBuffer block = BufferPool.acquire(Math.max(len, RedisServerConstants.PROTO_REPLY_CHUNK_BYTES));
+		reply.addLast(block);
+		client.setReplyBytes(client.getReplyBytes() + block.capacity());
+		return block;
+	}
+
+	/**
+	 * 以十进制写入整数, 直接写入缓冲区, 不创建字符串
+	 *
+	 * @param buf   缓冲区, 至少需要 20 个字节的空间
+	 * @param value 整数
+	 */
+	private static void putLongLong(ByteBuffer buf, long value) {
+
+		if (value < 0) {
+			if (value == Long.MIN_VALUE) {
+				buf.put(LONG_MIN_VALUE);
+				return;
+			}
+			buf.put((byte) '-');
+			value = -value;
+		}
+
+		int digits = 1;
+		for (long v = value; v >= 10; v /= 10) {
+			digits++;
+		}
+
+		int start = buf.position();
+		for (int i = start + digits - 1; i >= start; i--) {
+			buf.put(i, (byte) ('0' + value % 10));
+			value /= 10;
+		}
+		buf.position(start + digits);
+	}
+
+	/**
+	 * 从另一个缓冲区中拷贝数据, 不修改源缓冲区的 position
+	 * 堆外的源缓冲区通过 duplicate 整段拷贝, 避免逐个字节读取
+	 */
+	static void putBytes(ByteBuffer dst, ByteBuffer src, int offset, int len) {
+
+		if (src.hasArray()) {
+			dst.put(src.array(), src.arrayOffset() + offset, len);
+			return;
+		}
+		ByteBuffer slice = src.duplicate();
+		slice.limit(offset + len);
+		slice.position(offset);
+		dst.put(slice);
+	}
+
+	/**
+	 * 在追加回复前调用, 确保客户端的回复会被发送出去
+	 *
+	 * @param client 客户端
+	 * @return C_OK 可以追加回复, C_ERR 客户端不能接收回复
+	 */
+	private static int prepareClientToWrite(RedisClient client) {
+
+		if ((client.getFlags() & RedisServerConstants.CLIENT_CLOSE_ASAP) != 0) {
+			return RedisServerConstants.C_ERR;
+		}
+
+		// 已经有等待发送的回复, 说明已经安排过发送了
+		// IO 线程正在读取的客户端 (CLIENT_PENDING_READ, 如协议错误的回复) 不能修改主线程的等待发送队列,
+		// 由主线程在 IO 线程全部完成后安排 (IoThreads.handleClientsWithPendingReadsUsingThreads)
+		if (!clientHasPendingReplies(client) && (client.getFlags() & RedisServerConstants.CLIENT_PENDING_READ) == 0) {
+			clientInstallWriteHandler(client);
+		}
+		return RedisServerConstants.C_OK;
+	}
+
+	/**
+	 * 安排客户端回复的发送, 不直接注册可写事件, 而是放入所在事件轮询的等待发送队列,
+	 * 在事件轮询进入等待前 (beforeSleep) 直接发送, 省掉一次事件轮询和两次修改监听事件的系统调用
+	 * 主事件轮询的等待发送队列就是 server.clientsPendingWrite, 可以交给 IO 线程发送
+	 *
+	 * @param client 客户端
+	 */
+	static void clientInstallWriteHandler(RedisClient client) {
+
+		if ((client.getFlags() & RedisServerConstants.CLIENT_PENDING_WRITE) != 0) {
+			return;
+		}
+
+		client.setFlags(client.getFlags() | RedisServerConstants.CLIENT_PENDING_WRITE);
+		client.getThreadVars().getClientsPendingWrite().add(client);
+	}
+
+	/**
+	 * 客户端是否还有没有发送的回复
+	 *
+	 * @param client 客户端
+	 * @return true 有
+	 */
+	public static boolean clientHasPendingReplies(RedisClient client) {
+		ByteBuffer buf = client.getBuf();
+		return (Objects.nonNull(buf) && buf.position() > 0) || !client.getReply().isEmpty();
+	}
+
+	/**
+	 * 客户端连接可写时的处理函数
+	 *
+	 * @param eventLoop  事件轮询
+	 * @param fd         客户端的文件描述符
+	 * @param clientData 客户端
+	 * @param mask       文件标识
+	 */
+	public static void sendReplyToClient(AeEventLoop eventLoop, int fd, Object clientData, int mask) {
+
+		RedisClient client = (RedisClient) clientData;
+		if (writeToClient(client, true) == RedisServerConstants.C_ERR) {
+			freeClient(client);
+		}
+	}
+
+	/**
+	 * 发送回复缓冲区和回复块中的数据, 多个缓冲区通过一次聚集写 (writev) 发送, pipeline 的回复只需要一次系统调用
+	 * 可能在 IO 线程中执行, 所以出错时只标记 CLIENT_CLOSE_ASAP, 不直接释放客户端
+	 *
+	 * @param client           客户端
+	 * @param handlerInstalled 是否已经注册了可写事件, 全部发送完后需要删除
+	 * @return C_OK 成功, C_ERR 出错, 客户端需要释放
+	 */
+	public static int writeToClient(RedisClient client, boolean handlerInstalled) {
+
+		ByteBuffer[] iov = WRITE_IOV.get();
+		long totwritten = 0;
+
+		while (clientHasPendingReplies(client)) {
+
+			int iovcnt = prepareWriteIov(client, iov);
+
+			long nwritten;
+			try {
+				// 只有一个缓冲区时 (绝大多数的情况) 直接写, JDK 的聚集写有额外的开销
+				nwritten = iovcnt == 1 ? client.getChannel().write(iov[0]) : client.getChannel().write(iov, 0, iovcnt);
+			} catch (IOException e) {
+				Arrays.fill(iov, 0, iovcnt, null);
+				freeClientAsync(client);
+				return RedisServerConstants.C_ERR;
+			}
+
+			consumeWriteIov(client, iov, iovcnt);
+
+			// socket 的发送缓冲区满了
+			if (nwritten <= 0) {
+				break;
+			}
+
+			totwritten += nwritten;
+			if (totwritten > RedisServerConstants.NET_MAX_WRITES_PER_EVENT) {
+				break;
+			}
+		}
+
+		if (totwritten > 0) {
+			client.setLastinteraction(ServerClock.getUnixtime());
+		}
+
+		if (!clientHasPendingReplies(client)) {
+			client.setSentlen(0);
+			if (handlerInstalled) {
+				Ae.aeDeleteFileEvent(client.getEl(), client.getFd(), AeConstants.AE_WRITABLE);
+			}
+
+			// 回复发送完后关闭 (QUIT, 协议错误)
+			if ((client.getFlags() & RedisServerConstants.CLIENT_CLOSE_AFTER_REPLY) != 0) {
+				freeClientAsync(client);
+				return RedisServerConstants.C_ERR;
+			}
+		}
+		return RedisServerConstants.C_OK;
+	}
+
+	/**
+	 * 把等待发送的缓冲区切换为读模式放入 iov, 顺序为固定的回复缓冲区, 回复块链表
+	 *
+	 * @param client 客户端
+	 * @param iov    聚集写的缓冲区数组
+	 * @return 放入的缓冲区个数
+	 */
+	private static int prepareWriteIov(RedisClient client, ByteBuffer[] iov) {
+
+		int iovcnt = 0;
+		int sentlen = client.getSentlen();
+
+		ByteBuffer buf = client.getBuf();
+		if (Objects.nonNull(buf) && buf.position() > 0) {
+			buf.limit(buf.position());
+			buf.position(sentlen);
+			iov[iovcnt++] = buf;
+			sentlen = 0;
+		}
+
+		for (ByteBuffer block : client.getReply()) {
+			if (iovcnt == iov.length) {
+				break;
+			}
+			block.limit(block.position());
+			block.position(sentlen);
+			iov[iovcnt++] = block;
+			sentlen = 0;
+		}
+		return iovcnt;
+	}
+
+	/**
+	 * 聚集写之后, 已经发送完的缓冲区还给缓冲区池, 记录第一个没有发送完的缓冲区的发送位置, 剩下的缓冲区恢复为写模式
+	 *
+	 * @param client 客户端
+	 * @param iov    聚集写的缓冲区数组
+	 * @param iovcnt 缓冲区个数
+	 */
+	private static void consumeWriteIov(RedisClient client, ByteBuffer[] iov, int iovcnt) {
+
+		ByteBuffer buf = client.getBuf();
+		boolean blocked = false;
+
+		for (int i = 0; i < iovcnt; i++) {
+
+			ByteBuffer b = iov[i];
+			iov[i] = null;
+
+			if (blocked || b.hasRemaining()) {
+				if (!blocked) {
+					client.setSentlen(b.position());
+					blocked = true;
+				}
+				// 恢复为写模式
+				int used = b.limit();
+				b.limit(b.capacity());
+				b.position(used);
+				continue;
+			}
+
+			client.setSentlen(0);
+			if (b == buf) {
+				client.setBuf(null);
+			} else {
+				client.getReply().pollFirst();
+				client.setReplyBytes(client.getReplyBytes() - b.capacity());
+			}
+			BufferPool.release(b);
+		}
+	}
+
+	/**
+	 * 处理事件轮询的等待发送队列中的客户端, 在事件轮询的 beforeSleep 中调用 (主事件轮询开启了 IO 线程时由 IO 线程处理)
+	 * 先直接发送, 只为 socket 的发送缓冲区满了, 没有发送完的客户端注册可写事件
+	 *
+	 * @param clients 等待发送的客户端
+	 * @return 处理的客户端数
+	 */
+	public static int handleClientsWithPendingWrites(List<RedisClient> clients) {
+
+		int processed = clients.size();
+
+		for (int i = 0; i < processed; i++) {
+			RedisClient client = clients.get(i);
+			client.setFlags(client.getFlags() & ~RedisServerConstants.CLIENT_PENDING_WRITE);
+
+			// 先直接发送, 没有发送完的再注册可写事件
+			if (writeToClient(client, false) == RedisServerConstants.C_ERR) {
+				freeClient(client);
+				continue;
+			}
+			installWriteHandlerIfNeeded(client);
+		}
+		clients.clear();
+		return processed;
+	}
+
+	/**
+	 * 客户端还有回复没有发送时, 注册可写事件
+	 *
+	 * @param client 客户端
+	 */
+	static void installWriteHandlerIfNeeded(RedisClient client) {
+
+		if (!clientHasPendingReplies(client)) {
+			return;
+		}
+		if (Ae.aeCreateFileEvent(client.getEl(), client.getFd(), AeConstants.AE_WRITABLE, Networking::sendReplyToClient, client) == AeConstants.AE_ERR) {
+			freeClient(client);
+		}
+	}
+
+	/**
+	 * 标记客户端需要尽快关闭, 用于不能直接释放客户端的地方 (如 IO 线程中)
+	 *
+	 * @param client 客户端
+	 */
+	public static void freeClientAsync(RedisClient client) {
+		client.setFlags(client.getFlags() | RedisServerConstants.CLIENT_CLOSE_ASAP);
+	}
+
+	/**
+	 * 释放客户端, 必须在客户端所在的事件轮询的线程中调用
+	 *
+	 * @param client 客户端
+	 */
+	public static void freeClient(RedisClient client) {
+
+		// 已经释放过了
+		if (client.getFd() == -1) {
+			return;
+		}
+
+		RedisServer server = ApplicationStarter.getRedisServer();
+
+		// 从等待队列中移除
+		if ((client.getFlags() & RedisServerConstants.CLIENT_PENDING_WRITE) != 0) {
+			client.getThreadVars().getClientsPendingWrite().remove(client);
+			client.setFlags(client.getFlags() & ~RedisServerConstants.CLIENT_PENDING_WRITE);
+		}
+		if ((client.getFlags() & RedisServerConstants.CLIENT_PENDING_READ) != 0) {
+			server.getClientsPendingRead().remove(client);
+			client.setFlags(client.getFlags() & ~RedisServerConstants.CLIENT_PENDING_READ);
+		}
+
+		// 查询缓冲区, 回复缓冲区和回复块还给缓冲区池
+		if (Objects.nonNull(client.getQuerybuf())) {
+			BufferPool.release(client.getQuerybuf());
+			client.setQuerybuf(null);
+		}
+		if (Objects.nonNull(client.getBuf())) {
+			BufferPool.release(client.getBuf());
+			client.setBuf(null);
+		}
+		ByteBuffer block;
+		while ((block = client.getReply().pollFirst()) != null) {
+			BufferPool.release(block);
+		}
+		client.setReplyBytes(0);
+
+		AeEventLoop eventLoop = client.getEl();
+		Ae.aeUnregisterChannel(eventLoop, client.getFd());
+		closeQuietly(client.getChannel());
+		client.setFd(-1);
+		server.getConnectedClients().decrementAndGet();
+
+		AeEventLoopGroup group = server.getReactorGroup();
+		if (Objects.nonNull(group)) {
+			group.connectionClosed(eventLoop);
+		}
+	}
+
+	/**
+	 * 回复错误后关闭连接, 只尝试发送一次, 发送失败也直接关闭
+	 *
+	 * @param channel 连接
+	 * @param error   错误信息
+	 */
+	private static void rejectConnection(SocketChannel channel, ByteBuffer error) {
+		try {
+			channel.configureBlocking(false);
+			channel.write(error.duplicate());
+		} catch (IOException ignore) {
+		}
+		closeQuietly(channel);
+	}
+
+	private static void closeQuietly(SocketChannel channel) {
+		try {
+			channel.close();
+		} catch (IOException ignore) {
+		}
+	}
+}
@@ -0,0 +1,163 @@
+package com.can.module.networking;
+
+import com.can.data.structure.sds.Sds;
+import com.can.module.ae.AeEventLoop;
+import com.can.module.command.RedisCommand;
+import com.can.module.server.RedisServerConstants;
+import com.can.module.server.RedisServerThreadVars;
+import lombok.Data;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+
+/**
+ * <pre>
+ * 客户端 (server.h client)
+ *
+ * 一个客户端只属于一个事件轮询, 它的所有数据只在这个事件轮询的线程中访问
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-18 16:30
+ */
+@Data
+public class RedisClient {
+
+	/**
+	 * 客户端唯一递增的 id
+	 */
+	private long id;
+
+	/**
+	 * 客户端连接在事件轮询中的文件描述符
+	 */
+	private int fd;
+
+	/**
+	 * 客户端连接
+	 */
+	private SocketChannel channel;
+
+	/**
+	 * 客户端所在的事件轮询
+	 */
+	private AeEventLoop el;
+
+	/**
+	 * 所在事件轮询的线程数据
+	 */
+	private RedisServerThreadVars threadVars;
+
+	/**
+	 * 查询缓冲区, 保存客户端发送过来的数据, [qbPos, position) 是还没有解析的数据
+	 * 数据全部处理完后还给缓冲区池, 空闲的客户端为 null
+	 */
+	private ByteBuffer querybuf;
+
+	/**
+	 * 查询缓冲区中解析到的位置
+	 */
+	private int qbPos;
+
+	/**
+	 * 当前请求的类型, PROTO_REQ_INLINE / PROTO_REQ_MULTIBULK, 0 表示还不知道
+	 */
+	private int reqtype;
+
+	/**
+	 * 当前多条批量请求还需要解析的参数个数
+	 */
+	private int multibulklen;
+
+	/**
+	 * 当前参数的长度, -1 表示还没有解析到
+	 */
+	private long bulklen = -1;
+
+	/**
+	 * 已经解析出来的参数个数
+	 */
+	private int argc;
+
+	/**
+	 * 参数在查询缓冲区中的起始位置, 参数只是查询缓冲区的视图, 不会拷贝, 只在命令执行期间有效
+	 */
+	private int[] argvOffsets = new int[RedisServerConstants.PROTO_ARGV_INIT_LEN];
+
+	/**
+	 * 参数的长度
+	 */
+	private int[] argvLens = new int[RedisServerConstants.PROTO_ARGV_INIT_LEN];
+
+	/**
+	 * 大参数 (长度超过 PROTO_MBULK_BIG_ARG) 直接读取到刚好大小的 sds 中, 不在查询缓冲区中, 其他参数为 null
+	 */
+	private Sds[] argvSds = new Sds[RedisServerConstants.PROTO_ARGV_INIT_LEN];
+
+	/**
+	 * 正在读取的大参数
+	 */
+	private Sds bigArg;
+
+	/**
+	 * 正在读取的大参数的缓冲区, 包装了 bigArg 的存储空间, position 为已经读取的长度
+	 */
+	private ByteBuffer bigArgBuf;
+
+	/**
+	 * 读取大参数时 scatter read 的目标 (bigArgBuf, querybuf), 复用, 读取完成后清空, 不持有缓冲区
+	 */
+	private final ByteBuffer[] bigArgReadBufs = new ByteBuffer[2];
+
+	/**
+	 * 只用于查找的参数 (ClientArgv.argLookupSds) 从堆外的查询缓冲区拷贝到这里, 复用, 超过 PROTO_IOBUF_LEN 时不保留
+	 */
+	private byte[] argLookupBuf = new byte[0];
+
+	/**
+	 * 协议版本, 2 或者 3
+	 */
+	private int resp = 2;
+
+	/**
+	 * 正在执行或者最后一次执行的命令
+	 */
+	private RedisCommand cmd;
+
+	/**
+	 * 客户端的标识, RedisServerConstants.CLIENT_*
+	 */
+	private int flags;
+
+	/**
+	 * 固定大小的回复缓冲区, 写模式, [sentlen, position) 是等待发送的数据, 放不下时回复追加到 reply 中
+	 * 发送完后还给缓冲区池, 没有回复时为 null
+	 */
+	private ByteBuffer buf;
+
+	/**
+	 * 回复块链表, 每个回复块都是写模式, [0, position) 是等待发送的数据, 只有第一个回复块可能已经发送了一部分
+	 */
+	private final ArrayDeque<ByteBuffer> reply = new ArrayDeque<>();
+
+	/**
+	 * 回复块链表占用的空间
+	 */
+	private long replyBytes;
+
+	/**
+	 * buf 有等待发送的数据时为 buf 中已经发送的字节数, 否则为第一个回复块中已经发送的字节数
+	 */
+	private int sentlen;
+
+	/**
+	 * 客户端创建的时间, 单位秒
+	 */
+	private long ctime;
+
+	/**
+	 * 最后一次交互的时间, 单位秒
+	 */
+	private long lastinteraction;
+}
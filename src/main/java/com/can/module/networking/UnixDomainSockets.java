@@ -0,0 +1,143 @@
+package com.can.module.networking;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * <pre>
+ * Unix domain socket 的监听 (anet.c anetUnixServer)
+ *
+ * 同一台机器上的客户端 (如 sidecar) 通过 Unix domain socket 连接, 不经过 TCP 协议栈
+ * JDK 16 才支持 Unix domain socket (UnixDomainSocketAddress, StandardProtocolFamily.UNIX),
+ * 项目按 JDK 8 编译, 所以通过反射获取, 运行时低于 JDK 16 时不监听, 只打印警告
+ * accept 得到的依旧是 SocketChannel, 之后的读写和 TCP 连接完全相同
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-19 00:10
+ */
+public class UnixDomainSockets {
+
+	/**
+	 * StandardProtocolFamily.UNIX, 不支持时为 null
+	 */
+	private final static ProtocolFamily UNIX_FAMILY;
+
+	/**
+	 * UnixDomainSocketAddress.of(String), 不支持时为 null
+	 */
+	private final static Method ADDRESS_OF;
+
+	/**
+	 * ServerSocketChannel.open(ProtocolFamily), 不支持时为 null
+	 */
+	private final static Method OPEN;
+
+	static {
+		ProtocolFamily family = null;
+		Method addressOf = null;
+		Method open = null;
+		try {
+			family = StandardProtocolFamily.valueOf("UNIX");
+			addressOf = Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", String.class);
+			open = ServerSocketChannel.class.getMethod("open", ProtocolFamily.class);
+		} catch (IllegalArgumentException | ClassNotFoundException | NoSuchMethodException e) {
+			family = null;
+		}
+		UNIX_FAMILY = family;
+		ADDRESS_OF = Objects.isNull(family) ? null : addressOf;
+		OPEN = Objects.isNull(family) ? null : open;
+	}
+
+	/**
+	 * 当前的运行时是否支持 Unix domain socket
+	 *
+	 * @return true 支持
+	 */
+	public static boolean isSupported() {
+		return Objects.nonNull(UNIX_FAMILY);
+	}
+
+	/**
+	 * 监听 Unix domain socket, 已经存在的 socket 文件 (上次没有正常关闭) 先删除
+	 *
+	 * @param path    socket 文件的路径
+	 * @param perm    socket 文件的权限 (八进制, 如 0700), 0 表示不修改
+	 * @param backlog 等待 accept 的连接队列的长度
+	 * @return 非阻塞的 ServerSocketChannel, 运行时不支持时返回 null
+	 * @throws IOException 监听失败
+	 */
+	public static ServerSocketChannel listen(String path, int perm, int backlog) throws IOException {
+
+		if (!isSupported()) {
+			return null;
+		}
+
+		Path socketPath = Paths.get(path);
+		Files.deleteIfExists(socketPath);
+
+		ServerSocketChannel channel;
+		SocketAddress address;
+		try {
+			channel = (ServerSocketChannel) OPEN.invoke(null, UNIX_FAMILY);
+			address = (SocketAddress) ADDRESS_OF.invoke(null, path);
+		} catch (IllegalAccessException e) {
+			throw new IOException(e);
+		} catch (InvocationTargetException e) {
+			Throwable cause = e.getCause();
+			throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+		}
+
+		try {
+			channel.bind(address, backlog);
+			if (perm != 0) {
+				Files.setPosixFilePermissions(socketPath, toPosixFilePermissions(perm));
+			}
+		} catch (IOException | UnsupportedOperationException e) {
+			channel.close();
+			throw e instanceof IOException ? (IOException) e : new IOException(e);
+		}
+		return channel;
+	}
+
+	/**
+	 * 关闭监听并删除 socket 文件
+	 *
+	 * @param channel 监听的 channel
+	 * @param path    socket 文件的路径
+	 */
+	public static void close(ServerSocketChannel channel, String path) {
+		try {
+			channel.close();
+			Files.deleteIfExists(Paths.get(path));
+		} catch (IOException ignore) {
+		}
+	}
+
+	/**
+	 * 八进制的权限转为 PosixFilePermission, 顺序和 PosixFilePermission 的定义相同 (OWNER_READ 为最高位)
+	 */
+	private static Set<PosixFilePermission> toPosixFilePermissions(int perm) {
+
+		Set<PosixFilePermission> permissions = EnumSet.noneOf(PosixFilePermission.class);
+		PosixFilePermission[] values = PosixFilePermission.values();
+		for (int i = 0; i < values.length; i++) {
+			if ((perm & (1 << (values.length - 1 - i))) != 0) {
+				permissions.add(values[i]);
+			}
+		}
+		return permissions;
+	}
+}
@@ -0,0 +1,99 @@
+package com.can.module.object;
+
+import com.can.data.structure.sds.Sds;
+import com.can.data.structure.sds.SdsOffHeap;
+import com.can.encoding.enums.ObjEncodingType;
+import lombok.Data;
+
+/**
+ * <pre>
+ * Redis 对象 (server.h robj, object.c)
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-18 21:30
+ */
+@Data
+public class RedisObject {
+
+	/**
+	 * 对象类型, 字符串
+	 */
+	public final static int OBJ_STRING = 0;
+
+	/**
+	 * 对象类型
+	 */
+	private int type;
+
+	/**
+	 * 编码
+	 */
+	private ObjEncodingType encoding;
+
+	/**
+	 * 最后一次访问的时间, 单位秒
+	 */
+	private long lru;
+
+	/**
+	 * 实际的数据
+	 */
+	private Object ptr;
+
+	/**
+	 * 编码好的完整回复 (ReplyCache), 只有访问频繁的对象才有, 值修改时必须删除
+	 */
+	private byte[] replyCache;
+
+	/**
+	 * accessWindow 这一秒内的访问次数, 用于判断是否需要创建回复缓存
+	 */
+	private int accessCount;
+
+	/**
+	 * accessCount 统计的是哪一秒, 单位秒
+	 */
+	private long accessWindow;
+
+	/**
+	 * 创建字符串对象, 直接使用传入的 sds, 不会拷贝, 只读视图 (SdsSlice) 会复制为独立的字符串
+	 *
+	 * @param sds 字符串
+	 * @return 字符串对象
+	 */
+	public static RedisObject createStringObject(Sds sds) {
+		RedisObject o = new RedisObject();
+		o.setType(OBJ_STRING);
+		o.setEncoding(ObjEncodingType.OBJ_ENCODING_RAW);
+		o.setPtr(sds.sdsmaterialize());
+		return o;
+	}
+
+	/**
+	 * 保存字符串的值前调用, 内容的长度达到 offheapMinLen 时复制到堆外 (SdsOffHeap), 堆内的 buf 交给 GC 回收
+	 * 堆外空间不够时保持原样
+	 *
+	 * @param o             字符串对象
+	 * @param offheapMinLen 放到堆外的最小长度, 0 表示不开启
+	 * @return o
+	 */
+	public static RedisObject tryObjectEncoding(RedisObject o, int offheapMinLen) {
+
+		if (offheapMinLen <= 0 || o.getEncoding() != ObjEncodingType.OBJ_ENCODING_RAW) {
+			return o;
+		}
+
+		Sds sds = (Sds) o.getPtr();
+		if (sds.sdsLen() < offheapMinLen) {
+			return o;
+		}
+
+		Sds offheap = SdsOffHeap.sdsnewoffheap(sds);
+		if (offheap != sds) {
+			o.setPtr(offheap);
+			o.setEncoding(ObjEncodingType.OBJ_ENCODING_OFFHEAP);
+		}
+		return o;
+	}
+}
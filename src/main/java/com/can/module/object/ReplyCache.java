@@ -0,0 +1,132 @@
+package com.can.module.object;
+
+import com.can.data.structure.sds.Sds;
+import com.can.encoding.enums.ObjEncodingType;
+import com.can.module.time.ServerClock;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <pre>
+ * 热点键的回复缓存
+ *
+ * 读多写少的热点键, 每次 GET 都要重新编码 $len\r\nvalue\r\n, 把编码好的完整回复和值一起保存在对象上,
+ * 之后的读取只需要一次拷贝到客户端的回复缓冲区:
+ * 1. 按秒统计对象的访问次数, 同一秒内的访问次数达到 reply-cache-min-hits 时才创建缓存, 0 表示不开启
+ * 2. 所有缓存占用的内存都会计数, 超过 reply-cache-max-memory 时不再创建新的缓存
+ * 3. 对象的值被修改或者被覆盖时, 必须调用 invalidate 删除缓存
+ *
+ * 只在执行命令时访问 (多 reactor 模式下持有 server.executionLock), 不需要额外的同步
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-19 01:10
+ */
+public class ReplyCache {
+
+	/**
+	 * 所有缓存占用的字节数
+	 */
+	private final static AtomicLong USED_MEMORY = new AtomicLong();
+
+	/**
+	 * 当前的缓存个数
+	 */
+	private final static AtomicLong OBJECTS = new AtomicLong();
+
+	/**
+	 * 直接使用缓存回复的次数
+	 */
+	private final static AtomicLong HITS = new AtomicLong();
+
+	/**
+	 * 因为超过内存上限没有创建缓存的次数
+	 */
+	private final static AtomicLong REJECTED = new AtomicLong();
+
+	/**
+	 * 获取对象的回复缓存, 没有缓存时统计这次访问, 访问频率达到阈值时创建
+	 *
+	 * @param o         字符串对象
+	 * @param minHits   每秒的访问次数达到多少时创建缓存, 0 表示不开启
+	 * @param maxMemory 所有缓存最多占用的字节数
+	 * @return 编码好的回复, 没有缓存时返回 null
+	 */
+	public static byte[] lookup(RedisObject o, int minHits, long maxMemory) {
+
+		byte[] cached = o.getReplyCache();
+		if (Objects.nonNull(cached)) {
+			HITS.incrementAndGet();
+			return cached;
+		}
+
+		// 共享的整数对象已经有预先编码好的回复
+		if (minHits <= 0 || o.getEncoding() == ObjEncodingType.OBJ_ENCODING_INT) {
+			return null;
+		}
+
+		// 按秒统计访问次数, 进入新的一秒时重新计数
+		long now = ServerClock.getUnixtime();
+		if (o.getAccessWindow() != now) {
+			o.setAccessWindow(now);
+			o.setAccessCount(0);
+		}
+		o.setAccessCount(o.getAccessCount() + 1);
+		if (o.getAccessCount() < minHits) {
+			return null;
+		}
+
+		Sds value = (Sds) o.getPtr();
+		int len = value.sdsLen();
+		byte[] header = ("$" + len + "\r\n").getBytes(StandardCharsets.US_ASCII);
+		long size = (long) header.length + len + 2;
+		if (size > Integer.MAX_VALUE || USED_MEMORY.get() + size > maxMemory) {
+			REJECTED.incrementAndGet();
+			return null;
+		}
+
+		byte[] reply = new byte[(int) size];
+		System.arraycopy(header, 0, reply, 0, header.length);
+		value.sdsCopyTo(reply, header.length);
+		reply[reply.length - 2] = '\r';
+		reply[reply.length - 1] = '\n';
+
+		o.setReplyCache(reply);
+		USED_MEMORY.addAndGet(reply.length);
+		OBJECTS.incrementAndGet();
+		return reply;
+	}
+
+	/**
+	 * 删除对象的回复缓存, 对象的值修改或者被覆盖时调用
+	 *
+	 * @param o 对象
+	 */
+	public static void invalidate(RedisObject o) {
+
+		byte[] cached = o.getReplyCache();
+		if (Objects.isNull(cached)) {
+			return;
+		}
+		o.setReplyCache(null);
+		o.setAccessCount(0);
+		USED_MEMORY.addAndGet(-cached.length);
+		OBJECTS.decrementAndGet();
+	}
+
+	/**
+	 * 追加 INFO 格式的统计信息
+	 *
+	 * @param info 追加到的 StringBuilder
+	 * @return info
+	 */
+	public static StringBuilder genInfoString(StringBuilder info) {
+		info.append("reply_cache_objects:").append(OBJECTS.get()).append("\r\n");
+		info.append("reply_cache_used_memory:").append(USED_MEMORY.get()).append("\r\n");
+		info.append("reply_cache_hits:").append(HITS.get()).append("\r\n");
+		info.append("reply_cache_rejected:").append(REJECTED.get()).append("\r\n");
+		return info;
+	}
+}
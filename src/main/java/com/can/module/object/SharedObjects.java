@@ -0,0 +1,136 @@
+package com.can.module.object;
+
+import com.can.encoding.enums.ObjEncodingType;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <pre>
+ * 共享对象 (server.c createSharedObjects)
+ *
+ * 1. 常用的回复预先编码成完整的 RESP 字节, 回复时直接拷贝到客户端的缓冲区, 不需要每次编码, 也没有对象的创建
+ * 2. 小整数 [0, OBJ_SHARED_INTEGERS) 的值对象只创建一次, 保存整数值的键都指向同一个对象
+ *
+ * 启动时 (initServer) 创建一次, 之后只读, 可以在任意线程中使用
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-19 00:40
+ */
+public class SharedObjects {
+
+	/**
+	 * 共享的整数对象的个数
+	 */
+	public final static int OBJ_SHARED_INTEGERS = 10000;
+
+	/**
+	 * 共享的数组长度/批量回复长度头部的个数
+	 */
+	public final static int OBJ_SHARED_BULKHDR_LEN = 32;
+
+	public static byte[] crlf;
+
+	public static byte[] ok;
+
+	public static byte[] pong;
+
+	public static byte[] czero;
+
+	public static byte[] cone;
+
+	public static byte[] emptybulk;
+
+	public static byte[] emptyarray;
+
+	/**
+	 * 空回复, 下标为协议版本, RESP2 为 $-1\r\n, RESP3 为 _\r\n
+	 */
+	public static byte[][] nullReply;
+
+	/**
+	 * 空数组回复, 下标为协议版本, RESP2 为 *-1\r\n, RESP3 为 _\r\n
+	 */
+	public static byte[][] nullarray;
+
+	public static byte[] syntaxerr;
+
+	public static byte[] wrongtypeerr;
+
+	/**
+	 * 数组长度 *len\r\n, len 小于 OBJ_SHARED_BULKHDR_LEN
+	 */
+	public static byte[][] mbulkhdr;
+
+	/**
+	 * 批量回复的长度 $len\r\n, len 小于 OBJ_SHARED_BULKHDR_LEN
+	 */
+	public static byte[][] bulkhdr;
+
+	/**
+	 * 整数回复 :value\r\n, value 小于 OBJ_SHARED_INTEGERS
+	 */
+	public static byte[][] integerReplies;
+
+	/**
+	 * 整数的批量回复 $len\r\nvalue\r\n, 用于共享整数对象的 GET
+	 */
+	public static byte[][] bulkIntegers;
+
+	/**
+	 * 共享的整数对象, 编码为 OBJ_ENCODING_INT, ptr 为 Long
+	 * 访问时间 (lru) 也是共享的, 没有按访问时间淘汰, 不影响
+	 */
+	public static RedisObject[] integers;
+
+	/**
+	 * 创建所有的共享对象, 启动时调用一次
+	 */
+	public static void createSharedObjects() {
+
+		crlf = encode("\r\n");
+		ok = encode("+OK\r\n");
+		pong = encode("+PONG\r\n");
+		czero = encode(":0\r\n");
+		cone = encode(":1\r\n");
+		emptybulk = encode("$0\r\n\r\n");
+		emptyarray = encode("*0\r\n");
+
+		nullReply = new byte[4][];
+		nullReply[2] = encode("$-1\r\n");
+		nullReply[3] = encode("_\r\n");
+
+		nullarray = new byte[4][];
+		nullarray[2] = encode("*-1\r\n");
+		nullarray[3] = nullReply[3];
+
+		syntaxerr = encode("-ERR syntax error\r\n");
+		wrongtypeerr = encode("-WRONGTYPE Operation against a key holding the wrong kind of value\r\n");
+
+		mbulkhdr = new byte[OBJ_SHARED_BULKHDR_LEN][];
+		bulkhdr = new byte[OBJ_SHARED_BULKHDR_LEN][];
+		for (int j = 0; j < OBJ_SHARED_BULKHDR_LEN; j++) {
+			mbulkhdr[j] = encode("*" + j + "\r\n");
+			bulkhdr[j] = encode("$" + j + "\r\n");
+		}
+
+		integerReplies = new byte[OBJ_SHARED_INTEGERS][];
+		bulkIntegers = new byte[OBJ_SHARED_INTEGERS][];
+		integers = new RedisObject[OBJ_SHARED_INTEGERS];
+		for (int j = 0; j < OBJ_SHARED_INTEGERS; j++) {
+			String value = String.valueOf(j);
+			integerReplies[j] = encode(":" + value + "\r\n");
+			bulkIntegers[j] = encode("$" + value.length() + "\r\n" + value + "\r\n");
+
+			RedisObject o = new RedisObject();
+			o.setType(RedisObject.OBJ_STRING);
+			o.setEncoding(ObjEncodingType.OBJ_ENCODING_INT);
+			o.setPtr((long) j);
+			integers[j] = o;
+		}
+	}
+
+	private static byte[] encode(String reply) {
+		return reply.getBytes(StandardCharsets.US_ASCII);
+	}
+}
@@ -1,8 +1,19 @@
 package com.can.module.server;
 
 import com.can.module.ae.AeEventLoop;
+import com.can.module.ae.AeEventLoopGroup;
+import com.can.module.ae.watchdog.AeWatchdog;
+import com.can.module.db.RedisDb;
+import com.can.module.networking.RedisClient;
 import lombok.Data;
 
+import java.nio.channels.ServerSocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
 /**
  * <pre>
  *
@@ -19,5 +30,183 @@ public class RedisServer {
      */
     private AeEventLoop el;
 
+    /**
+     * 数据库, 目前只有一个
+     */
+    private RedisDb db;
+
+    /**
+     * 多 reactor 模式下处理客户端的事件轮询组, 单 reactor 模式下为 null
+     */
+    private AeEventLoopGroup reactorGroup;
+
+    /**
+     * 监听的端口
+     */
+    private int port;
+
+    /**
+     * 绑定的地址, null 表示所有地址
+     */
+    private String bindAddr;
+
+    /**
+     * listen 的 backlog
+     */
+    private int tcpBacklog;
+
+    /**
+     * 是否开启 TCP keepalive, 0 表示不开启
+     */
+    private int tcpKeepalive;
+
+    /**
+     * 最大的客户端数
+     */
+    private int maxClients;
+
+    /**
+     * 处理客户端的事件轮询个数, 1 表示单 reactor 模式, 所有的客户端都在主事件轮询中
+     */
+    private int reactors;
+
+    /**
+     * 多 reactor 模式下新的连接的分配方式
+     */
+    private String reactorBalance;
+
+    /**
+     * IO 线程数, 包含主线程, 1 表示不开启
+     */
+    private int ioThreadsNum;
+
+    /**
+     * IO 线程是否也处理读取和协议解析, 默认只处理回复的发送
+     */
+    private boolean ioThreadsDoReads;
+
+    /**
+     * 等待 IO 线程读取的客户端, 只在主事件轮询的线程中访问
+     */
+    private final List<RedisClient> clientsPendingRead = new ArrayList<>();
+
+    /**
+     * 有回复需要发送的客户端, 只在主事件轮询的线程中访问
+     */
+    private final List<RedisClient> clientsPendingWrite = new ArrayList<>();
+
+    /**
+     * 主事件轮询的线程数据, 等待发送的客户端就是 clientsPendingWrite
+     */
+    private RedisServerThreadVars mainThreadVars;
+
+    /**
+     * 多 reactor 模式下每个 reactor 的线程数据, 和 reactorGroup 中的事件轮询一一对应
+     */
+    private RedisServerThreadVars[] reactorThreadVars;
+
+    /**
+     * 每秒执行定时任务 (clientsCron) 的次数
+     */
+    private int hz;
+
+    /**
+     * 客户端空闲超过这个时间 (秒) 后关闭, 0 表示不关闭
+     */
+    private int maxidletime;
+
+    /**
+     * 对象每秒的访问次数达到多少时缓存编码好的回复, 0 表示不开启
+     */
+    private int replyCacheMinHits;
+
+    /**
+     * 回复缓存最多占用的字节数
+     */
+    private long replyCacheMaxMemory;
+
+    /**
+     * SET 的值的长度达到多少字节时内容保存在堆外 (SdsOffHeap), 0 表示不开启
+     */
+    private int sdsOffheapMinLen;
+
+    /**
+     * 忙轮询每次自旋的最长时间, 单位微秒, 0 表示不开启
+     */
+    private int busyPollUsec;
+
+    /**
+     * 看门狗的阈值, 单位毫秒, 执行函数阻塞事件轮询超过这个时间会被记录, 0 表示不开启
+     */
+    private int watchdogPeriod;
+
+    /**
+     * 卡顿日志的最大条数
+     */
+    private int stalllogMaxLen;
+
+    /**
+     * 事件轮询的看门狗, 没有开启时为 null
+     */
+    private AeWatchdog watchdog;
+
+    /**
+     * 监听的 socket
+     */
+    private ServerSocketChannel ipfd;
+
+    /**
+     * Unix domain socket 的路径, null 表示不监听
+     */
+    private String unixsocket;
+
+    /**
+     * Unix domain socket 文件的权限 (八进制), 0 表示不修改
+     */
+    private int unixsocketperm;
+
+    /**
+     * 监听的 Unix domain socket, 没有配置或者运行时不支持时为 null
+     */
+    private ServerSocketChannel sofd;
+
+    /**
+     * 当前连接的客户端数
+     */
+    private final AtomicInteger connectedClients = new AtomicInteger();
+
+    /**
+     * 服务端启动的时间, 单位秒
+     */
+    private long statStarttime;
+
+    /**
+     * accept 的连接数
+     */
+    private final AtomicLong statNumConnections = new AtomicLong();
+
+    /**
+     * 超过 maxclients 被拒绝的连接数
+     */
+    private final AtomicLong statRejectedConn = new AtomicLong();
+
+    /**
+     * 执行的命令数
+     */
+    private final AtomicLong statNumCommands = new AtomicLong();
+
+    /**
+     * 下一个客户端的 id
+     */
+    private final AtomicLong nextClientId = new AtomicLong();
+
+    /**
+     * <pre>
+     * 命令执行锁
+     * 多 reactor 模式下, 读取/解析/回复在各自的事件轮询线程中并行, 命令的执行需要持有这个锁,
+     * 保证所有的命令依旧是一个接一个执行的, 和单线程时的语义一致
+     * </pre>
+     */
+    private final ReentrantLock executionLock = new ReentrantLock();
 
 }
@@ -10,9 +10,194 @@ package com.can.module.server;
  */
 public class RedisServerConstants {
 
+    public final static String REDIS_VERSION = "1.0.0";
+
     public final static int CONFIG_DEFAULT_MAX_CLIENTS = 1000;
 
     public final static int CONFIG_MIN_RESERVED_FDS = 32;
 
     public final static int CONFIG_FDSET_INCR = CONFIG_MIN_RESERVED_FDS + 96;
+
+    public final static int CONFIG_DEFAULT_SERVER_PORT = 6379;
+
+    /**
+     * 一次可读事件最多 accept 的连接数
+     */
+    public final static int MAX_ACCEPTS_PER_CALL = 1000;
+
+    /**
+     * Unix domain socket 文件的权限, 0 表示不修改
+     */
+    public final static int CONFIG_DEFAULT_UNIX_SOCKET_PERM = 0;
+
+    public final static int CONFIG_DEFAULT_TCP_BACKLOG = 511;
+
+    public final static int CONFIG_DEFAULT_TCP_KEEPALIVE = 300;
+
+    /**
+     * 默认单 reactor
+     */
+    public final static int CONFIG_DEFAULT_REACTORS = 1;
+
+    public final static int CONFIG_MAX_REACTORS = 128;
+
+    public final static String CONFIG_DEFAULT_REACTOR_BALANCE = "round-robin";
+
+    /**
+     * 默认不开启 IO 线程, 1 表示只有主线程
+     */
+    public final static int CONFIG_DEFAULT_IO_THREADS_NUM = 1;
+
+    public final static int IO_THREADS_MAX_NUM = 128;
+
+    /**
+     * 默认不开启忙轮询
+     */
+    public final static int CONFIG_DEFAULT_BUSY_POLL_USEC = 0;
+
+    /**
+     * 默认不开启看门狗
+     */
+    public final static int CONFIG_DEFAULT_WATCHDOG_PERIOD = 0;
+
+    public final static int CONFIG_DEFAULT_STALLLOG_MAX_LEN = 128;
+
+    /**
+     * 默认每秒执行 10 次定时任务
+     */
+    public final static int CONFIG_DEFAULT_HZ = 10;
+
+    public final static int CONFIG_MIN_HZ = 1;
+
+    public final static int CONFIG_MAX_HZ = 500;
+
+    /**
+     * 默认不开启回复缓存
+     */
+    public final static int CONFIG_DEFAULT_REPLY_CACHE_MIN_HITS = 0;
+
+    /**
+     * 回复缓存默认最多占用 64MB
+     */
+    public final static long CONFIG_DEFAULT_REPLY_CACHE_MAX_MEMORY = 64L * 1024 * 1024;
+
+    /**
+     * 默认不把字符串的值放到堆外
+     */
+    public final static int CONFIG_DEFAULT_SDS_OFFHEAP_MIN_LEN = 0;
+
+    /**
+     * 默认不关闭空闲的客户端
+     */
+    public final static int CONFIG_DEFAULT_CLIENT_TIMEOUT = 0;
+
+    /**
+     * clientsCron 每次至少检查的客户端数, 客户端很少时也能较快地检查一遍
+     */
+    public final static int CLIENTS_CRON_MIN_ITERATIONS = 5;
+
+    /**
+     * clientsCron 每次最多检查的客户端数, 保证每次执行的时间有上限, 不会卡住事件轮询
+     */
+    public final static int CLIENTS_CRON_MAX_ITERATIONS = 10000;
+
+    /**
+     * 通用的 IO 缓冲区大小
+     */
+    public final static int PROTO_IOBUF_LEN = 1024 * 16;
+
+    /**
+     * 客户端固定回复缓冲区和回复块的大小
+     */
+    public final static int PROTO_REPLY_CHUNK_BYTES = 16 * 1024;
+
+    /**
+     * 一次聚集写最多的缓冲区个数
+     */
+    public final static int NET_MAX_WRITE_IOV = 64;
+
+    /**
+     * 一次可写事件最多发送的字节数, 超过后留到下一次, 避免一个客户端占用事件轮询太久
+     */
+    public final static int NET_MAX_WRITES_PER_EVENT = 1024 * 64;
+
+    /**
+     * 单行请求 (inline) 的最大长度
+     */
+    public final static int PROTO_INLINE_MAX_SIZE = 1024 * 64;
+
+    /**
+     * 参数数组的初始长度
+     */
+    public final static int PROTO_ARGV_INIT_LEN = 8;
+
+    /**
+     * 多条批量请求的最大参数个数
+     */
+    public final static int PROTO_MBULK_MAX_LEN = 1024 * 1024;
+
+    /**
+     * 超过这个长度的参数直接读取到刚好大小的 sds 中, 不经过查询缓冲区
+     */
+    public final static int PROTO_MBULK_BIG_ARG = 1024 * 32;
+
+    /**
+     * 大参数每次最多直接读取到 sds 中的字节数
+     * sds 是堆内的, NIO 会按本次读取的大小申请临时的堆外缓冲区并按线程缓存, 需要限制大小
+     */
+    public final static int PROTO_BIG_ARG_READ_WINDOW = PROTO_IOBUF_LEN * 4;
+
+    /**
+     * 单个参数的最大长度
+     */
+    public final static long CONFIG_DEFAULT_PROTO_MAX_BULK_LEN = 512L * 1024 * 1024;
+
+    /**
+     * 查询缓冲区的最大长度
+     */
+    public final static int CONFIG_DEFAULT_CLIENT_MAX_QUERYBUF_LEN = 1024 * 1024 * 1024;
+
+    /**
+     * 请求的类型, 单行
+     */
+    public final static int PROTO_REQ_INLINE = 1;
+
+    /**
+     * 请求的类型, 多条批量
+     */
+    public final static int PROTO_REQ_MULTIBULK = 2;
+
+    public final static int C_OK = 0;
+
+    public final static int C_ERR = -1;
+
+    /**
+     * 回复发送完后关闭客户端
+     */
+    public final static int CLIENT_CLOSE_AFTER_REPLY = 1 << 6;
+
+    /**
+     * 客户端需要尽快关闭 (不能在当前线程直接释放时设置)
+     */
+    public final static int CLIENT_CLOSE_ASAP = 1 << 10;
+
+    /**
+     * 通过 Unix domain socket 连接的客户端
+     */
+    public final static int CLIENT_UNIX_SOCKET = 1 << 11;
+
+    /**
+     * 客户端有回复需要发送, 已经在 clientsPendingWrite 中
+     */
+    public final static int CLIENT_PENDING_WRITE = 1 << 21;
+
+    /**
+     * 客户端的读取交给了 IO 线程, 已经在 clientsPendingRead 中
+     */
+    public final static int CLIENT_PENDING_READ = 1 << 29;
+
+    /**
+     * IO 线程已经解析出了完整的命令, 等待主线程执行
+     */
+    public final static int CLIENT_PENDING_COMMAND = 1 << 30;
 }
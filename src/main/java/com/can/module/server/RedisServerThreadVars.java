@@ -0,0 +1,48 @@
+package com.can.module.server;
+
+import com.can.module.ae.AeEventLoop;
+import com.can.module.networking.RedisClient;
+import lombok.Data;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <pre>
+ * 每个事件轮询 (线程) 自己的服务端数据, 只在这个事件轮询的线程中访问, 不需要加锁
+ *
+ * 单 reactor 模式下只有主事件轮询的, 多 reactor 模式下每个 reactor 一个, 客户端创建时绑定到所在事件轮询的
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-18 22:40
+ */
+@Data
+public class RedisServerThreadVars {
+
+    /**
+     * 所属的事件轮询
+     */
+    private final AeEventLoop el;
+
+    /**
+     * 有回复需要发送的客户端, 在事件轮询的 beforeSleep 中直接发送
+     */
+    private final List<RedisClient> clientsPendingWrite;
+
+    /**
+     * 这个事件轮询的所有客户端, clientsCron 每次从头部取出一部分检查后放回尾部
+     * 客户端释放时不从中移除 (需要遍历), 由 clientsCron 遇到时丢弃
+     */
+    private final ArrayDeque<RedisClient> clients = new ArrayDeque<>();
+
+    public RedisServerThreadVars(AeEventLoop el) {
+        this(el, new ArrayList<>());
+    }
+
+    public RedisServerThreadVars(AeEventLoop el, List<RedisClient> clientsPendingWrite) {
+        this.el = el;
+        this.clientsPendingWrite = clientsPendingWrite;
+    }
+}
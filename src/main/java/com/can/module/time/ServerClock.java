@@ -0,0 +1,75 @@
+package com.can.module.time;
+
+/**
+ * <pre>
+ * 服务端时钟 (monotonic.c + server.c updateCachedTime)
+ *
+ * 1. 单调时钟: 基于 System.nanoTime(), 不受系统时间调整的影响, 用于计算时间事件的执行时间
+ * 2. 缓存的墙上时间: 每次事件轮询只刷新一次, 其他地方直接读取缓存值, 不再每次都去获取当前时间
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-18 11:02
+ */
+public class ServerClock {
+
+	/**
+	 * 缓存的当前时间, 单位秒
+	 */
+	private static volatile long unixtime;
+
+	/**
+	 * 缓存的当前时间, 单位毫秒
+	 */
+	private static volatile long mstime;
+
+	static {
+		updateCachedTime();
+	}
+
+	/**
+	 * 获取单调时钟的当前值, 单位纳秒
+	 * 只能用于计算时间差, 不能当做当前时间使用
+	 *
+	 * @return 单调时钟的当前值
+	 */
+	public static long getMonotonicNs() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * 获取单调时钟的当前值, 单位微秒
+	 *
+	 * @return 单调时钟的当前值
+	 */
+	public static long getMonotonicUs() {
+		return System.nanoTime() / 1000;
+	}
+
+	/**
+	 * 刷新缓存的墙上时间, 每次事件轮询调用一次
+	 */
+	public static void updateCachedTime() {
+		long ms = System.currentTimeMillis();
+		mstime = ms;
+		unixtime = ms / 1000;
+	}
+
+	/**
+	 * 获取缓存的当前时间
+	 *
+	 * @return 当前时间, 单位秒
+	 */
+	public static long getUnixtime() {
+		return unixtime;
+	}
+
+	/**
+	 * 获取缓存的当前时间
+	 *
+	 * @return 当前时间, 单位毫秒
+	 */
+	public static long getMstime() {
+		return mstime;
+	}
+}
@@ -1,11 +1,5 @@
 package com.can.util;
 
-import com.can.config.DefaultConfig;
-
-import java.time.LocalDateTime;
-import java.time.ZoneOffset;
-import java.time.temporal.ChronoField;
-
 /**
  * <pre>
  *
@@ -18,29 +12,22 @@ public class TimeUtils {
 
 	/**
 	 * 获取当前的时间, 单位秒
+	 * 时间戳与时区无关, 直接从系统时钟获取, 不创建任何对象
+	 * 事件轮询中请使用 {@link com.can.module.time.ServerClock#getUnixtime()} 的缓存值
 	 *
 	 * @return
 	 */
 	public static long getCurrentTimeWithSec() {
-
-		return LocalDateTime.now().toEpochSecond(ZoneOffset.of(DefaultConfig.TIME_ZONE));
+		return System.currentTimeMillis() / 1000;
 	}
 
 	/**
 	 * 获取当前的时间, 单位毫秒
+	 * 事件轮询中请使用 {@link com.can.module.time.ServerClock#getMstime()} 的缓存值
 	 *
 	 * @return
 	 */
 	public static long getCurrentTimeWithMs() {
-		return LocalDateTime.now().toInstant(ZoneOffset.of(DefaultConfig.TIME_ZONE)).toEpochMilli();
-	}
-
-
-	public static void main(String[] args) {
-		LocalDateTime now = LocalDateTime.now();
-
-		System.out.println(now.getLong(ChronoField.OFFSET_SECONDS));
-		System.out.println(now.getLong(ChronoField.MILLI_OF_DAY));
-		System.out.println(now.getLong(ChronoField.MICRO_OF_DAY));
+		return System.currentTimeMillis();
 	}
 }
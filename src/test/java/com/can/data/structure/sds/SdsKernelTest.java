@@ -0,0 +1,103 @@
+package com.can.data.structure.sds;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <pre>
+ * memcmp, memeq, memhash 和逐个字节的实现的结果相同, 覆盖不足 8 个字节的尾部和任意的起始位置
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-19 17:35
+ */
+public class SdsKernelTest {
+
+	private static int referenceMemcmp(byte[] a, int aoff, byte[] b, int boff, int len) {
+		for (int i = 0; i < len; i++) {
+			int x = a[aoff + i] & 0xff;
+			int y = b[boff + i] & 0xff;
+			if (x != y) {
+				return x - y;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * 第一个不同的字节在 8 个字节的不同位置, 大端读取时差值取自这个字节
+	 */
+	@Test
+	public void memcmpFindsFirstDifferentByteInWord() {
+		for (int pos = 0; pos < 16; pos++) {
+			byte[] a = new byte[16];
+			byte[] b = new byte[16];
+			a[pos] = (byte) 0x80;
+			b[pos] = 0x01;
+			if (pos < 15) {
+				b[pos + 1] = (byte) 0xff;
+			}
+			assertEquals(0x80 - 0x01, Sds.memcmp(a, 0, b, 0, 16));
+		}
+	}
+
+	@Test
+	public void kernelsMatchBytewiseReference() {
+		Random random = new Random(3);
+		for (int round = 0; round < 20000; round++) {
+			int len = random.nextInt(48);
+			int aoff = random.nextInt(9);
+			int boff = random.nextInt(9);
+			byte[] a = new byte[aoff + len + random.nextInt(3)];
+			byte[] b = new byte[boff + len + random.nextInt(3)];
+			random.nextBytes(a);
+			System.arraycopy(a, aoff, b, boff, len);
+			if (len > 0 && random.nextBoolean()) {
+				b[boff + random.nextInt(len)] = (byte) random.nextInt();
+			}
+
+			int expected = referenceMemcmp(a, aoff, b, boff, len);
+			assertEquals(expected, Sds.memcmp(a, aoff, b, boff, len));
+			assertEquals(-expected, Sds.memcmp(b, boff, a, aoff, len));
+			assertEquals(expected == 0, Sds.memeq(a, aoff, b, boff, len));
+			if (expected == 0) {
+				assertEquals(Sds.memhash(a, aoff, len), Sds.memhash(b, boff, len));
+			}
+		}
+	}
+
+	@Test
+	public void memcmpIsUnsigned() {
+		byte[] a = {1, 2, 3, 4, 5, 6, 7, (byte) 0x80, 9};
+		byte[] b = {1, 2, 3, 4, 5, 6, 7, 0x7f, 9};
+		assertTrue(Sds.memcmp(a, 0, b, 0, 9) > 0);
+		assertTrue(Sds.memcmp(b, 0, a, 0, 9) < 0);
+	}
+
+	@Test
+	public void sdsEqualsAndHashIgnoreHeaderAndOffset() {
+		byte[] content = new byte[300];
+		new Random(4).nextBytes(content);
+		byte[] shifted = new byte[content.length + 11];
+		System.arraycopy(content, 0, shifted, 11, content.length);
+
+		Sds s = Sds.sdsnewlen(content, 0, content.length);
+		Sds roomy = Sds.sdsnewlen(content, 0, content.length).sdsMakeRoomFor(70000);
+		Sds view = SdsSlice.sdsview(shifted, 11, content.length);
+
+		assertTrue(s.equals(roomy) && roomy.equals(view) && view.equals(s));
+		assertEquals(s.hashCode(), roomy.hashCode());
+		assertEquals(s.hashCode(), view.hashCode());
+		assertEquals(0, s.sdscmp(view));
+
+		Sds prefix = SdsSlice.sdsview(content, 0, 299);
+		assertFalse(s.equals(prefix));
+		assertTrue(s.sdscmp(prefix) > 0);
+		assertTrue(prefix.sdscmp(s) < 0);
+	}
+}
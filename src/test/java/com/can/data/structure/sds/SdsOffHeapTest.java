@@ -0,0 +1,166 @@
+package com.can.data.structure.sds;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <pre>
+ * SdsOffHeap 的缩短只调整范围, 扩展先复制到堆内, 按段比较和哈希的结果和堆内的字符串相同
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-19 20:30
+ */
+public class SdsOffHeapTest {
+
+	private static byte[] content(int len, int seed) {
+		byte[] bytes = new byte[len];
+		new Random(seed).nextBytes(bytes);
+		return bytes;
+	}
+
+	private static byte[] bytes(Sds s) {
+		byte[] dst = new byte[s.sdsLen()];
+		s.sdsCopyTo(dst, 0);
+		return dst;
+	}
+
+	private static Sds offHeap(byte[] init, int off, int len) {
+		Sds s = SdsOffHeap.sdsnewoffheap(Sds.sdsnewlen(init, off, len));
+		assertTrue(s instanceof SdsOffHeap);
+		return s;
+	}
+
+	private static long usedBytes() {
+		String info = SlabAllocator.genInfoString(new StringBuilder()).toString();
+		for (String line : info.split("\r\n")) {
+			if (line.startsWith("slab_used_bytes:")) {
+				return Long.parseLong(line.substring("slab_used_bytes:".length()));
+			}
+		}
+		throw new IllegalStateException();
+	}
+
+	@Test
+	public void rangeTrimAndClearNarrowView() {
+		long used = usedBytes();
+		byte[] init = "  hello world  ".getBytes();
+		Sds s = offHeap(init, 0, init.length);
+
+		s.sdstrim(" ".getBytes());
+		assertArrayEquals("hello world".getBytes(), bytes(s));
+		s.sdsrange(-5, -1);
+		assertArrayEquals("world".getBytes(), bytes(s));
+		assertEquals('w', s.pos(0));
+		assertArrayEquals("orl".getBytes(), bytes(s.sdsslice(1, 3)));
+		assertEquals(Sds.sdsnewlen("world".getBytes(), 0, 5), s);
+
+		s.sdsIncrLen(0);
+		s.sdsclear();
+		assertEquals(0, s.sdsLen());
+
+		// 按申请的大小释放
+		s.sdsfree();
+		assertEquals(used, usedBytes());
+	}
+
+	@Test
+	public void growCopiesToHeap() {
+		byte[] init = content(100, 1);
+		Sds s = offHeap(init, 0, 100);
+		s.sdsrange(10, 19);
+
+		Sds appended = s.sdscatlen("xy".getBytes(), 0, 2);
+		assertNotSame(s, appended);
+		assertFalse(appended instanceof SdsOffHeap);
+		byte[] expected = new byte[12];
+		System.arraycopy(init, 10, expected, 0, 10);
+		expected[10] = 'x';
+		expected[11] = 'y';
+		assertArrayEquals(expected, bytes(appended));
+
+		Sds zeros = s.sdsgrowzero(15);
+		assertEquals(15, zeros.sdsLen());
+		assertEquals(0, zeros.pos(14));
+
+		assertSame(s, s.sdsMakeRoomFor(0));
+		assertEquals(10, s.sdsLen());
+		s.sdsfree();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void incrLenBeyondContent() {
+		Sds s = offHeap(content(10, 2), 0, 10);
+		try {
+			s.sdsIncrLen(1);
+		} finally {
+			s.sdsfree();
+		}
+	}
+
+	/**
+	 * 长度覆盖临时缓冲区的分段边界和不足 8 个字节的尾部
+	 */
+	@Test
+	public void compareAndHashMatchHeap() {
+		int[] lens = {0, 1, 7, 8, 9, 255, 256, 257, 511, 513, 1000, SlabAllocator.SLAB_PAGE_SIZE + 77};
+		for (int len : lens) {
+			byte[] init = content(len + 3, len);
+			Sds heap = Sds.sdsnewlen(init, 3, len);
+			Sds off = offHeap(init, 3, len);
+			Sds other = offHeap(init, 3, len);
+
+			assertEquals(heap.hashCode(), off.hashCode());
+			assertTrue(off.equals(heap) && heap.equals(off) && off.equals(other));
+			assertEquals(0, off.sdscmp(heap));
+			assertEquals(0, heap.sdscmp(off));
+			assertEquals(0, off.sdscmp(other));
+
+			if (len > 0) {
+				// 最后一个字节不同
+				byte[] changed = init.clone();
+				changed[len + 2] ^= 0x80;
+				Sds heapChanged = Sds.sdsnewlen(changed, 3, len);
+				Sds offChanged = offHeap(changed, 3, len);
+				int expected = heap.sdscmp(heapChanged);
+				assertTrue(expected != 0);
+				assertEquals(expected, off.sdscmp(heapChanged));
+				assertEquals(-expected, heapChanged.sdscmp(off));
+				assertEquals(expected, off.sdscmp(offChanged));
+				assertFalse(off.equals(heapChanged) || heapChanged.equals(off) || off.equals(offChanged));
+				offChanged.sdsfree();
+
+				// 前缀较小
+				Sds prefix = Sds.sdsnewlen(init, 3, len - 1);
+				assertTrue(off.sdscmp(prefix) > 0);
+				assertTrue(prefix.sdscmp(off) < 0);
+				assertFalse(off.equals(prefix));
+			}
+			off.sdsfree();
+			other.sdsfree();
+		}
+	}
+
+	/**
+	 * 缩短后按新的范围比较和哈希
+	 */
+	@Test
+	public void compareAndHashAfterRange() {
+		byte[] init = content(1000, 3);
+		Sds off = offHeap(init, 0, 1000);
+		off.sdsrange(37, 700);
+		Sds heap = Sds.sdsnewlen(init, 37, 664);
+		assertEquals(heap, off);
+		assertEquals(heap.hashCode(), off.hashCode());
+		assertEquals(0, heap.sdscmp(off));
+		off.sdsfree();
+	}
+}
@@ -0,0 +1,97 @@
+package com.can.data.structure.sds;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * <pre>
+ * SdsSlice 的范围调整只修改视图, 不修改共享的 buf
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-19 17:50
+ */
+public class SdsSliceTest {
+
+	private static byte[] bytes(Sds s) {
+		byte[] dst = new byte[s.sdsLen()];
+		s.sdsCopyTo(dst, 0);
+		return dst;
+	}
+
+	@Test
+	public void sliceSharesBuf() {
+		Sds base = Sds.sdsnewlen("hello world".getBytes(), 0, 11);
+		Sds slice = base.sdsslice(6, 5);
+		assertSame(base.getBuf(), slice.getBuf());
+		assertEquals(6, slice.sdsOffset());
+		assertArrayEquals("world".getBytes(), bytes(slice));
+
+		// 切片的切片按基础 buf 计算起始位置
+		Sds nested = slice.sdsslice(1, 3);
+		assertEquals(7, nested.sdsOffset());
+		assertArrayEquals("orl".getBytes(), bytes(nested));
+	}
+
+	@Test
+	public void rangeNarrowsViewOnly() {
+		byte[] buf = "xx  hello world  yy".getBytes();
+		Sds view = SdsSlice.sdsview(buf, 2, 15);
+
+		view.sdstrim(" ".getBytes());
+		assertEquals(4, view.sdsOffset());
+		assertArrayEquals("hello world".getBytes(), bytes(view));
+
+		view.sdsrange(-5, -1);
+		assertEquals(10, view.sdsOffset());
+		assertArrayEquals("world".getBytes(), bytes(view));
+
+		view.sdsrange(3, 100);
+		assertArrayEquals("ld".getBytes(), bytes(view));
+
+		view.sdsrange(5, 6);
+		assertEquals(0, view.sdsLen());
+
+		assertArrayEquals("xx  hello world  yy".getBytes(), buf);
+	}
+
+	@Test
+	public void writesCopyBeforeModifying() {
+		byte[] buf = "abcdef".getBytes();
+		Sds view = SdsSlice.sdsview(buf, 1, 3);
+
+		Sds appended = view.sdscatlen("XY".getBytes(), 0, 2);
+		assertNotSame(view, appended);
+		assertArrayEquals("bcdXY".getBytes(), bytes(appended));
+
+		Sds copied = view.sdscpy("Z".getBytes());
+		assertArrayEquals("Z".getBytes(), bytes(copied));
+
+		assertArrayEquals("bcd".getBytes(), bytes(view));
+		assertArrayEquals("abcdef".getBytes(), buf);
+	}
+
+	@Test
+	public void materializeDetachesFromBuf() {
+		byte[] buf = "abcdef".getBytes();
+		Sds view = SdsSlice.sdsview(buf, 2, 3);
+		Sds owned = view.sdsmaterialize();
+
+		buf[2] = 'Z';
+		assertArrayEquals("Zde".getBytes(), bytes(view));
+		assertArrayEquals("cde".getBytes(), bytes(owned));
+		assertEquals(0, owned.sdsOffset());
+
+		// 普通的字符串直接返回自己
+		assertSame(owned, owned.sdsmaterialize());
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void sliceOutOfRange() {
+		Sds.sdsnewlen("abc".getBytes(), 0, 3).sdsslice(2, 2);
+	}
+}
@@ -0,0 +1,147 @@
+package com.can.data.structure.sds;
+
+import com.can.data.structure.sds.enums.SdsTypeEnum;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <pre>
+ * Sds 的头部类型在 5/8/16/32 边界上的升级和降级, 长度和空间按无符号保存
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-19 17:20
+ */
+public class SdsTest {
+
+	private static byte[] content(int len) {
+		byte[] bytes = new byte[len];
+		for (int i = 0; i < len; i++) {
+			bytes[i] = (byte) (i * 31 + 7);
+		}
+		return bytes;
+	}
+
+	private static byte[] bytes(Sds s) {
+		byte[] dst = new byte[s.sdsLen()];
+		s.sdsCopyTo(dst, 0);
+		return dst;
+	}
+
+	@Test
+	public void reqTypeBoundaries() {
+		assertEquals(SdsTypeEnum.SDS_TYPE_5, Sds.sdsReqType(Sds.SDS_TYPE_5_MAX));
+		assertEquals(SdsTypeEnum.SDS_TYPE_8, Sds.sdsReqType(Sds.SDS_TYPE_5_MAX + 1));
+		assertEquals(SdsTypeEnum.SDS_TYPE_8, Sds.sdsReqType(Sds.SDS_TYPE_8_MAX));
+		assertEquals(SdsTypeEnum.SDS_TYPE_16, Sds.sdsReqType(Sds.SDS_TYPE_8_MAX + 1));
+		assertEquals(SdsTypeEnum.SDS_TYPE_16, Sds.sdsReqType(Sds.SDS_TYPE_16_MAX));
+		assertEquals(SdsTypeEnum.SDS_TYPE_32, Sds.sdsReqType(Sds.SDS_TYPE_16_MAX + 1));
+	}
+
+	/**
+	 * 每个边界上的长度都能原样读回, 8 位和 16 位的高位为 1 时也按无符号
+	 */
+	@Test
+	public void newlenKeepsUnsignedLength() {
+		int[] lens = {0, 1, 31, 32, 128, 200, 255, 256, 40000, 65535, 65536, 100000};
+		for (int len : lens) {
+			byte[] init = content(len);
+			Sds s = Sds.sdsnewlen(init, 0, len);
+			assertEquals(len, s.sdsLen());
+			assertEquals(len, s.sdsAlloc());
+			assertArrayEquals(init, bytes(s));
+			SdsTypeEnum expected = len == 0 ? SdsTypeEnum.SDS_TYPE_8 : Sds.sdsReqType(len);
+			assertEquals(expected, s.sdsType());
+		}
+	}
+
+	@Test
+	public void makeRoomPromotesHeader() {
+		// sds5 记录不了空闲空间, 有空闲空间时至少为 sds8
+		Sds s = Sds.sdsnewlen(content(10), 0, 10);
+		assertEquals(SdsTypeEnum.SDS_TYPE_5, s.sdsType());
+		s = s.sdsMakeRoomFor(1);
+		assertEquals(SdsTypeEnum.SDS_TYPE_8, s.sdsType());
+		assertEquals(10, s.sdsLen());
+		assertTrue(s.sdsavail() >= 1);
+
+		int[] boundaries = {Sds.SDS_TYPE_5_MAX, Sds.SDS_TYPE_8_MAX, Sds.SDS_TYPE_16_MAX};
+		SdsTypeEnum[] promoted = {SdsTypeEnum.SDS_TYPE_8, SdsTypeEnum.SDS_TYPE_16, SdsTypeEnum.SDS_TYPE_32};
+		for (int i = 0; i < boundaries.length; i++) {
+			int len = boundaries[i];
+			byte[] init = content(len + 1);
+			Sds t = Sds.sdsnewlen(init, 0, len);
+			t = t.sdscatlen(init, len, 1);
+			assertEquals(promoted[i], t.sdsType());
+			assertEquals(len + 1, t.sdsLen());
+			assertTrue(t.sdsAlloc() >= len + 1);
+			assertArrayEquals(init, bytes(t));
+		}
+	}
+
+	@Test
+	public void makeRoomKeepsTypeWhenAllocFits() {
+		Sds s = Sds.sdsnewlen(content(40), 0, 40);
+		assertEquals(SdsTypeEnum.SDS_TYPE_8, s.sdsType());
+		Sds grown = s.sdsMakeRoomFor(10);
+		assertSame(s, grown);
+		assertEquals(100, grown.sdsAlloc());
+		assertEquals(40, grown.sdsLen());
+	}
+
+	@Test
+	public void removeFreeSpaceDemotesHeader() {
+		int[] lens = {20, 200, 60000};
+		SdsTypeEnum[] demoted = {SdsTypeEnum.SDS_TYPE_5, SdsTypeEnum.SDS_TYPE_8, SdsTypeEnum.SDS_TYPE_16};
+		for (int i = 0; i < lens.length; i++) {
+			int len = lens[i];
+			byte[] init = content(len);
+			Sds s = Sds.sdsnewlen(init, 0, len).sdsMakeRoomFor(70000);
+			assertEquals(SdsTypeEnum.SDS_TYPE_32, s.sdsType());
+
+			s = s.sdsRemoveFreeSpace();
+			assertEquals(demoted[i], s.sdsType());
+			assertEquals(len, s.sdsLen());
+			assertEquals(len, s.sdsAlloc());
+			assertArrayEquals(init, bytes(s));
+		}
+	}
+
+	@Test
+	public void appendAcrossAllBoundaries() {
+		byte[] init = content(70000);
+		Sds s = Sds.sdsempty();
+		for (int off = 0; off < init.length; off += 97) {
+			s = s.sdscatlen(init, off, Math.min(97, init.length - off));
+			assertEquals(Math.min(off + 97, init.length), s.sdsLen());
+		}
+		assertEquals(SdsTypeEnum.SDS_TYPE_32, s.sdsType());
+		assertArrayEquals(init, bytes(s));
+	}
+
+	@Test
+	public void rangeAndTrimKeepType() {
+		Sds s = Sds.sdsnewlen("  hello world  ".getBytes(), 0, 15);
+		s.sdstrim(" ".getBytes());
+		assertArrayEquals("hello world".getBytes(), bytes(s));
+		s.sdsrange(-5, -1);
+		assertArrayEquals("world".getBytes(), bytes(s));
+		s.sdsrange(10, 20);
+		assertEquals(0, s.sdsLen());
+	}
+
+	@Test
+	public void growzeroClearsStaleBytes() {
+		Sds s = Sds.sdsnewlen(content(50), 0, 50);
+		s.sdsrange(0, 9);
+		s = s.sdsgrowzero(30);
+		byte[] expected = Arrays.copyOf(content(10), 30);
+		assertArrayEquals(expected, bytes(s));
+	}
+}
@@ -0,0 +1,128 @@
+package com.can.data.structure.sds;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <pre>
+ * SlabAllocator 的块和页的重用, 以及跨页的大块的读写
+ * 分配器是全局的, 只断言操作前后的变化
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-19 18:05
+ */
+public class SlabAllocatorTest {
+
+	private final static int PAGE = SlabAllocator.SLAB_PAGE_SIZE;
+
+	private static long stat(String name) {
+		String info = SlabAllocator.genInfoString(new StringBuilder()).toString();
+		for (String line : info.split("\r\n")) {
+			if (line.startsWith(name + ":")) {
+				return Long.parseLong(line.substring(name.length() + 1));
+			}
+		}
+		throw new IllegalArgumentException(name);
+	}
+
+	private static byte[] content(int len, int seed) {
+		byte[] bytes = new byte[len];
+		new Random(seed).nextBytes(bytes);
+		return bytes;
+	}
+
+	@Test
+	public void freedChunkIsReused() {
+		long handle = SlabAllocator.allocate(100);
+		long other = SlabAllocator.allocate(100);
+		assertNotEquals(handle, other);
+
+		SlabAllocator.free(handle, 100);
+		// 同一分级内的大小都使用这个块
+		assertEquals(handle, SlabAllocator.allocate(97));
+
+		SlabAllocator.free(handle, 97);
+		SlabAllocator.free(other, 100);
+	}
+
+	@Test
+	public void freedHugePagesAreReused() {
+		long handle = SlabAllocator.allocate(2 * PAGE + 1);
+		long directBytes = stat("slab_direct_bytes");
+		long freePages = stat("slab_free_pages");
+
+		SlabAllocator.free(handle, 2 * PAGE + 1);
+		assertEquals(freePages + 3, stat("slab_free_pages"));
+
+		// 重复申请和释放大块不再申请新的页
+		for (int i = 0; i < 20; i++) {
+			int size = PAGE + 1 + i * (PAGE / 10);
+			long h = SlabAllocator.allocate(size);
+			assertTrue(h != -1);
+			SlabAllocator.free(h, size);
+		}
+		assertEquals(directBytes, stat("slab_direct_bytes"));
+
+		// 分级也使用空闲的页
+		long[] chunks = new long[3];
+		for (int i = 0; i < chunks.length; i++) {
+			chunks[i] = SlabAllocator.allocate(PAGE);
+		}
+		assertEquals(directBytes, stat("slab_direct_bytes"));
+		for (long chunk : chunks) {
+			SlabAllocator.free(chunk, PAGE);
+		}
+	}
+
+	@Test
+	public void hugeValueAcrossPages() {
+		int len = 2 * PAGE + 12345;
+		byte[] init = content(len, 5);
+		Sds s = SdsOffHeap.sdsnewoffheap(Sds.sdsnewlen(init, 0, len));
+		assertTrue(s instanceof SdsOffHeap);
+		assertEquals(len, s.sdsLen());
+
+		byte[] copied = new byte[len];
+		s.sdsCopyTo(copied, 0);
+		assertArrayEquals(init, copied);
+
+		ByteBuffer dst = ByteBuffer.allocate(len + 1);
+		dst.put((byte) 1);
+		s.sdsCopyTo(dst);
+		assertEquals(len + 1, dst.position());
+		dst.flip().position(1);
+		assertEquals(ByteBuffer.wrap(init), dst);
+
+		for (int index : new int[]{0, PAGE - 1, PAGE, 2 * PAGE, len - 1}) {
+			assertEquals(init[index], s.pos(index));
+		}
+
+		// 跨越页边界的切片
+		Sds slice = s.sdsslice(PAGE - 10, 20);
+		byte[] expected = new byte[20];
+		System.arraycopy(init, PAGE - 10, expected, 0, 20);
+		assertArrayEquals(expected, slice.getBuf());
+
+		long used = stat("slab_used_bytes");
+		s.sdsfree();
+		assertEquals(used - len, stat("slab_used_bytes"));
+	}
+
+	@Test
+	public void smallValueRoundTrip() {
+		byte[] init = content(1000, 6);
+		Sds s = SdsOffHeap.sdsnewoffheap(SdsSlice.sdsview(init, 100, 800));
+		assertEquals(800, s.sdsLen());
+		assertEquals(Sds.sdsnewlen(init, 100, 800), s);
+		assertEquals(Sds.sdsnewlen(init, 100, 800).hashCode(), s.hashCode());
+		s.sdsfree();
+	}
+}
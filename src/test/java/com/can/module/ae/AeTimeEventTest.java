@@ -0,0 +1,192 @@
+package com.can.module.ae;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * <pre>
+ * 时间事件的创建, 删除和处理 (aeCreateTimeEvent, aeDeleteTimeEvent, processTimeEvents)
+ *
+ * 时间事件都是 0 毫秒后执行, 每次调用 processTimeEvents 都已经到期
+ * 删除的时间事件和 Redis 一样在下次处理时才清理, 执行结束函数
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-19 20:05
+ */
+public class AeTimeEventTest {
+
+	private AeEventLoop eventLoop;
+
+	@Before
+	public void setUp() throws Exception {
+		eventLoop = Ae.aeCreateEventLoop(16);
+	}
+
+	@After
+	public void tearDown() {
+		eventLoop.getApi().aeApiFree(eventLoop);
+		eventLoop.getTimeEventHeap().clear();
+	}
+
+	@Test
+	public void deleteInsideOwnProcDefersReap() {
+		AtomicInteger runs = new AtomicInteger();
+		AtomicInteger finalized = new AtomicInteger();
+		long id = Ae.aeCreateTimeEvent(eventLoop, 0, (el, teId, clientData) -> {
+			runs.incrementAndGet();
+			assertEquals(AeConstants.AE_OK, Ae.aeDeleteTimeEvent(el, teId));
+			// 执行函数还没有返回, 不能执行结束函数
+			assertEquals(0, finalized.get());
+			return 0;
+		}, null, (el, clientData) -> finalized.incrementAndGet());
+
+		assertEquals(1, Ae.processTimeEvents(eventLoop));
+		assertEquals(1, runs.get());
+		// 本次处理不清理
+		assertEquals(0, finalized.get());
+		assertEquals(1, eventLoop.getTimeEventHeap().size());
+		assertEquals(AeConstants.AE_ERR, Ae.aeDeleteTimeEvent(eventLoop, id));
+
+		// 下次处理时清理, 执行函数不再执行
+		assertEquals(0, Ae.processTimeEvents(eventLoop));
+		assertEquals(1, runs.get());
+		assertEquals(1, finalized.get());
+		assertEquals(0, eventLoop.getTimeEventHeap().size());
+	}
+
+	@Test
+	public void finalizerRunsExactlyOnce() {
+		AtomicInteger runs = new AtomicInteger();
+		List<Object> finalized = new ArrayList<>();
+		Object clientData = new Object();
+		long id = Ae.aeCreateTimeEvent(eventLoop, 60000, (el, teId, data) -> {
+			runs.incrementAndGet();
+			return 0;
+		}, clientData, (el, data) -> finalized.add(data));
+
+		// 在处理之外删除, 提前到堆顶, 下次处理时清理
+		assertEquals(AeConstants.AE_OK, Ae.aeDeleteTimeEvent(eventLoop, id));
+		assertEquals(AeConstants.AE_ERR, Ae.aeDeleteTimeEvent(eventLoop, id));
+		assertEquals(0, Ae.processTimeEvents(eventLoop));
+		assertEquals(0, runs.get());
+
+		for (int i = 0; i < 3; i++) {
+			Ae.processTimeEvents(eventLoop);
+		}
+		assertEquals(1, finalized.size());
+		assertEquals(clientData, finalized.get(0));
+		assertEquals(AeConstants.AE_ERR, Ae.aeDeleteTimeEvent(eventLoop, id));
+	}
+
+	@Test
+	public void nomoreDeletesEvent() {
+		AtomicInteger runs = new AtomicInteger();
+		AtomicInteger finalized = new AtomicInteger();
+		long id = Ae.aeCreateTimeEvent(eventLoop, 0, (el, teId, clientData) -> {
+			runs.incrementAndGet();
+			return AeConstants.AE_NOMORE;
+		}, null, (el, clientData) -> finalized.incrementAndGet());
+
+		assertEquals(1, Ae.processTimeEvents(eventLoop));
+		assertEquals(0, finalized.get());
+		assertEquals(AeConstants.AE_ERR, Ae.aeDeleteTimeEvent(eventLoop, id));
+
+		for (int i = 0; i < 3; i++) {
+			Ae.processTimeEvents(eventLoop);
+		}
+		assertEquals(1, runs.get());
+		assertEquals(1, finalized.get());
+		assertEquals(0, eventLoop.getTimeEventHeap().size());
+	}
+
+	@Test
+	public void eventCreatedInPassFiresNextPass() {
+		List<String> fired = new ArrayList<>();
+		Ae.aeCreateTimeEvent(eventLoop, 0, (el, teId, clientData) -> {
+			fired.add("outer");
+			Ae.aeCreateTimeEvent(el, 0, (el2, innerId, data) -> {
+				fired.add("inner");
+				return AeConstants.AE_NOMORE;
+			}, null, null);
+			return AeConstants.AE_NOMORE;
+		}, null, null);
+
+		assertEquals(1, Ae.processTimeEvents(eventLoop));
+		assertEquals(1, fired.size());
+
+		assertEquals(1, Ae.processTimeEvents(eventLoop));
+		assertEquals(2, fired.size());
+		assertEquals("inner", fired.get(1));
+	}
+
+	/**
+	 * 重新调度后仍然到期的时间事件, 一次处理只执行一次
+	 */
+	@Test
+	public void periodicEventRunsOncePerPass() {
+		AtomicInteger runs = new AtomicInteger();
+		Ae.aeCreateTimeEvent(eventLoop, 0, (el, teId, clientData) -> {
+			runs.incrementAndGet();
+			return 0;
+		}, null, null);
+
+		for (int i = 1; i <= 3; i++) {
+			assertEquals(1, Ae.processTimeEvents(eventLoop));
+			assertEquals(i, runs.get());
+		}
+	}
+
+	/**
+	 * 在一个时间事件的执行函数中删除另一个本次处理新增的时间事件
+	 */
+	@Test
+	public void deleteEventCreatedInSamePass() {
+		AtomicInteger finalized = new AtomicInteger();
+		AtomicInteger innerRuns = new AtomicInteger();
+		Ae.aeCreateTimeEvent(eventLoop, 0, (el, teId, clientData) -> {
+			long inner = Ae.aeCreateTimeEvent(el, 0, (el2, innerId, data) -> {
+				innerRuns.incrementAndGet();
+				return 0;
+			}, null, (el2, data) -> finalized.incrementAndGet());
+			Ae.aeDeleteTimeEvent(el, inner);
+			return AeConstants.AE_NOMORE;
+		}, null, null);
+
+		for (int i = 0; i < 3; i++) {
+			Ae.processTimeEvents(eventLoop);
+		}
+		assertEquals(0, innerRuns.get());
+		assertEquals(1, finalized.get());
+		assertEquals(0, eventLoop.getTimeEventHeap().size());
+	}
+
+	/**
+	 * id 索引扩容和删除后, 每个时间事件都还能按 id 找到
+	 */
+	@Test
+	public void manyEventsDeletedById() {
+		AtomicInteger finalized = new AtomicInteger();
+		long[] ids = new long[1000];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = Ae.aeCreateTimeEvent(eventLoop, 60000, (el, teId, clientData) -> 0, null,
+				(el, clientData) -> finalized.incrementAndGet());
+		}
+		for (int i = 0; i < ids.length; i += 2) {
+			assertEquals(AeConstants.AE_OK, Ae.aeDeleteTimeEvent(eventLoop, ids[i]));
+		}
+		for (int i = 1; i < ids.length; i += 2) {
+			assertEquals(AeConstants.AE_OK, Ae.aeDeleteTimeEvent(eventLoop, ids[i]));
+		}
+		Ae.processTimeEvents(eventLoop);
+		assertEquals(ids.length, finalized.get());
+		assertEquals(0, eventLoop.getTimeEventHeap().size());
+	}
+}
@@ -0,0 +1,144 @@
+package com.can.module.ae.event;
+
+import com.can.module.ae.AeConstants;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <pre>
+ * AeTimeEventHeap 的堆顺序和 id 索引
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-19 17:05
+ */
+public class AeTimeEventHeapTest {
+
+	private static AeTimeEvent event(long id, long when) {
+		AeTimeEvent te = new AeTimeEvent();
+		te.setId(id);
+		te.setWhen(when);
+		return te;
+	}
+
+	/**
+	 * 依次取出堆顶, 执行时间不递减, 取出后 heapIndex 为 -1
+	 */
+	private static List<AeTimeEvent> drain(AeTimeEventHeap heap) {
+		List<AeTimeEvent> events = new ArrayList<>();
+		long last = Long.MIN_VALUE;
+		AeTimeEvent te;
+		while ((te = heap.peek()) != null) {
+			assertEquals(0, te.getHeapIndex());
+			assertSame(te, heap.poll());
+			assertTrue(te.getWhen() >= last);
+			assertEquals(-1, te.getHeapIndex());
+			last = te.getWhen();
+			events.add(te);
+		}
+		return events;
+	}
+
+	@Test
+	public void pollInWhenOrder() {
+		AeTimeEventHeap heap = new AeTimeEventHeap();
+		Random random = new Random(1);
+		for (int i = 0; i < 1000; i++) {
+			heap.add(event(i, random.nextInt(100)));
+		}
+		assertEquals(1000, heap.size());
+		assertEquals(1000, drain(heap).size());
+		assertEquals(0, heap.size());
+		assertNull(heap.poll());
+	}
+
+	@Test
+	public void updateMovesEvent() {
+		AeTimeEventHeap heap = new AeTimeEventHeap();
+		List<AeTimeEvent> events = new ArrayList<>();
+		for (int i = 0; i < 64; i++) {
+			AeTimeEvent te = event(i, 100 + i);
+			events.add(te);
+			heap.add(te);
+		}
+
+		// 最后一个提前到堆顶
+		AeTimeEvent last = events.get(63);
+		last.setWhen(0);
+		heap.update(last);
+		assertSame(last, heap.peek());
+
+		// 堆顶延后到最后
+		last.setWhen(1000);
+		heap.update(last);
+		assertSame(events.get(0), heap.peek());
+
+		Random random = new Random(2);
+		for (int i = 0; i < 500; i++) {
+			AeTimeEvent te = events.get(random.nextInt(events.size()));
+			te.setWhen(random.nextInt(1000));
+			heap.update(te);
+		}
+		assertEquals(64, drain(heap).size());
+	}
+
+	@Test
+	public void updateIgnoresEventNotInHeap() {
+		AeTimeEventHeap heap = new AeTimeEventHeap();
+		AeTimeEvent te = event(1, 10);
+		heap.add(te);
+		heap.add(event(2, 20));
+		assertSame(te, heap.poll());
+
+		te.setWhen(0);
+		heap.update(te);
+		assertEquals(1, heap.size());
+		assertEquals(2, heap.peek().getId());
+	}
+
+	@Test
+	public void unindexKeepsEventInHeap() {
+		AeTimeEventHeap heap = new AeTimeEventHeap();
+		AeTimeEvent te = event(7, 10);
+		heap.add(te);
+		heap.add(event(8, 20));
+
+		assertSame(te, heap.get(7));
+		assertSame(te, heap.unindex(7));
+		assertNull(heap.get(7));
+		assertNull(heap.unindex(7));
+
+		// 等待事件轮询删除, 仍然在堆中
+		assertEquals(2, heap.size());
+		assertSame(te, heap.poll());
+		assertSame(heap.peek(), heap.get(8));
+	}
+
+	@Test
+	public void deletedEventIsNotIndexed() {
+		AeTimeEventHeap heap = new AeTimeEventHeap();
+		heap.add(event(AeConstants.AE_DELETED_EVENT_ID, 10));
+		assertEquals(1, heap.size());
+		assertNull(heap.get(AeConstants.AE_DELETED_EVENT_ID));
+	}
+
+	@Test
+	public void clearResetsHeapAndIndex() {
+		AeTimeEventHeap heap = new AeTimeEventHeap();
+		for (int i = 0; i < 40; i++) {
+			heap.add(event(i, i));
+		}
+		heap.clear();
+		assertEquals(0, heap.size());
+		assertNull(heap.peek());
+		assertNull(heap.get(3));
+	}
+}
@@ -0,0 +1,271 @@
+package com.can.module.networking;
+
+import com.can.data.structure.sds.Sds;
+import com.can.module.server.RedisServerConstants;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <pre>
+ * 查询缓冲区的增量解析 (processInputBuffer)
+ *
+ * 客户端带上 CLIENT_PENDING_READ (IO 线程读取时的状态), 每解析出一条命令就停下, 标记 CLIENT_PENDING_COMMAND, 不执行命令,
+ * 测试读取参数视图后重置客户端, 继续解析缓冲区中剩下的数据
+ * </pre>
+ *
+ * @author lcn29
+ * @date 2026-10-19 19:10
+ */
+public class NetworkingParserTest {
+
+	private static RedisClient newClient() {
+		RedisClient client = new RedisClient();
+		client.setFlags(RedisServerConstants.CLIENT_PENDING_READ);
+		return client;
+	}
+
+	private static byte[] bytes(String s) {
+		return s.getBytes(StandardCharsets.US_ASCII);
+	}
+
+	private static List<String> argv(String... args) {
+		return Arrays.asList(args);
+	}
+
+	/**
+	 * 和 readQueryFromClient 相同, 先准备查询缓冲区, 再写入数据并解析, 解析出来的命令依次放入 commands
+	 */
+	private static void feed(RedisClient client, byte[] data, int from, int to, List<List<String>> commands) {
+		while (from < to) {
+			ByteBuffer querybuf = Networking.prepareQueryBuffer(client);
+			assertNotNull(querybuf);
+			int n = Math.min(to - from, querybuf.remaining());
+			querybuf.put(data, from, n);
+			from += n;
+			Networking.processInputBuffer(client);
+			drain(client, commands);
+		}
+	}
+
+	private static void drain(RedisClient client, List<List<String>> commands) {
+		while ((client.getFlags() & RedisServerConstants.CLIENT_PENDING_COMMAND) != 0) {
+			List<String> args = new ArrayList<>();
+			for (int i = 0; i < client.getArgc(); i++) {
+				args.add(ClientArgv.argToString(client, i));
+			}
+			commands.add(args);
+			client.setFlags(client.getFlags() & ~RedisServerConstants.CLIENT_PENDING_COMMAND);
+			Networking.resetClient(client);
+			Networking.processInputBuffer(client);
+		}
+	}
+
+	private static String reply(RedisClient client) {
+		ByteBuffer buf = client.getBuf().duplicate();
+		buf.flip();
+		byte[] dst = new byte[buf.remaining()];
+		buf.get(dst);
+		return new String(dst, StandardCharsets.US_ASCII);
+	}
+
+	@Test
+	public void pipelineParsedInOnePass() {
+		byte[] data = bytes("*3\r\n$3\r\nSET\r\n$1\r\nk\r\n$5\r\nhello\r\n*2\r\n$3\r\nGET\r\n$1\r\nk\r\nPING\r\n");
+		RedisClient client = newClient();
+		ByteBuffer querybuf = Networking.prepareQueryBuffer(client);
+		querybuf.put(data);
+		Networking.processInputBuffer(client);
+
+		// 参数是查询缓冲区的视图
+		assertEquals(3, client.getArgc());
+		assertArrayEquals(new int[]{8, 17, 24}, Arrays.copyOf(client.getArgvOffsets(), 3));
+		assertArrayEquals(new int[]{3, 1, 5}, Arrays.copyOf(client.getArgvLens(), 3));
+		assertEquals(31, client.getQbPos());
+		assertEquals(Sds.sdsnewlen(bytes("k"), 0, 1), ClientArgv.argLookupSds(client, 1));
+		assertEquals(Sds.sdsnewlen(bytes("hello"), 0, 5), ClientArgv.argToSds(client, 2));
+
+		client.setFlags(client.getFlags() & ~RedisServerConstants.CLIENT_PENDING_COMMAND);
+		Networking.resetClient(client);
+		Networking.processInputBuffer(client);
+		assertEquals(2, client.getArgc());
+		assertArrayEquals(new int[]{39, 48}, Arrays.copyOf(client.getArgvOffsets(), 2));
+		assertArrayEquals(new int[]{3, 1}, Arrays.copyOf(client.getArgvLens(), 2));
+
+		client.setFlags(client.getFlags() & ~RedisServerConstants.CLIENT_PENDING_COMMAND);
+		Networking.resetClient(client);
+		Networking.processInputBuffer(client);
+		assertEquals(1, client.getArgc());
+		assertEquals(51, client.getArgvOffsets()[0]);
+		assertEquals(4, client.getArgvLens()[0]);
+		assertEquals(data.length, client.getQbPos());
+
+		// 全部处理完后查询缓冲区还给缓冲区池
+		client.setFlags(client.getFlags() & ~RedisServerConstants.CLIENT_PENDING_COMMAND);
+		Networking.resetClient(client);
+		Networking.processInputBuffer(client);
+		assertNull(client.getQuerybuf());
+		assertEquals(0, client.getQbPos());
+	}
+
+	/**
+	 * 同一段数据在任意位置分成 2 次读取, 解析的结果都相同
+	 */
+	@Test
+	public void frameSplitAtEveryByte() {
+		byte[] data = bytes("*3\r\n$3\r\nSET\r\n$4\r\na\r\nb\r\n$0\r\n\r\n"
+			+ "GET  a\r\nb\r\n"
+			+ "\r\n"
+			+ "*0\r\n"
+			+ "*2\r\n$4\r\nECHO\r\n$12\r\n0123456789ab\r\n"
+			+ "PING\n");
+		List<List<String>> expected = Arrays.asList(
+			argv("SET", "a\r\nb", ""),
+			argv("GET", "a"),
+			argv("b"),
+			argv("ECHO", "0123456789ab"),
+			argv("PING"));
+
+		List<List<String>> whole = new ArrayList<>();
+		feed(newClient(), data, 0, data.length, whole);
+		assertEquals(expected, whole);
+
+		for (int split = 1; split < data.length; split++) {
+			RedisClient client = newClient();
+			List<List<String>> commands = new ArrayList<>();
+			feed(client, data, 0, split, commands);
+			feed(client, data, split, data.length, commands);
+			assertEquals("split at " + split, expected, commands);
+			assertNull(client.getQuerybuf());
+		}
+	}
+
+	@Test
+	public void frameFedOneByteAtATime() {
+		byte[] data = bytes("*2\r\n$3\r\nGET\r\n$10\r\nkey:000001\r\nINFO server\r\n*1\r\n$4\r\nPING\r\n");
+		RedisClient client = newClient();
+		List<List<String>> commands = new ArrayList<>();
+		for (int i = 0; i < data.length; i++) {
+			feed(client, data, i, i + 1, commands);
+		}
+		assertEquals(Arrays.asList(argv("GET", "key:000001"), argv("INFO", "server"), argv("PING")), commands);
+	}
+
+	/**
+	 * 大参数直接读取到 sds 中, 前面的参数视图在查询缓冲区移动后调整
+	 */
+	@Test
+	public void bigArgumentAcrossReads() {
+		int bigLen = RedisServerConstants.PROTO_MBULK_BIG_ARG + 7000;
+		byte[] big = new byte[bigLen];
+		for (int i = 0; i < bigLen; i++) {
+			big[i] = (byte) ('a' + i % 26);
+		}
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(bytes("*3\r\n$3\r\nSET\r\n$3\r\nkey\r\n$" + bigLen + "\r\n"), 0, 25 + String.valueOf(bigLen).length());
+		out.write(big, 0, bigLen);
+		out.write(bytes("\r\n*1\r\n$4\r\nPING\r\n"), 0, 16);
+		byte[] data = out.toByteArray();
+
+		for (int chunk : new int[]{7, 1000, 9000}) {
+			RedisClient client = newClient();
+			List<List<String>> commands = new ArrayList<>();
+			for (int from = 0; from < data.length; from += chunk) {
+				feed(client, data, from, Math.min(data.length, from + chunk), commands);
+			}
+			assertEquals(Arrays.asList(argv("SET", "key", new String(big, StandardCharsets.US_ASCII)), argv("PING")), commands);
+		}
+
+		// 大参数是单独的 sds, 不是查询缓冲区的视图
+		RedisClient client = newClient();
+		Networking.prepareQueryBuffer(client);
+		for (int from = 0; (client.getFlags() & RedisServerConstants.CLIENT_PENDING_COMMAND) == 0; ) {
+			ByteBuffer querybuf = Networking.prepareQueryBuffer(client);
+			int n = Math.min(data.length - from, querybuf.remaining());
+			querybuf.put(data, from, n);
+			from += n;
+			Networking.processInputBuffer(client);
+		}
+		assertEquals(3, client.getArgc());
+		assertNull(client.getArgvSds()[1]);
+		assertEquals(Sds.sdsnewlen(big, 0, bigLen), client.getArgvSds()[2]);
+		assertEquals(bigLen, ClientArgv.argLen(client, 2));
+	}
+
+	/**
+	 * 移走已经处理过的数据时, 从第一个参数视图开始保留, 视图的位置一起调整
+	 */
+	@Test
+	public void queryBufferShiftKeepsArgumentViews() {
+		byte[] data = bytes("*1\r\n$4\r\nPING\r\n*2\r\n$3\r\nGET\r\n$1");
+		RedisClient client = newClient();
+		List<List<String>> commands = new ArrayList<>();
+		feed(client, data, 0, data.length, commands);
+		assertEquals(Arrays.asList(argv("PING")), commands);
+
+		// GET 已经解析出来, 等待 k
+		assertEquals(1, client.getArgc());
+		assertEquals(22, client.getArgvOffsets()[0]);
+		int keep = Networking.queryBufferKeepOffset(client);
+		assertEquals(22, keep);
+
+		ByteBuffer querybuf = client.getQuerybuf();
+		querybuf.flip();
+		querybuf.position(keep);
+		querybuf.compact();
+		Networking.shiftQueryBufferOffsets(client, keep);
+		assertEquals(0, client.getArgvOffsets()[0]);
+		// 解析停在还不完整的 $1
+		assertEquals(27 - keep, client.getQbPos());
+		assertEquals("GET", ClientArgv.argToString(client, 0));
+
+		byte[] rest = bytes("\r\nk\r\n");
+		feed(client, rest, 0, rest.length, commands);
+		assertEquals(argv("GET", "k"), commands.get(1));
+	}
+
+	@Test
+	public void protocolErrors() {
+		String[][] cases = {
+			{"*a\r\n", "invalid multibulk length"},
+			{"*1\r\n+foo\r\n", "expected '$', got '+'"},
+			{"*1\r\n$-5\r\n", "invalid bulk length"},
+			{"*" + (RedisServerConstants.PROTO_MBULK_MAX_LEN + 1) + "\r\n", "invalid multibulk length"},
+		};
+		for (String[] c : cases) {
+			// 错误后面的数据全部丢弃
+			byte[] data = bytes(c[0] + "*1\r\n$4\r\nPING\r\n");
+			RedisClient client = newClient();
+			List<List<String>> commands = new ArrayList<>();
+			feed(client, data, 0, data.length, commands);
+
+			assertTrue(commands.isEmpty());
+			assertTrue((client.getFlags() & RedisServerConstants.CLIENT_CLOSE_AFTER_REPLY) != 0);
+			assertEquals("-ERR Protocol error: " + c[1] + "\r\n", reply(client));
+		}
+	}
+
+	@Test
+	public void tooBigInlineRequest() {
+		byte[] data = new byte[RedisServerConstants.PROTO_INLINE_MAX_SIZE + 10];
+		Arrays.fill(data, (byte) 'x');
+		RedisClient client = newClient();
+		List<List<String>> commands = new ArrayList<>();
+		feed(client, data, 0, data.length, commands);
+
+		assertTrue(commands.isEmpty());
+		assertEquals("-ERR Protocol error: too big inline request\r\n", reply(client));
+	}
+}